@@ -0,0 +1,55 @@
+package suncertify.db;
+
+import java.io.Serializable;
+
+/**
+ * The records that were created, updated or deleted after a change sequence of {@link Data Data}, which is returned to a client so that
+ * it may bring the records that it holds up to date without reading every record again.
+ * A client passes the {@link #getSequence() sequence} of each change set to the next call, and so receives each change once.
+ * The sequence is also the version of each record that the change set holds, which a client may pass to
+ * {@link Data#readIfModified(int[], long[]) readIfModified} to read the record again only if it has changed.
+ *
+ * @see Data#changesSince(long, String[], boolean)
+ * @see Data#readIfModified(int[], long[])
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface ChangeSet extends Serializable
+{
+    /**
+     * The sequence of a client that holds no records, which is never known to the server, so that every matching record is returned.
+     */
+    public final static long NO_SEQUENCE = -1L;
+
+    /**
+     * Returns the change sequence of the server when the change set was made, which is passed to the next call to receive
+     * the changes that are made after it.
+     *
+     * @return The change sequence of the server when the change set was made.
+     */
+    public long getSequence();
+
+    /**
+     * Returns whether or not the change set holds every record that matches the criteria, rather than only the records that changed.
+     * This is so when the given sequence was not known to the server, such as when the server has been restarted, in which case
+     * the client should discard every record that it holds.
+     *
+     * @return <code>true</code> if the change set holds every matching record, <code>false</code> if it holds only the changes.
+     */
+    public boolean isReset();
+
+    /**
+     * Returns the records that were created or updated, and that match the criteria.
+     *
+     * @return The records that were created or updated, and that match the criteria.
+     */
+    public RecordBatch getRecords();
+
+    /**
+     * Returns the numbers of the records that were deleted, or that were updated and no longer match the criteria, which the client
+     * should discard.
+     *
+     * @return The numbers of the records that the client should discard, in ascending order.
+     */
+    public int[] getRemovedRecordNumbers();
+}
@@ -0,0 +1,73 @@
+package suncertify.db;
+
+/**
+ * An implementation of {@link ChangeSet ChangeSet} that holds the change sequence, the records that changed and the numbers
+ * of the records that were removed.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class ChangeSetImpl implements ChangeSet
+{
+    private long sequence;
+    private boolean reset;
+    private RecordBatch records;
+    private int[] removed;
+
+    /**
+     * Constructs a <tt>ChangeSetImpl</tt> with the given sequence, records and removed record numbers.
+     *
+     * @param sequence The change sequence of the server when the change set was made.
+     * @param reset <code>true</code> if the records are every record that matches the criteria, <code>false</code> if they are
+     * only the records that changed.
+     * @param records The records that were created or updated, and that match the criteria.
+     * @param removed The numbers of the records that were deleted, or that no longer match the criteria.
+     */
+    public ChangeSetImpl(long sequence, boolean reset, RecordBatch records, int[] removed)
+    {
+        this.sequence = sequence;
+        this.reset = reset;
+        this.records = records;
+        this.removed = removed;
+    }
+
+    /**
+     * Returns the change sequence of the server when the change set was made.
+     *
+     * @return The change sequence of the server when the change set was made.
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Returns whether or not the change set holds every record that matches the criteria, rather than only the records that changed.
+     *
+     * @return <code>true</code> if the change set holds every matching record, <code>false</code> if it holds only the changes.
+     */
+    public boolean isReset()
+    {
+        return reset;
+    }
+
+    /**
+     * Returns the records that were created or updated, and that match the criteria.
+     *
+     * @return The records that were created or updated, and that match the criteria.
+     */
+    public RecordBatch getRecords()
+    {
+        return records;
+    }
+
+    /**
+     * Returns the numbers of the records that were deleted, or that no longer match the criteria.
+     *
+     * @return The numbers of the records that were deleted, or that no longer match the criteria.
+     */
+    public int[] getRemovedRecordNumbers()
+    {
+        return removed;
+    }
+}
@@ -1,20 +1,44 @@
 package suncertify.db;
 
-import suncertify.db.server.RecordLockManager;
+import suncertify.db.server.LeasedRecordLockManager;
+import suncertify.db.server.LockConstants;
 import suncertify.db.server.RecordMatcherFactory;
-import suncertify.db.server.RecordLockManagerImpl;
+import suncertify.db.server.ConcurrentRecordLockManagerImpl;
 import suncertify.db.server.RecordMatcherFactoryImpl;
 import suncertify.db.server.RecordMatcher;
+import suncertify.db.server.Cursor;
+import suncertify.db.server.CursorManager;
+import suncertify.db.server.CursorManagerImpl;
+import suncertify.db.server.SubscriptionManager;
+import suncertify.db.server.SubscriptionManagerImpl;
+import suncertify.db.server.ChangeLog;
+import suncertify.db.server.ChangeLogImpl;
 import suncertify.db.datafile.DataFileFactory;
-import suncertify.db.datafile.DataFileFactoryImpl;
+import suncertify.db.datafile.ChannelDataFileFactoryImpl;
 import suncertify.db.datafile.DataFile;
 import suncertify.db.datafile.DataFileHeader;
+import suncertify.db.datafile.FieldSchema;
+import suncertify.db.datafile.RecordIterator;
+import suncertify.db.index.KeyIndex;
+import suncertify.db.index.KeyIndexImpl;
+import suncertify.db.index.KeyIndexFile;
+import suncertify.db.index.KeyIndexFileImpl;
+import suncertify.db.index.FieldIndexConstants;
+import suncertify.db.index.FieldIndex;
+import suncertify.db.index.FieldIndexFactory;
+import suncertify.db.index.FieldIndexFactoryImpl;
+import suncertify.db.index.RecordBitmap;
+import suncertify.db.index.QueryPlan;
+import suncertify.db.index.QueryPlanner;
+import suncertify.db.index.QueryPlannerImpl;
 
 import java.io.IOException;
 import java.io.FileNotFoundException;
 import java.io.File;
 import java.util.List;
 import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.ArrayList;
 
 /**
  * This class is used as the exposed remote API to clients.
@@ -28,9 +52,20 @@ public class Data implements DB
 {
     private static final int[] KEY_INDICIES = new int[]{0, 1};
 
-    private RecordLockManager lockManager;
+    private LeasedRecordLockManager lockManager;
     private DataFileFactory datafileFactory;
     private RecordMatcherFactory recordMatcherFactory;
+    private KeyIndex keyIndex;
+    private KeyIndexFile keyIndexFile;
+    private Object appendLock;
+    private FieldIndexFactory fieldIndexFactory;
+    private FieldIndex[] fieldIndexes;
+    private RecordBitmap tombstones;
+    private QueryPlanner queryPlanner;
+    private CursorManager cursorManager;
+    private List changeListeners;
+    private SubscriptionManager subscriptionManager;
+    private ChangeLog changeLog;
 
     /**
      * Construct a <code>Data</code> object that allows manipulation of the back-end data
@@ -39,14 +74,62 @@ public class Data implements DB
      *
      * @param dataFilename The name of the file containing the data to provide the interface to.
      * @throws FileNotFoundException If the data file does not exist, is a directory, cannot be read or cannot be written to.
+     * @throws IllegalStateException If the data file cannot be read to build the index of unique keys.
      */
-    public Data(String dataFilename) throws FileNotFoundException
+    public Data(String dataFilename) throws FileNotFoundException, IllegalStateException
+    {
+        this(dataFilename, new ChannelDataFileFactoryImpl(dataFilename), new FieldIndexFactoryImpl());
+    }
+
+    /**
+     * Construct a <code>Data</code> object that allows manipulation of the back-end data
+     * in the given data file name, where the data file is accessed through the given {@link DataFileFactory DataFileFactory}.
+     * This allows a choice of the {@link DataFile DataFile} implementation, such as a memory mapped data file.
+     * It is assumed that the given data file already exists and contains data header information at the time this constructor is called.
+     *
+     * @see suncertify.db.datafile.MappedDataFileFactoryImpl
+     * @param dataFilename The name of the file containing the data to provide the interface to.
+     * @param datafileFactory The factory that creates a {@link DataFile DataFile} for the given data file name.
+     * @throws FileNotFoundException If the data file does not exist, is a directory, cannot be read or cannot be written to.
+     * @throws IllegalStateException If the data file cannot be read to build the index of unique keys.
+     */
+    public Data(String dataFilename, DataFileFactory datafileFactory) throws FileNotFoundException, IllegalStateException
+    {
+        this(dataFilename, datafileFactory, new FieldIndexFactoryImpl());
+    }
+
+    /**
+     * Construct a <code>Data</code> object that allows manipulation of the back-end data
+     * in the given data file name, where the data file is accessed through the given {@link DataFileFactory DataFileFactory},
+     * and the fields that are indexed to answer {@link #find(String[]) find} are determined by the given {@link FieldIndexFactory FieldIndexFactory}.
+     * It is assumed that the given data file already exists and contains data header information at the time this constructor is called.
+     *
+     * @see suncertify.db.index.FieldIndexFactoryImpl
+     * @param dataFilename The name of the file containing the data to provide the interface to.
+     * @param datafileFactory The factory that creates a {@link DataFile DataFile} for the given data file name.
+     * @param fieldIndexFactory The factory that creates the index of each field that is indexed.
+     * @throws FileNotFoundException If the data file does not exist, is a directory, cannot be read or cannot be written to.
+     * @throws IllegalStateException If the data file cannot be read to build the indexes.
+     */
+    public Data(String dataFilename, DataFileFactory datafileFactory, FieldIndexFactory fieldIndexFactory) throws FileNotFoundException, IllegalStateException
     {
         verifyDataFilename(dataFilename);
 
-        lockManager = new RecordLockManagerImpl();
-        datafileFactory = new DataFileFactoryImpl(dataFilename);
-        recordMatcherFactory = new RecordMatcherFactoryImpl();
+        this.lockManager = new ConcurrentRecordLockManagerImpl();
+        this.datafileFactory = datafileFactory;
+        this.recordMatcherFactory = new RecordMatcherFactoryImpl();
+        this.keyIndex = new KeyIndexImpl(KEY_INDICIES);
+        this.appendLock = new Object();
+        this.fieldIndexFactory = fieldIndexFactory;
+        this.queryPlanner = new QueryPlannerImpl();
+        this.cursorManager = new CursorManagerImpl();
+        this.changeListeners = new ArrayList();
+        this.subscriptionManager = new SubscriptionManagerImpl();
+        this.changeListeners.add(subscriptionManager);
+        this.changeLog = new ChangeLogImpl();
+        this.changeListeners.add(changeLog);
+
+        buildIndexes(dataFilename);
     }
 
     /**
@@ -107,9 +190,103 @@ public class Data implements DB
         }
     }
 
+    /**
+     * Reads the given record numbers and returns the data of each as a <code>String</code> array representing the data in each field.
+     * The data file is opened once, and the records are read in ascending order of their position in the data file, so that
+     * consecutive records are read without seeking. The returned records are in the same order as the given record numbers.
+     * Records are indexed from 0 (zero).
+     *
+     * @see #read(int)
+     * @param recNos The data record numbers to read.
+     * @return The records that were read, each of which is <code>null</code> if the record has been deleted.
+     * @throws RecordNotFoundException If any of the given record numbers does not exist.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public String[][] readMany(int[] recNos) throws RecordNotFoundException, IllegalStateException
+    {
+        String[][] retval = new String[recNos.length][];
+
+        DataFile file = null;
+
+        try
+        {
+            file = datafileFactory.createDataFile("r");
+
+            long length = file.lengthInRecords();
+
+            // each record number is paired with its position in the request, so that the pairs sort in order of the record number
+            long[] order = new long[recNos.length];
+
+            for(int i = 0; i < recNos.length; i++)
+            {
+                verifyRecordInRange(recNos[i], length);
+
+                order[i] = ((long)recNos[i] << 32) | i;
+            }
+
+            Arrays.sort(order);
+
+            int next = -1;
+            int previous = -1;
+
+            for(int i = 0; i < order.length; i++)
+            {
+                int recNo = (int)(order[i] >>> 32);
+                int position = (int)order[i];
+
+                if(recNo == previous)
+                {
+                    retval[position] = retval[(int)order[i - 1]];
+                    continue;
+                }
+
+                if(recNo != next)
+                {
+                    file.seekRecord(recNo);
+                }
+
+                DataRecord rec = file.nextRecord();
+
+                retval[position] = rec.isDeleted() ? null : rec.getData();
+
+                previous = recNo;
+                next = recNo + 1;
+            }
+
+            return retval;
+        }
+        catch(IOException ioe)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to open data file for read: ");
+            message.append(ioe);
+
+            throw new IllegalStateException(message.toString());
+        }
+        finally
+        {
+            if(file != null)
+            {
+                try
+                {
+                    file.close();
+                }
+                catch(IOException ioe)
+                {
+                    StringBuffer message = new StringBuffer();
+                    message.append("Failed to close data file: ");
+                    message.append(ioe);
+
+                    throw new IllegalStateException(message.toString());
+                }
+            }
+        }
+    }
+
     /**
      * Updates the given record number with the given <code>String[]</code> data.
      * The requesting client must hold the exclusive write lock on the record to successfully execute this method.
+     * The lease of the lock is renewed as the cookie is checked, so that the lock cannot pass to another client while the record is written.
      * The data indicies that are the unique key are not updated with the new value. It is not possible to update a record with new key value(s).
      * Records are indexed from 0 (zero).
      *
@@ -125,7 +302,7 @@ public class Data implements DB
     {
         verifyValidRecord(recNo);
         verifyNotDeletedRecord(recNo);
-        verifyValidCookie(recNo, lockCookie);
+        verifyRenewedCookie(recNo, lockCookie);
         verifyValidData(data);
 
         DataFile file = null;
@@ -138,9 +315,11 @@ public class Data implements DB
 
             DataRecord rec = file.nextRecord();
 
+            String[] existing = rec.getData();
+
             for(int i = 0; i < KEY_INDICIES.length; i++)
             {
-               data[KEY_INDICIES[i]] = rec.getData()[KEY_INDICIES[i]];
+               data[KEY_INDICIES[i]] = existing[KEY_INDICIES[i]];
             }
 
             rec.setData(data);
@@ -148,6 +327,11 @@ public class Data implements DB
             file.seekRecord(recNo);
 
             file.writeRecord(rec);
+
+            unindexFields(existing, recNo);
+            indexFields(data, recNo);
+
+            fireDataChanged(DataChange.UPDATED, recNo, data);
         }
         catch(IOException ioe)
         {
@@ -180,6 +364,7 @@ public class Data implements DB
     /**
      * Deletes the given record number.
      * The requesting client must hold the exclusive write lock on the record to successfully execute this method.
+     * The lease of the lock is renewed as the cookie is checked, so that the lock cannot pass to another client while the record is written.
      * Records are indexed from 0 (zero).
      *
      * @param recNo The data record number to delete.
@@ -192,7 +377,7 @@ public class Data implements DB
     {
         verifyValidRecord(recNo);
         verifyNotDeletedRecord(recNo);
-        verifyValidCookie(recNo, lockCookie);
+        verifyRenewedCookie(recNo, lockCookie);
 
         DataFile file = null;
 
@@ -206,9 +391,23 @@ public class Data implements DB
 
             rec.setDeleted(true);
 
+            keyIndexFile.invalidate();
+
             file.seekRecord(recNo);
 
             file.writeRecord(rec);
+
+            keyIndex.remove(rec.getData(), recNo);
+
+            // the tombstones also exclude the record from the results of a search that read a field index before it was removed
+            synchronized(tombstones)
+            {
+                tombstones.add(recNo);
+            }
+
+            unindexFields(rec.getData(), recNo);
+
+            fireDataChanged(DataChange.DELETED, recNo, null);
         }
         catch(IOException ioe)
         {
@@ -240,53 +439,276 @@ public class Data implements DB
 
     /**
      * Search the data records with the given criteria. The indicies of matching records are returned to the
-     * requesting client. A matching data record is determined by the
-     * {@link suncertify.db.server.RecordMatcherImpl RecordMatcherImpl} implementation.
+     * requesting client. A matching data record is determined by the specification of the
+     * {@link suncertify.db.server.RecordMatcherImpl RecordMatcherImpl} implementation, using a matcher that is
+     * specialized to the given criteria.
+     * The records that are examined are chosen by a {@link QueryPlanner QueryPlanner}, which may choose to examine every record of the
+     * data file, or to look up the indexes of one or more fields that have a non-null criterion. In the latter case, the sets of records
+     * that are found by each index are intersected, deleted records are excluded with a set of the deleted records, and only the remaining
+     * records are read and matched.
      * Records are indexed from 0 (zero).
      *
      * @see suncertify.db.server.RecordMatcherImpl
+     * @see suncertify.db.server.CompiledRecordMatcherImpl
+     * @see suncertify.db.index.FieldIndex
+     * @see suncertify.db.index.RecordBitmap
+     * @see #explain(String[])
+     * @see #find(String[], boolean)
      * @param criteria The search criteria to match data records with.
      * @return An array of indicies of records that match the search criteria or <code>null</code> if the back-end data file cannot be opened or closed for read.
      * @throws IllegalStateException If the data file cannot be opened or closed for read.
      */
     public int[] find(String[] criteria) throws IllegalStateException
     {
-        DataFile file = null;
+        return find(criteria, false);
+    }
 
-        try
+    /**
+     * Search the data records with the given criteria, matching either field values that start with each criterion,
+     * as {@link #find(String[]) find(String[])} does, or field values that are exactly equal to each criterion.
+     * An exact match is determined by the specification of the {@link suncertify.db.server.CompiledRecordMatcherImpl CompiledRecordMatcherImpl}
+     * implementation; a field value, with its trailing white space padding removed, must be equal to each non-empty criterion.
+     * Since the records are matched where they are stored, only the indicies of records that match exactly are returned to the requesting client.
+     * Records are indexed from 0 (zero).
+     *
+     * @see suncertify.db.server.RecordMatcherFactory#createRecordMatcher(String[], boolean)
+     * @param criteria The search criteria to match data records with.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return An array of indicies of records that match the search criteria or <code>null</code> if the back-end data file cannot be opened or closed for read.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public int[] find(String[] criteria, boolean exact) throws IllegalStateException
+    {
+        List matches = new LinkedList();
+
+        search(criteria, exact, matches, null);
+
+        return toIntArray(matches);
+    }
+
+    /**
+     * Search the data records with the given criteria, and returns the indicies of matching records together with their data,
+     * as read by the same scan of the data file that matched them. A matching data record is determined as for {@link #find(String[]) find(String[])}.
+     * Since each matching record is read once, and returned together with its index, no record may be written or deleted between
+     * finding it and reading it.
+     * Records are indexed from 0 (zero).
+     *
+     * @see #findRecords(String[], boolean)
+     * @param criteria The search criteria to match data records with.
+     * @return The indicies and data of records that match the search criteria.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public RecordBatch findRecords(String[] criteria) throws IllegalStateException
+    {
+        return findRecords(criteria, false);
+    }
+
+    /**
+     * Search the data records with the given criteria, matching either field values that start with each criterion or field values
+     * that are exactly equal to each criterion, as for {@link #find(String[], boolean) find(String[], boolean)}, and returns the indicies
+     * of matching records together with their data, as read by the same scan of the data file that matched them.
+     * Records are indexed from 0 (zero).
+     *
+     * @param criteria The search criteria to match data records with.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return The indicies and data of records that match the search criteria.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public RecordBatch findRecords(String[] criteria, boolean exact) throws IllegalStateException
+    {
+        List matches = new LinkedList();
+        List records = new LinkedList();
+
+        search(criteria, exact, matches, records);
+
+        return new RecordBatchImpl(toIntArray(matches), (String[][])records.toArray(new String[0][]));
+    }
+
+    /**
+     * Opens a cursor over the data records that match the given criteria by prefix, which are then read a page at a time
+     * with {@link #fetch(long) fetch}.
+     *
+     * @see #openCursor(String[], boolean, int)
+     * @param criteria The search criteria to match data records with.
+     * @param pageSize The largest number of records that are returned by each fetch.
+     * @return The id of the opened cursor.
+     * @throws IllegalArgumentException If the page size is less than 1 (one).
+     * @throws IllegalStateException If the data file cannot be opened or closed for read, or if too many cursors are open.
+     */
+    public long openCursor(String[] criteria, int pageSize) throws IllegalArgumentException, IllegalStateException
+    {
+        return openCursor(criteria, false, pageSize);
+    }
+
+    /**
+     * Opens a cursor over the data records that match the given criteria, either by prefix or exactly as for
+     * {@link #find(String[], boolean) find(String[], boolean)}, which are then read a page at a time with {@link #fetch(long) fetch}.
+     * If the {@link QueryPlanner QueryPlanner} chooses to look up field indexes, the cursor holds the numbers of the records that
+     * may match; otherwise, it examines each record of the data file in turn as pages are fetched, so that opening the cursor
+     * holds no records, and a broad search does not hold every match in memory.
+     * A cursor expires if it is not used within its lease, and should be closed with {@link #closeCursor(long) closeCursor}
+     * once it is no longer needed.
+     *
+     * @see suncertify.db.server.CursorManagerImpl
+     * @param criteria The search criteria to match data records with.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @param pageSize The largest number of records that are returned by each fetch.
+     * @return The id of the opened cursor.
+     * @throws IllegalArgumentException If the page size is less than 1 (one).
+     * @throws IllegalStateException If the data file cannot be opened or closed for read, or if too many cursors are open.
+     */
+    public long openCursor(String[] criteria, boolean exact, int pageSize) throws IllegalArgumentException, IllegalStateException
+    {
+        if(pageSize < 1)
         {
-            file = datafileFactory.createDataFile("r");
+            StringBuffer message = new StringBuffer();
+            message.append("Invalid page size: [");
+            message.append(pageSize);
+            message.append(" < 1]");
+
+            throw new IllegalArgumentException(message.toString());
+        }
 
-            List matches = new LinkedList();
+        String[] fixed = (String[])criteria.clone();
+        QueryPlan plan = explain(fixed);
+        int[] candidates = null;
 
-            int index = 0;
-            RecordMatcher rm = recordMatcherFactory.createRecordMatcher();
+        if(plan.getType() != QueryPlan.FULL_SCAN)
+        {
+            candidates = findCandidates(fixed, plan.getFields());
+        }
+
+        return cursorManager.open(new Cursor(fixed, recordMatcherFactory.createRecordMatcher(fixed, exact), pageSize, candidates));
+    }
+
+    /**
+     * Returns the next page of the data records that match the criteria of the given cursor, with their record numbers.
+     * Each record is matched as it is read, so a record that has been changed or deleted since the cursor was opened is
+     * returned only if it still matches. A page with fewer records than the page size of the cursor, which may be empty,
+     * is the last page, after which the cursor is closed.
+     *
+     * @param cursorId The id of the cursor.
+     * @return The next page of the data records that match the criteria of the given cursor.
+     * @throws IllegalArgumentException If the cursor has been closed or has expired.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public RecordBatch fetch(long cursorId) throws IllegalArgumentException, IllegalStateException
+    {
+        Cursor cursor = cursorManager.get(cursorId);
+
+        List matches = new LinkedList();
+        List records = new LinkedList();
+        boolean last;
+
+        DataFile file = null;
 
-            while(file.hasMoreRecords())
+        // a cursor is moved by a single fetch at a time
+        synchronized(cursor)
+        {
+            try
             {
-                DataRecord rec = file.nextRecord();
+                file = datafileFactory.createDataFile("r");
+
+                String[] criteria = cursor.getCriteria();
+                RecordMatcher rm = cursor.getMatcher();
+                int[] candidates = cursor.getCandidates();
+                int position = cursor.getPosition();
+                int end = candidates == null ? (int)file.lengthInRecords() : candidates.length;
+                int next = -1;
 
-                if(!rec.isDeleted() && rm.matches(rec, criteria))
+                while(position < end && matches.size() < cursor.getPageSize())
                 {
-                    matches.add(new Integer(index));
-                }
+                    int recNo = candidates == null ? position : candidates[position];
+                    position++;
 
-                index++;
-            }
+                    if(recNo != next)
+                    {
+                        file.seekRecord(recNo);
+                    }
+
+                    DataRecord rec = file.nextRecord();
+                    next = recNo + 1;
+
+                    if(!rec.isDeleted() && rm.matches(rec, criteria))
+                    {
+                        matches.add(new Integer(recNo));
+                        records.add(rec.getData());
+                    }
+                }
 
-            // There is no real nice way of doing this.
-            // This is the quickest method of creating a int[] from a List of Integer types according to my own benchmarks.
-            // JDK 1.5 should solve this problem with generic types and autoboxing/unboxing.
-            Integer[] asArray = (Integer[])matches.toArray(new Integer[0]);
+                cursor.setPosition(position);
 
-            int[] retval = new int[asArray.length];
+                // a page is only short at the end of the records, so the client will not fetch again
+                last = matches.size() < cursor.getPageSize();
+            }
+            catch(IOException ioe)
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Failed to open data file for read: ");
+                message.append(ioe);
 
-            for(int i = 0; i < retval.length; i++)
+                throw new IllegalStateException(message.toString());
+            }
+            finally
             {
-                retval[i] = asArray[i].intValue();
+                if(file != null)
+                {
+                    try
+                    {
+                        file.close();
+                    }
+                    catch(IOException ioe)
+                    {
+                        StringBuffer message = new StringBuffer();
+                        message.append("Failed to close data file: ");
+                        message.append(ioe);
+
+                        throw new IllegalStateException(message.toString());
+                    }
+                }
             }
+        }
 
-            return retval;
+        if(last)
+        {
+            cursorManager.close(cursorId);
+        }
+
+        return new RecordBatchImpl(toIntArray(matches), (String[][])records.toArray(new String[0][]));
+    }
+
+    /**
+     * Closes the given cursor, and releases the record numbers that it holds. A cursor that has already been closed,
+     * or that has expired, is ignored.
+     *
+     * @param cursorId The id of the cursor to close.
+     */
+    public void closeCursor(long cursorId)
+    {
+        cursorManager.close(cursorId);
+    }
+
+    /**
+     * Returns the plan that {@link #find(String[]) find} would use to answer the given criteria, without answering them.
+     * The plan shows whether the data file would be scanned, or which field indexes would be looked up, and the estimated cost.
+     *
+     * @see QueryPlanner
+     * @param criteria The search criteria to plan.
+     * @return The plan that would be used to answer the given criteria.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public QueryPlan explain(String[] criteria) throws IllegalStateException
+    {
+        DataFile file = null;
+
+        try
+        {
+            file = datafileFactory.createDataFile("r");
+
+            return queryPlanner.plan(criteria, fieldIndexes, (int)file.lengthInRecords());
         }
         catch(IOException ioe)
         {
@@ -331,45 +753,70 @@ public class Data implements DB
         verifyValidKey(data);
         verifyValidData(data);
 
-        DataFile file = null;
-
-        try
+        // the number of a new record is the length of the data file, so records are appended one at a time; the unique key is
+        // added to the index atomically, so a duplicate key is rejected without any other lock
+        synchronized(appendLock)
         {
-            file = datafileFactory.createDataFile("rw");
-
-            int length = (int)file.lengthInRecords();
+            DataFile file = null;
 
-            file.seekRecord(length);
-
-            DataRecord record = new DataRecordImpl(data);
+            try
+            {
+                file = datafileFactory.createDataFile("rw");
 
-            file.writeRecord(record);
+                int length = (int)file.lengthInRecords();
 
-            return length;
-        }
-        catch(IOException ioe)
-        {
-            StringBuffer message = new StringBuffer();
-            message.append("Failed to open data file for write: ");
-            message.append(ioe);
+                if(!keyIndex.put(data, length))
+                {
+                    throw new DuplicateKeyException("Cannot create record with duplicate key - must be unique");
+                }
 
-            throw new IllegalStateException(message.toString());
-        }
-        finally
-        {
-            if(file != null)
-            {
                 try
                 {
-                    file.close();
+                    keyIndexFile.invalidate();
+
+                    file.seekRecord(length);
+
+                    DataRecord record = new DataRecordImpl(data);
+
+                    file.writeRecord(record);
                 }
                 catch(IOException ioe)
                 {
-                    StringBuffer message = new StringBuffer();
-                    message.append("Failed to close data file: ");
-                    message.append(ioe);
+                    keyIndex.remove(data, length);
 
-                    throw new IllegalStateException(message.toString());
+                    throw ioe;
+                }
+
+                indexFields(data, length);
+
+                fireDataChanged(DataChange.CREATED, length, data);
+
+                return length;
+            }
+            catch(IOException ioe)
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Failed to open data file for write: ");
+                message.append(ioe);
+
+                throw new IllegalStateException(message.toString());
+            }
+            finally
+            {
+                if(file != null)
+                {
+                    try
+                    {
+                        file.close();
+                    }
+                    catch(IOException ioe)
+                    {
+                        StringBuffer message = new StringBuffer();
+                        message.append("Failed to close data file: ");
+                        message.append(ioe);
+
+                        throw new IllegalStateException(message.toString());
+                    }
                 }
             }
         }
@@ -379,7 +826,7 @@ public class Data implements DB
      * Attempt to acquire the exclusive write lock on the given data record.
      * Requesting clients may be put on "wait state" if the lock is in use.
      *
-     * @see RecordLockManagerImpl#lock(int)
+     * @see ConcurrentRecordLockManagerImpl#lock(int)
      * @param recNo The data record number to attempt to acquire the exclusive write lock on.
      * @return A cookie value to be used for calls to methods that write, and so require authentication of the owner of the write lock.
      * @throws RecordNotFoundException If the given record number does not exist, or if the back-end data file cannot be opened or closed for read.
@@ -393,20 +840,382 @@ public class Data implements DB
     }
 
     /**
-     * Release the exclusive write lock for the given record and notify a waiting client if there is one.
+     * Acquire the exclusive write lock on the given data record only if it is not in use, so that the requesting client never waits.
      *
-     * @see RecordLockManagerImpl#unlock(int)
-     * @param recNo The data record number to release the exclusive write lock for.
-     * @param cookie The cookie value to authenticate the requesting client as holding the exclusive write lock on the data record.
+     * @see ConcurrentRecordLockManagerImpl#tryLock(int)
+     * @param recNo The data record number to attempt to acquire the exclusive write lock on.
+     * @return A cookie value to be used for calls to methods that write, or {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock is in use.
      * @throws RecordNotFoundException If the given record number does not exist, or if the back-end data file cannot be opened or closed for read.
-     * @throws SecurityException If the given cookie value does not authenticate the requesting client as holding the exclusive write lock for the data record.
+     */
+    public long tryLock(int recNo) throws RecordNotFoundException
+    {
+        verifyValidRecord(recNo);
+        verifyNotDeletedRecord(recNo);
+
+        return lockManager.tryLock(recNo);
+    }
+
+    /**
+     * Attempt to acquire the exclusive write lock on the given data record, waiting no longer than the given timeout if the lock is in use,
+     * so that a client that holds a lock for a long time does not hold up the requesting client indefinitely.
+     *
+     * @see ConcurrentRecordLockManagerImpl#lock(int, long)
+     * @param recNo The data record number to attempt to acquire the exclusive write lock on.
+     * @param timeout The longest time, in milliseconds, to wait for the lock.
+     * @return A cookie value to be used for calls to methods that write, or {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock
+     * was not acquired before the timeout passed.
+     * @throws RecordNotFoundException If the given record number does not exist, or if the back-end data file cannot be opened or closed for read.
+     * @throws IllegalArgumentException If the timeout is negative.
+     */
+    public long lock(int recNo, long timeout) throws RecordNotFoundException, IllegalArgumentException
+    {
+        verifyValidRecord(recNo);
+        verifyNotDeletedRecord(recNo);
+
+        return lockManager.lock(recNo, timeout);
+    }
+
+    /**
+     * Renews the lease of the exclusive write lock on the given data record, so that it is not released while the requesting client
+     * still holds it. A client that holds a lock for longer than {@link LockConstants#LOCK_LEASE LOCK_LEASE} must renew it, otherwise
+     * the lock is released so that a client that goes away without unlocking a record does not hold up every other client.
+     *
+     * @see ConcurrentRecordLockManagerImpl#renew(int, long)
+     * @param recNo The data record number to renew the exclusive write lock on.
+     * @param cookie The cookie value to authenticate the requesting client as holding the exclusive write lock on the data record.
+     * @throws RecordNotFoundException If the given record number does not exist, or if the back-end data file cannot be opened or closed for read.
+     * @throws SecurityException If the given cookie value does not authenticate the requesting client as holding the exclusive write lock for the
+     * data record, because the lock was released or its lease has passed.
+     */
+    public void renewLock(int recNo, long cookie) throws RecordNotFoundException, SecurityException
+    {
+        verifyValidRecord(recNo);
+
+        if(!lockManager.renew(recNo, cookie))
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to renew lock of record: ");
+            message.append(recNo);
+            message.append(" with cookie lock: ");
+            message.append(cookie);
+
+            throw new SecurityException(message.toString());
+        }
+    }
+
+    /**
+     * Release the exclusive write lock for the given record and notify a waiting client if there is one.
+     *
+     * @see ConcurrentRecordLockManagerImpl#unlock(int, long)
+     * @param recNo The data record number to release the exclusive write lock for.
+     * @param cookie The cookie value to authenticate the requesting client as holding the exclusive write lock on the data record.
+     * @throws RecordNotFoundException If the given record number does not exist, or if the back-end data file cannot be opened or closed for read.
+     * @throws SecurityException If the given cookie value does not authenticate the requesting client as holding the exclusive write lock for the data record.
      */
     public void unlock(int recNo, long cookie) throws RecordNotFoundException, SecurityException
     {
         verifyValidRecord(recNo);
         verifyValidCookie(recNo, cookie);
 
-        lockManager.unlock(recNo);
+        // the lease may pass after the cookie is verified, in which case a lock acquired since by another client is not released
+        lockManager.unlock(recNo, cookie);
+    }
+
+    /**
+     * Adds the given listener, which is told of each record that is created, updated or deleted from now on.
+     *
+     * @see DataChangeListener
+     * @param listener The listener to add.
+     */
+    public void addDataChangeListener(DataChangeListener listener)
+    {
+        synchronized(changeListeners)
+        {
+            changeListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes the given listener, so that it is no longer told of changes.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeDataChangeListener(DataChangeListener listener)
+    {
+        synchronized(changeListeners)
+        {
+            changeListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Subscribes to the changes of records that are made from now on, so that a client that cannot be called back may
+     * {@link #pollChanges(long, long) poll} for them. A subscription that is not polled within its lease expires.
+     *
+     * @see SubscriptionManagerImpl
+     * @return The id of the subscription.
+     * @throws IllegalStateException If too many subscriptions are held.
+     */
+    public long subscribe() throws IllegalStateException
+    {
+        return subscriptionManager.subscribe();
+    }
+
+    /**
+     * Waits until a record is created, updated or deleted, or until the given timeout passes, and returns the changes that were made
+     * since the last poll of the given subscription, which may be none. Since the poll returns as soon as a change is made, a client
+     * learns of changes without polling repeatedly.
+     *
+     * @param subscriptionId The id of the subscription.
+     * @param timeout The longest time, in milliseconds, to wait for a change.
+     * @return The changes that were made since the last poll, in the order that they were made, or <code>null</code> if the subscription
+     * held too many changes and discarded them, in which case the client should read the records again.
+     * @throws IllegalArgumentException If the subscription has been discarded or has expired.
+     */
+    public DataChange[] pollChanges(long subscriptionId, long timeout) throws IllegalArgumentException
+    {
+        try
+        {
+            return subscriptionManager.poll(subscriptionId, timeout);
+        }
+        catch(InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+
+            return new DataChange[0];
+        }
+    }
+
+    /**
+     * Discards the given subscription. A subscription that has already been discarded, or that has expired, is ignored.
+     *
+     * @param subscriptionId The id of the subscription to discard.
+     */
+    public void unsubscribe(long subscriptionId)
+    {
+        subscriptionManager.unsubscribe(subscriptionId);
+    }
+
+    /**
+     * Returns the change sequence of the server, which is increased by each record that is created, updated or deleted.
+     * A client that reads records after it has read the sequence may pass the sequence to {@link #changesSince(long, String[], boolean) changesSince}
+     * to learn of the records that changed after they were read.
+     *
+     * @see ChangeLogImpl
+     * @return The change sequence of the server.
+     */
+    public long getChangeSequence()
+    {
+        return changeLog.getSequence();
+    }
+
+    /**
+     * Returns the records that were created, updated or deleted after the given change sequence, matching the created and updated
+     * records with the given criteria by prefix.
+     *
+     * @see #changesSince(long, String[], boolean)
+     * @param sequence The change sequence of a previous change set, or {@link ChangeSet#NO_SEQUENCE NO_SEQUENCE}.
+     * @param criteria The search criteria to match data records with.
+     * @return The records that changed after the given sequence.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public ChangeSet changesSince(long sequence, String[] criteria) throws IllegalStateException
+    {
+        return changesSince(sequence, criteria, false);
+    }
+
+    /**
+     * Returns the records that were created, updated or deleted after the given change sequence, so that a client that refreshes
+     * the records that match the given criteria reads only the records that changed. The created and updated records are matched
+     * as for {@link #find(String[], boolean) find(String[], boolean)}; a record that is deleted, or that no longer matches, is returned
+     * as a removed record number. Only the last change of each record is returned.
+     * <br>
+     * If the given sequence is not known, such as when it was given out before the server was restarted, every matching record is
+     * returned in a change set that is {@link ChangeSet#isReset() reset}.
+     *
+     * @param sequence The change sequence of a previous change set, or {@link ChangeSet#NO_SEQUENCE NO_SEQUENCE}.
+     * @param criteria The search criteria to match data records with.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return The records that changed after the given sequence.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public ChangeSet changesSince(long sequence, String[] criteria, boolean exact) throws IllegalStateException
+    {
+        // a change that is made after the sequence is read is returned again by the next call, which the client applies again
+        long current = changeLog.getSequence();
+
+        if(!changeLog.isKnown(sequence))
+        {
+            return new ChangeSetImpl(current, true, findRecords(criteria, exact), new int[0]);
+        }
+
+        int[] changed = changeLog.changedSince(sequence);
+        String[][] records;
+
+        try
+        {
+            records = readMany(changed);
+        }
+        catch(RecordNotFoundException rnfe)
+        {
+            // a record that has changed is never removed from the data file
+            StringBuffer message = new StringBuffer();
+            message.append("Changed record not found: ");
+            message.append(rnfe);
+
+            throw new IllegalStateException(message.toString());
+        }
+
+        RecordMatcher rm = recordMatcherFactory.createRecordMatcher(criteria, exact);
+        List matches = new LinkedList();
+        List matched = new LinkedList();
+        List removed = new LinkedList();
+
+        for(int i = 0; i < changed.length; i++)
+        {
+            Integer recNo = new Integer(changed[i]);
+
+            if(records[i] != null && rm.matches(new DataRecordImpl(changed[i], records[i]), criteria))
+            {
+                matches.add(recNo);
+                matched.add(records[i]);
+            }
+            else
+            {
+                removed.add(recNo);
+            }
+        }
+
+        RecordBatch batch = new RecordBatchImpl(toIntArray(matches), (String[][])matched.toArray(new String[0][]));
+
+        return new ChangeSetImpl(current, false, batch, toIntArray(removed));
+    }
+
+    /**
+     * Reads the given record numbers that have changed since the given version of each, so that a client that holds a copy of
+     * each record reads only the records that have changed. The version of a record is the {@link ChangeSet#getSequence() sequence}
+     * of the change set that returned it; a version that is not known, such as {@link ChangeSet#NO_SEQUENCE NO_SEQUENCE},
+     * always reads the record. The returned change set is never reset, and its sequence is the new version of each record that it returns.
+     * Records are indexed from 0 (zero).
+     *
+     * @see #readMany(int[])
+     * @param recNos The data record numbers to read.
+     * @param versions The version of the copy of each record that the client holds, in the same order as the record numbers.
+     * @return The records that have changed, and the numbers of the records that have been deleted, in the order of the given record numbers.
+     * @throws RecordNotFoundException If any of the given record numbers that has changed does not exist.
+     * @throws IllegalArgumentException If the number of record numbers is not the same as the number of versions.
+     * @throws IllegalStateException If the data file cannot be opened or closed for read.
+     */
+    public ChangeSet readIfModified(int[] recNos, long[] versions) throws RecordNotFoundException, IllegalArgumentException, IllegalStateException
+    {
+        if(recNos.length != versions.length)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Record numbers and versions have different lengths: [");
+            message.append(recNos.length);
+            message.append(" != ");
+            message.append(versions.length);
+            message.append("]");
+
+            throw new IllegalArgumentException(message.toString());
+        }
+
+        // a record that changes after the sequence is read has a later version, so it is read again by the next call
+        long current = changeLog.getSequence();
+
+        List modified = new LinkedList();
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            if(!changeLog.isKnown(versions[i]) || changeLog.getRecordSequence(recNos[i]) > versions[i])
+            {
+                modified.add(new Integer(recNos[i]));
+            }
+        }
+
+        int[] modifiedRecNos = toIntArray(modified);
+        String[][] records = readMany(modifiedRecNos);
+
+        List matches = new LinkedList();
+        List matched = new LinkedList();
+        List removed = new LinkedList();
+
+        for(int i = 0; i < modifiedRecNos.length; i++)
+        {
+            if(records[i] == null)
+            {
+                removed.add(new Integer(modifiedRecNos[i]));
+            }
+            else
+            {
+                matches.add(new Integer(modifiedRecNos[i]));
+                matched.add(records[i]);
+            }
+        }
+
+        RecordBatch batch = new RecordBatchImpl(toIntArray(matches), (String[][])matched.toArray(new String[0][]));
+
+        return new ChangeSetImpl(current, false, batch, toIntArray(removed));
+    }
+
+    /**
+     * Closes the back-end data file, which is held open and shared between operations, and the index of each indexed field.
+     * An index that is stored on disk is written, so that it need not be rebuilt the next time the data file is opened.
+     * The unique keys and the tombstones are also written to a file alongside the data file, so that, if every index that is stored on disk
+     * is also current, the data file is not scanned the next time it is opened.
+     * A subsequent operation will reopen the data file and indexes.
+     *
+     * @throws IllegalStateException If the data file or an index cannot be closed.
+     */
+    public void close() throws IllegalStateException
+    {
+        try
+        {
+            datafileFactory.close();
+
+            for(int i = 0; i < fieldIndexes.length; i++)
+            {
+                if(fieldIndexes[i] != null)
+                {
+                    fieldIndexes[i].close();
+                }
+            }
+
+            keyIndexFile.write(keyIndex, tombstones);
+        }
+        catch(IOException ioe)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to close data file: ");
+            message.append(ioe);
+
+            throw new IllegalStateException(message.toString());
+        }
+    }
+
+    // tells every listener of a change of the given record; a listener that fails does not fail the change, which has been written
+    private void fireDataChanged(int type, int recNo, String[] record)
+    {
+        DataChange change = new DataChangeImpl(type, recNo, record == null ? null : (String[])record.clone());
+        Object[] listeners;
+
+        synchronized(changeListeners)
+        {
+            listeners = changeListeners.toArray();
+        }
+
+        for(int i = 0; i < listeners.length; i++)
+        {
+            try
+            {
+                ((DataChangeListener)listeners[i]).dataChanged(change);
+            }
+            catch(RuntimeException re)
+            {
+                // the listener is told of later changes regardless
+            }
+        }
     }
 
     // throws a FileNotFoundException if the data file does not exist, is a directory, cannot be read or cannot be written.
@@ -465,29 +1274,7 @@ public class Data implements DB
         {
             file = datafileFactory.createDataFile("r");
 
-            long length = file.lengthInRecords();
-
-            if(recNo < 0)
-            {
-                StringBuffer message = new StringBuffer();
-                message.append("Invalid DataRecord Number : [");
-                message.append(recNo);
-                message.append(" < 0]");
-
-                throw new RecordNotFoundException(message.toString());
-            }
-
-            if(recNo >= length)
-            {
-                StringBuffer message = new StringBuffer();
-                message.append("DataRecord Number Out of Range: [");
-                message.append(recNo);
-                message.append(" >= ");
-                message.append(length);
-                message.append("]");
-
-                throw new RecordNotFoundException(message.toString());
-            }
+            verifyRecordInRange(recNo, file.lengthInRecords());
         }
         catch(IOException ioe)
         {
@@ -517,6 +1304,32 @@ public class Data implements DB
         }
     }
 
+    // throws a RecordNotFoundException if the given record number is not within a data file of the given length in records.
+    private void verifyRecordInRange(int recNo, long length) throws RecordNotFoundException
+    {
+        if(recNo < 0)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Invalid DataRecord Number : [");
+            message.append(recNo);
+            message.append(" < 0]");
+
+            throw new RecordNotFoundException(message.toString());
+        }
+
+        if(recNo >= length)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("DataRecord Number Out of Range: [");
+            message.append(recNo);
+            message.append(" >= ");
+            message.append(length);
+            message.append("]");
+
+            throw new RecordNotFoundException(message.toString());
+        }
+    }
+
     // throws a RecordNotFoundException if the given data record has been deleted or if an error occurred determining it.
     private void verifyNotDeletedRecord(int recNo) throws RecordNotFoundException
     {
@@ -582,11 +1395,25 @@ public class Data implements DB
         }
     }
 
-    // throws a DuplicateKeyException if the given data contains a unique key value that already exists or if an error occurs determining it.
-    private void verifyValidKey(String[] data) throws DuplicateKeyException
+    // throws a SecurityException if the lock of the given record number is not held with the given cookie, and otherwise renews
+    // its lease, so that a lease that is about to pass is not taken over by another client while the record is written
+    private void verifyRenewedCookie(int recNo, long cookie) throws SecurityException
     {
-        DataFile file = null;
+        if(!lockManager.renew(recNo, cookie))
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed authentication to write record: ");
+            message.append(recNo);
+            message.append(" with cookie lock: ");
+            message.append(cookie);
+
+            throw new SecurityException(message.toString());
+        }
+    }
 
+    // throws a DuplicateKeyException if the given data contains a unique key value that already exists.
+    private void verifyValidKey(String[] data) throws DuplicateKeyException
+    {
         for(int i = 0; i < KEY_INDICIES.length; i++)
         {
             if(data[KEY_INDICIES[i]] == null)
@@ -595,43 +1422,197 @@ public class Data implements DB
             }
         }
 
+        if(keyIndex.get(data) >= 0)
+        {
+            throw new DuplicateKeyException("Cannot create record with duplicate key - must be unique");
+        }
+    }
+
+    // builds the index of unique keys, and the index of each indexed field that is not already current, from the data records that are not deleted,
+    // and the tombstones of the data records that are deleted, unless every index was written when the data file was last closed.
+    private void buildIndexes(String dataFilename) throws IllegalStateException
+    {
+        DataFile file = null;
+
         try
         {
             file = datafileFactory.createDataFile("r");
 
-            while(file.hasMoreRecords())
+            FieldSchema[] schema = file.getHeader().getSchema();
+
+            fieldIndexes = new FieldIndex[schema.length];
+
+            for(int i = 0; i < schema.length; i++)
             {
-                DataRecord rec = file.nextRecord();
+                fieldIndexes[i] = fieldIndexFactory.createFieldIndex(schema[i], dataFilename);
+            }
+
+            tombstones = new RecordBitmap();
+            keyIndexFile = new KeyIndexFileImpl(new File(dataFilename + FieldIndexConstants.KEY_INDEX_FILE_SUFFIX), new File(dataFilename));
+
+            FieldIndex[] stale = new FieldIndex[schema.length];
+            boolean current = keyIndexFile.read(keyIndex, tombstones);
+
+            for(int i = 0; i < schema.length; i++)
+            {
+                if(fieldIndexes[i] != null && !fieldIndexes[i].isCurrent())
+                {
+                    stale[i] = fieldIndexes[i];
+                    current = false;
+                }
+            }
+
+            // the data file is only scanned if the unique keys and tombstones, or an index of a field, were not written when it was last closed
+            if(current)
+            {
+                return;
+            }
+
+            keyIndex.clear();
+            tombstones = new RecordBitmap();
+
+            RecordIterator it = file.createRecordIterator();
+
+            while(it.hasMoreRecords())
+            {
+                DataRecord rec = it.nextRecord();
+
+                if(rec.isDeleted())
+                {
+                    tombstones.add(rec.getIndex());
+                }
+                else
+                {
+                    keyIndex.put(rec.getData(), rec.getIndex());
+
+                    for(int i = 0; i < stale.length; i++)
+                    {
+                        if(stale[i] != null)
+                        {
+                            stale[i].add(rec.getValueAt(i), rec.getIndex());
+                        }
+                    }
+                }
+            }
+        }
+        catch(IOException ioe)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to open data file for read: ");
+            message.append(ioe);
+
+            throw new IllegalStateException(message.toString());
+        }
+        finally
+        {
+            if(file != null)
+            {
+                try
+                {
+                    file.close();
+                }
+                catch(IOException ioe)
+                {
+                    StringBuffer message = new StringBuffer();
+                    message.append("Failed to close data file: ");
+                    message.append(ioe);
+
+                    throw new IllegalStateException(message.toString());
+                }
+            }
+        }
+    }
+
+    // adds the value of each indexed field of the given record data to the index of that field.
+    private void indexFields(String[] data, int recNo)
+    {
+        for(int i = 0; i < fieldIndexes.length && i < data.length; i++)
+        {
+            if(fieldIndexes[i] != null)
+            {
+                fieldIndexes[i].add(data[i], recNo);
+            }
+        }
+    }
+
+    // removes the value of each indexed field of the given record data from the index of that field.
+    private void unindexFields(String[] data, int recNo)
+    {
+        for(int i = 0; i < fieldIndexes.length && i < data.length; i++)
+        {
+            if(fieldIndexes[i] != null)
+            {
+                fieldIndexes[i].remove(data[i], recNo);
+            }
+        }
+    }
+
+    // adds the indicies of the records that match the given criteria to the given list of matches, and the data of each if there is a list of records
+    private void search(String[] criteria, boolean exact, List matches, List records) throws IllegalStateException
+    {
+        DataFile file = null;
+
+        try
+        {
+            file = datafileFactory.createDataFile("r");
+
+            // an exact criterion is also a prefix of the values that it matches, so the same plan finds a superset of the matches
+            RecordMatcher rm = recordMatcherFactory.createRecordMatcher(criteria, exact);
+            QueryPlan plan = queryPlanner.plan(criteria, fieldIndexes, (int)file.lengthInRecords());
 
-                if(!rec.isDeleted())
+            if(plan.getType() == QueryPlan.FULL_SCAN)
+            {
+                int index = 0;
+                RecordIterator it = file.createRecordIterator();
+
+                while(it.hasMoreRecords())
                 {
-                    boolean duplicate = true;
+                    DataRecord rec = it.nextRecord();
 
-                    for(int i = 0; i < KEY_INDICIES.length; i++)
+                    if(!rec.isDeleted() && rm.matches(rec, criteria))
                     {
-                        if(!data[KEY_INDICIES[i]].trim().equals(rec.getData()[KEY_INDICIES[i]].trim()))
+                        matches.add(new Integer(index));
+
+                        if(records != null)
                         {
-                            duplicate = false;
-                            break;
+                            records.add(rec.getData());
                         }
                     }
 
-                    if(duplicate)
+                    index++;
+                }
+            }
+            else
+            {
+                // the candidates are read and matched again, since a record may have been written after its indexes were read
+                int[] candidates = findCandidates(criteria, plan.getFields());
+                long length = file.lengthInRecords();
+
+                for(int i = 0; i < candidates.length && candidates[i] < length; i++)
+                {
+                    file.seekRecord(candidates[i]);
+
+                    DataRecord rec = file.nextRecord();
+
+                    if(!rec.isDeleted() && rm.matches(rec, criteria))
                     {
-                        throw new DuplicateKeyException("Cannot create record with duplicate key - must be unique");
+                        matches.add(new Integer(candidates[i]));
+
+                        if(records != null)
+                        {
+                            records.add(rec.getData());
+                        }
                     }
                 }
             }
         }
         catch(IOException ioe)
         {
-            System.err.println(ioe);
-
             StringBuffer message = new StringBuffer();
             message.append("Failed to open data file for read: ");
             message.append(ioe);
 
-            throw new DuplicateKeyException(message.toString());
+            throw new IllegalStateException(message.toString());
         }
         finally
         {
@@ -643,18 +1624,51 @@ public class Data implements DB
                 }
                 catch(IOException ioe)
                 {
-                    System.err.println(ioe);
-
                     StringBuffer message = new StringBuffer();
                     message.append("Failed to close data file: ");
                     message.append(ioe);
 
-                    throw new DuplicateKeyException(message.toString());
+                    throw new IllegalStateException(message.toString());
                 }
             }
         }
     }
 
+    // returns the int values of the given list of Integer
+    private int[] toIntArray(List list)
+    {
+        // There is no real nice way of doing this.
+        // This is the quickest method of creating a int[] from a List of Integer types according to my own benchmarks.
+        // JDK 1.5 should solve this problem with generic types and autoboxing/unboxing.
+        Integer[] asArray = (Integer[])list.toArray(new Integer[0]);
+
+        int[] retval = new int[asArray.length];
+
+        for(int i = 0; i < retval.length; i++)
+        {
+            retval[i] = asArray[i].intValue();
+        }
+
+        return retval;
+    }
+
+    // returns the ascending numbers of the records that may match the given criteria, by intersecting the results of the
+    // indexes of the given fields and excluding the tombstones.
+    private int[] findCandidates(String[] criteria, int[] fields)
+    {
+        RecordBitmap candidates = fieldIndexes[fields[0]].find(criteria[fields[0]]);
+
+        for(int i = 1; i < fields.length && !candidates.isEmpty(); i++)
+        {
+            candidates = candidates.and(fieldIndexes[fields[i]].find(criteria[fields[i]]));
+        }
+
+        synchronized(tombstones)
+        {
+            return candidates.andNot(tombstones).toArray();
+        }
+    }
+
     // throws an IllegalStateException if the given data does not match up against the schema in the data source
     private void verifyValidData(String[] data)
     {
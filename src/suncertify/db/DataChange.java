@@ -0,0 +1,51 @@
+package suncertify.db;
+
+import java.io.Serializable;
+
+/**
+ * A change of a single data record, which is published by {@link Data Data} to each {@link DataChangeListener DataChangeListener}
+ * once the change has been written to the data file.
+ *
+ * @see DataChangeListener
+ * @see Data#addDataChangeListener(DataChangeListener)
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface DataChange extends Serializable
+{
+    /**
+     * The type of a change that created a record.
+     */
+    public final static int CREATED = 0;
+
+    /**
+     * The type of a change that updated a record.
+     */
+    public final static int UPDATED = 1;
+
+    /**
+     * The type of a change that deleted a record.
+     */
+    public final static int DELETED = 2;
+
+    /**
+     * Returns the type of the change; one of {@link #CREATED CREATED}, {@link #UPDATED UPDATED} or {@link #DELETED DELETED}.
+     *
+     * @return The type of the change.
+     */
+    public int getType();
+
+    /**
+     * Returns the number of the record that was changed.
+     *
+     * @return The number of the record that was changed.
+     */
+    public int getRecordNumber();
+
+    /**
+     * Returns the data of the record after the change, or <code>null</code> if the record was deleted.
+     *
+     * @return The data of the record after the change, or <code>null</code> if the record was deleted.
+     */
+    public String[] getRecord();
+}
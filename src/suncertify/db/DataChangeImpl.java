@@ -0,0 +1,66 @@
+package suncertify.db;
+
+/**
+ * An implementation of {@link DataChange DataChange} that holds the type of the change, the number of the record and its data.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class DataChangeImpl implements DataChange
+{
+    private int type;
+    private int recNo;
+    private String[] record;
+
+    /**
+     * Constructs a <tt>DataChangeImpl</tt> of the given type, record number and record data.
+     *
+     * @param type The type of the change; one of {@link DataChange#CREATED CREATED}, {@link DataChange#UPDATED UPDATED} or
+     * {@link DataChange#DELETED DELETED}.
+     * @param recNo The number of the record that was changed.
+     * @param record The data of the record after the change, or <code>null</code> if the record was deleted.
+     * @throws IllegalArgumentException If the type of the change is not known.
+     */
+    public DataChangeImpl(int type, int recNo, String[] record) throws IllegalArgumentException
+    {
+        if(type != CREATED && type != UPDATED && type != DELETED)
+        {
+            throw new IllegalArgumentException("Unknown type of change: [" + type + "]");
+        }
+
+        this.type = type;
+        this.recNo = recNo;
+        this.record = record;
+    }
+
+    /**
+     * Returns the type of the change; one of {@link DataChange#CREATED CREATED}, {@link DataChange#UPDATED UPDATED} or
+     * {@link DataChange#DELETED DELETED}.
+     *
+     * @return The type of the change.
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the number of the record that was changed.
+     *
+     * @return The number of the record that was changed.
+     */
+    public int getRecordNumber()
+    {
+        return recNo;
+    }
+
+    /**
+     * Returns the data of the record after the change, or <code>null</code> if the record was deleted.
+     *
+     * @return The data of the record after the change, or <code>null</code> if the record was deleted.
+     */
+    public String[] getRecord()
+    {
+        return record;
+    }
+}
@@ -0,0 +1,20 @@
+package suncertify.db;
+
+/**
+ * A listener that is told of each change of a data record by {@link Data Data}.
+ * A listener is told of a change on the thread that made it, after the change has been written to the data file,
+ * so it should return quickly.
+ *
+ * @see Data#addDataChangeListener(DataChangeListener)
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface DataChangeListener
+{
+    /**
+     * Tells the listener of a change of a data record.
+     *
+     * @param change The change of the data record.
+     */
+    public void dataChanged(DataChange change);
+}
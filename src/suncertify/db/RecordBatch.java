@@ -0,0 +1,44 @@
+package suncertify.db;
+
+import java.io.Serializable;
+
+/**
+ * A batch of data records, each with its record number, that is returned to a client in a single call.
+ * The records of a batch are read together, so each record number refers to the record data that was read with it.
+ *
+ * @see Data#findRecords(String[])
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface RecordBatch extends Serializable
+{
+    /**
+     * Returns the number of records in the batch.
+     *
+     * @return The number of records in the batch.
+     */
+    public int size();
+
+    /**
+     * Returns the record number of the record at the given position in the batch.
+     *
+     * @param index The position of the record in the batch.
+     * @return The record number of the record at the given position in the batch.
+     */
+    public int getRecordNumber(int index);
+
+    /**
+     * Returns the data of the record at the given position in the batch.
+     *
+     * @param index The position of the record in the batch.
+     * @return The data of the record at the given position in the batch.
+     */
+    public String[] getRecord(int index);
+
+    /**
+     * Returns the record numbers of every record in the batch, in order.
+     *
+     * @return The record numbers of every record in the batch, in order.
+     */
+    public int[] getRecordNumbers();
+}
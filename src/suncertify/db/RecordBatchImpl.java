@@ -0,0 +1,474 @@
+package suncertify.db;
+
+import java.io.Externalizable;
+import java.io.ObjectOutput;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.DataOutput;
+import java.io.DataInput;
+
+/**
+ * An implementation of {@link RecordBatch RecordBatch} that writes itself to a stream in a compact form, rather than with the
+ * default serialized form of its arrays. Records that are read from the data file have fixed width fields of single byte characters,
+ * so when every value of each field has the same length and every character fits in a byte, the width of each field is written once,
+ * followed by the record numbers, the positions of any <code>null</code> (deleted) records, and then the characters of every field value
+ * packed as single bytes. Otherwise, the record number and field values of each record are written in turn.
+ * <br>
+ * A batch that is read from a stream in the packed form keeps the packed bytes, and decodes the field values of each record only
+ * when that record is first returned by {@link #getRecord(int) getRecord}.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class RecordBatchImpl implements RecordBatch, Externalizable
+{
+    // the form of a batch in which each field value is written as a String
+    private static final byte FORMAT_STRINGS = 0;
+
+    // the form of a batch in which fixed width field values are packed as single bytes
+    private static final byte FORMAT_PACKED = 1;
+
+    private int[] recNos;
+    private String[][] records;
+    private int[] widths;
+    private byte[] packed;
+    private boolean[] deleted;
+
+    /**
+     * Constructs an empty <tt>RecordBatchImpl</tt>. This constructor is used when a batch is read from a stream.
+     */
+    public RecordBatchImpl()
+    {
+        this(new int[0], new String[0][]);
+    }
+
+    /**
+     * Constructs a <tt>RecordBatchImpl</tt> with the given record numbers and the data of each record.
+     *
+     * @param recNos The record numbers of the records.
+     * @param records The data of each record, in the same order as the record numbers.
+     * @throws IllegalArgumentException If the number of record numbers is not the same as the number of records.
+     */
+    public RecordBatchImpl(int[] recNos, String[][] records) throws IllegalArgumentException
+    {
+        if(recNos.length != records.length)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Record numbers and records have different lengths: [");
+            message.append(recNos.length);
+            message.append(" != ");
+            message.append(records.length);
+            message.append("]");
+
+            throw new IllegalArgumentException(message.toString());
+        }
+
+        this.recNos = recNos;
+        this.records = records;
+    }
+
+    /**
+     * Returns the number of records in the batch.
+     *
+     * @return The number of records in the batch.
+     */
+    public int size()
+    {
+        return recNos.length;
+    }
+
+    /**
+     * Returns the record number of the record at the given position in the batch.
+     *
+     * @param index The position of the record in the batch.
+     * @return The record number of the record at the given position in the batch.
+     */
+    public int getRecordNumber(int index)
+    {
+        return recNos[index];
+    }
+
+    /**
+     * Returns the data of the record at the given position in the batch, decoding it from the packed bytes that were read if it
+     * has not been returned before.
+     *
+     * @param index The position of the record in the batch.
+     * @return The data of the record at the given position in the batch.
+     */
+    public String[] getRecord(int index)
+    {
+        if(records[index] == null && packed != null && !deleted[index])
+        {
+            records[index] = decode(index);
+        }
+
+        return records[index];
+    }
+
+    /**
+     * Returns the record numbers of every record in the batch, in order.
+     *
+     * @return The record numbers of every record in the batch, in order.
+     */
+    public int[] getRecordNumbers()
+    {
+        return (int[])recNos.clone();
+    }
+
+    /**
+     * Writes the batch to the given stream, packing the field values as single bytes if every value of each field has the
+     * same length and every character fits in a byte.
+     *
+     * @param out The stream to write the batch to.
+     * @throws IOException If an I/O error occurs while writing the batch.
+     */
+    public void writeExternal(ObjectOutput out) throws IOException
+    {
+        writeTo(out);
+    }
+
+    /**
+     * Reads the batch from the given stream, as it was written by {@link #writeExternal(ObjectOutput) writeExternal}.
+     * Packed field values are kept as bytes until each record is first returned.
+     *
+     * @param in The stream to read the batch from.
+     * @throws IOException If an I/O error occurs while reading the batch, or if the form of the batch is not known.
+     * @throws ClassNotFoundException Never.
+     */
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+    {
+        readFrom(in);
+    }
+
+    /**
+     * Writes the batch to the given output in the same compact form as {@link #writeExternal(ObjectOutput) writeExternal},
+     * so that a batch may be sent by a protocol that does not use object serialization.
+     *
+     * @param out The output to write the batch to.
+     * @throws IOException If an I/O error occurs while writing the batch.
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        int[] fixed = getFixedWidths();
+
+        if(fixed == null)
+        {
+            out.writeByte(FORMAT_STRINGS);
+
+            writeStrings(out);
+        }
+        else
+        {
+            out.writeByte(FORMAT_PACKED);
+
+            writePacked(out, fixed);
+        }
+    }
+
+    /**
+     * Reads the batch from the given input, as it was written by {@link #writeTo(DataOutput) writeTo}.
+     * Packed field values are kept as bytes until each record is first returned.
+     *
+     * @param in The input to read the batch from.
+     * @throws IOException If an I/O error occurs while reading the batch, or if the form of the batch is not known.
+     */
+    public void readFrom(DataInput in) throws IOException
+    {
+        byte format = in.readByte();
+
+        if(format == FORMAT_STRINGS)
+        {
+            readStrings(in);
+        }
+        else if(format == FORMAT_PACKED)
+        {
+            readPacked(in);
+        }
+        else
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Unknown record batch format: [");
+            message.append(format);
+            message.append("]");
+
+            throw new IOException(message.toString());
+        }
+    }
+
+    // returns the width of each field if every record that is not null has the same number of fields, and every value of each field
+    // has the same length and only single byte characters, or null otherwise
+    private int[] getFixedWidths()
+    {
+        if(packed != null)
+        {
+            return widths;
+        }
+
+        int first = 0;
+
+        while(first < records.length && records[first] == null)
+        {
+            first++;
+        }
+
+        if(first == records.length)
+        {
+            return null;
+        }
+
+        int[] retval = new int[records[first].length];
+
+        for(int i = first; i < records.length; i++)
+        {
+            if(records[i] == null)
+            {
+                continue;
+            }
+
+            if(records[i].length != retval.length)
+            {
+                return null;
+            }
+
+            for(int j = 0; j < retval.length; j++)
+            {
+                String value = records[i][j];
+
+                if(value == null || (i > first && value.length() != retval[j]))
+                {
+                    return null;
+                }
+
+                retval[j] = value.length();
+
+                for(int k = 0; k < value.length(); k++)
+                {
+                    if(value.charAt(k) > 0xFF)
+                    {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        return retval;
+    }
+
+    // writes the widths of the fields, the record numbers, the positions of the null records, and then the characters of every field
+    // value as single bytes, with a null record written as zero bytes
+    private void writePacked(DataOutput out, int[] fixed) throws IOException
+    {
+        out.writeInt(recNos.length);
+        out.writeInt(fixed.length);
+
+        int width = 0;
+
+        for(int j = 0; j < fixed.length; j++)
+        {
+            out.writeInt(fixed[j]);
+            width = width + fixed[j];
+        }
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            out.writeInt(recNos[i]);
+        }
+
+        int nulls = 0;
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            if(isNull(i))
+            {
+                nulls++;
+            }
+        }
+
+        out.writeInt(nulls);
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            if(isNull(i))
+            {
+                out.writeInt(i);
+            }
+        }
+
+        if(packed != null)
+        {
+            out.write(packed);
+
+            return;
+        }
+
+        byte[] buffer = new byte[width];
+        byte[] empty = new byte[width];
+
+        for(int i = 0; i < records.length; i++)
+        {
+            if(records[i] == null)
+            {
+                out.write(empty);
+
+                continue;
+            }
+
+            int offset = 0;
+
+            for(int j = 0; j < fixed.length; j++)
+            {
+                String value = records[i][j];
+
+                for(int k = 0; k < fixed[j]; k++)
+                {
+                    buffer[offset + k] = (byte)value.charAt(k);
+                }
+
+                offset = offset + fixed[j];
+            }
+
+            out.write(buffer);
+        }
+    }
+
+    // reads the widths of the fields, the record numbers, and the packed bytes of every field value
+    private void readPacked(DataInput in) throws IOException
+    {
+        int total = in.readInt();
+
+        widths = new int[in.readInt()];
+
+        int width = 0;
+
+        for(int j = 0; j < widths.length; j++)
+        {
+            widths[j] = in.readInt();
+            width = width + widths[j];
+        }
+
+        recNos = new int[total];
+
+        for(int i = 0; i < total; i++)
+        {
+            recNos[i] = in.readInt();
+        }
+
+        deleted = new boolean[total];
+
+        int nulls = in.readInt();
+
+        for(int i = 0; i < nulls; i++)
+        {
+            int position = in.readInt();
+
+            if(position < 0 || position >= total)
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Invalid position of a null record: [");
+                message.append(position);
+                message.append("]");
+
+                throw new IOException(message.toString());
+            }
+
+            deleted[position] = true;
+        }
+
+        records = new String[total][];
+        packed = new byte[total * width];
+
+        in.readFully(packed);
+    }
+
+    // returns true if the record at the given position is null, whether or not the batch was read in the packed form
+    private boolean isNull(int index)
+    {
+        return (packed == null ? records[index] == null : deleted[index]);
+    }
+
+    // decodes the field values of the record at the given position from the packed bytes
+    private String[] decode(int index)
+    {
+        String[] retval = new String[widths.length];
+
+        int width = packed.length / recNos.length;
+        int offset = index * width;
+
+        for(int j = 0; j < widths.length; j++)
+        {
+            char[] chars = new char[widths[j]];
+
+            for(int k = 0; k < chars.length; k++)
+            {
+                chars[k] = (char)(packed[offset + k] & 0xFF);
+            }
+
+            retval[j] = new String(chars);
+            offset = offset + widths[j];
+        }
+
+        return retval;
+    }
+
+    // writes the number of records, and then the record number and field values of each record
+    private void writeStrings(DataOutput out) throws IOException
+    {
+        out.writeInt(recNos.length);
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            out.writeInt(recNos[i]);
+
+            if(records[i] == null)
+            {
+                out.writeInt(-1);
+            }
+            else
+            {
+                out.writeInt(records[i].length);
+
+                for(int j = 0; j < records[i].length; j++)
+                {
+                    out.writeBoolean(records[i][j] != null);
+
+                    if(records[i][j] != null)
+                    {
+                        out.writeUTF(records[i][j]);
+                    }
+                }
+            }
+        }
+    }
+
+    // reads the record number and field values of each record, as they were written by writeStrings
+    private void readStrings(DataInput in) throws IOException
+    {
+        int total = in.readInt();
+
+        recNos = new int[total];
+        records = new String[total][];
+        widths = null;
+        packed = null;
+        deleted = null;
+
+        for(int i = 0; i < total; i++)
+        {
+            recNos[i] = in.readInt();
+
+            int fields = in.readInt();
+
+            if(fields >= 0)
+            {
+                records[i] = new String[fields];
+
+                for(int j = 0; j < fields; j++)
+                {
+                    if(in.readBoolean())
+                    {
+                        records[i][j] = in.readUTF();
+                    }
+                }
+            }
+        }
+    }
+}
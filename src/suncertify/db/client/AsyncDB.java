@@ -0,0 +1,114 @@
+package suncertify.db.client;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provides an asynchronous interface to a {@link suncertify.db.server.RemoteDB RemoteDB}, so that a client may make calls without
+ * waiting for them, for example from the Swing event thread. Every method returns at once with a <code>CompletableFuture</code>,
+ * which is completed with the result of the call, or completed exceptionally with the exception that the call threw
+ * (for example, a {@link suncertify.db.RecordNotFoundException RecordNotFoundException} or a <code>java.rmi.RemoteException</code>).
+ * <br>
+ * Calls that are independent of each other are made concurrently, so that their round trips to the server overlap.
+ *
+ * @see AsyncDBImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface AsyncDB
+{
+    /**
+     * Reads a record.
+     *
+     * @see suncertify.db.server.RemoteDB#read(int)
+     * @param recNo The record number to read.
+     * @return A future of the <code>String[]</code> record data that was read.
+     */
+    public CompletableFuture read(int recNo);
+
+    /**
+     * Reads many records in a single call.
+     *
+     * @see suncertify.db.server.RemoteDB#readMany(int[])
+     * @param recNos The record numbers to read.
+     * @return A future of the <code>String[][]</code> record data that was read, in the same order as the given record numbers.
+     */
+    public CompletableFuture readMany(int[] recNos);
+
+    /**
+     * Reads many records by dividing them into batches of the given size, and reading every batch concurrently.
+     *
+     * @param recNos The record numbers to read.
+     * @param batchSize The largest number of records that are read by each call.
+     * @return A future of the <code>String[][]</code> record data that was read, in the same order as the given record numbers.
+     */
+    public CompletableFuture readAll(int[] recNos, int batchSize);
+
+    /**
+     * Finds the records that match the given criteria.
+     *
+     * @see suncertify.db.server.RemoteDB#find(String[], boolean)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return A future of the <code>int[]</code> record numbers that match the given criteria.
+     */
+    public CompletableFuture find(String[] criteria, boolean exact);
+
+    /**
+     * Finds the records that match the given criteria, and reads them a page of the given size at a time through a cursor on the server.
+     *
+     * @see suncertify.db.server.RemoteDB#openCursor(String[], boolean, int)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @param batchSize The largest number of records that are read by each call.
+     * @return A future of the {@link suncertify.db.RecordBatch RecordBatch} of the records that match the given criteria.
+     */
+    public CompletableFuture findRecords(String[] criteria, boolean exact, int batchSize);
+
+    /**
+     * Returns the records that match the given criteria and changed after the given change sequence. If there is no sequence,
+     * every matching record is returned in a {@link suncertify.db.ChangeSet#isReset() reset} change set by a single call of the server.
+     *
+     * @see suncertify.db.server.RemoteDB#changesSince(long, String[], boolean)
+     * @param sequence The change sequence of a previous change set, or {@link suncertify.db.ChangeSet#NO_SEQUENCE NO_SEQUENCE}.
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return A future of the {@link suncertify.db.ChangeSet ChangeSet} of the records that changed.
+     */
+    public CompletableFuture changesSince(long sequence, String[] criteria, boolean exact);
+
+    /**
+     * Creates a record.
+     *
+     * @see suncertify.db.server.RemoteDB#create(String[])
+     * @param record The data to create the new data record with.
+     * @return A future of the <code>Integer</code> number of the created record.
+     */
+    public CompletableFuture create(String[] record);
+
+    /**
+     * Locks a record, updates it and unlocks it.
+     *
+     * @see suncertify.db.server.RemoteDB#update(int, String[], long)
+     * @param recNo The record number to update.
+     * @param record The data to update with.
+     * @return A future that is completed when the record has been updated and unlocked.
+     */
+    public CompletableFuture update(int recNo, String[] record);
+
+    /**
+     * Locks a record, deletes it and unlocks it.
+     *
+     * @see suncertify.db.server.RemoteDB#delete(int, long)
+     * @param recNo The record number to delete.
+     * @return A future that is completed when the record has been deleted and unlocked.
+     */
+    public CompletableFuture delete(int recNo);
+
+    /**
+     * Stops accepting calls. Calls that have already been made are completed.
+     */
+    public void shutdown();
+}
@@ -0,0 +1,365 @@
+package suncertify.db.client;
+
+import suncertify.db.RecordBatchImpl;
+import suncertify.db.RecordBatch;
+import suncertify.db.ChangeSet;
+import suncertify.db.server.RemoteDB;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import java.util.function.Function;
+
+/**
+ * An implementation of {@link AsyncDB AsyncDB} that makes the calls of a {@link RemoteDB RemoteDB} on a fixed number of threads,
+ * so that no more than that many calls are made to the server at once, however many calls are waiting to be made.
+ * <br>
+ * A call that waits for a lock on the server holds one of the threads while it waits; the number of threads should therefore
+ * exceed the number of locks that the client is expected to wait for at once.
+ * <br>
+ * Records that are read with {@link #readMany(int[]) readMany} are held in a {@link RecordCache RecordCache}, so that a record that is
+ * read again is sent by the server only if it has changed.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class AsyncDBImpl implements AsyncDB
+{
+    private RemoteDB data;
+    private ExecutorService executor;
+    private RecordCache cache;
+
+    /**
+     * Constructs an <tt>AsyncDBImpl</tt> that makes the calls of the given data on the given number of threads.
+     *
+     * @param data The data to make calls of.
+     * @param threads The largest number of calls that are made at once.
+     * @throws IllegalArgumentException If the given number of threads is less than one.
+     */
+    public AsyncDBImpl(RemoteDB data, int threads) throws IllegalArgumentException
+    {
+        if(threads < 1)
+        {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+
+        this.data = data;
+        this.cache = new RecordCacheImpl(data);
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread t = new Thread(r, "AsyncDB worker");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @see RemoteDB#read(int)
+     * @param recNo The record number to read.
+     * @return A future of the <code>String[]</code> record data that was read.
+     */
+    public CompletableFuture read(final int recNo)
+    {
+        return call(new Call()
+        {
+            public Object call() throws Exception
+            {
+                return data.read(recNo);
+            }
+        });
+    }
+
+    /**
+     * Reads many records in a single call, revalidating the records that are cached.
+     *
+     * @see RecordCache#read(int[])
+     * @param recNos The record numbers to read.
+     * @return A future of the <code>String[][]</code> record data that was read, in the same order as the given record numbers.
+     */
+    public CompletableFuture readMany(final int[] recNos)
+    {
+        return call(new Call()
+        {
+            public Object call() throws Exception
+            {
+                return cache.read(recNos);
+            }
+        });
+    }
+
+    /**
+     * Reads many records by dividing them into batches of the given size, and reading every batch concurrently with
+     * {@link #readMany(int[]) readMany}. The future fails if any batch fails.
+     *
+     * @param recNos The record numbers to read.
+     * @param batchSize The largest number of records that are read by each call.
+     * @return A future of the <code>String[][]</code> record data that was read, in the same order as the given record numbers.
+     * @throws IllegalArgumentException If the given batch size is less than one.
+     */
+    public CompletableFuture readAll(final int[] recNos, final int batchSize) throws IllegalArgumentException
+    {
+        if(batchSize < 1)
+        {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+
+        final CompletableFuture[] reads = new CompletableFuture[(recNos.length + batchSize - 1) / batchSize];
+
+        for(int i = 0; i < reads.length; i++)
+        {
+            int from = i * batchSize;
+            int[] batch = new int[Math.min(batchSize, recNos.length - from)];
+            System.arraycopy(recNos, from, batch, 0, batch.length);
+
+            reads[i] = readMany(batch);
+        }
+
+        return CompletableFuture.allOf(reads).thenApply(new Function()
+        {
+            public Object apply(Object ignored)
+            {
+                String[][] retval = new String[recNos.length][];
+
+                for(int i = 0; i < reads.length; i++)
+                {
+                    String[][] batch = (String[][])reads[i].join();
+                    System.arraycopy(batch, 0, retval, i * batchSize, batch.length);
+                }
+
+                return retval;
+            }
+        });
+    }
+
+    /**
+     * Finds the records that match the given criteria.
+     *
+     * @see RemoteDB#find(String[], boolean)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return A future of the <code>int[]</code> record numbers that match the given criteria.
+     */
+    public CompletableFuture find(final String[] criteria, final boolean exact)
+    {
+        return call(new Call()
+        {
+            public Object call() throws Exception
+            {
+                return data.find(criteria, exact);
+            }
+        });
+    }
+
+    /**
+     * Finds the records that match the given criteria, and reads them a page of the given size at a time through a cursor on the server,
+     * so that no single call returns every matching record. The pages are fetched one after another by a single call, since each
+     * page follows from the last, and so a large result holds one thread rather than one for each page.
+     *
+     * @see RemoteDB#openCursor(String[], boolean, int)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @param batchSize The largest number of records that are read by each call.
+     * @return A future of the {@link suncertify.db.RecordBatch RecordBatch} of the records that match the given criteria.
+     * @throws IllegalArgumentException If the given batch size is less than one.
+     */
+    public CompletableFuture findRecords(final String[] criteria, final boolean exact, final int batchSize) throws IllegalArgumentException
+    {
+        if(batchSize < 1)
+        {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+
+        return call(new Call()
+        {
+            public Object call() throws Exception
+            {
+                long cursorId = data.openCursor(criteria, exact, batchSize);
+                List recNos = new ArrayList();
+                List records = new ArrayList();
+                boolean last = false;
+
+                try
+                {
+                    while(!last)
+                    {
+                        RecordBatch page = data.fetch(cursorId);
+
+                        for(int i = 0; i < page.size(); i++)
+                        {
+                            recNos.add(new Integer(page.getRecordNumber(i)));
+                            records.add(page.getRecord(i));
+                        }
+
+                        // a page with fewer records than the page size is the last, after which the server closes the cursor
+                        last = page.size() < batchSize;
+                    }
+                }
+                finally
+                {
+                    if(!last)
+                    {
+                        data.closeCursor(cursorId);
+                    }
+                }
+
+                int[] found = new int[recNos.size()];
+
+                for(int i = 0; i < found.length; i++)
+                {
+                    found[i] = ((Integer)recNos.get(i)).intValue();
+                }
+
+                return new RecordBatchImpl(found, (String[][])records.toArray(new String[0][]));
+            }
+        });
+    }
+
+    /**
+     * Returns the records that match the given criteria and changed after the given change sequence. If there is no sequence,
+     * the server returns every matching record in a {@link ChangeSet#isReset() reset} change set, with the sequence that it read
+     * before it found them, in the same call.
+     *
+     * @see RemoteDB#changesSince(long, String[], boolean)
+     * @param sequence The change sequence of a previous change set, or {@link ChangeSet#NO_SEQUENCE NO_SEQUENCE}.
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return A future of the {@link ChangeSet ChangeSet} of the records that changed.
+     */
+    public CompletableFuture changesSince(final long sequence, final String[] criteria, final boolean exact)
+    {
+        return call(new Call()
+        {
+            public Object call() throws Exception
+            {
+                return data.changesSince(sequence, criteria, exact);
+            }
+        });
+    }
+
+    /**
+     * Creates a record.
+     *
+     * @see RemoteDB#create(String[])
+     * @param record The data to create the new data record with.
+     * @return A future of the <code>Integer</code> number of the created record.
+     */
+    public CompletableFuture create(final String[] record)
+    {
+        return call(new Call()
+        {
+            public Object call() throws Exception
+            {
+                return new Integer(data.create(record));
+            }
+        });
+    }
+
+    /**
+     * Locks a record, updates it and unlocks it. The record is unlocked even if the update fails.
+     *
+     * @see RemoteDB#update(int, String[], long)
+     * @param recNo The record number to update.
+     * @param record The data to update with.
+     * @return A future that is completed with <code>null</code> when the record has been updated and unlocked.
+     */
+    public CompletableFuture update(final int recNo, final String[] record)
+    {
+        return call(new Call()
+        {
+            public Object call() throws Exception
+            {
+                long cookie = data.lock(recNo);
+
+                try
+                {
+                    data.update(recNo, record, cookie);
+                }
+                finally
+                {
+                    data.unlock(recNo, cookie);
+                }
+
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Locks a record, deletes it and unlocks it. The record is unlocked even if the delete fails.
+     *
+     * @see RemoteDB#delete(int, long)
+     * @param recNo The record number to delete.
+     * @return A future that is completed with <code>null</code> when the record has been deleted and unlocked.
+     */
+    public CompletableFuture delete(final int recNo)
+    {
+        return call(new Call()
+        {
+            public Object call() throws Exception
+            {
+                long cookie = data.lock(recNo);
+
+                try
+                {
+                    data.delete(recNo, cookie);
+                }
+                finally
+                {
+                    data.unlock(recNo, cookie);
+                }
+
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Stops accepting calls. Calls that have already been made are completed.
+     */
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+    // makes the given call on the executor; an exception that it throws completes the future exceptionally
+    private CompletableFuture call(final Call c)
+    {
+        return CompletableFuture.supplyAsync(new Supplier()
+        {
+            public Object get()
+            {
+                try
+                {
+                    return c.call();
+                }
+                catch(RuntimeException re)
+                {
+                    throw re;
+                }
+                catch(Exception e)
+                {
+                    throw new CompletionException(e);
+                }
+            }
+        }, executor);
+    }
+
+    // a call of the data that may throw a checked exception
+    private interface Call
+    {
+        public Object call() throws Exception;
+    }
+}
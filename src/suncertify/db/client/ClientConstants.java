@@ -40,6 +40,14 @@ public interface ClientConstants
      */
     public final static String PROP_CLIENT_HOST_PORT = "client.host.port";
 
+    /**
+     * The configuration property on the client that represents the port of the binary protocol server to connect to when the application
+     * is in networked mode, instead of looking up the remote DB object using RMI. Defaults to "0", which connects using RMI.
+     *
+     * @see suncertify.db.server.NioRemoteDB
+     */
+    public final static String PROP_CLIENT_NIO_PORT = "client.nio.port";
+
     /**
      * The configuration property on the client that represents the JNDI name of the remote DB object to connect to when the application is in networked mode.
      *
@@ -55,6 +55,20 @@ public interface Configuration
      */
     public void setClientPort(int clientPort);
 
+    /**
+     * Returns the clientNioPort configuration property; 0 (zero) if the client connects using RMI.
+     *
+     * @return The clientNioPort configuration property.
+     */
+    public int getClientNioPort();
+
+    /**
+     * Sets the clientNioPort configuration property; 0 (zero) if the client connects using RMI.
+     *
+     * @param clientNioPort The new value of the clientNioPort configuration property.
+     */
+    public void setClientNioPort(int clientNioPort);
+
     /**
      * Returns the clientDbJndiName configuration property.
      *
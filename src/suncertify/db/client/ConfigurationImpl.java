@@ -5,6 +5,7 @@ import suncertify.db.client.ClientConstants;
 import suncertify.db.client.SchemaColumn;
 import suncertify.db.ConfigurationException;
 import suncertify.db.client.SchemaColumnImpl;
+import suncertify.db.server.NioConstants;
 
 import java.util.Properties;
 import java.rmi.registry.Registry;
@@ -30,6 +31,7 @@ public class ConfigurationImpl implements Configuration, ClientConstants
 
     private String host = "localhost";
     private int clientPort = Registry.REGISTRY_PORT;
+    private int clientNioPort = NioConstants.NIO_DISABLED;
     private String clientDbJndiName = "Data";
     private String clientDataFilename;
     private boolean confirmCut = true;
@@ -90,6 +92,11 @@ public class ConfigurationImpl implements Configuration, ClientConstants
                 clientPort = Integer.parseInt(props.getProperty(PROP_CLIENT_HOST_PORT));
             }
 
+            if(props.getProperty(PROP_CLIENT_NIO_PORT) != null)
+            {
+                clientNioPort = Integer.parseInt(props.getProperty(PROP_CLIENT_NIO_PORT));
+            }
+
             if(props.getProperty(PROP_CLIENT_DB_JNDI_NAME) != null)
             {
                 clientDbJndiName = props.getProperty(PROP_CLIENT_DB_JNDI_NAME);
@@ -181,6 +188,26 @@ public class ConfigurationImpl implements Configuration, ClientConstants
         this.clientPort = clientPort;
     }
 
+    /**
+     * Returns the clientNioPort configuration property; 0 (zero) if the client connects using RMI.
+     *
+     * @return The clientNioPort configuration property.
+     */
+    public int getClientNioPort()
+    {
+        return clientNioPort;
+    }
+
+    /**
+     * Sets the clientNioPort configuration property; 0 (zero) if the client connects using RMI.
+     *
+     * @param clientNioPort The new value of the clientNioPort configuration property.
+     */
+    public void setClientNioPort(int clientNioPort)
+    {
+        this.clientNioPort = clientNioPort;
+    }
+
     /**
      * Returns the clientDbJndiName configuration property.
      *
@@ -322,6 +349,7 @@ public class ConfigurationImpl implements Configuration, ClientConstants
         }
 
         props.setProperty(PROP_CLIENT_HOST_PORT, String.valueOf(clientPort));
+        props.setProperty(PROP_CLIENT_NIO_PORT, String.valueOf(clientNioPort));
 
         if(clientDbJndiName != null && clientDbJndiName.length() > 0)
         {
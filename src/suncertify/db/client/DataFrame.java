@@ -14,9 +14,14 @@ import suncertify.db.client.actions.Search;
 import suncertify.db.client.actions.EditRecord;
 import suncertify.db.client.actions.RefreshAll;
 import suncertify.db.server.RemoteDB;
+import suncertify.db.server.NioRemoteDB;
+import suncertify.db.server.CompiledRecordMatcherImpl;
 import suncertify.db.RecordNotFoundException;
 import suncertify.db.DuplicateKeyException;
 import suncertify.db.DataRecordImpl;
+import suncertify.db.RecordBatch;
+import suncertify.db.DataChange;
+import suncertify.db.ChangeSet;
 
 import javax.swing.border.BevelBorder;
 import javax.swing.event.ListSelectionListener;
@@ -43,7 +48,12 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.rmi.RemoteException;
+import java.util.List;
+import java.util.LinkedList;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
 
 /**
  * Represents native frame and the core operations of the client application.
@@ -59,11 +69,24 @@ import java.rmi.RemoteException;
  */
 public class DataFrame extends JFrame
 {
+    // the largest number of calls that are made to the data source at once
+    private static final int ASYNC_THREADS = 4;
+
+    // the longest time, in milliseconds, that the server holds a poll for changes open
+    private static final long CHANGE_POLL_TIMEOUT = 30000L;
+
     private boolean networkedMode;
     private Configuration configuration;
-    private RemoteDB data;
+    private volatile RemoteDB data;
+    private AsyncDB asyncData;
+    private int refreshes;
+    private long sequence;
     private SearchCriteria criteria;
 
+    // the changes that are polled while a refresh runs, which are applied once it completes so that it cannot overwrite them;
+    // null while no refresh runs
+    private List heldChanges;
+
     private JMenuBar mb;
     private JToolBar toolbar;
     private JTable tblData;
@@ -228,12 +251,33 @@ public class DataFrame extends JFrame
      * Sets the handle to the data source held by the application.
      * Setting a value of <code>null</code> indicates that the application has no handle
      * and therefore, is "not connected" to a data source.
+     * The changes of records that are made by other clients are polled from the data source while it is held, and the display is
+     * patched with each change, so that it need not be refreshed by the user.
      *
      * @param data The new value of the handle to the data source held by the application.
      */
     public void setData(RemoteDB data)
     {
+        // a connection of the binary protocol is held open by the client, so it is closed when it is replaced
+        if(this.data instanceof NioRemoteDB && this.data != data)
+        {
+            ((NioRemoteDB)this.data).close();
+        }
+
+        if(this.asyncData != null)
+        {
+            this.asyncData.shutdown();
+        }
+
         this.data = data;
+        this.asyncData = data == null ? null : new AsyncDBImpl(data, ASYNC_THREADS);
+        this.sequence = ChangeSet.NO_SEQUENCE;
+        this.heldChanges = null;
+
+        if(data != null)
+        {
+            startChangePoller(data);
+        }
 
         update();
     }
@@ -260,16 +304,26 @@ public class DataFrame extends JFrame
 
     /**
      * Refreshes the data record display according to the last searched criteria.
+     * Only the records that were created, updated or deleted since the last refresh are read, and the display is patched with them.
      */
     public void refresh()
     {
-        refresh(this.criteria);
+        if(criteria == null)
+        {
+            refresh(null);
+        }
+        else
+        {
+            refresh(criteria, sequence);
+        }
     }
 
     /**
      * Refreshes the data record display according to the given search criteria.
      * If there is no search criteria (i.e. the first time), the search criteria will be set to 'all'.
      * The last searched criteria will be updated.
+     * The records are found and read without blocking the calling thread, and the display is updated on the event thread once
+     * they have been read.
      *
      * @param criteria The search criteria to refresh the record display with.
      */
@@ -280,104 +334,49 @@ public class DataFrame extends JFrame
             criteria = new SearchCriteriaImpl(new String[configuration.getMetaSchema().length]);
         }
 
-        DataTableModel dtm = (DataTableModel)tblData.getModel();
-        dtm.clear();
-
-        try
-        {
-            String[] criteriaFields = criteria.getFields();
-
-            int[] indicies = data.find(criteriaFields);
-
-            if(indicies == null)
-            {
-                JOptionPane.showMessageDialog(this, "An unknown error occurred on the server", "Unknown server error", JOptionPane.ERROR_MESSAGE);
-                connect.actionPerformed(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "connect"));
-            }
-            else
-            {
-                for(int i = 0; i < indicies.length; i++)
-                {
-                    try
-                    {
-                        String[] record = data.read(indicies[i]);
-
-                        if(record != null && (!criteria.isExactMatch() || new ExactMatcherImpl().isExactMatch(criteriaFields, record)))
-                        {
-                            dtm.addDataRecord(new DataRecordImpl(indicies[i], record));
-                        }
-
-                        this.criteria = criteria;
-                    }
-                    catch(RecordNotFoundException rnfe)
-                    {
-                        JOptionPane.showMessageDialog(this, rnfe.getMessage(), rnfe.getClass().getName(), JOptionPane.ERROR_MESSAGE);
-                    }
-                }
-
-                update();
-            }
-        }
-        catch(RemoteException re)
-        {
-            JOptionPane.showMessageDialog(this, re.getMessage(), re.getClass().getName(), JOptionPane.ERROR_MESSAGE);
-
-            setData(null);
-        }
-        catch(Exception e)
-        {
-            JOptionPane.showMessageDialog(this, e.getMessage(), e.getClass().getName(), JOptionPane.ERROR_MESSAGE);
-
-            setData(null);
-        }
+        refresh(criteria, ChangeSet.NO_SEQUENCE);
     }
 
     /**
      * Adds a data row to the application frame display and calls. Data records are represented in a JTable.
      * {@link #update() update()} to update the display according to the underlying data model.
      *
+     * The record is created without blocking the calling thread, and is added to the display on the event thread once it has been created.
+     *
      * @see suncertify.db.Data#create(String[])
      * @param row The row of data to add to the application frame.
      */
-    public void addRow(String[] row)
+    public void addRow(final String[] row)
     {
-        try
+        asyncData.create(row).whenComplete(new EventCompletion()
         {
-            int index = data.create(row);
-
-            if(index >= 0)
-            {
-                DataTableModel dtm = (DataTableModel)tblData.getModel();
-                dtm.addDataRecord(new DataRecordImpl(index, row));
-
-                update();
-            }
-            else
+            protected void completed(Object result)
             {
-                JOptionPane.showMessageDialog(this, "An unknown error occurred on the server", "Unknown server error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-        catch(DuplicateKeyException dke)
-        {
-            JOptionPane.showMessageDialog(this, dke.getMessage(), dke.getClass().getName(), JOptionPane.ERROR_MESSAGE);
-        }
-        catch(RemoteException re)
-        {
-            JOptionPane.showMessageDialog(this, re.getMessage(), re.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+                int index = ((Integer)result).intValue();
 
-            setData(null);
-        }
-        catch(Exception e)
-        {
-            JOptionPane.showMessageDialog(this, e.getMessage(), e.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+                if(index >= 0)
+                {
+                    // the record is not added again if its change has already been polled
+                    if(getRow(index) < 0)
+                    {
+                        DataTableModel dtm = (DataTableModel)tblData.getModel();
+                        dtm.addDataRecord(new DataRecordImpl(index, row));
+                    }
 
-            setData(null);
-        }
+                    update();
+                }
+                else
+                {
+                    JOptionPane.showMessageDialog(DataFrame.this, "An unknown error occurred on the server", "Unknown server error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
     }
 
     /**
      * Deletes the currently selected row in the application frame. Data records are represented in a JTable.
      * If no row has been selected, this call is ignored.
+     * The record is deleted without blocking the calling thread, and is removed from the display on the event thread once it has been deleted.
      *
      * @see suncertify.db.Data#lock(int)
      * @see suncertify.db.Data#delete(int, long)
@@ -390,83 +389,68 @@ public class DataFrame extends JFrame
 
         if(selected >= 0)
         {
-            try
-            {
-                DataTableModel dtm = (DataTableModel)tblData.getModel();
-
-                int index = dtm.getDataRecord(selected).getIndex();
-
-                long cookie = data.lock(index);
+            DataTableModel dtm = (DataTableModel)tblData.getModel();
 
-                data.delete(index, cookie);
+            final int index = dtm.getDataRecord(selected).getIndex();
 
-                data.unlock(index, cookie);
+            asyncData.delete(index).whenComplete(new EventCompletion()
+            {
+                protected void completed(Object result)
+                {
+                    DataTableModel dtm = (DataTableModel)tblData.getModel();
 
-                dtm.deleteDataRecord(selected);
+                    // the row of the record is found again, since the table may have changed while the record was deleted
+                    int row = getRow(index);
 
-                update();
-            }
-            catch(RecordNotFoundException rnfe)
-            {
-                JOptionPane.showMessageDialog(this, "No such record. The data view may be stale. Please refresh the data view.", rnfe.getClass().getName(), JOptionPane.ERROR_MESSAGE);
-            }
-            catch(RemoteException re)
-            {
-                JOptionPane.showMessageDialog(this, re.getMessage(), re.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+                    if(row >= 0)
+                    {
+                        dtm.deleteDataRecord(row);
+                    }
 
-                setData(null);
-            }
+                    update();
+                }
+            });
         }
     }
 
     /**
      * Updates the currently selected row in the application frame. Data records are represented in a JTable.
      * If no row has been selected, this call is ignored.
+     * The record is updated without blocking the calling thread, and the display is updated on the event thread once it has been updated.
      *
      * @see suncertify.db.Data#lock(int)
      * @see suncertify.db.Data#update(int, String[], long)
      * @see suncertify.db.Data#unlock(int, long)
      * @param row The new data to update the selected row with.
      */
-    public void updateSelectedRow(String[] row)
+    public void updateSelectedRow(final String[] row)
     {
         ListSelectionModel lsm = tblData.getSelectionModel();
         int selected = lsm.getMaxSelectionIndex();
 
         if(selected >= 0)
         {
-            try
-            {
-                DataTableModel dtm = (DataTableModel)tblData.getModel();
-
-                int index = dtm.getDataRecord(selected).getIndex();
-
-                long cookie = data.lock(index);
-
-                data.update(index, row, cookie);
-
-                data.unlock(index, cookie);
+            DataTableModel dtm = (DataTableModel)tblData.getModel();
 
-                dtm.updateDataRecord(new DataRecordImpl(row), selected);
+            final int index = dtm.getDataRecord(selected).getIndex();
 
-                update();
-            }
-            catch(RecordNotFoundException rnfe)
+            asyncData.update(index, row).whenComplete(new EventCompletion()
             {
-                JOptionPane.showMessageDialog(this, "No such record. The data view may be stale. Please refresh the data view.", rnfe.getClass().getName(), JOptionPane.ERROR_MESSAGE);
-            }
-            catch(RemoteException re)
-            {
-                JOptionPane.showMessageDialog(this, re.getMessage(), re.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+                protected void completed(Object result)
+                {
+                    DataTableModel dtm = (DataTableModel)tblData.getModel();
 
-                setData(null);
-            }
-            catch(Exception e)
-            {
-                JOptionPane.showMessageDialog(this, e.getMessage(), e.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+                    // the row of the record is found again, since the table may have changed while the record was updated
+                    int r = getRow(index);
 
-                setData(null);
-            }
+                    if(r >= 0)
+                    {
+                        dtm.updateDataRecord(new DataRecordImpl(index, row), r);
+                    }
+
+                    update();
+                }
+            });
         }
     }
 
@@ -509,6 +493,322 @@ public class DataFrame extends JFrame
         }
     }
 
+    // refreshes the display with the records that match the given criteria and changed after the given sequence, or with every
+    // matching record if there is no sequence
+    private void refresh(final SearchCriteria searched, long since)
+    {
+        if(asyncData == null)
+        {
+            return;
+        }
+
+        // a refresh that completes after a later refresh has been requested is discarded
+        final int refresh = ++refreshes;
+
+        if(heldChanges == null)
+        {
+            heldChanges = new LinkedList();
+        }
+
+        asyncData.changesSince(since, searched.getFields(), searched.isExactMatch()).whenComplete(new EventCompletion()
+        {
+            protected void completed(Object result)
+            {
+                if(refresh != refreshes)
+                {
+                    return;
+                }
+
+                ChangeSet changes = (ChangeSet)result;
+                DataTableModel dtm = (DataTableModel)tblData.getModel();
+
+                if(changes.isReset())
+                {
+                    dtm.clear();
+                }
+
+                int[] removed = changes.getRemovedRecordNumbers();
+
+                for(int i = 0; i < removed.length; i++)
+                {
+                    int row = getRow(removed[i]);
+
+                    if(row >= 0)
+                    {
+                        dtm.deleteDataRecord(row);
+                    }
+                }
+
+                RecordBatch records = changes.getRecords();
+
+                for(int i = 0; i < records.size(); i++)
+                {
+                    int recNo = records.getRecordNumber(i);
+                    int row = changes.isReset() ? -1 : getRow(recNo);
+
+                    if(row >= 0)
+                    {
+                        dtm.updateDataRecord(new DataRecordImpl(recNo, records.getRecord(i)), row);
+                    }
+                    else
+                    {
+                        dtm.addDataRecord(new DataRecordImpl(recNo, records.getRecord(i)));
+                    }
+                }
+
+                DataFrame.this.criteria = searched;
+                DataFrame.this.sequence = changes.getSequence();
+
+                releaseChanges();
+
+                update();
+            }
+
+            protected void failed(Throwable t)
+            {
+                if(refresh == refreshes)
+                {
+                    releaseChanges();
+                }
+
+                super.failed(t);
+            }
+        });
+    }
+
+    // returns the row of the data record with the given record number, or -1 if it is not displayed
+    private int getRow(int recNo)
+    {
+        DataTableModel dtm = (DataTableModel)tblData.getModel();
+
+        for(int i = 0; i < dtm.getRowCount(); i++)
+        {
+            if(dtm.getDataRecord(i).getIndex() == recNo)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    // starts a thread that polls the given data source for changes until it is no longer held by the application
+    private void startChangePoller(final RemoteDB db)
+    {
+        Thread poller = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                pollChanges(db);
+            }
+        }, "DataFrame change poller");
+
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    // polls the given data source for changes and applies them on the event thread; polling stops silently if the data source fails,
+    // since a failure of the connection is shown by the next call that the user makes
+    private void pollChanges(final RemoteDB db)
+    {
+        long subscriptionId;
+
+        try
+        {
+            subscriptionId = db.subscribe();
+        }
+        catch(RemoteException re)
+        {
+            return;
+        }
+        catch(RuntimeException re)
+        {
+            // the data source does not support subscriptions, or holds too many
+            return;
+        }
+
+        try
+        {
+            while(data == db)
+            {
+                final DataChange[] changes = db.pollChanges(subscriptionId, CHANGE_POLL_TIMEOUT);
+
+                EventQueue.invokeLater(new Runnable()
+                {
+                    public void run()
+                    {
+                        applyChanges(db, changes);
+                    }
+                });
+            }
+        }
+        catch(RemoteException re)
+        {
+            // the connection has failed or been closed
+        }
+        catch(RuntimeException re)
+        {
+            // the subscription has expired
+        }
+        finally
+        {
+            try
+            {
+                db.unsubscribe(subscriptionId);
+            }
+            catch(RemoteException re)
+            {
+                // the subscription expires by its lease
+            }
+            catch(RuntimeException re)
+            {
+                // the subscription expires by its lease
+            }
+        }
+    }
+
+    // patches the displayed records with the given changes of the given data source, or refreshes them if changes were lost
+    private void applyChanges(RemoteDB db, DataChange[] changes)
+    {
+        if(db != data)
+        {
+            return;
+        }
+
+        if(changes == null)
+        {
+            refresh();
+            return;
+        }
+
+        if(changes.length == 0)
+        {
+            return;
+        }
+
+        // a change that is polled while a refresh runs may be newer than the records that the refresh returns
+        if(heldChanges != null)
+        {
+            heldChanges.add(changes);
+            return;
+        }
+
+        patch(changes);
+
+        update();
+    }
+
+    // applies the changes that were polled while the last refresh ran, in the order that they were polled, and stops holding changes
+    private void releaseChanges()
+    {
+        List held = heldChanges;
+        heldChanges = null;
+
+        if(held != null)
+        {
+            for(int i = 0; i < held.size(); i++)
+            {
+                patch((DataChange[])held.get(i));
+            }
+        }
+    }
+
+    // patches the displayed records with the given changes
+    private void patch(DataChange[] changes)
+    {
+        DataTableModel dtm = (DataTableModel)tblData.getModel();
+
+        for(int i = 0; i < changes.length; i++)
+        {
+            int recNo = changes[i].getRecordNumber();
+            String[] record = changes[i].getRecord();
+            int row = getRow(recNo);
+
+            if(changes[i].getType() == DataChange.DELETED || !matchesCriteria(recNo, record))
+            {
+                if(row >= 0)
+                {
+                    dtm.deleteDataRecord(row);
+                }
+            }
+            else if(row >= 0)
+            {
+                dtm.updateDataRecord(new DataRecordImpl(recNo, record), row);
+            }
+            else
+            {
+                dtm.addDataRecord(new DataRecordImpl(recNo, record));
+            }
+        }
+    }
+
+    // determines if the given record matches the last searched criteria, which matches every record before the first search
+    private boolean matchesCriteria(int recNo, String[] record)
+    {
+        if(criteria == null)
+        {
+            return true;
+        }
+
+        String[] fields = criteria.getFields();
+
+        return new CompiledRecordMatcherImpl(fields, criteria.isExactMatch()).matches(new DataRecordImpl(recNo, record), fields);
+    }
+
+    // shows the failure of a call of the data source, and disconnects unless the failure was caused by a stale data view or a duplicate key
+    private void showFailure(Throwable t)
+    {
+        while(t instanceof CompletionException && t.getCause() != null)
+        {
+            t = t.getCause();
+        }
+
+        if(t instanceof RecordNotFoundException)
+        {
+            JOptionPane.showMessageDialog(this, "No such record. The data view may be stale. Please refresh the data view.", t.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+        }
+        else if(t instanceof DuplicateKeyException)
+        {
+            JOptionPane.showMessageDialog(this, t.getMessage(), t.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+        }
+        else
+        {
+            JOptionPane.showMessageDialog(this, t.getMessage(), t.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+
+            setData(null);
+        }
+    }
+
+    // completes a call of the data source on the event thread, or shows its failure
+    private abstract class EventCompletion implements BiConsumer
+    {
+        public void accept(final Object result, final Object failure)
+        {
+            EventQueue.invokeLater(new Runnable()
+            {
+                public void run()
+                {
+                    if(failure != null)
+                    {
+                        failed((Throwable)failure);
+                    }
+                    else
+                    {
+                        completed(result);
+                    }
+                }
+            });
+        }
+
+        protected abstract void completed(Object result);
+
+        // shows the failure of the call; a completion that holds state overrides this to release it
+        protected void failed(Throwable t)
+        {
+            showFailure(t);
+        }
+    }
+
     // initialize the application frame
     private void setup()
     {
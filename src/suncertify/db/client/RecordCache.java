@@ -0,0 +1,41 @@
+package suncertify.db.client;
+
+import suncertify.db.RecordNotFoundException;
+
+import java.rmi.RemoteException;
+
+/**
+ * Provides an interface for a client-side cache of data records, keyed by record number, that holds the version of each record
+ * that was supplied by the server. Every read revalidates the cached records in a single call, so that the server returns only
+ * the records whose version has changed.
+ *
+ * @see RecordCacheImpl
+ * @see suncertify.db.server.RemoteDB#readIfModified(int[], long[])
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface RecordCache
+{
+    /**
+     * Reads the given record numbers, reading from the server only the records that are not cached or that have changed.
+     *
+     * @param recNos The record numbers to read.
+     * @return The record data that was read, in the same order as the given record numbers, each of which is <code>null</code>
+     * if the record has been deleted.
+     * @throws RecordNotFoundException If any of the record numbers does not exist.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public String[][] read(int[] recNos) throws RecordNotFoundException, RemoteException;
+
+    /**
+     * Discards every cached record.
+     */
+    public void clear();
+
+    /**
+     * Returns the number of cached records.
+     *
+     * @return The number of cached records.
+     */
+    public int size();
+}
@@ -0,0 +1,151 @@
+package suncertify.db.client;
+
+import suncertify.db.RecordNotFoundException;
+import suncertify.db.RecordBatch;
+import suncertify.db.ChangeSet;
+import suncertify.db.server.RemoteDB;
+
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.HashMap;
+
+/**
+ * A record cache that revalidates the records of each read with a single call of
+ * {@link RemoteDB#readIfModified(int[], long[]) readIfModified}, which returns only the records that are not cached
+ * or that have changed. A deleted record is cached as deleted, since a record number that has been deleted is never used again.
+ * <br>
+ * The server is not called while the cache is locked, so that reads from many threads revalidate concurrently.
+ * This class is internally <b>thread-safe</b>.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class RecordCacheImpl implements RecordCache
+{
+    private RemoteDB data;
+    private Map entries;
+
+    /**
+     * Constructs an empty <tt>RecordCacheImpl</tt> that reads records from the given data.
+     *
+     * @param data The data to read records from.
+     */
+    public RecordCacheImpl(RemoteDB data)
+    {
+        this.data = data;
+        this.entries = new HashMap();
+    }
+
+    /**
+     * Reads the given record numbers, sending the version of each cached record to the server, which returns only the records
+     * that have changed. The records that are returned are cached with their new version.
+     *
+     * @param recNos The record numbers to read.
+     * @return The record data that was read, in the same order as the given record numbers, each of which is <code>null</code>
+     * if the record has been deleted.
+     * @throws RecordNotFoundException If any of the record numbers does not exist.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public String[][] read(int[] recNos) throws RecordNotFoundException, RemoteException
+    {
+        Entry[] cached = new Entry[recNos.length];
+        long[] versions = new long[recNos.length];
+
+        synchronized(entries)
+        {
+            for(int i = 0; i < recNos.length; i++)
+            {
+                cached[i] = (Entry)entries.get(new Integer(recNos[i]));
+                versions[i] = cached[i] == null ? ChangeSet.NO_SEQUENCE : cached[i].version;
+            }
+        }
+
+        ChangeSet changes = data.readIfModified(recNos, versions);
+        long version = changes.getSequence();
+
+        // the records that changed replace the cached records, unless a concurrent read has cached a later version
+        Map changed = new HashMap();
+        RecordBatch records = changes.getRecords();
+
+        for(int i = 0; i < records.size(); i++)
+        {
+            changed.put(new Integer(records.getRecordNumber(i)), new Entry(version, records.getRecord(i)));
+        }
+
+        int[] removed = changes.getRemovedRecordNumbers();
+
+        for(int i = 0; i < removed.length; i++)
+        {
+            changed.put(new Integer(removed[i]), new Entry(version, null));
+        }
+
+        synchronized(entries)
+        {
+            Object[] keys = changed.keySet().toArray();
+
+            for(int i = 0; i < keys.length; i++)
+            {
+                Entry existing = (Entry)entries.get(keys[i]);
+
+                if(existing == null || existing.version <= version)
+                {
+                    entries.put(keys[i], changed.get(keys[i]));
+                }
+            }
+        }
+
+        String[][] retval = new String[recNos.length][];
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            Entry e = (Entry)changed.get(new Integer(recNos[i]));
+
+            if(e == null)
+            {
+                e = cached[i];
+            }
+
+            // the caller is given a copy, so that it cannot change the cached record
+            retval[i] = e.record == null ? null : (String[])e.record.clone();
+        }
+
+        return retval;
+    }
+
+    /**
+     * Discards every cached record.
+     */
+    public void clear()
+    {
+        synchronized(entries)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached records, including records that are cached as deleted.
+     *
+     * @return The number of cached records.
+     */
+    public int size()
+    {
+        synchronized(entries)
+        {
+            return entries.size();
+        }
+    }
+
+    // a cached record, or null if it has been deleted, with the version that the server supplied with it
+    private static class Entry
+    {
+        private long version;
+        private String[] record;
+
+        private Entry(long version, String[] record)
+        {
+            this.version = version;
+            this.record = record;
+        }
+    }
+}
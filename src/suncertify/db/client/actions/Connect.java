@@ -6,6 +6,8 @@ import suncertify.db.utils.LongOperationDialog;
 import suncertify.db.client.MiddleLocator;
 import suncertify.db.server.RemoteData;
 import suncertify.db.server.RemoteDB;
+import suncertify.db.server.NioRemoteDB;
+import suncertify.db.server.NioConstants;
 
 import javax.swing.AbstractAction;
 import javax.swing.JOptionPane;
@@ -110,6 +112,17 @@ public class Connect extends AbstractAction
         {
             JOptionPane.showMessageDialog(owner, "Remote object name not specified", "Remote object name not specified", JOptionPane.ERROR_MESSAGE);
         }
+        else if(owner.getConfiguration().getClientNioPort() != NioConstants.NIO_DISABLED)
+        {
+            String host = owner.getConfiguration().getHost();
+
+            if(host != null && host.trim().length() == 0)
+            {
+                host = null;
+            }
+
+            return new NioRemoteDB(host, owner.getConfiguration().getClientNioPort());
+        }
         else
         {
             Registry reg;
@@ -0,0 +1,127 @@
+package suncertify.db.datafile;
+
+import suncertify.db.DataRecord;
+
+import java.io.IOException;
+import java.io.EOFException;
+
+/**
+ * A {@link RecordIterator RecordIterator} that reads the data file in large blocks of whole records
+ * into a reusable buffer. A sequential scan of the data file then costs one read for each block, rather than several reads for each record.
+ * <br>
+ * Each record is returned as a single {@link LazyDataRecordImpl LazyDataRecordImpl} that is moved over the block,
+ * so fields are only decoded when they are requested and no allocation is made for each record.
+ * The returned record is therefore only valid until the next call to {@link #hasMoreRecords() hasMoreRecords}
+ * or {@link #nextRecord() nextRecord}, and its index is the index of the record in the data file.
+ * <br>
+ * Subclasses provide the means of reading a block of the data file and determining the length of the data file.
+ * The length of the data file is determined once for each block, so records that are appended to the data file
+ * during the iteration are returned.
+ *
+ * @see DataFile#createRecordIterator()
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public abstract class BlockRecordIterator implements RecordIterator
+{
+    private LazyDataRecordImpl record;
+    private int recordLength;
+    private int index;
+    private byte[] block;
+    private int blockLength;
+    private int blockOffset;
+    private long position;
+
+    /**
+     * Constructs a <tt>BlockRecordIterator</tt> that begins at the given position of the data file, and
+     * reads blocks of at most the given size. The block size is rounded down to a whole number of records,
+     * but is always at least one record.
+     *
+     * @param codec The codec that describes the layout of the records of the data file.
+     * @param position The position of the data file at which the first record (with an index of zero) begins.
+     * @param blockSize The maximum size, in bytes, of each block to read.
+     */
+    public BlockRecordIterator(RecordCodec codec, long position, int blockSize)
+    {
+        this.record = new LazyDataRecordImpl(codec);
+        this.recordLength = codec.getRecordLength();
+        this.block = new byte[Math.max(1, blockSize / recordLength) * recordLength];
+        this.position = position;
+    }
+
+    /**
+     * Determines if the data file contains at least one more record to be read.
+     * If the current block has been exhausted, the next block is read from the data file.
+     *
+     * @return <tt>true</tt> If the data file contains enough data for one data record to be read, <code>false</code> otherwise.
+     * @throws IOException If an I/O Error occurs while reading the next block of the data file.
+     */
+    public boolean hasMoreRecords() throws IOException
+    {
+        if(blockOffset + recordLength > blockLength)
+        {
+            fill();
+        }
+
+        return (blockOffset + recordLength <= blockLength);
+    }
+
+    /**
+     * Returns the next record from the current block. The returned record is a view of the current block that is
+     * reused by this iterator, and is only valid until the next call to {@link #hasMoreRecords() hasMoreRecords}
+     * or {@link #nextRecord() nextRecord}.
+     *
+     * @return The next record of the data file.
+     * @throws EOFException If the data file contains no more records.
+     * @throws IOException If an I/O Error occurs while reading the next block or the deleted flag of the record is not valid.
+     */
+    public DataRecord nextRecord() throws IOException
+    {
+        if(!hasMoreRecords())
+        {
+            throw new EOFException("No more records in data file at: " + position);
+        }
+
+        record.wrap(block, blockOffset, index);
+
+        blockOffset = blockOffset + recordLength;
+        index++;
+
+        return record;
+    }
+
+    /**
+     * Reads exactly the given number of bytes from the given position of the data file into the given buffer.
+     *
+     * @param data The buffer to read the data into, beginning at index zero.
+     * @param length The number of bytes to read.
+     * @param position The position of the data file to begin reading at.
+     * @throws IOException If an I/O Error occurs while reading the data.
+     */
+    protected abstract void read(byte[] data, int length, long position) throws IOException;
+
+    /**
+     * Returns the length, in bytes, of the data file.
+     *
+     * @return The length, in bytes, of the data file.
+     * @throws IOException If an I/O Error occurs while determining the length of the data file.
+     */
+    protected abstract long length() throws IOException;
+
+    // reads as many whole records as will fit in the block, up to the end of the data file
+    private void fill() throws IOException
+    {
+        long remaining = (length() - position) / recordLength * recordLength;
+
+        int length = (int)Math.max(0, Math.min(block.length, remaining));
+
+        if(length > 0)
+        {
+            read(block, length, position);
+        }
+
+        position = position + length;
+        blockOffset = 0;
+        blockLength = length;
+    }
+}
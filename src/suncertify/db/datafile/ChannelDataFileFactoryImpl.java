@@ -0,0 +1,128 @@
+package suncertify.db.datafile;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+/**
+ * Forms part of a Factory design pattern framework for creating a {@link DataFile DataFile} implementation.
+ * Provides a concrete implementation of the factory that returns an instance of {@link ChannelDataFileImpl ChannelDataFileImpl}.
+ * <br>
+ * Unlike {@link DataFileFactoryImpl DataFileFactoryImpl}, which opens the data file for every call to
+ * {@link #createDataFile(String) createDataFile}, this factory opens the data file once, when first required, and
+ * shares a single <code>java.nio.channels.FileChannel</code> and parsed {@link DataFileHeader DataFileHeader}
+ * between every {@link DataFile DataFile} that it creates. The underlying data file remains open until
+ * {@link #close() close} is called.
+ *
+ * @see DataFile
+ * @see ChannelDataFileImpl
+ * @see DataFileFactory
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class ChannelDataFileFactoryImpl implements DataFileFactory
+{
+    private String dataFilename;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private DataFileHeader header;
+
+    /**
+     * Constructs a <tt>ChannelDataFileFactoryImpl</tt> with the file name of the underlying data file.
+     * The data file is not opened until the first {@link DataFile DataFile} is created.
+     *
+     * @param dataFilename The file name of the underlying data file.
+     */
+    public ChannelDataFileFactoryImpl(String dataFilename)
+    {
+        this.dataFilename = dataFilename;
+    }
+
+    /**
+     * Returns an instance of a {@link ChannelDataFileImpl ChannelDataFileImpl} over the shared channel of the data file.
+     * The first call to this method opens the data file and reads its header.
+     *
+     * @param mode The mode in which to open the {@link ChannelDataFileImpl ChannelDataFileImpl} with.
+     * @return A new instance of a {@link ChannelDataFileImpl ChannelDataFileImpl}.
+     * @throws IOException If an I/O Error occurs while opening the data file or reading its header.
+     */
+    public DataFile createDataFile(String mode) throws IOException
+    {
+        FileChannel channel;
+        DataFileHeader header;
+
+        synchronized(this)
+        {
+            if(this.channel == null)
+            {
+                open();
+            }
+
+            channel = this.channel;
+            header = this.header;
+        }
+
+        return createDataFile(channel, header, mode);
+    }
+
+    /**
+     * Instantiates and returns a {@link DataFile DataFile} over the given shared channel and header of the data file.
+     * Subclasses may override this method to return some other view of the shared channel.
+     *
+     * @param channel The shared channel of the data file.
+     * @param header The shared header of the data file.
+     * @param mode The mode in which to open the {@link DataFile DataFile} with.
+     * @return A new instance of a {@link ChannelDataFileImpl ChannelDataFileImpl}.
+     * @throws IOException If an I/O Error occurs while instantiating the {@link DataFile DataFile}.
+     */
+    protected DataFile createDataFile(FileChannel channel, DataFileHeader header, String mode) throws IOException
+    {
+        return new ChannelDataFileImpl(channel, header, mode);
+    }
+
+    /**
+     * Closes the shared channel of the underlying data file.
+     * A subsequent call to {@link #createDataFile(String) createDataFile} will reopen the data file.
+     *
+     * @throws IOException If an I/O Error occurs while closing the data file.
+     */
+    public synchronized void close() throws IOException
+    {
+        if(file != null)
+        {
+            try
+            {
+                file.close();
+            }
+            finally
+            {
+                file = null;
+                channel = null;
+                header = null;
+            }
+        }
+    }
+
+    // opens the data file and reads the header once for all subsequently created data files
+    private void open() throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(dataFilename, "rw");
+
+        try
+        {
+            FileChannel channel = file.getChannel();
+
+            DataFile view = new ChannelDataFileImpl(channel, null, "r");
+            DataFileHeader header = view.readHeader();
+
+            this.file = file;
+            this.channel = channel;
+            this.header = header;
+        }
+        catch(IOException ioe)
+        {
+            file.close();
+            throw ioe;
+        }
+    }
+}
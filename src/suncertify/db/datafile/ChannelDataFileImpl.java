@@ -0,0 +1,459 @@
+package suncertify.db.datafile;
+
+import suncertify.db.DataRecord;
+
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Encapsulates functionality for reading and writing to and from the data file through a shared
+ * <code>java.nio.channels.FileChannel</code>. Unlike {@link DataFileImpl DataFileImpl}, this implementation
+ * does not own the underlying file; it is a lightweight view that maintains its own file pointer and uses
+ * positional reads and writes, so that many views may be used concurrently by different threads against the same channel.
+ * Closing the view does not close the underlying channel.
+ *
+ * @see ChannelDataFileFactoryImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class ChannelDataFileImpl implements DataFile, DataFileConstants
+{
+    private FileChannel channel;
+    private DataFileHeader header;
+    private RecordCodec codec;
+    private boolean writable;
+    private boolean sync;
+    private boolean syncMetaData;
+    private boolean closed;
+    private long position;
+
+    /**
+     * Constructs a <tt>ChannelDataFileImpl</tt> view over the given channel with the given mode.
+     * The valid modes are the same as those of <code>java.io.RandomAccessFile</code>.
+     * <br>
+     * <b><u>Valid modes.</u></b>
+     * <li><b>"r"</b></li>
+     * Invoking any of the <tt>write</tt> methods of the resulting object will cause a <code>java.io.IOException</code> to be thrown.
+     *
+     * <li><b>"rw"</b></li>
+     * The view may be used for reading and writing.
+     *
+     * <li><b>"rws"</b></li>
+     * As with <tt>"rw"</tt>, and also every write will force the file's content and metadata to the underlying storage device.
+     *
+     * <li><b>"rwd"</b></li>
+     * As with <tt>"rw"</tt>, and also every write will force the file's content to the underlying storage device.
+     *
+     * @param channel The shared channel of the data file. The channel must be open for reading and writing if the mode is not <tt>"r"</tt>.
+     * @param header The header of the data file, or <code>null</code> if it should be read from the channel when first required.
+     * If the header is not <code>null</code>, the file pointer is initially positioned at the first record.
+     * @param mode The mode of the view.
+     * @throws IllegalArgumentException If the mode argument is not equal to one of
+     * <tt>"r"</tt>, <tt>"rw"</tt>, <tt>"rws"</tt>, or <tt>"rwd"</tt>.
+     */
+    public ChannelDataFileImpl(FileChannel channel, DataFileHeader header, String mode) throws IllegalArgumentException
+    {
+        if(mode.equals("r"))
+        {
+            writable = false;
+        }
+        else if(mode.equals("rw"))
+        {
+            writable = true;
+        }
+        else if(mode.equals("rws"))
+        {
+            writable = true;
+            sync = true;
+            syncMetaData = true;
+        }
+        else if(mode.equals("rwd"))
+        {
+            writable = true;
+            sync = true;
+        }
+        else
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Illegal mode \"");
+            message.append(mode);
+            message.append("\" must be one of \"r\", \"rw\", \"rws\", or \"rwd\"");
+
+            throw new IllegalArgumentException(message.toString());
+        }
+
+        this.channel = channel;
+        setHeader(header);
+
+        // a newly created view is positioned at the first record, as if the header had just been read
+        if(header != null)
+        {
+            position = header.getDataOffset();
+        }
+    }
+
+    /**
+     * Returns the underlying {@link DataFileHeader DataFileHeader} of this data file.
+     * If the header value is equal to <tt>null</tt>, the header data will be read from the data file.
+     * Otherwise, the "cached" header data will be returned.
+     *
+     * @return A data structure that encapsulates the header of a data file.
+     * @throws IOException If an I/O error occurs when trying to read the header data from the data file.
+     * If the underlying "cached" header value exists (not equal to <tt>null</tt>), then this exception will never be thrown.
+     */
+    public DataFileHeader getHeader() throws IOException
+    {
+        if(this.header == null)
+        {
+            setHeader(readHeader());
+        }
+
+        return this.header;
+    }
+
+    /**
+     * Sets the underlying header value of the data file. This method will not write anything to the file, but will update
+     * any "cached" header data value. Passing a <tt>null</tt> argument will "clear the cached header data".
+     *
+     * @param header The new header data.
+     */
+    public void setHeader(DataFileHeader header)
+    {
+        this.header = header;
+        this.codec = (header == null ? null : new RecordCodecImpl(header));
+    }
+
+    /**
+     * Clears any value that has been cached in memory as a header in the data file.
+     */
+    public void clearCachedHeader()
+    {
+        setHeader(null);
+    }
+
+    /**
+     * Moves the file pointer of this view to the given record, which is indexed from zero.
+     * Any subsequent read or write calls through this view will occur at this position in the data file.
+     *
+     * @param recordNumber The index (starting at zero) of the record to seek the file pointer to.
+     * @throws IOException If an I/O error occurs when trying to read the header data from the data file.
+     */
+    public void seekRecord(int recordNumber) throws IOException
+    {
+        DataFileHeader header = getHeader();
+
+        position = header.getDataOffset() + (long)recordNumber * header.recordLength();
+    }
+
+    /**
+     * Reads the header data from the data file. The file pointer will be located at the end of the header data
+     * after this method has completed execution. No attempt is made to "cache" the data for further attempts
+     * to access the header data.
+     *
+     * @return The header data that was read from the data file.
+     * @throws EOFException If the size and format of the header data is invalid.
+     * @throws IOException If an I/O Error occurs while reading the header data.
+     */
+    public DataFileHeader readHeader() throws IOException
+    {
+        ensureOpen();
+
+        // the data offset (bytes 4 to 8) is the length of the whole header
+        byte[] offset = new byte[8];
+        readFully(offset, 0, offset.length, 0);
+
+        DataInputStream prefix = new DataInputStream(new ByteArrayInputStream(offset));
+        prefix.readInt();
+        int length = prefix.readInt();
+
+        byte[] data = new byte[(int)Math.min(Math.max(length, 0), channel.size())];
+        readFully(data, 0, data.length, 0);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+        DataFileHeader header = new DataFileHeader();
+        header.readFrom(in);
+
+        position = data.length - in.available();
+
+        return header;
+    }
+
+    /**
+     * Determines if the data file contains more data to be read.
+     *
+     * @return <tt>true</tt> If the data file contains more data to be read.
+     * @throws IOException If an I/O Error occurs while attempting to determine the length of the data file.
+     */
+    public boolean hasMoreData() throws IOException
+    {
+        ensureOpen();
+
+        return (position < channel.size());
+    }
+
+    /**
+     * Determines if the data file contains at least one more record to be read.
+     *
+     * @return <tt>true</tt> If the data file contains enough data for one data record to be read, <code>false</code> otherwise.
+     * @throws IOException If an I/O Error occurs while attempting to determine the length of the data file
+     * or attempting to get the header data of the data file.
+     */
+    public boolean hasMoreRecords() throws IOException
+    {
+        ensureOpen();
+
+        DataFileHeader header = getHeader();
+
+        return ((position + header.recordLength()) <= channel.size());
+    }
+
+    /**
+     * Reads and returns a record from the current file pointer position of this view.
+     * The record is read with a single positional read of the whole record.
+     *
+     * @return A record from the current file pointer position of the data file.
+     * @throws EOFException If end of file is reached before a valid record has been properly read.
+     * @throws IOException If an I/O Error occurs while reading the record data.
+     */
+    public DataRecord nextRecord() throws EOFException, IOException
+    {
+        ensureOpen();
+
+        getHeader();
+
+        byte[] data = new byte[codec.getRecordLength()];
+
+        readFully(data, 0, data.length, position);
+
+        position = position + data.length;
+
+        return codec.decode(data, 0);
+    }
+
+    /**
+     * Writes the given header data to the beginning of the data file. After this method has completed execution,
+     * the file pointer will be at the end of the header data.
+     *
+     * @param header The header data to write to the data file.
+     * @throws IOException If this view is read only or an I/O Error occurs while writing the header data.
+     */
+    public void writeHeader(DataFileHeader header) throws IOException
+    {
+        ensureWritable();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        header.writeTo(new DataOutputStream(bytes));
+
+        byte[] data = bytes.toByteArray();
+
+        writeFully(data, 0);
+
+        position = data.length;
+
+        setHeader(header);
+    }
+
+    /**
+     * Writes a record at the current file pointer position of this view with a single positional write.
+     *
+     * @param record The record to write to the data file.
+     * @throws IOException If this view is read only or an I/O Error occurs while writing the record data.
+     */
+    public void writeRecord(DataRecord record) throws IOException
+    {
+        ensureWritable();
+
+        getHeader();
+
+        byte[] data = new byte[codec.getRecordLength()];
+
+        codec.encode(record, data, 0);
+
+        writeFully(data, position);
+
+        position = position + data.length;
+    }
+
+    /**
+     * Returns the current file pointer offset, in bytes, of this view.
+     * This is the position at which the next read or write will occur.
+     *
+     * @return The current file pointer offset, in bytes, of this view.
+     * @throws IOException If this view has been closed.
+     */
+    public long getFilePointer() throws IOException
+    {
+        ensureOpen();
+
+        return position;
+    }
+
+    /**
+     * Returns the length, in bytes, of the underlying data file.
+     *
+     * @see java.nio.channels.FileChannel#size()
+     * @return The length, in bytes, of the underlying data file.
+     * @throws IOException If an I/O Error occurs while attempting to get the underlying data file length.
+     */
+    public long length() throws IOException
+    {
+        ensureOpen();
+
+        return channel.size();
+    }
+
+    /**
+     * Sets the record length (number of records) of the underlying data file.
+     * If the number of records currently in the data file is greater than the new length,
+     * the data file will be truncated. If the number of records currently in the data file is less than
+     * the new length, the data file will be extended. The contents of the extended portion are undefined.
+     *
+     * @param totalRecords The new length of the data file, measured as records.
+     * @throws IOException If this view is read only or an I/O Error occurs when attempting to set the new length of the data file.
+     */
+    public void setRecordLength(int totalRecords) throws IOException
+    {
+        ensureWritable();
+
+        DataFileHeader header = getHeader();
+
+        long length = header.getDataOffset() + (long)totalRecords * header.recordLength();
+
+        if(length < channel.size())
+        {
+            channel.truncate(length);
+        }
+        else if(length > channel.size())
+        {
+            writeFully(new byte[1], length - 1);
+        }
+    }
+
+    /**
+     * Returns the length, in records, of the data file.
+     *
+     * @return The length, in records, of the data file.
+     * @throws IOException If an I/O Error occurs when attempting to determine the length, in records, of the data file.
+     */
+    public long lengthInRecords() throws IOException
+    {
+        ensureOpen();
+
+        DataFileHeader header = getHeader();
+
+        return ((channel.size() - header.getDataOffset()) / header.recordLength());
+    }
+
+    /**
+     * Returns a {@link RecordIterator RecordIterator} over every record of the data file, beginning at the first record.
+     * Each block of records is read with a single positional read, and the file pointer of this view is not moved.
+     *
+     * @see BlockRecordIterator
+     * @return An iterator over every record of the data file.
+     * @throws IOException If this view has been closed or an I/O Error occurs while reading the header data of the data file.
+     */
+    public RecordIterator createRecordIterator() throws IOException
+    {
+        ensureOpen();
+
+        DataFileHeader header = getHeader();
+
+        return new BlockRecordIterator(codec, header.getDataOffset(), RECORD_BLOCK_SIZE)
+        {
+            protected void read(byte[] data, int length, long position) throws IOException
+            {
+                ensureOpen();
+
+                readFully(data, 0, length, position);
+            }
+
+            protected long length() throws IOException
+            {
+                return ChannelDataFileImpl.this.length();
+            }
+        };
+    }
+
+    /**
+     * Closes this view. After closing, no more read or write operations can be performed through this view.
+     * The underlying channel is not closed since it is shared with other views.
+     *
+     * @see ChannelDataFileFactoryImpl#close()
+     */
+    public void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * Reads exactly the given number of bytes into the given buffer, beginning at the given position of the data file.
+     * Every read of this view is performed through this method, so a subclass may override it
+     * to read the data file through some other means than the shared channel.
+     *
+     * @param data The buffer to read the data into.
+     * @param offset The offset into the buffer at which to begin writing the data that is read.
+     * @param length The number of bytes to read.
+     * @param position The position of the data file to begin reading at.
+     * @throws EOFException If the end of the data file is reached before the given number of bytes has been read.
+     * @throws IOException If an I/O Error occurs while reading the data.
+     */
+    protected void readFully(byte[] data, int offset, int length, long position) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+
+        while(buffer.hasRemaining())
+        {
+            if(channel.read(buffer, position + buffer.position() - offset) < 0)
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Unexpected end of data file at: ");
+                message.append(position + buffer.position() - offset);
+
+                throw new EOFException(message.toString());
+            }
+        }
+    }
+
+    // writes the whole of the given buffer to the given position of the channel
+    private void writeFully(byte[] data, long position) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        while(buffer.hasRemaining())
+        {
+            channel.write(buffer, position + buffer.position());
+        }
+
+        if(sync)
+        {
+            channel.force(syncMetaData);
+        }
+    }
+
+    // throws an IOException if this view has been closed
+    private void ensureOpen() throws IOException
+    {
+        if(closed)
+        {
+            throw new IOException("Data file view has been closed");
+        }
+    }
+
+    // throws an IOException if this view has been closed or was opened for read only
+    private void ensureWritable() throws IOException
+    {
+        ensureOpen();
+
+        if(!writable)
+        {
+            throw new IOException("Data file view has been opened for read only");
+        }
+    }
+}
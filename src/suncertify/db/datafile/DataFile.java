@@ -145,6 +145,18 @@ public interface DataFile extends RecordIterator
      */
     public long lengthInRecords() throws IOException;
 
+    /**
+     * Returns a {@link RecordIterator RecordIterator} over every record of the data file, beginning at the first record.
+     * The returned iterator reads the data file in blocks of many records, and is more efficient than
+     * {@link #nextRecord() nextRecord} for a sequential scan of the data file. The iterator is independent of
+     * the file pointer of this data file, although an implementation may move the file pointer while iterating.
+     *
+     * @see BlockRecordIterator
+     * @return An iterator over every record of the data file.
+     * @throws IOException If an I/O Error occurs while reading the header data of the data file.
+     */
+    public RecordIterator createRecordIterator() throws IOException;
+
     /**
      * Closes the underlying data file and any system resources associated with it.
      * After closing, no more read or write operations can be performed.
@@ -22,4 +22,16 @@ public interface DataFileConstants
      * The <code>byte</code> value to pad the remainder of data record data with.
      */
     public static final byte RECORD_PADDING = 0x0020;
+
+    /**
+     * The default size, in bytes, of each region of the data file that is mapped into memory.
+     *
+     * @see MappedFileRegion
+     */
+    public static final int MAPPED_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The default size, in bytes, of each block of records that is read by a {@link BlockRecordIterator BlockRecordIterator}.
+     */
+    public static final int RECORD_BLOCK_SIZE = 64 * 1024;
 }
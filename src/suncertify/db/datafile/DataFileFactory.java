@@ -21,4 +21,12 @@ public interface DataFileFactory
      * @throws IOException If an I/O Error occurs while instantiating the {@link DataFile DataFile} implementation.
      */
     public DataFile createDataFile(String mode) throws IOException;
+
+    /**
+     * Releases any resources that are held by this factory across calls to {@link #createDataFile(String) createDataFile}.
+     * Any {@link DataFile DataFile} that was created by this factory should not be used after this method is called.
+     *
+     * @throws IOException If an I/O Error occurs while releasing the resources.
+     */
+    public void close() throws IOException;
 }
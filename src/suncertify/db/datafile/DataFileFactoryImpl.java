@@ -37,4 +37,13 @@ public class DataFileFactoryImpl implements DataFileFactory
     {
         return new DataFileImpl(dataFilename, mode);
     }
+
+    /**
+     * Does nothing, since every {@link DataFileImpl DataFileImpl} that is created by this factory
+     * opens and closes the underlying data file itself.
+     */
+    public void close()
+    {
+
+    }
 }
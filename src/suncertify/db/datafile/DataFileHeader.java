@@ -1,5 +1,9 @@
 package suncertify.db.datafile;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Encapsulates a data structure that describes the header of a data file.
  * A data file header consists of the following elements in the given order:
@@ -180,6 +184,58 @@ public class DataFileHeader
         return length;
     }
 
+    /**
+     * Reads the properties of this <tt>DataFileHeader</tt> from the given input in the data file header format.
+     * Any existing property values are replaced.
+     *
+     * @param in The input to read the header data from.
+     * @throws java.io.EOFException If the end of the input is reached before valid header data has been properly read.
+     * @throws IOException If an I/O Error occurs while reading the header data.
+     */
+    public void readFrom(DataInput in) throws IOException
+    {
+        setMagicNumber(in.readInt());
+        setDataOffset(in.readInt());
+        setTotalFields(in.readShort());
+
+        FieldSchema[] schema = new FieldSchemaImpl[getTotalFields()];
+
+        for(int i = 0; i < schema.length; i++)
+        {
+            short s = in.readShort();
+
+            if(s > 0)
+            {
+                byte[] b = new byte[s];
+                in.readFully(b);
+
+                schema[i] = new FieldSchemaImpl(new String(b), in.readShort());
+            }
+        }
+
+        setSchema(schema);
+    }
+
+    /**
+     * Writes the properties of this <tt>DataFileHeader</tt> to the given output in the data file header format.
+     *
+     * @param out The output to write the header data to.
+     * @throws IOException If an I/O Error occurs while writing the header data.
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        out.writeInt(getMagicNumber());
+        out.writeInt(getDataOffset());
+        out.writeShort(getTotalFields());
+
+        for(int i = 0; i < schema.length; i++)
+        {
+            out.writeShort(schema[i].getName().length());
+            out.write(schema[i].getName().getBytes());
+            out.writeShort(schema[i].getLength());
+        }
+    }
+
     /**
      * Performs a "deep equality" comparison between this <tt>DataFileHeader</tt> and the given object.
      * If the given object is not an instance of <tt>DataFileHeader</tt>, this method will return <code>false</code>.
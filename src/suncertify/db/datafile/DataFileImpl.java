@@ -437,6 +437,34 @@ public class DataFileImpl implements DataFile, DataFileConstants
         return ((raf.length() - header.getDataOffset()) / header.recordLength());
     }
 
+    /**
+     * Returns a {@link RecordIterator RecordIterator} over every record of the data file, beginning at the first record.
+     * Each block of records is read with a single read of the underlying <code>java.io.RandomAccessFile</code>,
+     * which moves the file pointer of this data file.
+     *
+     * @see BlockRecordIterator
+     * @return An iterator over every record of the data file.
+     * @throws IOException If an I/O Error occurs while reading the header data of the data file.
+     */
+    public RecordIterator createRecordIterator() throws IOException
+    {
+        DataFileHeader header = getHeader();
+
+        return new BlockRecordIterator(new RecordCodecImpl(header), header.getDataOffset(), RECORD_BLOCK_SIZE)
+        {
+            protected void read(byte[] data, int length, long position) throws IOException
+            {
+                raf.seek(position);
+                raf.readFully(data, 0, length);
+            }
+
+            protected long length() throws IOException
+            {
+                return raf.length();
+            }
+        };
+    }
+
     /**
      * Closes the underlying <code>java.io.RandomAccessFile</code> and any system resources associated with it.
      * After closing, no more read or write operations can be performed.
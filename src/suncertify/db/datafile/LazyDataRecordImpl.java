@@ -0,0 +1,244 @@
+package suncertify.db.datafile;
+
+import suncertify.db.DataRecord;
+
+import java.io.IOException;
+
+/**
+ * A {@link DataRecord DataRecord} that is a view over the raw bytes of a record in a buffer, such as the block of a
+ * {@link BlockRecordIterator BlockRecordIterator}. No field is decoded into a <code>String</code> until it is requested through
+ * {@link #getValueAt(int) getValueAt} or {@link #getData() getData}, so a record that is rejected after examining only
+ * some of its fields costs no allocation for the remaining fields.
+ * <br>
+ * This is a flyweight; a single instance may be moved over many records with {@link #wrap(byte[], int, int) wrap}.
+ * The values of a <tt>LazyDataRecordImpl</tt> are therefore only valid until it is next wrapped, or until the underlying
+ * buffer is overwritten. A caller that must retain a record should copy its values, for example with {@link #getData() getData}.
+ * Setting the data of a <tt>LazyDataRecordImpl</tt> does not write to the underlying buffer.
+ *
+ * @see RecordCodec
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class LazyDataRecordImpl implements DataRecord
+{
+    private RecordCodec codec;
+    private byte[] buffer;
+    private int offset;
+    private boolean deleted;
+    private int index;
+    private String[] values;
+    private boolean decoded;
+
+    /**
+     * Constructs a <tt>LazyDataRecordImpl</tt> for records with the layout of the given codec.
+     * The record does not view any data until it is wrapped over a buffer.
+     *
+     * @param codec The codec that describes the layout of each record.
+     */
+    public LazyDataRecordImpl(RecordCodec codec)
+    {
+        this.codec = codec;
+        this.values = new String[codec.getTotalFields()];
+    }
+
+    /**
+     * Moves this record over the raw bytes of a record that begins at the given offset of the given buffer.
+     * Only the deleted flag of the record is decoded; any previously decoded field values are discarded.
+     *
+     * @param buffer The buffer that contains the raw bytes of the record.
+     * @param offset The offset into the buffer at which the record begins.
+     * @param index The index of the record in the data file.
+     * @throws IOException If the deleted flag of the record is not valid.
+     */
+    public void wrap(byte[] buffer, int offset, int index) throws IOException
+    {
+        this.deleted = codec.isDeleted(buffer, offset);
+        this.buffer = buffer;
+        this.offset = offset;
+        this.index = index;
+
+        if(decoded)
+        {
+            // allocate rather than clear, since the array returned by getData may have been retained
+            values = new String[values.length];
+            decoded = false;
+        }
+        else
+        {
+            for(int i = 0; i < values.length; i++)
+            {
+                values[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the buffer that contains the raw bytes of this record.
+     *
+     * @return The buffer that contains the raw bytes of this record.
+     */
+    public byte[] getBuffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * Returns the offset into the buffer at which the given field of this record begins.
+     *
+     * @param field The index of the field.
+     * @return The offset into the buffer at which the given field of this record begins.
+     */
+    public int getFieldOffset(int field)
+    {
+        return offset + codec.getFieldOffset(field);
+    }
+
+    /**
+     * Returns the length, in bytes, of the given field of this record.
+     *
+     * @param field The index of the field.
+     * @return The length, in bytes, of the given field of this record.
+     */
+    public int getFieldLength(int field)
+    {
+        return codec.getFieldLength(field);
+    }
+
+    /**
+     * Returns the deleted property of the database record.
+     *
+     * @return The deleted property of the database record.
+     */
+    public boolean isDeleted()
+    {
+        return deleted;
+    }
+
+    /**
+     * Sets the deleted property of the database record.
+     *
+     * @param deleted The deleted property of the database record.
+     */
+    public void setDeleted(boolean deleted)
+    {
+        this.deleted = deleted;
+    }
+
+    /**
+     * Returns the data property of the database record, decoding every field that has not yet been decoded.
+     *
+     * @return The data property of the database record.
+     */
+    public String[] getData()
+    {
+        for(int i = 0; i < values.length; i++)
+        {
+            getValueAt(i);
+        }
+
+        decoded = true;
+
+        return values;
+    }
+
+    /**
+     * Sets the data property of the database record. The underlying buffer is not modified.
+     *
+     * @param fields The data property of the database record.
+     */
+    public void setData(String[] fields)
+    {
+        this.values = fields;
+        this.decoded = true;
+    }
+
+    /**
+     * Returns the index at which this <code>DataRecord</code> exists in the data file.
+     *
+     * @return The index at which this <code>DataRecord</code> exists in the data file.
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Sets the index at which this <code>DataRecord</code> exists in the data file.
+     *
+     * @param index The new index at which this <code>DataRecord</code> exists in the data file.
+     */
+    public void setIndex(int index)
+    {
+        this.index = index;
+    }
+
+    /**
+     * Returns the number of fields in the underlying row data.
+     *
+     * @return The number of fields in the underlying row data.
+     */
+    public int getRowLength()
+    {
+        return values.length;
+    }
+
+    /**
+     * Returns the field value at the given index in the underlying row data, decoding it from the raw bytes
+     * of the record if it has not yet been decoded.
+     *
+     * @param index The index at which to retrieve the field data from the underlying data.
+     * @return The field value at the given index in the underlying row data.
+     */
+    public String getValueAt(int index)
+    {
+        if(values[index] == null && !decoded)
+        {
+            values[index] = new String(buffer, getFieldOffset(index), getFieldLength(index));
+        }
+
+        return values[index];
+    }
+
+    /**
+     * Sets the field value at the given index in the underlying row data. The underlying buffer is not modified.
+     *
+     * @param index The index at which to set the field data in the underlying data.
+     * @param value The new value to set.
+     */
+    public void setValueAt(int index, String value)
+    {
+        getData();
+
+        values[index] = value;
+    }
+
+    /**
+     * Returns a <code>String</code> representation of this <tt>LazyDataRecordImpl</tt>.
+     * Every field is decoded.
+     *
+     * @return A <code>String</code> representation of this <tt>LazyDataRecordImpl</tt>.
+     */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+
+        sb.append('[');
+        sb.append(this.deleted);
+        sb.append(']');
+        sb.append('{');
+        sb.append(this.index);
+        sb.append('}');
+        sb.append('{');
+
+        String[] data = getData();
+
+        for(int i = 0; i < data.length; i++)
+        {
+            sb.append(data[i]);
+        }
+
+        sb.append('}');
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package suncertify.db.datafile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Forms part of a Factory design pattern framework for creating a {@link DataFile DataFile} implementation.
+ * Provides a concrete implementation of the factory that returns an instance of {@link MappedDataFileImpl MappedDataFileImpl}.
+ * <br>
+ * As with {@link ChannelDataFileFactoryImpl ChannelDataFileFactoryImpl}, the data file is opened once and shared between
+ * every {@link DataFile DataFile} that is created. In addition, a single {@link MappedFileRegion MappedFileRegion}
+ * of the data file is shared, so that reads through any {@link DataFile DataFile} are served from memory.
+ *
+ * @see DataFile
+ * @see MappedDataFileImpl
+ * @see DataFileFactory
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class MappedDataFileFactoryImpl extends ChannelDataFileFactoryImpl implements DataFileConstants
+{
+    private int chunkSize;
+    private FileChannel channel;
+    private MappedFileRegion region;
+
+    /**
+     * Constructs a <tt>MappedDataFileFactoryImpl</tt> with the file name of the underlying data file.
+     * The data file is mapped in chunks of {@link DataFileConstants#MAPPED_CHUNK_SIZE MAPPED_CHUNK_SIZE} bytes.
+     *
+     * @param dataFilename The file name of the underlying data file.
+     */
+    public MappedDataFileFactoryImpl(String dataFilename)
+    {
+        this(dataFilename, MAPPED_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a <tt>MappedDataFileFactoryImpl</tt> with the file name of the underlying data file,
+     * which is mapped in chunks of the given size.
+     *
+     * @param dataFilename The file name of the underlying data file.
+     * @param chunkSize The size, in bytes, of each chunk of the data file to map.
+     * @throws IllegalArgumentException If the given chunk size is not greater than zero.
+     */
+    public MappedDataFileFactoryImpl(String dataFilename, int chunkSize) throws IllegalArgumentException
+    {
+        super(dataFilename);
+
+        if(chunkSize <= 0)
+        {
+            throw new IllegalArgumentException("Chunk size must be greater than zero: " + chunkSize);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Instantiates and returns a {@link MappedDataFileImpl MappedDataFileImpl} over the given shared channel
+     * and the shared memory mapping of the data file.
+     *
+     * @param channel The shared channel of the data file.
+     * @param header The shared header of the data file.
+     * @param mode The mode in which to open the {@link MappedDataFileImpl MappedDataFileImpl} with.
+     * @return A new instance of a {@link MappedDataFileImpl MappedDataFileImpl}.
+     * @throws IOException If an I/O Error occurs while instantiating the {@link MappedDataFileImpl MappedDataFileImpl}.
+     */
+    protected DataFile createDataFile(FileChannel channel, DataFileHeader header, String mode) throws IOException
+    {
+        MappedFileRegion region;
+
+        synchronized(this)
+        {
+            // the channel changes if this factory has been closed and reopened
+            if(this.region == null || this.channel != channel)
+            {
+                this.channel = channel;
+                this.region = new MappedFileRegion(channel, chunkSize);
+            }
+
+            region = this.region;
+        }
+
+        return new MappedDataFileImpl(channel, region, header, mode);
+    }
+
+    /**
+     * Releases the memory mapping of the data file and closes the shared channel of the underlying data file.
+     *
+     * @throws IOException If an I/O Error occurs while closing the data file.
+     */
+    public synchronized void close() throws IOException
+    {
+        if(region != null)
+        {
+            region.release();
+            region = null;
+            channel = null;
+        }
+
+        super.close();
+    }
+}
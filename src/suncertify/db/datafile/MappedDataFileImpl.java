@@ -0,0 +1,69 @@
+package suncertify.db.datafile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Encapsulates functionality for reading and writing to and from the data file, where reads are served from
+ * a memory mapping of the data file. A full scan of the data file, or a read of a single record, is then a copy
+ * from memory rather than a system call for each record. Writes are made through the shared channel,
+ * exactly as for {@link ChannelDataFileImpl ChannelDataFileImpl}, and the mapping is extended as the data file grows.
+ *
+ * @see MappedFileRegion
+ * @see MappedDataFileFactoryImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class MappedDataFileImpl extends ChannelDataFileImpl
+{
+    private MappedFileRegion region;
+
+    /**
+     * Constructs a <tt>MappedDataFileImpl</tt> view over the given channel and memory mapping with the given mode.
+     *
+     * @see ChannelDataFileImpl#ChannelDataFileImpl(FileChannel, DataFileHeader, String)
+     * @param channel The shared channel of the data file.
+     * @param region The shared memory mapping of the data file.
+     * @param header The header of the data file, or <code>null</code> if it should be read when first required.
+     * @param mode The mode of the view.
+     * @throws IllegalArgumentException If the mode argument is not equal to one of
+     * <tt>"r"</tt>, <tt>"rw"</tt>, <tt>"rws"</tt>, or <tt>"rwd"</tt>.
+     */
+    public MappedDataFileImpl(FileChannel channel, MappedFileRegion region, DataFileHeader header, String mode) throws IllegalArgumentException
+    {
+        super(channel, header, mode);
+
+        this.region = region;
+    }
+
+    /**
+     * Sets the record length (number of records) of the underlying data file, and remaps the data file
+     * so that a truncated region of the data file is no longer mapped.
+     *
+     * @see ChannelDataFileImpl#setRecordLength(int)
+     * @param totalRecords The new length of the data file, measured as records.
+     * @throws IOException If this view is read only or an I/O Error occurs when attempting to set the new length of the data file.
+     */
+    public void setRecordLength(int totalRecords) throws IOException
+    {
+        super.setRecordLength(totalRecords);
+
+        region.remap();
+    }
+
+    /**
+     * Reads exactly the given number of bytes into the given buffer from the memory mapping of the data file.
+     *
+     * @see MappedFileRegion#read(byte[], int, int, long)
+     * @param data The buffer to read the data into.
+     * @param offset The offset into the buffer at which to begin writing the data that is read.
+     * @param length The number of bytes to read.
+     * @param position The position of the data file to begin reading at.
+     * @throws java.io.EOFException If the end of the data file is reached before the given number of bytes has been read.
+     * @throws IOException If an I/O Error occurs while mapping the data file.
+     */
+    protected void readFully(byte[] data, int offset, int length, long position) throws IOException
+    {
+        region.read(data, offset, length, position);
+    }
+}
@@ -0,0 +1,161 @@
+package suncertify.db.datafile;
+
+import java.io.IOException;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Maps the content of a data file into memory as a sequence of fixed size chunks, so that reads of the data file
+ * are served from memory rather than through a system call for each read. Writes to the data file are made through
+ * the channel as usual and are visible through the mapping. As the data file grows, the chunk at the end of the file
+ * is remapped when a read requires data beyond the currently mapped length; chunks that are fully mapped are never remapped.
+ * <br>
+ * Reads are lock free. Remapping is performed while holding the lock of this region.
+ * If the data file is truncated, {@link #remap() remap} must be called before the truncated region is read again.
+ *
+ * @see MappedDataFileImpl
+ * @see MappedDataFileFactoryImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class MappedFileRegion
+{
+    private static final MappedByteBuffer[] EMPTY = new MappedByteBuffer[0];
+
+    private FileChannel channel;
+    private int chunkSize;
+    private volatile MappedByteBuffer[] chunks = EMPTY;
+
+    /**
+     * Constructs a <tt>MappedFileRegion</tt> over the given channel, which is mapped in chunks of the given size.
+     * Nothing is mapped until it is first read.
+     *
+     * @param channel The channel of the data file to map.
+     * @param chunkSize The size, in bytes, of each chunk of the data file to map.
+     * @throws IllegalArgumentException If the given chunk size is not greater than zero.
+     */
+    public MappedFileRegion(FileChannel channel, int chunkSize) throws IllegalArgumentException
+    {
+        if(chunkSize <= 0)
+        {
+            throw new IllegalArgumentException("Chunk size must be greater than zero: " + chunkSize);
+        }
+
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads exactly the given number of bytes into the given buffer, beginning at the given position of the data file.
+     * If the data is beyond the currently mapped length of the data file, the data file is remapped first.
+     *
+     * @param data The buffer to read the data into.
+     * @param offset The offset into the buffer at which to begin writing the data that is read.
+     * @param length The number of bytes to read.
+     * @param position The position of the data file to begin reading at.
+     * @throws EOFException If the end of the data file is reached before the given number of bytes has been read.
+     * @throws IOException If an I/O Error occurs while remapping the data file.
+     */
+    public void read(byte[] data, int offset, int length, long position) throws EOFException, IOException
+    {
+        MappedByteBuffer[] chunks = this.chunks;
+
+        long end = position + length;
+
+        if(end > mappedLength(chunks))
+        {
+            chunks = remap();
+
+            if(end > mappedLength(chunks))
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Unexpected end of data file at: ");
+                message.append(mappedLength(chunks));
+
+                throw new EOFException(message.toString());
+            }
+        }
+
+        int read = 0;
+
+        while(read < length)
+        {
+            long p = position + read;
+
+            // a duplicate has its own position, so concurrent reads of the same chunk do not interfere
+            ByteBuffer chunk = chunks[(int)(p / chunkSize)].duplicate();
+            chunk.position((int)(p % chunkSize));
+
+            int n = Math.min(length - read, chunk.remaining());
+
+            chunk.get(data, offset + read, n);
+
+            read = read + n;
+        }
+    }
+
+    /**
+     * Maps the data file up to its current length, reusing the chunks that are already fully mapped.
+     *
+     * @return The chunks that map the data file.
+     * @throws IOException If an I/O Error occurs while mapping the data file.
+     */
+    public synchronized MappedByteBuffer[] remap() throws IOException
+    {
+        long size = channel.size();
+
+        MappedByteBuffer[] previous = this.chunks;
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int)((size + chunkSize - 1) / chunkSize)];
+
+        for(int i = 0; i < chunks.length; i++)
+        {
+            long start = (long)i * chunkSize;
+            int length = (int)Math.min(chunkSize, size - start);
+
+            if(i < previous.length && previous[i].capacity() == length)
+            {
+                chunks[i] = previous[i];
+            }
+            else
+            {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+        }
+
+        this.chunks = chunks;
+
+        return chunks;
+    }
+
+    /**
+     * Returns the length, in bytes, of the data file that is currently mapped.
+     *
+     * @return The length, in bytes, of the data file that is currently mapped.
+     */
+    public long getMappedLength()
+    {
+        return mappedLength(chunks);
+    }
+
+    /**
+     * Releases the chunks of this region. Mapped memory is released by the garbage collector
+     * once the chunks are no longer referenced.
+     */
+    public synchronized void release()
+    {
+        chunks = EMPTY;
+    }
+
+    // the number of bytes that the given chunks map
+    private long mappedLength(MappedByteBuffer[] chunks)
+    {
+        if(chunks.length == 0)
+        {
+            return 0;
+        }
+
+        return (long)(chunks.length - 1) * chunkSize + chunks[chunks.length - 1].capacity();
+    }
+}
@@ -0,0 +1,76 @@
+package suncertify.db.datafile;
+
+import suncertify.db.DataRecord;
+
+import java.io.IOException;
+
+/**
+ * Provides an interface for converting a data record to and from the raw bytes that represent it in the data file.
+ * The layout of the raw bytes is described by the {@link DataFileHeader DataFileHeader} of the data file.
+ *
+ * @see RecordCodecImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface RecordCodec
+{
+    /**
+     * Returns the length, in bytes, of a single encoded data record.
+     *
+     * @return The length, in bytes, of a single encoded data record.
+     */
+    public int getRecordLength();
+
+    /**
+     * Returns the number of fields in a single data record.
+     *
+     * @return The number of fields in a single data record.
+     */
+    public int getTotalFields();
+
+    /**
+     * Returns the offset, in bytes, of the given field from the beginning of an encoded data record.
+     *
+     * @param field The index of the field.
+     * @return The offset, in bytes, of the given field from the beginning of an encoded data record.
+     */
+    public int getFieldOffset(int field);
+
+    /**
+     * Returns the length, in bytes, of the given field of an encoded data record.
+     *
+     * @param field The index of the field.
+     * @return The length, in bytes, of the given field of an encoded data record.
+     */
+    public int getFieldLength(int field);
+
+    /**
+     * Decodes the deleted flag of the data record that begins at the given offset of the given buffer.
+     *
+     * @param buffer The buffer that contains the raw bytes of the data record.
+     * @param offset The offset into the buffer at which the data record begins.
+     * @return <code>true</code> if the data record is flagged as deleted, <code>false</code> otherwise.
+     * @throws IOException If the deleted flag of the data record is not valid.
+     */
+    public boolean isDeleted(byte[] buffer, int offset) throws IOException;
+
+    /**
+     * Decodes the data record that begins at the given offset of the given buffer.
+     *
+     * @param buffer The buffer that contains the raw bytes of the data record.
+     * @param offset The offset into the buffer at which the data record begins.
+     * @return The decoded data record.
+     * @throws IOException If the raw bytes do not represent a valid data record.
+     */
+    public DataRecord decode(byte[] buffer, int offset) throws IOException;
+
+    /**
+     * Encodes the given data record into the given buffer beginning at the given offset.
+     * Exactly {@link #getRecordLength() getRecordLength()} bytes are written to the buffer.
+     *
+     * @param record The data record to encode.
+     * @param buffer The buffer to write the raw bytes of the data record to.
+     * @param offset The offset into the buffer at which to begin writing.
+     */
+    public void encode(DataRecord record, byte[] buffer, int offset);
+}
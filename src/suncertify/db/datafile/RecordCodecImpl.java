@@ -0,0 +1,197 @@
+package suncertify.db.datafile;
+
+import suncertify.db.DataRecord;
+import suncertify.db.DataRecordImpl;
+
+import java.io.IOException;
+
+/**
+ * An implementation of {@link RecordCodec RecordCodec} that uses the same record layout as {@link DataFileImpl DataFileImpl}.
+ * Each record begins with a 2-byte flag indicating a valid or deleted record, followed by each field
+ * padded with white space to the length given in the schema.
+ *
+ * @see RecordCodec
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class RecordCodecImpl implements RecordCodec, DataFileConstants
+{
+    private DataFileHeader header;
+    private int recordLength;
+    private int[] fieldOffsets;
+    private int[] fieldLengths;
+
+    /**
+     * Constructs a <tt>RecordCodecImpl</tt> for records described by the given header.
+     *
+     * @param header The header of the data file that describes the layout of each record.
+     */
+    public RecordCodecImpl(DataFileHeader header)
+    {
+        this.header = header;
+        this.recordLength = header.recordLength();
+
+        FieldSchema[] schema = header.getSchema();
+
+        this.fieldOffsets = new int[header.getTotalFields()];
+        this.fieldLengths = new int[header.getTotalFields()];
+
+        // fields follow the 2-byte deleted flag
+        int position = 2;
+
+        for(int i = 0; i < fieldOffsets.length; i++)
+        {
+            fieldOffsets[i] = position;
+            fieldLengths[i] = schema[i].getLength();
+
+            position = position + fieldLengths[i];
+        }
+    }
+
+    /**
+     * Returns the length, in bytes, of a single encoded data record.
+     *
+     * @see DataFileHeader#recordLength()
+     * @return The length, in bytes, of a single encoded data record.
+     */
+    public int getRecordLength()
+    {
+        return recordLength;
+    }
+
+    /**
+     * Returns the number of fields in a single data record.
+     *
+     * @return The number of fields in a single data record.
+     */
+    public int getTotalFields()
+    {
+        return fieldOffsets.length;
+    }
+
+    /**
+     * Returns the offset, in bytes, of the given field from the beginning of an encoded data record.
+     *
+     * @param field The index of the field.
+     * @return The offset, in bytes, of the given field from the beginning of an encoded data record.
+     */
+    public int getFieldOffset(int field)
+    {
+        return fieldOffsets[field];
+    }
+
+    /**
+     * Returns the length, in bytes, of the given field of an encoded data record.
+     *
+     * @param field The index of the field.
+     * @return The length, in bytes, of the given field of an encoded data record.
+     */
+    public int getFieldLength(int field)
+    {
+        return fieldLengths[field];
+    }
+
+    /**
+     * Decodes the data record that begins at the given offset of the given buffer.
+     *
+     * @param buffer The buffer that contains the raw bytes of the data record.
+     * @param offset The offset into the buffer at which the data record begins.
+     * @return The decoded data record.
+     * @throws IOException If the deleted flag of the data record is not valid.
+     */
+    public DataRecord decode(byte[] buffer, int offset) throws IOException
+    {
+        DataRecord record = new DataRecordImpl();
+
+        record.setDeleted(isDeleted(buffer, offset));
+
+        String[] fields = new String[fieldOffsets.length];
+
+        for(int i = 0; i < fields.length; i++)
+        {
+            fields[i] = new String(buffer, offset + fieldOffsets[i], fieldLengths[i]);
+        }
+
+        record.setData(fields);
+
+        return record;
+    }
+
+    /**
+     * Encodes the given data record into the given buffer beginning at the given offset.
+     * Fields are padded with white space to the length given in the schema and
+     * <code>null</code> fields are written as white space only.
+     *
+     * @param record The data record to encode.
+     * @param buffer The buffer to write the raw bytes of the data record to.
+     * @param offset The offset into the buffer at which to begin writing.
+     */
+    public void encode(DataRecord record, byte[] buffer, int offset)
+    {
+        char flag = record.isDeleted() ? DELETED_RECORD : VALID_RECORD;
+
+        buffer[offset] = (byte)(flag >>> 8);
+        buffer[offset + 1] = (byte)flag;
+
+        FieldSchema[] schema = header.getSchema();
+        String[] fields = record.getData();
+
+        int position = offset + 2;
+
+        for(short s = 0; s < schema.length; s++)
+        {
+            int length = schema[s].getLength();
+
+            for(int i = 0; i < length; i++)
+            {
+                buffer[position + i] = RECORD_PADDING;
+            }
+
+            if(fields != null && s < fields.length && fields[s] != null)
+            {
+                for(int i = 0; i < length && i < fields[s].length(); i++)
+                {
+                    buffer[position + i] = (byte)fields[s].charAt(i);
+                }
+            }
+
+            position = position + length;
+        }
+    }
+
+    /**
+     * Decodes the 2-byte deleted flag of the data record that begins at the given offset of the given buffer.
+     *
+     * @param buffer The buffer that contains the raw bytes of the data record.
+     * @param offset The offset into the buffer at which the data record begins.
+     * @return <code>true</code> if the data record is flagged as deleted, <code>false</code> otherwise.
+     * @throws IOException If the deleted flag of the data record is neither valid nor deleted.
+     */
+    public boolean isDeleted(byte[] buffer, int offset) throws IOException
+    {
+        char flag = (char)(((buffer[offset] & 0xFF) << 8) | (buffer[offset + 1] & 0xFF));
+
+        if(flag == VALID_RECORD)
+        {
+            return false;
+        }
+        else if(flag == DELETED_RECORD)
+        {
+            return true;
+        }
+        else
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Invalid DataRecord Deleted Flag: ");
+            message.append('[');
+            message.append(flag);
+            message.append(" != " + VALID_RECORD);
+            message.append(" && ");
+            message.append(flag);
+            message.append(" != " + DELETED_RECORD);
+            message.append(']');
+
+            throw new IOException(message.toString());
+        }
+    }
+}
@@ -0,0 +1,1029 @@
+package suncertify.db.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An implementation of {@link FieldIndex FieldIndex} that is a B+tree stored in an index file alongside the data file,
+ * so that the index survives a restart of the server and need not be rebuilt from a scan of the data file.
+ * <br>
+ * The index file is made up of pages of {@link FieldIndexConstants#BTREE_PAGE_SIZE BTREE_PAGE_SIZE} bytes that are read and written
+ * through a <code>java.nio.channels.FileChannel</code>. The first page is a header; each other page is a node of the tree.
+ * Each entry of the tree is the field value, truncated to the length of the field with trailing white space removed, and the record number,
+ * ordered by the bytes of the value and then by the record number. The leaves are linked in order, so the values that start with
+ * a criterion are found by a single descent of the tree followed by a walk along the leaves.
+ * Each internal node also holds the number of entries below each of its children, so the number of entries in any range of values
+ * is counted by two descents of the tree, without walking the leaves; this is used to {@link #estimate(String) estimate} the
+ * number of records that match a criterion.
+ * The most recently used pages are held in memory, and modified pages are written to the index file when they are evicted
+ * from memory, or when the index is closed. Removing an entry does not merge nodes, so an index that has had many entries removed
+ * is larger than necessary until it is rebuilt.
+ * <br>
+ * The header records whether the index was closed cleanly, and the length and modification time of the data file when it was closed.
+ * When the index is opened and the header does not match the data file, or the index was not closed cleanly, the index is emptied
+ * and {@link #isCurrent() isCurrent} returns <code>false</code>, so that it is rebuilt from the data file.
+ * An index file must only be opened by one <tt>BTreeFieldIndexImpl</tt> at a time.
+ *
+ * @see FieldIndexConstants#INDEX_FILE_INFIX
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class BTreeFieldIndexImpl implements FieldIndex, FieldIndexConstants
+{
+    // the size, in bytes, of the type, count and next leaf of each node page
+    private static final int NODE_HEADER_SIZE = 9;
+
+    private File indexFile;
+    private File dataFile;
+    private int length;
+    private int leafCapacity;
+    private int internalCapacity;
+    private int cachePages;
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private LinkedHashMap cache;
+    private boolean current;
+    private int root;
+    private int pageCount;
+    private int size;
+    private int distinct;
+
+    // whether the last insertion or removal modified the tree
+    private boolean modified;
+
+    /**
+     * Opens the given index file, for a field of the given length of the given data file, holding at most
+     * {@link FieldIndexConstants#BTREE_CACHE_PAGES BTREE_CACHE_PAGES} pages in memory.
+     * If the index file does not exist, or does not match the data file, the index is empty.
+     *
+     * @param indexFile The index file, which is created if it does not exist.
+     * @param dataFile The data file that the index file is for.
+     * @param length The length of the field in the data file.
+     * @throws IOException If the index file cannot be opened, read or written.
+     * @throws IllegalArgumentException If the field is too long for enough entries to fit in a page.
+     */
+    public BTreeFieldIndexImpl(File indexFile, File dataFile, int length) throws IOException, IllegalArgumentException
+    {
+        this(indexFile, dataFile, length, BTREE_CACHE_PAGES);
+    }
+
+    /**
+     * Opens the given index file, for a field of the given length of the given data file, holding at most
+     * the given number of pages in memory. If the index file does not exist, or does not match the data file, the index is empty.
+     *
+     * @param indexFile The index file, which is created if it does not exist.
+     * @param dataFile The data file that the index file is for.
+     * @param length The length of the field in the data file.
+     * @param cachePages The maximum number of pages to hold in memory.
+     * @throws IOException If the index file cannot be opened, read or written.
+     * @throws IllegalArgumentException If the field is too long for enough entries to fit in a page.
+     */
+    public BTreeFieldIndexImpl(File indexFile, File dataFile, int length, int cachePages) throws IOException, IllegalArgumentException
+    {
+        this.indexFile = indexFile;
+        this.dataFile = dataFile;
+        this.length = length;
+        this.leafCapacity = (BTREE_PAGE_SIZE - NODE_HEADER_SIZE) / (length + 4);
+        this.internalCapacity = (BTREE_PAGE_SIZE - NODE_HEADER_SIZE - 8) / (length + 12);
+        this.cachePages = Math.max(cachePages, 8);
+        this.cache = new LinkedHashMap(16, 0.75f, true);
+
+        if(internalCapacity < 3)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Field is too long to be indexed: ");
+            message.append(length);
+
+            throw new IllegalArgumentException(message.toString());
+        }
+
+        open(true);
+    }
+
+    /**
+     * Returns <code>true</code> if the index file matched the data file when it was opened, and so the index already
+     * contains every record of the data file, <code>false</code> if the index was emptied and must be rebuilt.
+     *
+     * @return <code>true</code> if the index already contains every record of the data file, <code>false</code> otherwise.
+     */
+    public synchronized boolean isCurrent()
+    {
+        return current;
+    }
+
+    /**
+     * Adds the given field value of the given record number to the index.
+     *
+     * @param value The field value of the record.
+     * @param recNo The number of the record.
+     * @throws IllegalStateException If the index file cannot be read or written.
+     */
+    public synchronized void add(String value, int recNo) throws IllegalStateException
+    {
+        try
+        {
+            ensureOpen();
+
+            byte[] key = encode(normalize(value), true);
+
+            boolean newValue = count(key, key) == 0;
+
+            modified = false;
+
+            Split split = insert(root, key, recNo);
+
+            if(split != null)
+            {
+                Node node = allocate(false);
+                node.children[0] = root;
+                node.counts[0] = split.leftCount;
+                node.keys[0] = split.key;
+                node.recNos[0] = split.recNo;
+                node.children[1] = split.page;
+                node.counts[1] = split.rightCount;
+                node.count = 1;
+
+                root = node.page;
+            }
+
+            if(modified)
+            {
+                size++;
+
+                if(newValue)
+                {
+                    distinct++;
+                }
+            }
+        }
+        catch(IOException ioe)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to write index file: ");
+            message.append(ioe);
+
+            throw new IllegalStateException(message.toString());
+        }
+    }
+
+    /**
+     * Removes the given field value of the given record number from the index.
+     *
+     * @param value The field value of the record, as it was added to the index.
+     * @param recNo The number of the record.
+     * @return <code>true</code> if the field value of the record was removed, <code>false</code> if it was not in the index.
+     * @throws IllegalStateException If the index file cannot be read or written.
+     */
+    public synchronized boolean remove(String value, int recNo) throws IllegalStateException
+    {
+        try
+        {
+            ensureOpen();
+
+            byte[] key = encode(normalize(value), true);
+
+            List path = new ArrayList();
+
+            Node node = load(root);
+
+            while(!node.leaf)
+            {
+                path.add(node);
+
+                node = load(node.children[childIndex(node, key, recNo)]);
+            }
+
+            int i = search(node, key, recNo);
+
+            if(i < 0)
+            {
+                return false;
+            }
+
+            System.arraycopy(node.keys, i + 1, node.keys, i, node.count - i - 1);
+            System.arraycopy(node.recNos, i + 1, node.recNos, i, node.count - i - 1);
+            node.count--;
+
+            write(node);
+
+            // the entry is no longer below each node on the path
+            for(int j = 0; j < path.size(); j++)
+            {
+                Node parent = (Node)path.get(j);
+
+                parent.counts[childIndex(parent, key, recNo)]--;
+
+                write(parent);
+            }
+
+            size--;
+
+            if(count(key, key) == 0)
+            {
+                distinct--;
+            }
+
+            return true;
+        }
+        catch(IOException ioe)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to write index file: ");
+            message.append(ioe);
+
+            throw new IllegalStateException(message.toString());
+        }
+    }
+
+    /**
+     * Returns the numbers of the records whose field value starts with the given criterion.
+     * The values that start with the criterion are found by a descent of the tree to the first such value,
+     * followed by a walk along the leaves.
+     *
+     * @param criterion The prefix criterion to match field values with.
+     * @return The numbers of the records whose field value starts with the given criterion.
+     * @throws IllegalStateException If the index file cannot be read.
+     */
+    public synchronized RecordBitmap find(String criterion) throws IllegalStateException
+    {
+        RecordBitmap matches = new RecordBitmap();
+
+        if(criterion.length() > length)
+        {
+            return matches;
+        }
+
+        try
+        {
+            ensureOpen();
+
+            String trimmed = trimTrailing(criterion);
+
+            // a criterion with trailing white space also matches the padding of the value that is equal to it when trimmed
+            if(trimmed.length() != criterion.length())
+            {
+                scan(encode(trimmed, false), true, matches);
+            }
+
+            scan(encode(criterion, false), false, matches);
+
+            return matches;
+        }
+        catch(IOException ioe)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to read index file: ");
+            message.append(ioe);
+
+            throw new IllegalStateException(message.toString());
+        }
+    }
+
+    /**
+     * Returns the number of records whose field value starts with the given criterion, counted from the number of entries
+     * below each node, without finding the records.
+     *
+     * @param criterion The prefix criterion to match field values with.
+     * @return The number of records whose field value starts with the given criterion.
+     * @throws IllegalStateException If the index file cannot be read.
+     */
+    public synchronized int estimate(String criterion) throws IllegalStateException
+    {
+        if(criterion.length() > length)
+        {
+            return 0;
+        }
+
+        try
+        {
+            ensureOpen();
+
+            int total = 0;
+
+            String trimmed = trimTrailing(criterion);
+
+            // a criterion with trailing white space also matches the padding of the value that is equal to it when trimmed
+            if(trimmed.length() != criterion.length())
+            {
+                byte[] key = encode(trimmed, true);
+
+                total = total + count(key, key);
+            }
+
+            byte[] prefix = encode(criterion, false);
+            byte[] first = new byte[length];
+            byte[] last = new byte[length];
+
+            System.arraycopy(prefix, 0, first, 0, prefix.length);
+            System.arraycopy(prefix, 0, last, 0, prefix.length);
+            Arrays.fill(last, prefix.length, length, (byte)0xFF);
+
+            return total + count(first, last);
+        }
+        catch(IOException ioe)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to read index file: ");
+            message.append(ioe);
+
+            throw new IllegalStateException(message.toString());
+        }
+    }
+
+    /**
+     * Returns the number of distinct field values in the index.
+     *
+     * @return The number of distinct field values in the index.
+     */
+    public synchronized int getDistinctValues()
+    {
+        return distinct;
+    }
+
+    /**
+     * Removes every field value from the index.
+     *
+     * @throws IllegalStateException If the index file cannot be written.
+     */
+    public synchronized void clear() throws IllegalStateException
+    {
+        try
+        {
+            ensureOpen();
+
+            reset();
+        }
+        catch(IOException ioe)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Failed to write index file: ");
+            message.append(ioe);
+
+            throw new IllegalStateException(message.toString());
+        }
+    }
+
+    /**
+     * Returns the number of records in the index.
+     *
+     * @return The number of records in the index.
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Writes every modified page to the index file and marks the index file as closed cleanly, recording the
+     * length and modification time of the data file. A subsequent operation on the index reopens the index file.
+     *
+     * @throws IOException If the index file cannot be written or closed.
+     */
+    public synchronized void close() throws IOException
+    {
+        if(channel == null)
+        {
+            return;
+        }
+
+        try
+        {
+            Iterator it = cache.values().iterator();
+
+            while(it.hasNext())
+            {
+                Node node = (Node)it.next();
+
+                if(node.dirty)
+                {
+                    writePage(node);
+                }
+            }
+
+            writeHeader(true);
+
+            channel.force(true);
+        }
+        finally
+        {
+            cache.clear();
+            raf.close();
+            raf = null;
+            channel = null;
+        }
+    }
+
+    // opens the index file, and validates it against the data file if this is the first time it is opened
+    private void open(boolean validate) throws IOException
+    {
+        raf = new RandomAccessFile(indexFile, "rw");
+        channel = raf.getChannel();
+
+        if(validate)
+        {
+            current = readHeader();
+
+            if(!current)
+            {
+                reset();
+            }
+        }
+
+        // the index file is not consistent with the data file until it is closed cleanly
+        writeHeader(false);
+
+        channel.force(true);
+    }
+
+    // reopens the index file if it has been closed
+    private void ensureOpen() throws IOException
+    {
+        if(channel == null)
+        {
+            open(false);
+        }
+    }
+
+    // empties the index file, leaving a single empty leaf as the root
+    private void reset() throws IOException
+    {
+        cache.clear();
+        channel.truncate(0);
+
+        pageCount = 1;
+        size = 0;
+        distinct = 0;
+
+        root = allocate(true).page;
+    }
+
+    // reads the header of the index file, returning true if it matches the data file and the index file was closed cleanly
+    private boolean readHeader() throws IOException
+    {
+        if(channel.size() < BTREE_PAGE_SIZE)
+        {
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(BTREE_PAGE_SIZE);
+
+        read(buffer, 0);
+
+        int magicNumber = buffer.getInt();
+        int keyLength = buffer.getInt();
+        int root = buffer.getInt();
+        int pageCount = buffer.getInt();
+        int size = buffer.getInt();
+        int distinct = buffer.getInt();
+        boolean clean = buffer.get() != 0;
+        long dataFileLength = buffer.getLong();
+        long dataFileModified = buffer.getLong();
+
+        if(magicNumber != BTREE_MAGIC_NUMBER || keyLength != length || !clean ||
+           dataFileLength != dataFile.length() || dataFileModified != dataFile.lastModified() ||
+           (long)pageCount * BTREE_PAGE_SIZE > channel.size() || root <= 0 || root >= pageCount)
+        {
+            return false;
+        }
+
+        this.root = root;
+        this.pageCount = pageCount;
+        this.size = size;
+        this.distinct = distinct;
+
+        return true;
+    }
+
+    // writes the header of the index file with the given clean flag
+    private void writeHeader(boolean clean) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(BTREE_PAGE_SIZE);
+
+        buffer.putInt(BTREE_MAGIC_NUMBER);
+        buffer.putInt(length);
+        buffer.putInt(root);
+        buffer.putInt(pageCount);
+        buffer.putInt(size);
+        buffer.putInt(distinct);
+        buffer.put((byte)(clean ? 1 : 0));
+        buffer.putLong(clean ? dataFile.length() : -1);
+        buffer.putLong(clean ? dataFile.lastModified() : -1);
+
+        buffer.clear();
+
+        write(buffer, 0);
+    }
+
+    // inserts the given entry below the given page, returning the separator and new page if the page was split
+    private Split insert(int page, byte[] key, int recNo) throws IOException
+    {
+        Node node = load(page);
+
+        if(node.leaf)
+        {
+            int i = search(node, key, recNo);
+
+            if(i >= 0)
+            {
+                return null;
+            }
+
+            i = -(i + 1);
+
+            System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+            System.arraycopy(node.recNos, i, node.recNos, i + 1, node.count - i);
+            node.keys[i] = key;
+            node.recNos[i] = recNo;
+            node.count++;
+
+            write(node);
+
+            modified = true;
+
+            return node.count > leafCapacity ? splitLeaf(node) : null;
+        }
+
+        int i = childIndex(node, key, recNo);
+
+        Split split = insert(node.children[i], key, recNo);
+
+        if(split == null)
+        {
+            if(modified)
+            {
+                node.counts[i]++;
+
+                write(node);
+            }
+
+            return null;
+        }
+
+        System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+        System.arraycopy(node.recNos, i, node.recNos, i + 1, node.count - i);
+        System.arraycopy(node.children, i + 1, node.children, i + 2, node.count - i);
+        System.arraycopy(node.counts, i + 1, node.counts, i + 2, node.count - i);
+        node.keys[i] = split.key;
+        node.recNos[i] = split.recNo;
+        node.children[i + 1] = split.page;
+        node.counts[i] = split.leftCount;
+        node.counts[i + 1] = split.rightCount;
+        node.count++;
+
+        write(node);
+
+        return node.count > internalCapacity ? splitInternal(node) : null;
+    }
+
+    // moves the upper half of the given leaf to a new leaf, which becomes the next leaf
+    private Split splitLeaf(Node node) throws IOException
+    {
+        Node right = allocate(true);
+
+        int half = node.count / 2;
+
+        right.count = node.count - half;
+        System.arraycopy(node.keys, half, right.keys, 0, right.count);
+        System.arraycopy(node.recNos, half, right.recNos, 0, right.count);
+        right.next = node.next;
+
+        node.count = half;
+        node.next = right.page;
+
+        write(node);
+        write(right);
+
+        return new Split(right.keys[0], right.recNos[0], right.page, node.count, right.count);
+    }
+
+    // moves the upper half of the given internal node to a new node, promoting the middle separator
+    private Split splitInternal(Node node) throws IOException
+    {
+        Node right = allocate(false);
+
+        int half = node.count / 2;
+
+        right.count = node.count - half - 1;
+        System.arraycopy(node.keys, half + 1, right.keys, 0, right.count);
+        System.arraycopy(node.recNos, half + 1, right.recNos, 0, right.count);
+        System.arraycopy(node.children, half + 1, right.children, 0, right.count + 1);
+        System.arraycopy(node.counts, half + 1, right.counts, 0, right.count + 1);
+
+        node.count = half;
+
+        write(node);
+        write(right);
+
+        return new Split(node.keys[half], node.recNos[half], right.page, sum(node), sum(right));
+    }
+
+    // adds the record numbers of the entries whose value starts with (or, if exact, is equal to) the given prefix
+    private void scan(byte[] prefix, boolean exact, RecordBitmap matches) throws IOException
+    {
+        byte[] first = new byte[length];
+        System.arraycopy(prefix, 0, first, 0, prefix.length);
+
+        Node node = load(root);
+
+        while(!node.leaf)
+        {
+            node = load(node.children[childIndex(node, first, Integer.MIN_VALUE)]);
+        }
+
+        int i = -(search(node, first, Integer.MIN_VALUE) + 1);
+
+        while(true)
+        {
+            for(; i < node.count; i++)
+            {
+                if(!startsWith(node.keys[i], prefix, exact))
+                {
+                    return;
+                }
+
+                matches.add(node.recNos[i]);
+            }
+
+            if(node.next < 0)
+            {
+                return;
+            }
+
+            node = load(node.next);
+            i = 0;
+        }
+    }
+
+    // returns the number of entries whose value is between the given values, inclusive
+    private int count(byte[] first, byte[] last) throws IOException
+    {
+        return rank(last, Integer.MAX_VALUE) - rank(first, Integer.MIN_VALUE);
+    }
+
+    // returns the number of entries that are less than the given entry
+    private int rank(byte[] key, int recNo) throws IOException
+    {
+        int rank = 0;
+
+        Node node = load(root);
+
+        while(!node.leaf)
+        {
+            int i = childIndex(node, key, recNo);
+
+            for(int j = 0; j < i; j++)
+            {
+                rank = rank + node.counts[j];
+            }
+
+            node = load(node.children[i]);
+        }
+
+        int i = search(node, key, recNo);
+
+        return rank + (i < 0 ? -(i + 1) : i);
+    }
+
+    // returns the number of entries below the given internal node
+    private int sum(Node node)
+    {
+        int sum = 0;
+
+        for(int i = 0; i <= node.count; i++)
+        {
+            sum = sum + node.counts[i];
+        }
+
+        return sum;
+    }
+
+    // returns the index of the child of the given internal node that contains the given entry
+    private int childIndex(Node node, byte[] key, int recNo)
+    {
+        int low = 0;
+        int high = node.count;
+
+        // the first separator that is greater than the entry
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(compare(key, recNo, node.keys[mid], node.recNos[mid]) < 0)
+            {
+                high = mid;
+            }
+            else
+            {
+                low = mid + 1;
+            }
+        }
+
+        return low;
+    }
+
+    // returns the index of the given entry in the given leaf, or (-(insertion point) - 1) if it is not in the leaf
+    private int search(Node node, byte[] key, int recNo)
+    {
+        int low = 0;
+        int high = node.count - 1;
+
+        while(low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int c = compare(node.keys[mid], node.recNos[mid], key, recNo);
+
+            if(c < 0)
+            {
+                low = mid + 1;
+            }
+            else if(c > 0)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    // compares two entries by the unsigned bytes of their values, then by their record numbers
+    private int compare(byte[] key1, int recNo1, byte[] key2, int recNo2)
+    {
+        for(int i = 0; i < length; i++)
+        {
+            int c = (key1[i] & 0xFF) - (key2[i] & 0xFF);
+
+            if(c != 0)
+            {
+                return c;
+            }
+        }
+
+        return (recNo1 < recNo2 ? -1 : (recNo1 == recNo2 ? 0 : 1));
+    }
+
+    // determines if the given value starts with (or, if exact, is equal to) the given prefix
+    private boolean startsWith(byte[] key, byte[] prefix, boolean exact)
+    {
+        for(int i = 0; i < prefix.length; i++)
+        {
+            if(key[i] != prefix[i])
+            {
+                return false;
+            }
+        }
+
+        return !exact || prefix.length == length || key[prefix.length] == 0;
+    }
+
+    // returns the given page, reading it from the index file if it is not in memory
+    private Node load(int page) throws IOException
+    {
+        Integer key = new Integer(page);
+
+        Node node = (Node)cache.get(key);
+
+        if(node == null)
+        {
+            node = readPage(page);
+
+            evict();
+
+            cache.put(key, node);
+        }
+
+        return node;
+    }
+
+    // allocates a new, empty page at the end of the index file
+    private Node allocate(boolean leaf) throws IOException
+    {
+        Node node = new Node(pageCount, leaf, Math.max(leafCapacity, internalCapacity) + 2);
+
+        pageCount++;
+
+        evict();
+
+        write(node);
+
+        return node;
+    }
+
+    // marks the given page as modified, and holds it in memory until it is written
+    private void write(Node node)
+    {
+        node.dirty = true;
+
+        cache.put(new Integer(node.page), node);
+    }
+
+    // writes the least recently used pages to the index file until there is room in memory for another page
+    private void evict() throws IOException
+    {
+        Iterator it = cache.values().iterator();
+
+        while(cache.size() >= cachePages && it.hasNext())
+        {
+            Node node = (Node)it.next();
+
+            if(node.dirty)
+            {
+                writePage(node);
+            }
+
+            it.remove();
+        }
+    }
+
+    // reads and decodes the given page of the index file
+    private Node readPage(int page) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(BTREE_PAGE_SIZE);
+
+        read(buffer, (long)page * BTREE_PAGE_SIZE);
+
+        Node node = new Node(page, buffer.get() != 0, Math.max(leafCapacity, internalCapacity) + 2);
+
+        node.count = buffer.getInt();
+        node.next = buffer.getInt();
+
+        if(!node.leaf)
+        {
+            node.children[0] = buffer.getInt();
+            node.counts[0] = buffer.getInt();
+        }
+
+        for(int i = 0; i < node.count; i++)
+        {
+            node.keys[i] = new byte[length];
+            buffer.get(node.keys[i]);
+            node.recNos[i] = buffer.getInt();
+
+            if(!node.leaf)
+            {
+                node.children[i + 1] = buffer.getInt();
+                node.counts[i + 1] = buffer.getInt();
+            }
+        }
+
+        return node;
+    }
+
+    // encodes and writes the given page to the index file
+    private void writePage(Node node) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(BTREE_PAGE_SIZE);
+
+        buffer.put((byte)(node.leaf ? 1 : 0));
+        buffer.putInt(node.count);
+        buffer.putInt(node.next);
+
+        if(!node.leaf)
+        {
+            buffer.putInt(node.children[0]);
+            buffer.putInt(node.counts[0]);
+        }
+
+        for(int i = 0; i < node.count; i++)
+        {
+            buffer.put(node.keys[i]);
+            buffer.putInt(node.recNos[i]);
+
+            if(!node.leaf)
+            {
+                buffer.putInt(node.children[i + 1]);
+                buffer.putInt(node.counts[i + 1]);
+            }
+        }
+
+        buffer.clear();
+
+        write(buffer, (long)node.page * BTREE_PAGE_SIZE);
+
+        node.dirty = false;
+    }
+
+    // reads the whole of the given buffer from the given position of the index file
+    private void read(ByteBuffer buffer, long position) throws IOException
+    {
+        while(buffer.hasRemaining())
+        {
+            int n = channel.read(buffer, position + buffer.position());
+
+            if(n < 0)
+            {
+                throw new EOFException("Unexpected end of index file at: " + (position + buffer.position()));
+            }
+        }
+
+        buffer.flip();
+    }
+
+    // writes the whole of the given buffer to the given position of the index file
+    private void write(ByteBuffer buffer, long position) throws IOException
+    {
+        while(buffer.hasRemaining())
+        {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    // encodes the given value to bytes, padded with zero to the length of the field if required
+    private byte[] encode(String value, boolean pad)
+    {
+        byte[] encoded = new byte[pad ? length : value.length()];
+
+        for(int i = 0; i < value.length(); i++)
+        {
+            encoded[i] = (byte)value.charAt(i);
+        }
+
+        return encoded;
+    }
+
+    // truncates the given value to the length of the field, and removes trailing white space
+    private String normalize(String value)
+    {
+        if(value == null)
+        {
+            return "";
+        }
+
+        if(value.length() > length)
+        {
+            value = value.substring(0, length);
+        }
+
+        return trimTrailing(value);
+    }
+
+    // removes trailing white space from the given value
+    private String trimTrailing(String value)
+    {
+        int end = value.length();
+
+        while(end > 0 && value.charAt(end - 1) <= ' ')
+        {
+            end--;
+        }
+
+        return value.substring(0, end);
+    }
+
+    // a page of the index file that is a node of the tree
+    private static class Node
+    {
+        public int page;
+        public boolean leaf;
+        public int count;
+        public int next = -1;
+        public byte[][] keys;
+        public int[] recNos;
+        public int[] children;
+        public int[] counts;
+        public boolean dirty;
+
+        public Node(int page, boolean leaf, int capacity)
+        {
+            this.page = page;
+            this.leaf = leaf;
+            this.keys = new byte[capacity][];
+            this.recNos = new int[capacity];
+            this.children = leaf ? null : new int[capacity + 1];
+            this.counts = leaf ? null : new int[capacity + 1];
+        }
+    }
+
+    // the separator entry and the new page that result from splitting a page, and the number of entries below each half
+    private static class Split
+    {
+        public byte[] key;
+        public int recNo;
+        public int page;
+        public int leftCount;
+        public int rightCount;
+
+        public Split(byte[] key, int recNo, int page, int leftCount, int rightCount)
+        {
+            this.key = key;
+            this.recNo = recNo;
+            this.page = page;
+            this.leftCount = leftCount;
+            this.rightCount = rightCount;
+        }
+    }
+
+}
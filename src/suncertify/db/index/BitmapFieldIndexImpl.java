@@ -0,0 +1,259 @@
+package suncertify.db.index;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.io.IOException;
+
+/**
+ * An implementation of {@link FieldIndex FieldIndex} for a field that has few distinct values, such as a location or a list of specialties.
+ * Each distinct field value, with trailing white space removed, is held in a sorted map with a {@link RecordBitmap RecordBitmap}
+ * of the records that have that value. A prefix criterion is answered by uniting the bitmaps of the range of values that
+ * start with it, which for a field with few distinct values is a small number of cheap set operations.
+ * <br>
+ * A criterion that ends in white space also matches a field value that is equal to the criterion with its trailing white space removed,
+ * since the stored field value is padded with white space. A criterion that is longer than the field matches no value.
+ *
+ * @see RecordBitmap
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class BitmapFieldIndexImpl implements FieldIndex
+{
+    private int length;
+    private SortedMap values;
+    private int size;
+
+    /**
+     * Constructs an empty <tt>BitmapFieldIndexImpl</tt> for a field of the given length.
+     *
+     * @param length The length of the field in the data file.
+     */
+    public BitmapFieldIndexImpl(int length)
+    {
+        this.length = length;
+        this.values = new TreeMap();
+    }
+
+    /**
+     * Adds the given field value of the given record number to the index.
+     *
+     * @param value The field value of the record.
+     * @param recNo The number of the record.
+     */
+    public synchronized void add(String value, int recNo)
+    {
+        String key = normalize(value);
+
+        RecordBitmap bitmap = (RecordBitmap)values.get(key);
+
+        if(bitmap == null)
+        {
+            bitmap = new RecordBitmap();
+            values.put(key, bitmap);
+        }
+
+        if(bitmap.add(recNo))
+        {
+            size++;
+        }
+    }
+
+    /**
+     * Removes the given field value of the given record number from the index.
+     *
+     * @param value The field value of the record, as it was added to the index.
+     * @param recNo The number of the record.
+     * @return <code>true</code> if the field value of the record was removed, <code>false</code> if it was not in the index.
+     */
+    public synchronized boolean remove(String value, int recNo)
+    {
+        String key = normalize(value);
+
+        RecordBitmap bitmap = (RecordBitmap)values.get(key);
+
+        if(bitmap == null || !bitmap.remove(recNo))
+        {
+            return false;
+        }
+
+        if(bitmap.isEmpty())
+        {
+            values.remove(key);
+        }
+
+        size--;
+
+        return true;
+    }
+
+    /**
+     * Returns the numbers of the records whose field value starts with the given criterion, by uniting the bitmap of each
+     * value that starts with the criterion.
+     *
+     * @param criterion The prefix criterion to match field values with.
+     * @return The numbers of the records whose field value starts with the given criterion.
+     */
+    public synchronized RecordBitmap find(String criterion)
+    {
+        RecordBitmap retval = new RecordBitmap();
+
+        if(criterion.length() > length)
+        {
+            return retval;
+        }
+
+        String trimmed = trimTrailing(criterion);
+
+        // a criterion with trailing white space also matches the padding of the value that is equal to it when trimmed
+        if(trimmed.length() != criterion.length())
+        {
+            RecordBitmap bitmap = (RecordBitmap)values.get(trimmed);
+
+            if(bitmap != null)
+            {
+                retval = retval.or(bitmap);
+            }
+        }
+
+        Iterator it = values.tailMap(criterion).entrySet().iterator();
+
+        while(it.hasNext())
+        {
+            Map.Entry e = (Map.Entry)it.next();
+
+            if(!((String)e.getKey()).startsWith(criterion))
+            {
+                break;
+            }
+
+            retval = retval.or((RecordBitmap)e.getValue());
+        }
+
+        return retval;
+    }
+
+    /**
+     * Returns the number of records whose field value starts with the given criterion, by counting the records of each
+     * value that starts with the criterion.
+     *
+     * @param criterion The prefix criterion to match field values with.
+     * @return The number of records whose field value starts with the given criterion.
+     */
+    public synchronized int estimate(String criterion)
+    {
+        if(criterion.length() > length)
+        {
+            return 0;
+        }
+
+        int total = 0;
+
+        String trimmed = trimTrailing(criterion);
+
+        if(trimmed.length() != criterion.length())
+        {
+            RecordBitmap bitmap = (RecordBitmap)values.get(trimmed);
+
+            if(bitmap != null)
+            {
+                total = total + bitmap.cardinality();
+            }
+        }
+
+        Iterator it = values.tailMap(criterion).entrySet().iterator();
+
+        while(it.hasNext())
+        {
+            Map.Entry e = (Map.Entry)it.next();
+
+            if(!((String)e.getKey()).startsWith(criterion))
+            {
+                break;
+            }
+
+            total = total + ((RecordBitmap)e.getValue()).cardinality();
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the number of distinct field values in the index.
+     *
+     * @return The number of distinct field values in the index.
+     */
+    public synchronized int getDistinctValues()
+    {
+        return values.size();
+    }
+
+    /**
+     * Removes every field value from the index.
+     */
+    public synchronized void clear()
+    {
+        values.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of records in the index.
+     *
+     * @return The number of records in the index.
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns <code>false</code>, since an index that is held in memory is empty when it is created.
+     *
+     * @return <code>false</code>.
+     */
+    public boolean isCurrent()
+    {
+        return false;
+    }
+
+    /**
+     * Does nothing, since an index that is held in memory holds no resources other than memory.
+     *
+     * @throws IOException Never.
+     */
+    public void close() throws IOException
+    {
+
+    }
+
+    // truncates the given value to the length of the field, and removes trailing white space
+    private String normalize(String value)
+    {
+        if(value == null)
+        {
+            return "";
+        }
+
+        if(value.length() > length)
+        {
+            value = value.substring(0, length);
+        }
+
+        return trimTrailing(value);
+    }
+
+    // removes trailing white space from the given value
+    private String trimTrailing(String value)
+    {
+        int end = value.length();
+
+        while(end > 0 && value.charAt(end - 1) <= ' ')
+        {
+            end--;
+        }
+
+        return value.substring(0, end);
+    }
+}
@@ -0,0 +1,92 @@
+package suncertify.db.index;
+
+import java.io.IOException;
+
+/**
+ * Provides an interface for a secondary index of the values of a single field of the data records.
+ * An index answers the prefix criterion of {@link suncertify.db.DB#find(String[]) DB.find} for its field, so that
+ * the numbers of the matching records are found without a scan of the data file.
+ * <br>
+ * A field value is indexed as it is stored in the data file; that is, truncated to the length of the field and padded with
+ * white space. A criterion matches a field value if the stored (padded) value starts with the criterion.
+ *
+ * @see SortedFieldIndexImpl
+ * @see BTreeFieldIndexImpl
+ * @see FieldIndexFactory
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface FieldIndex
+{
+    /**
+     * Adds the given field value of the given record number to the index.
+     *
+     * @param value The field value of the record.
+     * @param recNo The number of the record.
+     */
+    public void add(String value, int recNo);
+
+    /**
+     * Removes the given field value of the given record number from the index.
+     *
+     * @param value The field value of the record, as it was added to the index.
+     * @param recNo The number of the record.
+     * @return <code>true</code> if the field value of the record was removed, <code>false</code> if it was not in the index.
+     */
+    public boolean remove(String value, int recNo);
+
+    /**
+     * Returns the numbers of the records whose field value starts with the given criterion, as a set that may be combined
+     * with the results of other indexes.
+     *
+     * @param criterion The prefix criterion to match field values with.
+     * @return The numbers of the records whose field value starts with the given criterion.
+     */
+    public RecordBitmap find(String criterion);
+
+    /**
+     * Returns an estimate of the number of records whose field value starts with the given criterion, which is cheaper to
+     * determine than {@link #find(String) finding} the records. The estimate is one of the statistics that a
+     * {@link QueryPlanner QueryPlanner} uses to determine how to answer a query.
+     *
+     * @param criterion The prefix criterion to match field values with.
+     * @return An estimate of the number of records whose field value starts with the given criterion.
+     */
+    public int estimate(String criterion);
+
+    /**
+     * Returns the number of distinct field values in the index.
+     *
+     * @return The number of distinct field values in the index.
+     */
+    public int getDistinctValues();
+
+    /**
+     * Removes every field value from the index.
+     */
+    public void clear();
+
+    /**
+     * Returns the number of records in the index.
+     *
+     * @return The number of records in the index.
+     */
+    public int size();
+
+    /**
+     * Returns <code>true</code> if the index already contains every record of the data file when it is created, such as
+     * an index that is stored on disk and has been validated against the data file, <code>false</code> if the index must
+     * be built by adding every record of the data file.
+     *
+     * @return <code>true</code> if the index already contains every record of the data file, <code>false</code> otherwise.
+     */
+    public boolean isCurrent();
+
+    /**
+     * Releases any resources that are held by the index, storing the index if it is stored on disk.
+     * A subsequent operation on the index acquires the resources again.
+     *
+     * @throws IOException If an I/O Error occurs while storing the index.
+     */
+    public void close() throws IOException;
+}
@@ -0,0 +1,64 @@
+package suncertify.db.index;
+
+/**
+ * Defines a set of constants for the types of {@link FieldIndex FieldIndex} that may be configured for a field,
+ * and for the files of the indexes that are stored on disk.
+ *
+ * @see FieldIndexFactoryImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface FieldIndexConstants
+{
+    /**
+     * The type of a field that is not indexed.
+     */
+    public final static String INDEX_TYPE_NONE = "none";
+
+    /**
+     * The type of a field that is indexed by a {@link SortedFieldIndexImpl SortedFieldIndexImpl}.
+     */
+    public final static String INDEX_TYPE_SORTED = "sorted";
+
+    /**
+     * The type of a field that is indexed by a {@link BitmapFieldIndexImpl BitmapFieldIndexImpl}, which suits a field with few distinct values.
+     */
+    public final static String INDEX_TYPE_BITMAP = "bitmap";
+
+    /**
+     * The type of a field that is indexed by a {@link BTreeFieldIndexImpl BTreeFieldIndexImpl}, which is stored on disk.
+     */
+    public final static String INDEX_TYPE_BTREE = "btree";
+
+    /**
+     * The text that is appended to the name of the data file, followed by the name of the field, to give the name of an index file.
+     * For example, the index of the <code>name</code> field of <code>db-2x2.db</code> is stored in <code>db-2x2.db.idx.name</code>.
+     */
+    public final static String INDEX_FILE_INFIX = ".idx.";
+
+    /**
+     * The text that is appended to the name of the data file to give the name of the file that holds the unique keys and the tombstones
+     * of the data file while it is closed. For example, those of <code>db-2x2.db</code> are stored in <code>db-2x2.db.keys</code>.
+     */
+    public final static String KEY_INDEX_FILE_SUFFIX = ".keys";
+
+    /**
+     * The magic number that identifies a file that is written by a {@link KeyIndexFileImpl KeyIndexFileImpl}.
+     */
+    public final static int KEY_INDEX_MAGIC_NUMBER = 0x4B455901;
+
+    /**
+     * The magic number that identifies an index file that is written by a {@link BTreeFieldIndexImpl BTreeFieldIndexImpl}.
+     */
+    public final static int BTREE_MAGIC_NUMBER = 0x42542B02;
+
+    /**
+     * The size, in bytes, of each page of an index file that is written by a {@link BTreeFieldIndexImpl BTreeFieldIndexImpl}.
+     */
+    public final static int BTREE_PAGE_SIZE = 4096;
+
+    /**
+     * The maximum number of pages of an index file that a {@link BTreeFieldIndexImpl BTreeFieldIndexImpl} holds in memory.
+     */
+    public final static int BTREE_CACHE_PAGES = 256;
+}
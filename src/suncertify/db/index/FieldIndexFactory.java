@@ -0,0 +1,27 @@
+package suncertify.db.index;
+
+import suncertify.db.datafile.FieldSchema;
+
+import java.io.IOException;
+
+/**
+ * Provides an interface for creating the {@link FieldIndex FieldIndex} of a field of the data records,
+ * and so determines which fields are indexed.
+ *
+ * @see FieldIndexFactoryImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface FieldIndexFactory
+{
+    /**
+     * Creates or opens the {@link FieldIndex FieldIndex} for the given field of the given data file.
+     * The index is empty unless it is {@link FieldIndex#isCurrent() current}.
+     *
+     * @param field The schema of the field to create an index for.
+     * @param dataFilename The name of the data file that contains the field.
+     * @return The {@link FieldIndex FieldIndex} for the given field, or <code>null</code> if the field is not indexed.
+     * @throws IOException If an I/O Error occurs while opening an index that is stored on disk.
+     */
+    public FieldIndex createFieldIndex(FieldSchema field, String dataFilename) throws IOException;
+}
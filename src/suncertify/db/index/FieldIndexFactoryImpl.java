@@ -0,0 +1,96 @@
+package suncertify.db.index;
+
+import suncertify.db.datafile.FieldSchema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * An implementation of {@link FieldIndexFactory FieldIndexFactory} that creates an index for each field according to a
+ * map of field names to index types. Index types are defined in the {@link FieldIndexConstants FieldIndexConstants} interface.
+ * A field that is not in the map is not indexed.
+ *
+ * @see FieldIndexConstants
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class FieldIndexFactoryImpl implements FieldIndexFactory, FieldIndexConstants
+{
+    private Map types;
+
+    /**
+     * Constructs a <tt>FieldIndexFactoryImpl</tt> that does not index any field.
+     */
+    public FieldIndexFactoryImpl()
+    {
+        this.types = new HashMap();
+    }
+
+    /**
+     * Constructs a <tt>FieldIndexFactoryImpl</tt> that indexes fields according to the given map of field names
+     * to index types.
+     *
+     * @param types A map of <code>String</code> field names to <code>String</code> index types.
+     * @throws IllegalArgumentException If the given map contains an index type that is not known.
+     */
+    public FieldIndexFactoryImpl(Map types) throws IllegalArgumentException
+    {
+        this.types = new HashMap(types);
+
+        Iterator it = this.types.entrySet().iterator();
+
+        while(it.hasNext())
+        {
+            Map.Entry e = (Map.Entry)it.next();
+            String type = (String)e.getValue();
+
+            if(!INDEX_TYPE_NONE.equals(type) && !INDEX_TYPE_SORTED.equals(type) &&
+               !INDEX_TYPE_BITMAP.equals(type) && !INDEX_TYPE_BTREE.equals(type))
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Unknown index type for field ");
+                message.append(e.getKey());
+                message.append(": ");
+                message.append(type);
+
+                throw new IllegalArgumentException(message.toString());
+            }
+        }
+    }
+
+    /**
+     * Creates or opens the {@link FieldIndex FieldIndex} for the given field of the given data file, of the type that is configured for the field name.
+     * An index of type {@link FieldIndexConstants#INDEX_TYPE_BTREE INDEX_TYPE_BTREE} is stored in a file alongside the data file, with the name
+     * of the data file followed by {@link FieldIndexConstants#INDEX_FILE_INFIX INDEX_FILE_INFIX} and the name of the field.
+     *
+     * @param field The schema of the field to create an index for.
+     * @param dataFilename The name of the data file that contains the field.
+     * @return The {@link FieldIndex FieldIndex} for the given field, or <code>null</code> if the field is not indexed.
+     * @throws IOException If an I/O Error occurs while opening an index that is stored on disk.
+     */
+    public FieldIndex createFieldIndex(FieldSchema field, String dataFilename) throws IOException
+    {
+        String name = field.getName().trim();
+        String type = (String)types.get(name);
+
+        if(INDEX_TYPE_SORTED.equals(type))
+        {
+            return new SortedFieldIndexImpl(field.getLength());
+        }
+
+        if(INDEX_TYPE_BITMAP.equals(type))
+        {
+            return new BitmapFieldIndexImpl(field.getLength());
+        }
+
+        if(INDEX_TYPE_BTREE.equals(type))
+        {
+            return new BTreeFieldIndexImpl(new File(dataFilename + INDEX_FILE_INFIX + name), new File(dataFilename), field.getLength());
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+package suncertify.db.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Provides an interface for an index of the unique key of each data record to the number of that record.
+ * The unique key of a data record is made up of one or more of its fields, which are compared after
+ * leading and trailing white space is removed.
+ *
+ * @see KeyIndexImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface KeyIndex
+{
+    /**
+     * Returns the number of the record that has the same unique key as the given record data.
+     *
+     * @param data The record data that contains the unique key to look up.
+     * @return The number of the record that has the same unique key as the given record data, or a value less than 0 (zero)
+     * if no record has the same unique key.
+     */
+    public int get(String[] data);
+
+    /**
+     * Adds the unique key of the given record data to the index, if no record already has the same unique key.
+     *
+     * @param data The record data that contains the unique key to add.
+     * @param recNo The number of the record.
+     * @return <code>true</code> if the unique key was added, <code>false</code> if another record already has the same unique key.
+     */
+    public boolean put(String[] data, int recNo);
+
+    /**
+     * Removes the unique key of the given record data from the index, if it is indexed to the given record number.
+     *
+     * @param data The record data that contains the unique key to remove.
+     * @param recNo The number of the record.
+     * @return <code>true</code> if the unique key was removed, <code>false</code> otherwise.
+     */
+    public boolean remove(String[] data, int recNo);
+
+    /**
+     * Removes every unique key from the index.
+     */
+    public void clear();
+
+    /**
+     * Returns the number of unique keys in the index.
+     *
+     * @return The number of unique keys in the index.
+     */
+    public int size();
+
+    /**
+     * Writes every unique key of the index, and the number of its record, to the given output.
+     *
+     * @param out The output to write the index to.
+     * @throws IOException If an I/O Error occurs while writing.
+     */
+    public void writeTo(DataOutput out) throws IOException;
+
+    /**
+     * Replaces the unique keys of the index with those that are read from the given input, which was written by
+     * {@link #writeTo(DataOutput) writeTo}.
+     *
+     * @param in The input to read the index from.
+     * @throws IOException If an I/O Error occurs while reading, or the input was not written by {@link #writeTo(DataOutput) writeTo}.
+     */
+    public void readFrom(DataInput in) throws IOException;
+}
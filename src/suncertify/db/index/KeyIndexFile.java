@@ -0,0 +1,42 @@
+package suncertify.db.index;
+
+import java.io.IOException;
+
+/**
+ * Provides an interface for a file that holds the {@link KeyIndex KeyIndex} and the tombstones of a data file while the data file
+ * is closed, so that neither need be rebuilt from a scan of the data file when it is opened again.
+ *
+ * @see KeyIndexFileImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface KeyIndexFile
+{
+    /**
+     * Reads the unique keys and the tombstones of the data file into the given index and set, if the file matches the data file.
+     *
+     * @param keyIndex The index to read the unique keys into.
+     * @param tombstones The set to add the numbers of the deleted records to.
+     * @return <code>true</code> if the file matched the data file and was read, <code>false</code> if the index and set must be
+     * rebuilt from the data file, in which case they may have been partly read.
+     * @throws IOException If an I/O Error occurs while reading the file.
+     */
+    public boolean read(KeyIndex keyIndex, RecordBitmap tombstones) throws IOException;
+
+    /**
+     * Writes the given unique keys and tombstones to the file, recording the data file that they match.
+     * The data file must not be written until the file is {@link #invalidate() invalidated}.
+     *
+     * @param keyIndex The unique keys of the data file.
+     * @param tombstones The numbers of the deleted records of the data file.
+     * @throws IOException If an I/O Error occurs while writing the file.
+     */
+    public void write(KeyIndex keyIndex, RecordBitmap tombstones) throws IOException;
+
+    /**
+     * Removes the file, if it has been written, so that it is not read once the data file has been written.
+     *
+     * @throws IOException If the file cannot be removed.
+     */
+    public void invalidate() throws IOException;
+}
@@ -0,0 +1,159 @@
+package suncertify.db.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
+/**
+ * An implementation of {@link KeyIndexFile KeyIndexFile} that is stored alongside the data file.
+ * The file holds the length and modification time of the data file when it was written, followed by the unique keys and the numbers
+ * of the deleted records. The file is only read if it matches the data file, and it is removed when it is read, and before the data file
+ * is next written, so a file that is left by a server that did not close the data file is never read.
+ * This class is internally <b>thread-safe</b>.
+ *
+ * @see FieldIndexConstants#KEY_INDEX_FILE_SUFFIX
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class KeyIndexFileImpl implements KeyIndexFile, FieldIndexConstants
+{
+    private File keyFile;
+    private File dataFile;
+    private boolean written;
+
+    /**
+     * Constructs a <tt>KeyIndexFileImpl</tt> for the given file, which holds the unique keys and tombstones of the given data file.
+     *
+     * @param keyFile The file that holds the unique keys and tombstones.
+     * @param dataFile The data file that the file is for.
+     */
+    public KeyIndexFileImpl(File keyFile, File dataFile)
+    {
+        this.keyFile = keyFile;
+        this.dataFile = dataFile;
+        this.written = keyFile.exists();
+    }
+
+    /**
+     * Reads the unique keys and the tombstones of the data file into the given index and set, if the file matches the length and
+     * modification time of the data file, and then removes the file.
+     *
+     * @param keyIndex The index to read the unique keys into.
+     * @param tombstones The set to add the numbers of the deleted records to.
+     * @return <code>true</code> if the file matched the data file and was read, <code>false</code> otherwise.
+     * @throws IOException If an I/O Error occurs while reading or removing the file.
+     */
+    public synchronized boolean read(KeyIndex keyIndex, RecordBitmap tombstones) throws IOException
+    {
+        if(!keyFile.exists())
+        {
+            return false;
+        }
+
+        try
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(keyFile)));
+
+            try
+            {
+                if(in.readInt() != KEY_INDEX_MAGIC_NUMBER || in.readLong() != dataFile.length() || in.readLong() != dataFile.lastModified())
+                {
+                    return false;
+                }
+
+                keyIndex.readFrom(in);
+
+                int count = in.readInt();
+
+                for(int i = 0; i < count; i++)
+                {
+                    tombstones.add(in.readInt());
+                }
+
+                return true;
+            }
+            catch(EOFException eofe)
+            {
+                // the file was not completely written
+                return false;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        finally
+        {
+            invalidate();
+        }
+    }
+
+    /**
+     * Writes the length and modification time of the data file, followed by the given unique keys and tombstones, to the file.
+     *
+     * @param keyIndex The unique keys of the data file.
+     * @param tombstones The numbers of the deleted records of the data file.
+     * @throws IOException If an I/O Error occurs while writing the file.
+     */
+    public synchronized void write(KeyIndex keyIndex, RecordBitmap tombstones) throws IOException
+    {
+        int[] deleted;
+
+        synchronized(tombstones)
+        {
+            deleted = tombstones.toArray();
+        }
+
+        written = true;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(keyFile)));
+
+        try
+        {
+            out.writeInt(KEY_INDEX_MAGIC_NUMBER);
+            out.writeLong(dataFile.length());
+            out.writeLong(dataFile.lastModified());
+
+            keyIndex.writeTo(out);
+
+            out.writeInt(deleted.length);
+
+            for(int i = 0; i < deleted.length; i++)
+            {
+                out.writeInt(deleted[i]);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Removes the file, if it has been written since it was last removed.
+     *
+     * @throws IOException If the file cannot be removed.
+     */
+    public synchronized void invalidate() throws IOException
+    {
+        if(written)
+        {
+            if(keyFile.exists() && !keyFile.delete())
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Failed to remove key index file: ");
+                message.append(keyFile);
+
+                throw new IOException(message.toString());
+            }
+
+            written = false;
+        }
+    }
+}
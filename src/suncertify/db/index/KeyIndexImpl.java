@@ -0,0 +1,224 @@
+package suncertify.db.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An implementation of {@link KeyIndex KeyIndex} that is backed by a hash table, so that a unique key is looked up
+ * in constant time rather than by a scan of the data file.
+ * The underlying <code>java.util.concurrent.ConcurrentHashMap</code> adds and removes each key atomically, so that clients that add
+ * different keys do not contend on a single monitor.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class KeyIndexImpl implements KeyIndex
+{
+    private int[] keyIndicies;
+    private ConcurrentMap keys;
+
+    /**
+     * Constructs an empty <tt>KeyIndexImpl</tt> for a unique key that is made up of the fields at the given indicies.
+     *
+     * @param keyIndicies The indicies of the fields that make up the unique key.
+     */
+    public KeyIndexImpl(int[] keyIndicies)
+    {
+        this.keyIndicies = (int[])keyIndicies.clone();
+        this.keys = new ConcurrentHashMap();
+    }
+
+    /**
+     * Returns the number of the record that has the same unique key as the given record data.
+     *
+     * @param data The record data that contains the unique key to look up.
+     * @return The number of the record that has the same unique key as the given record data, or -1
+     * if no record has the same unique key.
+     */
+    public int get(String[] data)
+    {
+        Integer recNo = (Integer)keys.get(new Key(data, keyIndicies));
+
+        return (recNo == null ? -1 : recNo.intValue());
+    }
+
+    /**
+     * Adds the unique key of the given record data to the index, if no record already has the same unique key.
+     *
+     * @param data The record data that contains the unique key to add.
+     * @param recNo The number of the record.
+     * @return <code>true</code> if the unique key was added, <code>false</code> if another record already has the same unique key.
+     */
+    public boolean put(String[] data, int recNo)
+    {
+        return (keys.putIfAbsent(new Key(data, keyIndicies), new Integer(recNo)) == null);
+    }
+
+    /**
+     * Removes the unique key of the given record data from the index, if it is indexed to the given record number.
+     *
+     * @param data The record data that contains the unique key to remove.
+     * @param recNo The number of the record.
+     * @return <code>true</code> if the unique key was removed, <code>false</code> otherwise.
+     */
+    public boolean remove(String[] data, int recNo)
+    {
+        return keys.remove(new Key(data, keyIndicies), new Integer(recNo));
+    }
+
+    /**
+     * Removes every unique key from the index.
+     */
+    public void clear()
+    {
+        keys.clear();
+    }
+
+    /**
+     * Returns the number of unique keys in the index.
+     *
+     * @return The number of unique keys in the index.
+     */
+    public int size()
+    {
+        return keys.size();
+    }
+
+    /**
+     * Writes the number of key fields and the number of unique keys, followed by the trimmed fields of each unique key and
+     * the number of its record, to the given output. A key that is added or removed while the index is written may or may not be written.
+     *
+     * @param out The output to write the index to.
+     * @throws IOException If an I/O Error occurs while writing.
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        // the entries are copied first, so that the count that is written is the number of entries that follow it
+        Object[] entries = keys.entrySet().toArray();
+
+        out.writeInt(keyIndicies.length);
+        out.writeInt(entries.length);
+
+        for(int i = 0; i < entries.length; i++)
+        {
+            Map.Entry e = (Map.Entry)entries[i];
+            String[] fields = ((Key)e.getKey()).fields;
+
+            for(int j = 0; j < fields.length; j++)
+            {
+                out.writeBoolean(fields[j] != null);
+
+                if(fields[j] != null)
+                {
+                    out.writeUTF(fields[j]);
+                }
+            }
+
+            out.writeInt(((Integer)e.getValue()).intValue());
+        }
+    }
+
+    /**
+     * Replaces the unique keys of the index with those that are read from the given input, which was written by
+     * {@link #writeTo(DataOutput) writeTo}.
+     *
+     * @param in The input to read the index from.
+     * @throws IOException If an I/O Error occurs while reading, or the input was written for a different number of key fields.
+     */
+    public void readFrom(DataInput in) throws IOException
+    {
+        int fieldCount = in.readInt();
+
+        if(fieldCount != keyIndicies.length)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Key index has ");
+            message.append(fieldCount);
+            message.append(" fields, expected ");
+            message.append(keyIndicies.length);
+
+            throw new IOException(message.toString());
+        }
+
+        int count = in.readInt();
+
+        keys.clear();
+
+        for(int i = 0; i < count; i++)
+        {
+            String[] fields = new String[fieldCount];
+
+            for(int j = 0; j < fields.length; j++)
+            {
+                fields[j] = (in.readBoolean() ? in.readUTF() : null);
+            }
+
+            keys.put(new Key(fields), new Integer(in.readInt()));
+        }
+    }
+
+    // the trimmed key fields of a data record
+    private static class Key
+    {
+        private String[] fields;
+
+        private Key(String[] fields)
+        {
+            this.fields = fields;
+        }
+
+        public Key(String[] data, int[] keyIndicies)
+        {
+            fields = new String[keyIndicies.length];
+
+            for(int i = 0; i < fields.length; i++)
+            {
+                String field = data[keyIndicies[i]];
+
+                fields[i] = (field == null ? null : field.trim());
+            }
+        }
+
+        public boolean equals(Object o)
+        {
+            if(this == o)
+            {
+                return true;
+            }
+
+            if(!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key key = (Key)o;
+
+            for(int i = 0; i < fields.length; i++)
+            {
+                if(fields[i] == null ? key.fields[i] != null : !fields[i].equals(key.fields[i]))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public int hashCode()
+        {
+            final int ODD_PRIME = 461;
+            int result = 73;
+
+            for(int i = 0; i < fields.length; i++)
+            {
+                result = result * ODD_PRIME + (fields[i] == null ? 0 : fields[i].hashCode());
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package suncertify.db.index;
+
+/**
+ * Provides an interface for the plan that a {@link QueryPlanner QueryPlanner} chooses to answer a query,
+ * that is, a call to {@link suncertify.db.DB#find(String[]) DB.find} with a criteria array.
+ *
+ * @see QueryPlanner
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface QueryPlan
+{
+    /**
+     * The type of plan that examines every record of the data file.
+     */
+    public final static int FULL_SCAN = 0;
+
+    /**
+     * The type of plan that looks up the index of a single field, and reads and matches the records that are found.
+     */
+    public final static int INDEX = 1;
+
+    /**
+     * The type of plan that looks up the indexes of several fields, and reads and matches the records that are found by all of them.
+     */
+    public final static int INTERSECTION = 2;
+
+    /**
+     * Returns the type of this plan; one of {@link #FULL_SCAN FULL_SCAN}, {@link #INDEX INDEX} or {@link #INTERSECTION INTERSECTION}.
+     *
+     * @return The type of this plan.
+     */
+    public int getType();
+
+    /**
+     * Returns the indicies of the fields whose indexes are looked up, in the order that they are looked up.
+     * A {@link #FULL_SCAN FULL_SCAN} plan looks up no index.
+     *
+     * @return The indicies of the fields whose indexes are looked up.
+     */
+    public int[] getFields();
+
+    /**
+     * Returns the estimated number of records that are read and matched by this plan.
+     *
+     * @return The estimated number of records that are read and matched by this plan.
+     */
+    public int getEstimatedRecords();
+
+    /**
+     * Returns the estimated cost of this plan, in units of the cost of examining one record during a scan of the data file.
+     *
+     * @return The estimated cost of this plan.
+     */
+    public double getEstimatedCost();
+}
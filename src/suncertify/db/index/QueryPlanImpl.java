@@ -0,0 +1,103 @@
+package suncertify.db.index;
+
+/**
+ * An immutable implementation of {@link QueryPlan QueryPlan}.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class QueryPlanImpl implements QueryPlan
+{
+    private int type;
+    private int[] fields;
+    private int estimatedRecords;
+    private double estimatedCost;
+
+    /**
+     * Constructs a <tt>QueryPlanImpl</tt> with the given properties.
+     *
+     * @param type The type of the plan.
+     * @param fields The indicies of the fields whose indexes are looked up, in the order that they are looked up.
+     * @param estimatedRecords The estimated number of records that are read and matched by the plan.
+     * @param estimatedCost The estimated cost of the plan.
+     */
+    public QueryPlanImpl(int type, int[] fields, int estimatedRecords, double estimatedCost)
+    {
+        this.type = type;
+        this.fields = (int[])fields.clone();
+        this.estimatedRecords = estimatedRecords;
+        this.estimatedCost = estimatedCost;
+    }
+
+    /**
+     * Returns the type of this plan; one of {@link #FULL_SCAN FULL_SCAN}, {@link #INDEX INDEX} or {@link #INTERSECTION INTERSECTION}.
+     *
+     * @return The type of this plan.
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the indicies of the fields whose indexes are looked up, in the order that they are looked up.
+     *
+     * @return The indicies of the fields whose indexes are looked up.
+     */
+    public int[] getFields()
+    {
+        return (int[])fields.clone();
+    }
+
+    /**
+     * Returns the estimated number of records that are read and matched by this plan.
+     *
+     * @return The estimated number of records that are read and matched by this plan.
+     */
+    public int getEstimatedRecords()
+    {
+        return estimatedRecords;
+    }
+
+    /**
+     * Returns the estimated cost of this plan, in units of the cost of examining one record during a scan of the data file.
+     *
+     * @return The estimated cost of this plan.
+     */
+    public double getEstimatedCost()
+    {
+        return estimatedCost;
+    }
+
+    /**
+     * Returns a <code>String</code> representation of this <tt>QueryPlanImpl</tt>, such as
+     * <code>INTERSECTION[1, 3] records=12 cost=104.5</code>.
+     *
+     * @return A <code>String</code> representation of this <tt>QueryPlanImpl</tt>.
+     */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+
+        sb.append(type == FULL_SCAN ? "FULL_SCAN" : (type == INDEX ? "INDEX" : "INTERSECTION"));
+        sb.append('[');
+
+        for(int i = 0; i < fields.length; i++)
+        {
+            if(i > 0)
+            {
+                sb.append(", ");
+            }
+
+            sb.append(fields[i]);
+        }
+
+        sb.append(']');
+        sb.append(" records=");
+        sb.append(estimatedRecords);
+        sb.append(" cost=");
+        sb.append(estimatedCost);
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package suncertify.db.index;
+
+/**
+ * Provides an interface for choosing how to answer a query, that is, a call to {@link suncertify.db.DB#find(String[]) DB.find}
+ * with a criteria array: by a scan of the data file, by a lookup of a single index, or by the intersection of several indexes.
+ *
+ * @see QueryPlannerImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface QueryPlanner
+{
+    /**
+     * Chooses the plan to answer the given criteria.
+     *
+     * @param criteria The search criteria of the query.
+     * @param indexes The index of each field of the data file, or <code>null</code> for a field that is not indexed.
+     * @param totalRecords The number of records in the data file, including deleted records.
+     * @return The plan to answer the given criteria.
+     */
+    public QueryPlan plan(String[] criteria, FieldIndex[] indexes, int totalRecords);
+}
@@ -0,0 +1,135 @@
+package suncertify.db.index;
+
+/**
+ * An implementation of {@link QueryPlanner QueryPlanner} that chooses the plan with the lowest estimated cost, using simple statistics
+ * of each index: the {@link FieldIndex#estimate(String) estimated} number of records that match a criterion (the selectivity of the prefix),
+ * and the {@link FieldIndex#getDistinctValues() number of distinct values}. Costs are in units of the cost of examining one record
+ * during a scan of the data file:
+ * <li>a scan of the data file costs one unit for each record.</li>
+ * <li>a lookup of an index costs a fraction of a unit for each record that it finds, and one unit for each distinct value that it
+ * examines, which is estimated from the average number of records of each value.</li>
+ * <li>reading and matching a record that is found by an index costs several units, since each record is read separately.</li>
+ * <br>
+ * Indexes are considered in order of their estimated number of records, fewest first. The most selective index is always
+ * looked up; each further index is looked up only if its cost is less than the cost of reading the records that it is expected to
+ * exclude, assuming that the values of different fields are independent. The resulting plan is chosen if it costs less than a
+ * scan of the data file.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class QueryPlannerImpl implements QueryPlanner
+{
+    private double scanCost;
+    private double readCost;
+    private double lookupCost;
+    private double valueCost;
+
+    /**
+     * Constructs a <tt>QueryPlannerImpl</tt> with default costs; reading a record that is found by an index costs 8 units,
+     * and a lookup of an index costs 0.1 units for each record that it finds.
+     */
+    public QueryPlannerImpl()
+    {
+        this(8.0, 0.1);
+    }
+
+    /**
+     * Constructs a <tt>QueryPlannerImpl</tt> with the given costs, in units of the cost of examining one record during a scan of the data file.
+     *
+     * @param readCost The cost of reading and matching a record that is found by an index.
+     * @param lookupCost The cost of each record that is found by a lookup of an index.
+     */
+    public QueryPlannerImpl(double readCost, double lookupCost)
+    {
+        this.scanCost = 1.0;
+        this.readCost = readCost;
+        this.lookupCost = lookupCost;
+        this.valueCost = 1.0;
+    }
+
+    /**
+     * Chooses the plan with the lowest estimated cost to answer the given criteria.
+     * If the criteria do not have the same length as the indexes, or no field that has a non-null criterion is indexed,
+     * a {@link QueryPlan#FULL_SCAN FULL_SCAN} plan is chosen.
+     *
+     * @param criteria The search criteria of the query.
+     * @param indexes The index of each field of the data file, or <code>null</code> for a field that is not indexed.
+     * @param totalRecords The number of records in the data file, including deleted records.
+     * @return The plan with the lowest estimated cost to answer the given criteria.
+     */
+    public QueryPlan plan(String[] criteria, FieldIndex[] indexes, int totalRecords)
+    {
+        double fullScanCost = totalRecords * scanCost;
+
+        if(criteria.length != indexes.length || totalRecords == 0)
+        {
+            return new QueryPlanImpl(QueryPlan.FULL_SCAN, new int[0], totalRecords, fullScanCost);
+        }
+
+        int total = 0;
+        int[] fields = new int[criteria.length];
+        int[] estimates = new int[criteria.length];
+        double[] costs = new double[criteria.length];
+
+        for(int i = 0; i < criteria.length; i++)
+        {
+            if(criteria[i] != null && indexes[i] != null)
+            {
+                int estimate = Math.min(indexes[i].estimate(criteria[i]), totalRecords);
+                int size = Math.max(indexes[i].size(), 1);
+                double values = (double)estimate * indexes[i].getDistinctValues() / size;
+
+                // insertion sort by ascending estimate, keeping field order for equal estimates
+                int j = total;
+
+                while(j > 0 && estimates[j - 1] > estimate)
+                {
+                    fields[j] = fields[j - 1];
+                    estimates[j] = estimates[j - 1];
+                    costs[j] = costs[j - 1];
+                    j--;
+                }
+
+                fields[j] = i;
+                estimates[j] = estimate;
+                costs[j] = estimate * lookupCost + Math.max(values, 1.0) * valueCost;
+                total++;
+            }
+        }
+
+        if(total == 0)
+        {
+            return new QueryPlanImpl(QueryPlan.FULL_SCAN, new int[0], totalRecords, fullScanCost);
+        }
+
+        int used = 1;
+        double records = estimates[0];
+        double lookups = costs[0];
+
+        for(int i = 1; i < total; i++)
+        {
+            double remaining = records * estimates[i] / totalRecords;
+
+            if(costs[i] < (records - remaining) * readCost)
+            {
+                fields[used] = fields[i];
+                used++;
+                records = remaining;
+                lookups = lookups + costs[i];
+            }
+        }
+
+        double indexCost = lookups + records * readCost;
+
+        if(indexCost >= fullScanCost)
+        {
+            return new QueryPlanImpl(QueryPlan.FULL_SCAN, new int[0], totalRecords, fullScanCost);
+        }
+
+        int[] chosen = new int[used];
+        System.arraycopy(fields, 0, chosen, 0, used);
+
+        return new QueryPlanImpl(used == 1 ? QueryPlan.INDEX : QueryPlan.INTERSECTION, chosen, (int)Math.ceil(records), indexCost);
+    }
+}
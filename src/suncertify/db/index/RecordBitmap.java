@@ -0,0 +1,661 @@
+package suncertify.db.index;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of record numbers, which supports the set operations that combine the results of several
+ * {@link FieldIndex FieldIndex} lookups. Record numbers are grouped by their upper 16 bits into containers; a container
+ * that holds few record numbers is a sorted array, and a container that holds many is a bitmap of 65536 bits.
+ * A sparse set therefore costs two bytes for each record number, a dense set costs one bit for each possible record number,
+ * and the intersection of two sets only examines the containers that both sets have.
+ * <br>
+ * The set operations {@link #and(RecordBitmap) and}, {@link #or(RecordBitmap) or} and {@link #andNot(RecordBitmap) andNot}
+ * return a new <tt>RecordBitmap</tt> and do not modify either operand. An instance of this class is not thread-safe.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class RecordBitmap
+{
+    // the largest number of record numbers that a container holds as a sorted array
+    private static final int ARRAY_LIMIT = 4096;
+
+    private int[] keys;
+    private Container[] containers;
+    private int size;
+
+    /**
+     * Constructs an empty <tt>RecordBitmap</tt>.
+     */
+    public RecordBitmap()
+    {
+        this.keys = new int[4];
+        this.containers = new Container[4];
+    }
+
+    /**
+     * Constructs a <tt>RecordBitmap</tt> that contains the given record numbers.
+     *
+     * @param recNos The record numbers, which must not be negative.
+     */
+    public RecordBitmap(int[] recNos)
+    {
+        this();
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            add(recNos[i]);
+        }
+    }
+
+    /**
+     * Adds the given record number to this set.
+     *
+     * @param recNo The record number to add, which must not be negative.
+     * @return <code>true</code> if the record number was added, <code>false</code> if it was already in this set.
+     */
+    public boolean add(int recNo)
+    {
+        int key = recNo >>> 16;
+        int i = Arrays.binarySearch(keys, 0, size, key);
+
+        if(i < 0)
+        {
+            i = -(i + 1);
+            insert(i, key, new Container());
+        }
+
+        return containers[i].add((char)recNo);
+    }
+
+    /**
+     * Removes the given record number from this set.
+     *
+     * @param recNo The record number to remove.
+     * @return <code>true</code> if the record number was removed, <code>false</code> if it was not in this set.
+     */
+    public boolean remove(int recNo)
+    {
+        int i = Arrays.binarySearch(keys, 0, size, recNo >>> 16);
+
+        if(i < 0 || !containers[i].remove((char)recNo))
+        {
+            return false;
+        }
+
+        if(containers[i].cardinality == 0)
+        {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            size--;
+            containers[size] = null;
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines if the given record number is in this set.
+     *
+     * @param recNo The record number.
+     * @return <code>true</code> if the record number is in this set, <code>false</code> otherwise.
+     */
+    public boolean contains(int recNo)
+    {
+        int i = Arrays.binarySearch(keys, 0, size, recNo >>> 16);
+
+        return i >= 0 && containers[i].contains((char)recNo);
+    }
+
+    /**
+     * Returns the number of record numbers in this set.
+     *
+     * @return The number of record numbers in this set.
+     */
+    public int cardinality()
+    {
+        int cardinality = 0;
+
+        for(int i = 0; i < size; i++)
+        {
+            cardinality = cardinality + containers[i].cardinality;
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * Determines if this set contains no record numbers.
+     *
+     * @return <code>true</code> if this set contains no record numbers, <code>false</code> otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns the record numbers that are in both this set and the given set.
+     *
+     * @param bitmap The set to intersect with this set.
+     * @return A new <tt>RecordBitmap</tt> that contains the record numbers that are in both this set and the given set.
+     */
+    public RecordBitmap and(RecordBitmap bitmap)
+    {
+        RecordBitmap retval = new RecordBitmap();
+
+        int i = 0;
+        int j = 0;
+
+        while(i < size && j < bitmap.size)
+        {
+            if(keys[i] < bitmap.keys[j])
+            {
+                i++;
+            }
+            else if(keys[i] > bitmap.keys[j])
+            {
+                j++;
+            }
+            else
+            {
+                Container c = containers[i].and(bitmap.containers[j]);
+
+                if(c.cardinality > 0)
+                {
+                    retval.insert(retval.size, keys[i], c);
+                }
+
+                i++;
+                j++;
+            }
+        }
+
+        return retval;
+    }
+
+    /**
+     * Returns the record numbers that are in either this set or the given set.
+     *
+     * @param bitmap The set to unite with this set.
+     * @return A new <tt>RecordBitmap</tt> that contains the record numbers that are in either this set or the given set.
+     */
+    public RecordBitmap or(RecordBitmap bitmap)
+    {
+        RecordBitmap retval = new RecordBitmap();
+
+        int i = 0;
+        int j = 0;
+
+        while(i < size || j < bitmap.size)
+        {
+            if(j == bitmap.size || (i < size && keys[i] < bitmap.keys[j]))
+            {
+                retval.insert(retval.size, keys[i], containers[i].copy());
+                i++;
+            }
+            else if(i == size || keys[i] > bitmap.keys[j])
+            {
+                retval.insert(retval.size, bitmap.keys[j], bitmap.containers[j].copy());
+                j++;
+            }
+            else
+            {
+                retval.insert(retval.size, keys[i], containers[i].or(bitmap.containers[j]));
+                i++;
+                j++;
+            }
+        }
+
+        return retval;
+    }
+
+    /**
+     * Returns the record numbers that are in this set, but not in the given set.
+     *
+     * @param bitmap The set of record numbers to exclude from this set.
+     * @return A new <tt>RecordBitmap</tt> that contains the record numbers that are in this set, but not in the given set.
+     */
+    public RecordBitmap andNot(RecordBitmap bitmap)
+    {
+        RecordBitmap retval = new RecordBitmap();
+
+        int j = 0;
+
+        for(int i = 0; i < size; i++)
+        {
+            while(j < bitmap.size && bitmap.keys[j] < keys[i])
+            {
+                j++;
+            }
+
+            Container c = (j < bitmap.size && bitmap.keys[j] == keys[i]) ? containers[i].andNot(bitmap.containers[j]) : containers[i].copy();
+
+            if(c.cardinality > 0)
+            {
+                retval.insert(retval.size, keys[i], c);
+            }
+        }
+
+        return retval;
+    }
+
+    /**
+     * Returns the record numbers in this set, in ascending order.
+     *
+     * @return The record numbers in this set, in ascending order.
+     */
+    public int[] toArray()
+    {
+        int[] retval = new int[cardinality()];
+        int position = 0;
+
+        for(int i = 0; i < size; i++)
+        {
+            position = containers[i].toArray(keys[i] << 16, retval, position);
+        }
+
+        return retval;
+    }
+
+    /**
+     * Compares this <tt>RecordBitmap</tt> with the given object for equality.
+     * Two <tt>RecordBitmap</tt> objects are equal if they contain the same record numbers.
+     *
+     * @param o The object to compare this <tt>RecordBitmap</tt> with.
+     * @return <code>true</code> if the given object is a <tt>RecordBitmap</tt> that contains the same record numbers, <code>false</code> otherwise.
+     */
+    public boolean equals(Object o)
+    {
+        if(this == o)
+        {
+            return true;
+        }
+
+        if(!(o instanceof RecordBitmap))
+        {
+            return false;
+        }
+
+        return Arrays.equals(toArray(), ((RecordBitmap)o).toArray());
+    }
+
+    /**
+     * Returns a hash code for this <tt>RecordBitmap</tt>.
+     *
+     * @return A hash code for this <tt>RecordBitmap</tt>.
+     */
+    public int hashCode()
+    {
+        final int ODD_PRIME = 461;
+        int result = 73;
+
+        int[] recNos = toArray();
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            result = result * ODD_PRIME + recNos[i];
+        }
+
+        return result;
+    }
+
+    // inserts the given container at the given position
+    private void insert(int i, int key, Container c)
+    {
+        if(size == keys.length)
+        {
+            int[] k = new int[size * 2];
+            Container[] cs = new Container[size * 2];
+            System.arraycopy(keys, 0, k, 0, size);
+            System.arraycopy(containers, 0, cs, 0, size);
+            keys = k;
+            containers = cs;
+        }
+
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    // the lower 16 bits of the record numbers that share the same upper 16 bits,
+    // held as a sorted array if there are at most ARRAY_LIMIT of them, or as a bitmap otherwise
+    private static class Container
+    {
+        public char[] array;
+        public long[] bits;
+        public int cardinality;
+
+        public Container()
+        {
+            this.array = new char[4];
+        }
+
+        public boolean add(char value)
+        {
+            if(bits != null)
+            {
+                long mask = 1L << value;
+
+                if((bits[value >>> 6] & mask) != 0)
+                {
+                    return false;
+                }
+
+                bits[value >>> 6] |= mask;
+                cardinality++;
+
+                return true;
+            }
+
+            int i = search(value);
+
+            if(i >= 0)
+            {
+                return false;
+            }
+
+            i = -(i + 1);
+
+            if(cardinality == array.length)
+            {
+                char[] grown = new char[cardinality * 2];
+                System.arraycopy(array, 0, grown, 0, cardinality);
+                array = grown;
+            }
+
+            System.arraycopy(array, i, array, i + 1, cardinality - i);
+            array[i] = value;
+            cardinality++;
+
+            if(cardinality > ARRAY_LIMIT)
+            {
+                toBits();
+            }
+
+            return true;
+        }
+
+        public boolean remove(char value)
+        {
+            if(bits != null)
+            {
+                long mask = 1L << value;
+
+                if((bits[value >>> 6] & mask) == 0)
+                {
+                    return false;
+                }
+
+                bits[value >>> 6] &= ~mask;
+                cardinality--;
+
+                if(cardinality <= ARRAY_LIMIT / 2)
+                {
+                    toArray();
+                }
+
+                return true;
+            }
+
+            int i = search(value);
+
+            if(i < 0)
+            {
+                return false;
+            }
+
+            System.arraycopy(array, i + 1, array, i, cardinality - i - 1);
+            cardinality--;
+
+            return true;
+        }
+
+        public boolean contains(char value)
+        {
+            if(bits != null)
+            {
+                return (bits[value >>> 6] & (1L << value)) != 0;
+            }
+
+            return search(value) >= 0;
+        }
+
+        public Container and(Container c)
+        {
+            Container retval = new Container();
+
+            if(bits != null && c.bits != null)
+            {
+                retval.bits = new long[1024];
+
+                for(int i = 0; i < 1024; i++)
+                {
+                    retval.bits[i] = bits[i] & c.bits[i];
+                    retval.cardinality = retval.cardinality + Long.bitCount(retval.bits[i]);
+                }
+
+                retval.array = null;
+                retval.normalize();
+
+                return retval;
+            }
+
+            // iterate the array container, and test each value against the other container
+            Container a = (bits == null) ? this : c;
+            Container b = (bits == null) ? c : this;
+
+            retval.array = new char[Math.max(a.cardinality, 1)];
+
+            for(int i = 0; i < a.cardinality; i++)
+            {
+                if(b.contains(a.array[i]))
+                {
+                    retval.array[retval.cardinality++] = a.array[i];
+                }
+            }
+
+            return retval;
+        }
+
+        public Container or(Container c)
+        {
+            Container retval;
+
+            if(bits == null && c.bits == null)
+            {
+                retval = new Container();
+                retval.array = new char[cardinality + c.cardinality];
+
+                int i = 0;
+                int j = 0;
+
+                while(i < cardinality || j < c.cardinality)
+                {
+                    if(j == c.cardinality || (i < cardinality && array[i] < c.array[j]))
+                    {
+                        retval.array[retval.cardinality++] = array[i++];
+                    }
+                    else if(i == cardinality || array[i] > c.array[j])
+                    {
+                        retval.array[retval.cardinality++] = c.array[j++];
+                    }
+                    else
+                    {
+                        retval.array[retval.cardinality++] = array[i++];
+                        j++;
+                    }
+                }
+
+                if(retval.cardinality > ARRAY_LIMIT)
+                {
+                    retval.toBits();
+                }
+
+                return retval;
+            }
+
+            // copy the bitmap container, and add each value of the other container
+            Container a = (bits != null) ? this : c;
+            Container b = (bits != null) ? c : this;
+
+            retval = a.copy();
+
+            if(b.bits != null)
+            {
+                retval.cardinality = 0;
+
+                for(int i = 0; i < 1024; i++)
+                {
+                    retval.bits[i] |= b.bits[i];
+                    retval.cardinality = retval.cardinality + Long.bitCount(retval.bits[i]);
+                }
+            }
+            else
+            {
+                for(int i = 0; i < b.cardinality; i++)
+                {
+                    retval.add(b.array[i]);
+                }
+            }
+
+            return retval;
+        }
+
+        public Container andNot(Container c)
+        {
+            Container retval;
+
+            if(bits == null)
+            {
+                retval = new Container();
+                retval.array = new char[Math.max(cardinality, 1)];
+
+                for(int i = 0; i < cardinality; i++)
+                {
+                    if(!c.contains(array[i]))
+                    {
+                        retval.array[retval.cardinality++] = array[i];
+                    }
+                }
+
+                return retval;
+            }
+
+            retval = copy();
+
+            if(c.bits != null)
+            {
+                retval.cardinality = 0;
+
+                for(int i = 0; i < 1024; i++)
+                {
+                    retval.bits[i] &= ~c.bits[i];
+                    retval.cardinality = retval.cardinality + Long.bitCount(retval.bits[i]);
+                }
+            }
+            else
+            {
+                for(int i = 0; i < c.cardinality; i++)
+                {
+                    long mask = 1L << c.array[i];
+
+                    if((retval.bits[c.array[i] >>> 6] & mask) != 0)
+                    {
+                        retval.bits[c.array[i] >>> 6] &= ~mask;
+                        retval.cardinality--;
+                    }
+                }
+            }
+
+            retval.normalize();
+
+            return retval;
+        }
+
+        public Container copy()
+        {
+            Container retval = new Container();
+
+            retval.array = (array == null) ? null : (char[])array.clone();
+            retval.bits = (bits == null) ? null : (long[])bits.clone();
+            retval.cardinality = cardinality;
+
+            return retval;
+        }
+
+        public int toArray(int high, int[] dst, int position)
+        {
+            if(bits == null)
+            {
+                for(int i = 0; i < cardinality; i++)
+                {
+                    dst[position++] = high | array[i];
+                }
+
+                return position;
+            }
+
+            for(int i = 0; i < 1024; i++)
+            {
+                long word = bits[i];
+
+                while(word != 0)
+                {
+                    dst[position++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word = word & (word - 1);
+                }
+            }
+
+            return position;
+        }
+
+        private int search(char value)
+        {
+            return Arrays.binarySearch(array, 0, cardinality, value);
+        }
+
+        // converts a bitmap container that holds few values to an array container
+        private void normalize()
+        {
+            if(bits != null && cardinality <= ARRAY_LIMIT)
+            {
+                toArray();
+            }
+        }
+
+        private void toBits()
+        {
+            bits = new long[1024];
+
+            for(int i = 0; i < cardinality; i++)
+            {
+                bits[array[i] >>> 6] |= 1L << array[i];
+            }
+
+            array = null;
+        }
+
+        private void toArray()
+        {
+            array = new char[Math.max(cardinality, 4)];
+
+            int n = 0;
+
+            for(int i = 0; i < 1024; i++)
+            {
+                long word = bits[i];
+
+                while(word != 0)
+                {
+                    array[n++] = (char)((i << 6) | Long.numberOfTrailingZeros(word));
+                    word = word & (word - 1);
+                }
+            }
+
+            bits = null;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package suncertify.db.index;
+
+import java.util.SortedMap;
+import java.util.Collections;
+import java.util.TreeMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Arrays;
+import java.io.IOException;
+
+/**
+ * An implementation of {@link FieldIndex FieldIndex} that is backed by a sorted map of field values, with trailing white space removed,
+ * to the record numbers that have that value. Since the values are sorted, every value that starts with a criterion is
+ * found in a single contiguous range of the map, which is located in logarithmic time.
+ * <br>
+ * A criterion that ends in white space also matches a field value that is equal to the criterion with its trailing white space removed,
+ * since the stored field value is padded with white space. A criterion that is longer than the field matches no value.
+ * The underlying <code>java.util.TreeMap</code> is synchronized using <code>java.util.Collections</code>.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class SortedFieldIndexImpl implements FieldIndex
+{
+    // the largest number of distinct values that are examined to estimate the number of records that match a criterion
+    private static final int ESTIMATE_VALUES = 1024;
+
+    private int length;
+    private SortedMap values;
+    private int size;
+
+    /**
+     * Constructs an empty <tt>SortedFieldIndexImpl</tt> for a field of the given length.
+     *
+     * @param length The length of the field in the data file.
+     */
+    public SortedFieldIndexImpl(int length)
+    {
+        this.length = length;
+        this.values = Collections.synchronizedSortedMap(new TreeMap());
+    }
+
+    /**
+     * Adds the given field value of the given record number to the index.
+     *
+     * @param value The field value of the record.
+     * @param recNo The number of the record.
+     */
+    public void add(String value, int recNo)
+    {
+        String key = normalize(value);
+
+        synchronized(values)
+        {
+            RecordNumbers recNos = (RecordNumbers)values.get(key);
+
+            if(recNos == null)
+            {
+                recNos = new RecordNumbers();
+                values.put(key, recNos);
+            }
+
+            if(recNos.add(recNo))
+            {
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Removes the given field value of the given record number from the index.
+     *
+     * @param value The field value of the record, as it was added to the index.
+     * @param recNo The number of the record.
+     * @return <code>true</code> if the field value of the record was removed, <code>false</code> if it was not in the index.
+     */
+    public boolean remove(String value, int recNo)
+    {
+        String key = normalize(value);
+
+        synchronized(values)
+        {
+            RecordNumbers recNos = (RecordNumbers)values.get(key);
+
+            if(recNos == null || !recNos.remove(recNo))
+            {
+                return false;
+            }
+
+            if(recNos.size() == 0)
+            {
+                values.remove(key);
+            }
+
+            size--;
+
+            return true;
+        }
+    }
+
+    /**
+     * Returns the numbers of the records whose field value starts with the given criterion.
+     * The values that start with the criterion are found by a range lookup of the sorted values.
+     *
+     * @param criterion The prefix criterion to match field values with.
+     * @return The numbers of the records whose field value starts with the given criterion.
+     */
+    public RecordBitmap find(String criterion)
+    {
+        RecordBitmap retval = new RecordBitmap();
+
+        if(criterion.length() > length)
+        {
+            return retval;
+        }
+
+        String trimmed = trimTrailing(criterion);
+
+        synchronized(values)
+        {
+            // a criterion with trailing white space also matches the padding of the value that is equal to it when trimmed
+            if(trimmed.length() != criterion.length())
+            {
+                RecordNumbers recNos = (RecordNumbers)values.get(trimmed);
+
+                if(recNos != null)
+                {
+                    recNos.addTo(retval);
+                }
+            }
+
+            Iterator it = values.tailMap(criterion).entrySet().iterator();
+
+            while(it.hasNext())
+            {
+                Map.Entry e = (Map.Entry)it.next();
+
+                if(!((String)e.getKey()).startsWith(criterion))
+                {
+                    break;
+                }
+
+                ((RecordNumbers)e.getValue()).addTo(retval);
+            }
+
+            return retval;
+        }
+    }
+
+    /**
+     * Returns an estimate of the number of records whose field value starts with the given criterion.
+     * The records of at most 1024 distinct values that start with the criterion are counted, so the estimate is exact
+     * for a criterion that matches at most that many distinct values. A criterion that matches more distinct values is
+     * estimated to match every record in the index, since it is unlikely to be selective.
+     *
+     * @param criterion The prefix criterion to match field values with.
+     * @return An estimate of the number of records whose field value starts with the given criterion.
+     */
+    public int estimate(String criterion)
+    {
+        if(criterion.length() > length)
+        {
+            return 0;
+        }
+
+        String trimmed = trimTrailing(criterion);
+
+        synchronized(values)
+        {
+            if(criterion.length() == 0)
+            {
+                return size;
+            }
+
+            int total = 0;
+
+            if(trimmed.length() != criterion.length())
+            {
+                RecordNumbers recNos = (RecordNumbers)values.get(trimmed);
+
+                if(recNos != null)
+                {
+                    total = total + recNos.size();
+                }
+            }
+
+            Iterator it = values.tailMap(criterion).entrySet().iterator();
+
+            for(int n = 0; it.hasNext(); n++)
+            {
+                Map.Entry e = (Map.Entry)it.next();
+
+                if(!((String)e.getKey()).startsWith(criterion))
+                {
+                    break;
+                }
+
+                if(n == ESTIMATE_VALUES)
+                {
+                    return size;
+                }
+
+                total = total + ((RecordNumbers)e.getValue()).size();
+            }
+
+            return total;
+        }
+    }
+
+    /**
+     * Returns the number of distinct field values in the index.
+     *
+     * @return The number of distinct field values in the index.
+     */
+    public int getDistinctValues()
+    {
+        return values.size();
+    }
+
+    /**
+     * Removes every field value from the index.
+     */
+    public void clear()
+    {
+        synchronized(values)
+        {
+            values.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the number of records in the index.
+     *
+     * @return The number of records in the index.
+     */
+    public int size()
+    {
+        synchronized(values)
+        {
+            return size;
+        }
+    }
+
+    /**
+     * Returns <code>false</code>, since an index that is held in memory is empty when it is created.
+     *
+     * @return <code>false</code>.
+     */
+    public boolean isCurrent()
+    {
+        return false;
+    }
+
+    /**
+     * Does nothing, since an index that is held in memory holds no resources other than memory.
+     *
+     * @throws IOException Never.
+     */
+    public void close() throws IOException
+    {
+
+    }
+
+    // truncates the given value to the length of the field, and removes trailing white space
+    private String normalize(String value)
+    {
+        if(value == null)
+        {
+            return "";
+        }
+
+        if(value.length() > length)
+        {
+            value = value.substring(0, length);
+        }
+
+        return trimTrailing(value);
+    }
+
+    // removes trailing white space from the given value
+    private String trimTrailing(String value)
+    {
+        int end = value.length();
+
+        while(end > 0 && value.charAt(end - 1) <= ' ')
+        {
+            end--;
+        }
+
+        return value.substring(0, end);
+    }
+
+    // the record numbers that have a single field value, in ascending order
+    private static class RecordNumbers
+    {
+        private int[] recNos = new int[1];
+        private int size;
+
+        public boolean add(int recNo)
+        {
+            int i = Arrays.binarySearch(recNos, 0, size, recNo);
+
+            if(i >= 0)
+            {
+                return false;
+            }
+
+            i = -(i + 1);
+
+            if(size == recNos.length)
+            {
+                int[] grown = new int[size * 2];
+                System.arraycopy(recNos, 0, grown, 0, size);
+                recNos = grown;
+            }
+
+            System.arraycopy(recNos, i, recNos, i + 1, size - i);
+            recNos[i] = recNo;
+            size++;
+
+            return true;
+        }
+
+        public boolean remove(int recNo)
+        {
+            int i = Arrays.binarySearch(recNos, 0, size, recNo);
+
+            if(i < 0)
+            {
+                return false;
+            }
+
+            System.arraycopy(recNos, i + 1, recNos, i, size - i - 1);
+            size--;
+
+            return true;
+        }
+
+        public int size()
+        {
+            return size;
+        }
+
+        public void addTo(RecordBitmap bitmap)
+        {
+            for(int i = 0; i < size; i++)
+            {
+                bitmap.add(recNos[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package suncertify.db.server;
+
+import suncertify.db.DataChangeListener;
+
+/**
+ * Provides an interface for numbering the changes of data records, so that a client may ask for the records that changed after
+ * a change that it has seen. The log is a {@link DataChangeListener DataChangeListener}, which gives each change that it is told of
+ * the next number of a monotonically increasing change sequence, and keeps the sequence of the last change of each record.
+ *
+ * @see ChangeLogImpl
+ * @see suncertify.db.Data#changesSince(long, String[], boolean)
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface ChangeLog extends DataChangeListener
+{
+    /**
+     * Returns the sequence of the last change, or the first sequence of the log if no change has been made.
+     *
+     * @return The sequence of the last change.
+     */
+    public long getSequence();
+
+    /**
+     * Returns whether or not the given sequence was given out by this log, so that the changes after it are known.
+     *
+     * @param sequence The sequence to check.
+     * @return <code>true</code> if the changes after the given sequence are known, <code>false</code> otherwise.
+     */
+    public boolean isKnown(long sequence);
+
+    /**
+     * Returns the sequence of the last change of the given record, or the first sequence of the log if the record has not changed.
+     *
+     * @param recNo The number of the record.
+     * @return The sequence of the last change of the given record.
+     */
+    public long getRecordSequence(int recNo);
+
+    /**
+     * Returns the numbers of the records whose last change is after the given sequence.
+     *
+     * @param sequence The sequence after which changes are returned.
+     * @return The numbers of the records that changed after the given sequence, in ascending order.
+     */
+    public int[] changedSince(long sequence);
+}
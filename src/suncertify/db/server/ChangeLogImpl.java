@@ -0,0 +1,135 @@
+package suncertify.db.server;
+
+import suncertify.db.DataChange;
+
+/**
+ * A change log that is held in memory, with the sequence of the last change of each record held in an array that is indexed by
+ * the record number. Records that have not changed since the log was made have the first sequence of the log.
+ * <br>
+ * The log is not kept when the server stops, so that the first sequence of each log must be greater than every sequence that was
+ * given out by an earlier log. The first sequence is therefore taken from the time at which the log is made, in microseconds, which
+ * exceeds the sequences of an earlier log unless it made more than one change per microsecond on average. A client that holds
+ * a sequence of an earlier log is then told that its sequence is {@link #isKnown(long) not known}.
+ * This class is internally <b>thread-safe</b>.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class ChangeLogImpl implements ChangeLog
+{
+    // the initial number of records whose sequence is held, which grows to hold the largest record number that changes
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long first;
+    private long sequence;
+    private long[] recordSequences;
+
+    /**
+     * Constructs a <tt>ChangeLogImpl</tt> whose first sequence is taken from the current time.
+     */
+    public ChangeLogImpl()
+    {
+        this(System.currentTimeMillis() * 1000L);
+    }
+
+    /**
+     * Constructs a <tt>ChangeLogImpl</tt> with the given first sequence.
+     *
+     * @param first The first sequence of the log, which is the sequence of every record that has not changed.
+     */
+    public ChangeLogImpl(long first)
+    {
+        this.first = first;
+        this.sequence = first;
+        this.recordSequences = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the sequence of the last change, or the first sequence of the log if no change has been made.
+     *
+     * @return The sequence of the last change.
+     */
+    public synchronized long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Returns whether or not the given sequence is between the first sequence of the log and the sequence of the last change.
+     *
+     * @param sequence The sequence to check.
+     * @return <code>true</code> if the changes after the given sequence are known, <code>false</code> otherwise.
+     */
+    public synchronized boolean isKnown(long sequence)
+    {
+        return sequence >= first && sequence <= this.sequence;
+    }
+
+    /**
+     * Returns the sequence of the last change of the given record, or the first sequence of the log if the record has not changed.
+     *
+     * @param recNo The number of the record.
+     * @return The sequence of the last change of the given record.
+     */
+    public synchronized long getRecordSequence(int recNo)
+    {
+        if(recNo < 0 || recNo >= recordSequences.length || recordSequences[recNo] == 0L)
+        {
+            return first;
+        }
+
+        return recordSequences[recNo];
+    }
+
+    /**
+     * Returns the numbers of the records whose last change is after the given sequence, by examining the sequence of every
+     * record that has changed.
+     *
+     * @param sequence The sequence after which changes are returned.
+     * @return The numbers of the records that changed after the given sequence, in ascending order.
+     */
+    public synchronized int[] changedSince(long sequence)
+    {
+        int count = 0;
+
+        for(int i = 0; i < recordSequences.length; i++)
+        {
+            if(recordSequences[i] > sequence)
+            {
+                count++;
+            }
+        }
+
+        int[] retval = new int[count];
+        int next = 0;
+
+        for(int i = 0; i < recordSequences.length && next < count; i++)
+        {
+            if(recordSequences[i] > sequence)
+            {
+                retval[next++] = i;
+            }
+        }
+
+        return retval;
+    }
+
+    /**
+     * Gives the changed record the next sequence.
+     *
+     * @param change The change of the data record.
+     */
+    public synchronized void dataChanged(DataChange change)
+    {
+        int recNo = change.getRecordNumber();
+
+        if(recNo >= recordSequences.length)
+        {
+            long[] grown = new long[Math.max(recNo + 1, recordSequences.length * 2)];
+            System.arraycopy(recordSequences, 0, grown, 0, recordSequences.length);
+            recordSequences = grown;
+        }
+
+        recordSequences[recNo] = ++sequence;
+    }
+}
@@ -0,0 +1,228 @@
+package suncertify.db.server;
+
+import suncertify.db.DataRecord;
+import suncertify.db.datafile.LazyDataRecordImpl;
+
+/**
+ * An implementation of {@link RecordMatcher RecordMatcher} that is specialized to a single criteria array when it is constructed.
+ * Records are matched according to the same specification as {@link RecordMatcherImpl RecordMatcherImpl}, however:
+ * <li>only the fields that have a non-null criterion are examined; if there are none, every record of the same length matches
+ * without examining any field.</li>
+ * <li>fields are examined in order of the expected selectivity of their criterion, with the longest criterion first,
+ * so that most records are rejected by the first field that is examined.</li>
+ * <li>a record that is a {@link LazyDataRecordImpl LazyDataRecordImpl}
+ * view over raw bytes is matched on the bytes of each field, without decoding it, for each criterion that is US-ASCII.</li>
+ * <br>
+ * A matcher may instead be constructed to match exactly, in which case a field matches a criterion only if the field value, with its
+ * trailing white space padding removed, is equal to the criterion, and an empty criterion is ignored. This is the specification of the
+ * client's {@link suncertify.db.client.ExactMatcherImpl ExactMatcherImpl}, except that leading white space of a field value is significant,
+ * so that every exact match of a criterion also starts with the criterion and may be found with the field indexes.
+ * <br>
+ * The criteria argument of {@link #matches(DataRecord, String[]) matches} is ignored, since the criteria are fixed at construction.
+ * An instance of this class holds no mutable state and may be shared between threads.
+ *
+ * @see RecordMatcherFactory#createRecordMatcher(String[])
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class CompiledRecordMatcherImpl implements RecordMatcher
+{
+    private int length;
+    private boolean exact;
+    private int[] fields;
+    private String[] criteria;
+    private byte[][] encoded;
+
+    /**
+     * Constructs a <tt>CompiledRecordMatcherImpl</tt> that is specialized to the given criteria.
+     *
+     * @param criteria The criteria to match records with.
+     */
+    public CompiledRecordMatcherImpl(String[] criteria)
+    {
+        this(criteria, false);
+    }
+
+    /**
+     * Constructs a <tt>CompiledRecordMatcherImpl</tt> that is specialized to the given criteria, and that matches either
+     * field values that start with each criterion, or field values that are exactly equal to each criterion.
+     *
+     * @param criteria The criteria to match records with.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     */
+    public CompiledRecordMatcherImpl(String[] criteria, boolean exact)
+    {
+        this.length = criteria.length;
+        this.exact = exact;
+
+        int total = 0;
+
+        for(int i = 0; i < criteria.length; i++)
+        {
+            if(isConstrained(criteria[i]))
+            {
+                total++;
+            }
+        }
+
+        this.fields = new int[total];
+        this.criteria = new String[total];
+        this.encoded = new byte[total][];
+
+        int n = 0;
+
+        for(int i = 0; i < criteria.length; i++)
+        {
+            if(isConstrained(criteria[i]))
+            {
+                // insertion sort by descending criterion length, keeping field order for equal lengths
+                int j = n;
+
+                while(j > 0 && this.criteria[j - 1].length() < criteria[i].length())
+                {
+                    this.fields[j] = this.fields[j - 1];
+                    this.criteria[j] = this.criteria[j - 1];
+                    j--;
+                }
+
+                this.fields[j] = i;
+                this.criteria[j] = criteria[i];
+                n++;
+            }
+        }
+
+        for(int i = 0; i < total; i++)
+        {
+            this.encoded[i] = encode(this.criteria[i]);
+        }
+    }
+
+    /**
+     * Returns the indicies of the fields that are examined by this matcher, in the order that they are examined.
+     *
+     * @return The indicies of the fields that are examined by this matcher, in the order that they are examined.
+     */
+    public int[] getFields()
+    {
+        return (int[])fields.clone();
+    }
+
+    /**
+     * Returns <code>true</code> if every field of the data record starts with, or if this matcher matches exactly is equal to,
+     * the corresponding non-null criterion that this matcher was constructed with, <code>false</code> otherwise. If the criteria length and the records'
+     * underlying data do not have the same length, <code>false</code> is returned.
+     *
+     * @param rec The record to attempt to match.
+     * @param criteria Ignored; the criteria that this matcher was constructed with are used.
+     * @return <code>true</code> if every field of the data record starts with the corresponding non-null criterion,
+     * <code>false</code> otherwise.
+     */
+    public boolean matches(DataRecord rec, String[] criteria)
+    {
+        if(rec.getRowLength() != length)
+        {
+            return false;
+        }
+
+        LazyDataRecordImpl view = (rec instanceof LazyDataRecordImpl) ? (LazyDataRecordImpl)rec : null;
+
+        for(int i = 0; i < fields.length; i++)
+        {
+            if(view != null && encoded[i] != null)
+            {
+                if(!matches(view, fields[i], encoded[i]))
+                {
+                    return false;
+                }
+            }
+            else
+            {
+                String value = rec.getValueAt(fields[i]);
+
+                if(value == null || !(exact ? trimTrailing(value).equals(this.criteria[i]) : value.startsWith(this.criteria[i])))
+                {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // compares the given encoded criterion with the raw bytes of the given field
+    private boolean matches(LazyDataRecordImpl view, int field, byte[] criterion)
+    {
+        if(criterion.length > view.getFieldLength(field))
+        {
+            return false;
+        }
+
+        byte[] buffer = view.getBuffer();
+        int offset = view.getFieldOffset(field);
+        int end = offset + view.getFieldLength(field);
+
+        if(exact)
+        {
+            // compare the criterion with the field value without its trailing white space padding
+            while(end > offset && (buffer[end - 1] & 0xFF) <= ' ')
+            {
+                end--;
+            }
+
+            if(end - offset != criterion.length)
+            {
+                return false;
+            }
+        }
+
+        for(int j = 0; j < criterion.length; j++)
+        {
+            if(buffer[offset + j] != criterion[j])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // removes trailing white space from the given value
+    private String trimTrailing(String value)
+    {
+        int end = value.length();
+
+        while(end > 0 && value.charAt(end - 1) <= ' ')
+        {
+            end--;
+        }
+
+        return value.substring(0, end);
+    }
+
+    // returns true if the given criterion constrains the field; an empty criterion does not constrain an exact match
+    private boolean isConstrained(String criterion)
+    {
+        return criterion != null && !(exact && criterion.length() == 0);
+    }
+
+    // encodes the given criterion to US-ASCII, or returns null if it is not US-ASCII
+    private byte[] encode(String criterion)
+    {
+        byte[] encoded = new byte[criterion.length()];
+
+        for(int i = 0; i < encoded.length; i++)
+        {
+            char c = criterion.charAt(i);
+
+            if(c > 0x7F)
+            {
+                return null;
+            }
+
+            encoded[i] = (byte)c;
+        }
+
+        return encoded;
+    }
+}
@@ -0,0 +1,104 @@
+package suncertify.db.server;
+
+import java.rmi.server.RMIClientSocketFactory;
+import java.net.Socket;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * A factory of the client sockets of an exported remote object, whose streams are compressed.
+ * The factory is sent to clients with the stub of the remote object, so a client needs no configuration to use it.
+ *
+ * @see CompressionServerSocketFactory
+ * @see CompressionSocket
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class CompressionClientSocketFactory implements RMIClientSocketFactory, Serializable, CompressionConstants
+{
+    private int level;
+    private int threshold;
+
+    /**
+     * Constructs a <tt>CompressionClientSocketFactory</tt> with the default compression level and threshold.
+     */
+    public CompressionClientSocketFactory()
+    {
+        this(DEFAULT_COMPRESSION_LEVEL, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * Constructs a <tt>CompressionClientSocketFactory</tt> with the given compression level and threshold.
+     *
+     * @param level The compression level, from 1 (one), for the fastest, to 9 (nine), for the smallest.
+     * @param threshold The smallest number of bytes, written between flushes, that are compressed.
+     */
+    public CompressionClientSocketFactory(int level, int threshold)
+    {
+        this.level = level;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a {@link CompressionSocket CompressionSocket} that is connected to the given port of the given host.
+     *
+     * @param host The host to connect to.
+     * @param port The port to connect to.
+     * @return A {@link CompressionSocket CompressionSocket} that is connected to the given port of the given host.
+     * @throws IOException If an I/O error occurs while connecting the socket.
+     */
+    public Socket createSocket(String host, int port) throws IOException
+    {
+        return new CompressionSocket(host, port, level, threshold);
+    }
+
+    /**
+     * Performs a deep equality comparison on the given parameter against this instance of <tt>CompressionClientSocketFactory</tt>,
+     * so that connections may be shared by remote objects that are exported with equal factories.
+     * Returns <code>true</code> if the argument is not <code>null</code>, is an instance of <tt>CompressionClientSocketFactory</tt>,
+     * and the compression level and threshold are the same.
+     *
+     * @param o The object to perform a "deep equality" comparison with this <tt>CompressionClientSocketFactory</tt>.
+     * @return <code>true</code> if this <tt>CompressionClientSocketFactory</tt> is determined to be equal to the given object,
+     * <code>false</code> otherwise.
+     */
+    public boolean equals(Object o)
+    {
+        if(this == o)
+        {
+            return true;
+        }
+
+        if(o == null)
+        {
+            return false;
+        }
+
+        if(this.getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        CompressionClientSocketFactory f = (CompressionClientSocketFactory)o;
+
+        return(this.level == f.level && this.threshold == f.threshold);
+    }
+
+    /**
+     * Returns a hash code for the benefit of of data structures that perform a "hash" on their elements
+     * (such as java.util.HashMap).
+     *
+     * @return A hash code for the benefit of of data structures that perform a "hash" on their elements
+     * (such as java.util.HashMap).
+     */
+    public int hashCode()
+    {
+        final int ODD_PRIME = 461;
+        int result = 73;
+
+        result = result * ODD_PRIME + level;
+        result = result * ODD_PRIME + threshold;
+
+        return result;
+    }
+}
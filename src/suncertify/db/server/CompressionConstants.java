@@ -0,0 +1,35 @@
+package suncertify.db.server;
+
+import java.util.zip.Deflater;
+
+/**
+ * Defines a set of constants for the compression of the connections between clients and the data server.
+ *
+ * @see CompressionClientSocketFactory
+ * @see CompressionServerSocketFactory
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface CompressionConstants
+{
+    /**
+     * The compression level that disables compression, so that connections are not compressed at all.
+     */
+    public final static int COMPRESSION_NONE = Deflater.NO_COMPRESSION;
+
+    /**
+     * The default compression level, which favours speed over the size of the compressed data.
+     */
+    public final static int DEFAULT_COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+
+    /**
+     * The default number of bytes, written between flushes, below which the bytes are sent without compression,
+     * since compressing a small message costs more time than it saves.
+     */
+    public final static int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    /**
+     * The largest number of bytes that are compressed together as one frame.
+     */
+    public final static int COMPRESSION_FRAME_SIZE = 65536;
+}
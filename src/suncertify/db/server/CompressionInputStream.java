@@ -0,0 +1,257 @@
+package suncertify.db.server;
+
+import java.io.FilterInputStream;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.EOFException;
+import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
+
+/**
+ * An input stream that reads the frames that are written by a {@link CompressionOutputStream CompressionOutputStream}
+ * from the underlying stream, and decompresses each compressed frame with a <code>java.util.zip.Inflater</code>.
+ * The underlying stream is buffered, so that the header of a frame is not read from a socket a byte at a time.
+ *
+ * @see CompressionOutputStream
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class CompressionInputStream extends FilterInputStream implements CompressionConstants
+{
+    private Inflater inflater;
+    private byte[] frame;
+    private int position;
+    private int limit;
+    private byte[] compressed;
+    private byte[] header;
+
+    /**
+     * Constructs a <tt>CompressionInputStream</tt> that reads frames from the given stream.
+     *
+     * @param in The underlying stream to read frames from.
+     */
+    public CompressionInputStream(InputStream in)
+    {
+        super(new BufferedInputStream(in, COMPRESSION_FRAME_SIZE));
+
+        this.inflater = new Inflater();
+        this.header = new byte[8];
+        this.frame = new byte[COMPRESSION_FRAME_SIZE];
+        this.compressed = new byte[COMPRESSION_FRAME_SIZE];
+    }
+
+    /**
+     * Reads the next byte, reading the next frame first if every byte of the current frame has been read.
+     *
+     * @return The next byte, or -1 at the end of the underlying stream.
+     * @throws IOException If an I/O error occurs while reading a frame, or if a frame is not valid.
+     */
+    public int read() throws IOException
+    {
+        if(position == limit && !readFrame())
+        {
+            return -1;
+        }
+
+        int b = frame[position] & 0xFF;
+        position++;
+
+        return b;
+    }
+
+    /**
+     * Reads bytes of the current frame, reading the next frame first if every byte of the current frame has been read.
+     *
+     * @param b The buffer to read bytes into.
+     * @param off The offset of the buffer at which to read the first byte.
+     * @param len The largest number of bytes to read.
+     * @return The number of bytes that were read, or -1 at the end of the underlying stream.
+     * @throws IOException If an I/O error occurs while reading a frame, or if a frame is not valid.
+     */
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if(len == 0)
+        {
+            return 0;
+        }
+
+        if(position == limit && !readFrame())
+        {
+            return -1;
+        }
+
+        int n = Math.min(len, limit - position);
+
+        System.arraycopy(frame, position, b, off, n);
+        position = position + n;
+
+        return n;
+    }
+
+    /**
+     * Skips bytes by reading them.
+     *
+     * @param n The largest number of bytes to skip.
+     * @return The number of bytes that were skipped.
+     * @throws IOException If an I/O error occurs while reading a frame, or if a frame is not valid.
+     */
+    public long skip(long n) throws IOException
+    {
+        if(n <= 0 || (position == limit && !readFrame()))
+        {
+            return 0;
+        }
+
+        int skipped = (int)Math.min(n, limit - position);
+        position = position + skipped;
+
+        return skipped;
+    }
+
+    /**
+     * Returns the number of bytes of the current frame that have not been read.
+     *
+     * @return The number of bytes of the current frame that have not been read.
+     */
+    public int available()
+    {
+        return limit - position;
+    }
+
+    /**
+     * Returns <code>false</code>, since marks are not supported.
+     *
+     * @return <code>false</code>.
+     */
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Releases the decompressor, and closes the underlying stream.
+     *
+     * @throws IOException If an I/O error occurs while closing the underlying stream.
+     */
+    public void close() throws IOException
+    {
+        try
+        {
+            inflater.end();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    // reads the next frame that is not empty, or returns false at the end of the underlying stream
+    private boolean readFrame() throws IOException
+    {
+        int flag = in.read();
+
+        if(flag == -1)
+        {
+            return false;
+        }
+
+        // the header of an uncompressed frame holds its length, and that of a compressed frame also holds its compressed length
+        readFully(header, flag == 0 ? 4 : 8);
+
+        int length = getInt(header, 0);
+
+        if(length <= 0 || length > frame.length)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Invalid compressed frame length: [");
+            message.append(length);
+            message.append("]");
+
+            throw new IOException(message.toString());
+        }
+
+        if(flag == 0)
+        {
+            readFully(frame, length);
+        }
+        else
+        {
+            int compressedLength = getInt(header, 4);
+
+            if(compressedLength <= 0 || compressedLength > compressed.length)
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Invalid compressed frame length: [");
+                message.append(compressedLength);
+                message.append("]");
+
+                throw new IOException(message.toString());
+            }
+
+            readFully(compressed, compressedLength);
+
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+
+            try
+            {
+                int n = 0;
+
+                while(n < length && !inflater.finished())
+                {
+                    int inflated = inflater.inflate(frame, n, length - n);
+
+                    if(inflated == 0 && inflater.needsInput())
+                    {
+                        throw new IOException("Truncated compressed frame");
+                    }
+
+                    n = n + inflated;
+                }
+
+                if(n != length)
+                {
+                    throw new IOException("Invalid compressed frame");
+                }
+            }
+            catch(DataFormatException dfe)
+            {
+                StringBuffer message = new StringBuffer();
+                message.append("Invalid compressed frame: ");
+                message.append(dfe);
+
+                throw new IOException(message.toString());
+            }
+        }
+
+        position = 0;
+        limit = length;
+
+        return true;
+    }
+
+    // reads the given number of bytes from the underlying stream into the given buffer
+    private void readFully(byte[] b, int length) throws IOException
+    {
+        int n = 0;
+
+        while(n < length)
+        {
+            int read = in.read(b, n, length - n);
+
+            if(read == -1)
+            {
+                throw new EOFException("Unexpected end of compressed stream");
+            }
+
+            n = n + read;
+        }
+    }
+
+    // returns the value in the given buffer at the given offset, high byte first
+    private int getInt(byte[] b, int off)
+    {
+        return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+    }
+}
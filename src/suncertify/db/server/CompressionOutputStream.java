@@ -0,0 +1,175 @@
+package suncertify.db.server;
+
+import java.io.FilterOutputStream;
+import java.io.OutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream that buffers the bytes that are written to it, and writes them to the underlying stream as a frame
+ * each time it is flushed, or each time the buffer fills. A frame with at least the threshold number of bytes is compressed
+ * with a <code>java.util.zip.Deflater</code>, unless compression would not make it smaller; a smaller frame is written as it is.
+ * Each frame is compressed separately, so that it may be read as soon as it arrives.
+ * <br>
+ * Each frame begins with a flag byte, which is 1 (one) for a compressed frame and 0 (zero) otherwise, and the number of bytes
+ * in the frame. A compressed frame follows this with the number of compressed bytes. The bytes of the frame follow.
+ * The buffers hold room for the header in front of the bytes of the frame, so that each frame is written to the underlying stream with
+ * a single call, and is not split into a segment for each byte of its header.
+ *
+ * @see CompressionInputStream
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class CompressionOutputStream extends FilterOutputStream implements CompressionConstants
+{
+    // the size of the header of a compressed frame, which is the largest header
+    private static final int HEADER_SIZE = 9;
+
+    private Deflater deflater;
+    private int threshold;
+    private byte[] buffer;
+    private int count;
+    private byte[] compressed;
+
+    /**
+     * Constructs a <tt>CompressionOutputStream</tt> that writes frames to the given stream.
+     *
+     * @param out The underlying stream to write frames to.
+     * @param level The compression level, from 1 (one), for the fastest, to 9 (nine), for the smallest.
+     * @param threshold The smallest number of bytes in a frame that is compressed.
+     */
+    public CompressionOutputStream(OutputStream out, int level, int threshold)
+    {
+        super(out);
+
+        this.deflater = new Deflater(level);
+        this.threshold = threshold;
+        this.buffer = new byte[HEADER_SIZE + COMPRESSION_FRAME_SIZE];
+        this.compressed = new byte[HEADER_SIZE + COMPRESSION_FRAME_SIZE];
+        this.count = HEADER_SIZE;
+    }
+
+    /**
+     * Writes the given byte to the buffer, writing a frame first if the buffer is full.
+     *
+     * @param b The byte to write.
+     * @throws IOException If an I/O error occurs while writing a frame.
+     */
+    public void write(int b) throws IOException
+    {
+        if(count == buffer.length)
+        {
+            writeFrame();
+        }
+
+        buffer[count] = (byte)b;
+        count++;
+    }
+
+    /**
+     * Writes the given bytes to the buffer, writing a frame each time the buffer fills.
+     *
+     * @param b The bytes to write.
+     * @param off The offset of the first byte to write.
+     * @param len The number of bytes to write.
+     * @throws IOException If an I/O error occurs while writing a frame.
+     */
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        while(len > 0)
+        {
+            if(count == buffer.length)
+            {
+                writeFrame();
+            }
+
+            int n = Math.min(len, buffer.length - count);
+
+            System.arraycopy(b, off, buffer, count, n);
+            count = count + n;
+            off = off + n;
+            len = len - n;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes as a frame, and flushes the underlying stream.
+     *
+     * @throws IOException If an I/O error occurs while writing the frame.
+     */
+    public void flush() throws IOException
+    {
+        if(count > HEADER_SIZE)
+        {
+            writeFrame();
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered bytes as a frame, releases the compressor, and closes the underlying stream.
+     *
+     * @throws IOException If an I/O error occurs while writing the frame.
+     */
+    public void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    // writes the buffered bytes as a frame, compressing them if there are enough of them and compression makes them smaller
+    private void writeFrame() throws IOException
+    {
+        int size = count - HEADER_SIZE;
+        int length = 0;
+
+        if(size >= threshold)
+        {
+            deflater.reset();
+            deflater.setInput(buffer, HEADER_SIZE, size);
+            deflater.finish();
+
+            // compression is abandoned once it does not make the frame smaller
+            while(!deflater.finished() && length < size)
+            {
+                length = length + deflater.deflate(compressed, HEADER_SIZE + length, COMPRESSION_FRAME_SIZE - length);
+            }
+        }
+
+        if(length > 0 && length < size && deflater.finished())
+        {
+            compressed[0] = 1;
+            putInt(compressed, 1, size);
+            putInt(compressed, 5, length);
+
+            out.write(compressed, 0, HEADER_SIZE + length);
+        }
+        else
+        {
+            // the header of an uncompressed frame is shorter, so it ends where the bytes of the frame begin
+            buffer[HEADER_SIZE - 5] = 0;
+            putInt(buffer, HEADER_SIZE - 4, size);
+
+            out.write(buffer, HEADER_SIZE - 5, 5 + size);
+        }
+
+        count = HEADER_SIZE;
+    }
+
+    // puts the given value in the given buffer at the given offset, high byte first
+    private void putInt(byte[] b, int off, int v)
+    {
+        b[off] = (byte)(v >>> 24);
+        b[off + 1] = (byte)(v >>> 16);
+        b[off + 2] = (byte)(v >>> 8);
+        b[off + 3] = (byte)v;
+    }
+}
@@ -0,0 +1,55 @@
+package suncertify.db.server;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.io.IOException;
+
+/**
+ * A server socket that accepts connections as {@link CompressionSocket CompressionSocket} instances.
+ *
+ * @see CompressionServerSocketFactory
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class CompressionServerSocket extends ServerSocket
+{
+    private int level;
+    private int threshold;
+
+    /**
+     * Constructs a <tt>CompressionServerSocket</tt> that is bound to the given port.
+     *
+     * @param port The port to bind to, or 0 (zero) for any free port.
+     * @param level The compression level of the bytes that are written to accepted sockets.
+     * @param threshold The smallest number of bytes, written between flushes, that are compressed.
+     * @throws IOException If an I/O error occurs while binding the socket.
+     */
+    public CompressionServerSocket(int port, int level, int threshold) throws IOException
+    {
+        super(port);
+
+        this.level = level;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Waits for a connection, and returns it as a {@link CompressionSocket CompressionSocket}.
+     *
+     * @return The accepted connection.
+     * @throws IOException If an I/O error occurs while waiting for a connection.
+     */
+    public Socket accept() throws IOException
+    {
+        if(isClosed())
+        {
+            throw new SocketException("Socket is closed");
+        }
+
+        Socket s = new CompressionSocket(level, threshold);
+
+        implAccept(s);
+
+        return s;
+    }
+}
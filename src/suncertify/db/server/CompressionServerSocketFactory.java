@@ -0,0 +1,101 @@
+package suncertify.db.server;
+
+import java.rmi.server.RMIServerSocketFactory;
+import java.net.ServerSocket;
+import java.io.IOException;
+
+/**
+ * A factory of the server sockets of an exported remote object, which accept connections whose streams are compressed.
+ *
+ * @see CompressionClientSocketFactory
+ * @see CompressionServerSocket
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class CompressionServerSocketFactory implements RMIServerSocketFactory, CompressionConstants
+{
+    private int level;
+    private int threshold;
+
+    /**
+     * Constructs a <tt>CompressionServerSocketFactory</tt> with the default compression level and threshold.
+     */
+    public CompressionServerSocketFactory()
+    {
+        this(DEFAULT_COMPRESSION_LEVEL, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * Constructs a <tt>CompressionServerSocketFactory</tt> with the given compression level and threshold.
+     *
+     * @param level The compression level, from 1 (one), for the fastest, to 9 (nine), for the smallest.
+     * @param threshold The smallest number of bytes, written between flushes, that are compressed.
+     */
+    public CompressionServerSocketFactory(int level, int threshold)
+    {
+        this.level = level;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a {@link CompressionServerSocket CompressionServerSocket} that is bound to the given port.
+     *
+     * @param port The port to bind to, or 0 (zero) for any free port.
+     * @return A {@link CompressionServerSocket CompressionServerSocket} that is bound to the given port.
+     * @throws IOException If an I/O error occurs while binding the socket.
+     */
+    public ServerSocket createServerSocket(int port) throws IOException
+    {
+        return new CompressionServerSocket(port, level, threshold);
+    }
+
+    /**
+     * Performs a deep equality comparison on the given parameter against this instance of <tt>CompressionServerSocketFactory</tt>,
+     * so that a server socket may be shared by remote objects that are exported with equal factories.
+     * Returns <code>true</code> if the argument is not <code>null</code>, is an instance of <tt>CompressionServerSocketFactory</tt>,
+     * and the compression level and threshold are the same.
+     *
+     * @param o The object to perform a "deep equality" comparison with this <tt>CompressionServerSocketFactory</tt>.
+     * @return <code>true</code> if this <tt>CompressionServerSocketFactory</tt> is determined to be equal to the given object,
+     * <code>false</code> otherwise.
+     */
+    public boolean equals(Object o)
+    {
+        if(this == o)
+        {
+            return true;
+        }
+
+        if(o == null)
+        {
+            return false;
+        }
+
+        if(this.getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        CompressionServerSocketFactory f = (CompressionServerSocketFactory)o;
+
+        return(this.level == f.level && this.threshold == f.threshold);
+    }
+
+    /**
+     * Returns a hash code for the benefit of of data structures that perform a "hash" on their elements
+     * (such as java.util.HashMap).
+     *
+     * @return A hash code for the benefit of of data structures that perform a "hash" on their elements
+     * (such as java.util.HashMap).
+     */
+    public int hashCode()
+    {
+        final int ODD_PRIME = 461;
+        int result = 73;
+
+        result = result * ODD_PRIME + level;
+        result = result * ODD_PRIME + threshold;
+
+        return result;
+    }
+}
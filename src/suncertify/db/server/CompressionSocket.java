@@ -0,0 +1,86 @@
+package suncertify.db.server;
+
+import java.net.Socket;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A socket whose streams are compressed, by writing through a {@link CompressionOutputStream CompressionOutputStream}
+ * and reading through a {@link CompressionInputStream CompressionInputStream}.
+ *
+ * @see CompressionClientSocketFactory
+ * @see CompressionServerSocket
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class CompressionSocket extends Socket
+{
+    private int level;
+    private int threshold;
+    private InputStream in;
+    private OutputStream out;
+
+    /**
+     * Constructs an unconnected <tt>CompressionSocket</tt>, to be connected when it is accepted by a {@link CompressionServerSocket CompressionServerSocket}.
+     *
+     * @param level The compression level of the bytes that are written to the socket.
+     * @param threshold The smallest number of bytes, written between flushes, that are compressed.
+     */
+    public CompressionSocket(int level, int threshold)
+    {
+        super();
+
+        this.level = level;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Constructs a <tt>CompressionSocket</tt> that is connected to the given port of the given host.
+     *
+     * @param host The host to connect to.
+     * @param port The port to connect to.
+     * @param level The compression level of the bytes that are written to the socket.
+     * @param threshold The smallest number of bytes, written between flushes, that are compressed.
+     * @throws IOException If an I/O error occurs while connecting the socket.
+     */
+    public CompressionSocket(String host, int port, int level, int threshold) throws IOException
+    {
+        super(host, port);
+
+        this.level = level;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns a stream that decompresses the bytes that are read from this socket.
+     *
+     * @return A stream that decompresses the bytes that are read from this socket.
+     * @throws IOException If an I/O error occurs while creating the stream.
+     */
+    public synchronized InputStream getInputStream() throws IOException
+    {
+        if(in == null)
+        {
+            in = new CompressionInputStream(super.getInputStream());
+        }
+
+        return in;
+    }
+
+    /**
+     * Returns a stream that compresses the bytes that are written to this socket.
+     *
+     * @return A stream that compresses the bytes that are written to this socket.
+     * @throws IOException If an I/O error occurs while creating the stream.
+     */
+    public synchronized OutputStream getOutputStream() throws IOException
+    {
+        if(out == null)
+        {
+            out = new CompressionOutputStream(super.getOutputStream(), level, threshold);
+        }
+
+        return out;
+    }
+}
@@ -0,0 +1,471 @@
+package suncertify.db.server;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A manager of data file record locks that holds the state of each locked record in a <code>java.util.concurrent.ConcurrentHashMap</code>,
+ * so that clients that lock different records do not contend on a single monitor. Each record lock has its own
+ * <code>java.util.concurrent.locks.ReentrantLock</code>, and clients that wait for a record lock wait on a <code>Condition</code> of that lock.
+ * <br>
+ * The state of a record lock is removed from the map when the lock is released and no client is waiting for it. A client that finds
+ * a state that has been removed looks it up again, so that every client that locks the same record uses the same state.
+ * A client may also {@link #tryLock(int) try} to acquire a lock without waiting, or {@link #lock(int, long) wait} no longer than a timeout.
+ * <br>
+ * Each lock is held for a lease, which the client that holds it {@link #renew(int, long) renews}. A lock whose lease has passed is
+ * released by a background reaper, which is shared by every manager, or by the next client that attempts to acquire it, so that a
+ * client that goes away without releasing its locks does not stall every other client. Each acquisition of a lock returns a different
+ * cookie, so the cookie of a client whose lease has passed does not validate for the client that acquires the lock after it.
+ * This class is internally <b>thread-safe</b>.
+ *
+ * @see RecordLockManagerImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class ConcurrentRecordLockManagerImpl implements LeasedRecordLockManager
+{
+    private static ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+    {
+        public Thread newThread(Runnable r)
+        {
+            Thread t = new Thread(r, "ConcurrentRecordLockManagerImpl reaper");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private ConcurrentMap locks;
+    private AtomicInteger stamps;
+    private long lease;
+
+    /**
+     * Constructs a <tt>ConcurrentRecordLockManagerImpl</tt> whose locks are held for the {@link LockConstants#LOCK_LEASE default lease}.
+     */
+    public ConcurrentRecordLockManagerImpl()
+    {
+        this(LOCK_LEASE);
+    }
+
+    /**
+     * Constructs a <tt>ConcurrentRecordLockManagerImpl</tt> whose locks are held for the given lease, and schedules the release of the
+     * locks whose lease has passed about four times within each lease.
+     *
+     * @param lease The time, in milliseconds, that a lock is held for before it expires, unless it is renewed.
+     * @throws IllegalArgumentException If the lease is not positive.
+     */
+    public ConcurrentRecordLockManagerImpl(long lease) throws IllegalArgumentException
+    {
+        if(lease <= 0L)
+        {
+            throw new IllegalArgumentException("Invalid lock lease: " + lease);
+        }
+
+        this.locks = new ConcurrentHashMap();
+        this.stamps = new AtomicInteger();
+        this.lease = lease;
+
+        long period = Math.max(1L, lease / 4L);
+        Reaper r = new Reaper(this);
+        r.future = reaper.scheduleWithFixedDelay(r, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Make an attempt to acquire the record lock for the given record number.
+     * If the record lock is currently in use, the client thread waits until it is released, or until its lease passes.
+     *
+     * @param recordNumber The record number to attempt to acquire the lock for.
+     * @return The generated cookie value corresponding to the given record number.
+     * @throws IllegalStateException If the waiting client thread is interrupted. This should never occur.
+     */
+    public long lock(int recordNumber) throws IllegalStateException
+    {
+        return acquire(recordNumber, false, 0L);
+    }
+
+    /**
+     * Acquires the record lock for the given record number only if it is not in use, or if its lease has passed.
+     *
+     * @param recordNumber The record number to attempt to acquire the lock for.
+     * @return The generated cookie value corresponding to the given record number, or {@link LockConstants#NO_COOKIE NO_COOKIE}
+     * if the lock is in use.
+     */
+    public long tryLock(int recordNumber)
+    {
+        return acquire(recordNumber, true, 0L);
+    }
+
+    /**
+     * Make an attempt to acquire the record lock for the given record number.
+     * If the record lock is currently in use, the client thread waits until it is released, or until the given timeout passes.
+     *
+     * @param recordNumber The record number to attempt to acquire the lock for.
+     * @param timeout The longest time, in milliseconds, to wait for the lock.
+     * @return The generated cookie value corresponding to the given record number, or {@link LockConstants#NO_COOKIE NO_COOKIE}
+     * if the lock was not acquired before the timeout passed.
+     * @throws IllegalArgumentException If the timeout is negative.
+     * @throws IllegalStateException If the waiting client thread is interrupted. This should never occur.
+     */
+    public long lock(int recordNumber, long timeout) throws IllegalArgumentException, IllegalStateException
+    {
+        if(timeout < 0L)
+        {
+            throw new IllegalArgumentException("Invalid lock timeout: " + timeout);
+        }
+
+        return acquire(recordNumber, true, TimeUnit.MILLISECONDS.toNanos(timeout));
+    }
+
+    /**
+     * Release the record lock for the given record number, whichever client holds it.
+     * If there are any client threads waiting to acquire the lock, one of them is signalled, otherwise the state of the record lock
+     * is removed.
+     *
+     * @param recordNumber The record number to release the lock for.
+     */
+    public void unlock(int recordNumber)
+    {
+        release(recordNumber, NO_COOKIE);
+    }
+
+    /**
+     * Release the record lock for the given record number, if it is still held with the given cookie.
+     * If there are any client threads waiting to acquire the lock, one of them is signalled, otherwise the state of the record lock
+     * is removed.
+     *
+     * @param recordNumber The record number to release the lock for.
+     * @param cookie The cookie value that was returned when the lock was acquired.
+     * @return <code>true</code> if the lock was released, <code>false</code> if the lock is not held with the given cookie.
+     */
+    public boolean unlock(int recordNumber, long cookie)
+    {
+        return cookie != NO_COOKIE && release(recordNumber, cookie);
+    }
+
+    /**
+     * Renews the lease of the record lock for the given record number, if it is still held with the given cookie, so that it is held
+     * for another lease from now.
+     *
+     * @param recordNumber The record number to renew the lock for.
+     * @param cookie The cookie value that was returned when the lock was acquired.
+     * @return <code>true</code> if the lease was renewed, <code>false</code> if the lock is not held with the given cookie.
+     */
+    public boolean renew(int recordNumber, long cookie)
+    {
+        RecordLock lock = (RecordLock)locks.get(new Integer(recordNumber));
+
+        if(lock == null)
+        {
+            return false;
+        }
+
+        lock.mutex.lock();
+
+        try
+        {
+            long now = System.currentTimeMillis();
+
+            if(!lock.isHeld(cookie, now))
+            {
+                return false;
+            }
+
+            lock.expires = now + lease;
+
+            return true;
+        }
+        finally
+        {
+            lock.mutex.unlock();
+        }
+    }
+
+    /**
+     * Releases every record lock whose lease has passed, and signals a client thread that waits for each of them.
+     * This is called periodically by the background reaper.
+     *
+     * @return The number of locks that were released.
+     */
+    public int reap()
+    {
+        int reaped = 0;
+        long now = System.currentTimeMillis();
+        Iterator i = locks.entrySet().iterator();
+
+        while(i.hasNext())
+        {
+            Map.Entry e = (Map.Entry)i.next();
+            RecordLock lock = (RecordLock)e.getValue();
+
+            lock.mutex.lock();
+
+            try
+            {
+                if(lock.held && lock.expires <= now)
+                {
+                    release(e.getKey(), lock);
+                    reaped++;
+                }
+            }
+            finally
+            {
+                lock.mutex.unlock();
+            }
+        }
+
+        return reaped;
+    }
+
+    /**
+     * Returns <code>true</code> if the given cookie value is valid for the given record number, <code>false</code> otherwise.
+     * A cookie is valid only while the record lock is held with it, and its lease has not passed.
+     *
+     * @param recordNumber The record number to validate the cookie value for.
+     * @param cookie The cookie value to use to attempt to validate the record number.
+     * @return <code>true</code> if the given cookie value is valid for the given record number, <code>false</code> otherwise.
+     */
+    public boolean isValidCookie(int recordNumber, long cookie)
+    {
+        RecordLock lock = (RecordLock)locks.get(new Integer(recordNumber));
+
+        if(lock == null)
+        {
+            return false;
+        }
+
+        lock.mutex.lock();
+
+        try
+        {
+            return lock.isHeld(cookie, System.currentTimeMillis());
+        }
+        finally
+        {
+            lock.mutex.unlock();
+        }
+    }
+
+    // acquires the lock of the given record, waiting until it is released, or no longer than the given time if the wait is timed
+    private long acquire(int recordNumber, boolean timed, long nanos) throws IllegalStateException
+    {
+        Integer key = new Integer(recordNumber);
+
+        while(true)
+        {
+            RecordLock lock = getRecordLock(key);
+
+            lock.mutex.lock();
+
+            try
+            {
+                // the state was removed after it was looked up, so it is looked up again
+                if(lock.removed)
+                {
+                    continue;
+                }
+
+                // a lock whose lease has passed is taken over without waiting for the reaper
+                while(lock.held && lock.expires > System.currentTimeMillis())
+                {
+                    if(!timed)
+                    {
+                        lock.await();
+                    }
+                    else if(nanos <= 0L)
+                    {
+                        // the state is held by another client, which removes it when it is released
+                        return NO_COOKIE;
+                    }
+                    else
+                    {
+                        nanos = lock.awaitNanos(nanos);
+                    }
+                }
+
+                // the record number is in the high bits, as for CookieGeneratorImpl, and the stamp of this acquisition in the low bits
+                lock.held = true;
+                lock.cookie = ((long)recordNumber << 32) | (stamps.incrementAndGet() & 0xFFFFFFFFL);
+                lock.expires = System.currentTimeMillis() + lease;
+
+                return lock.cookie;
+            }
+            finally
+            {
+                lock.mutex.unlock();
+            }
+        }
+    }
+
+    // releases the lock of the given record if it is held with the given cookie, or with any cookie if none is given
+    private boolean release(int recordNumber, long cookie)
+    {
+        Integer key = new Integer(recordNumber);
+        RecordLock lock = (RecordLock)locks.get(key);
+
+        // only continue if an attempt was made to unlock an already locked record
+        if(lock == null)
+        {
+            return false;
+        }
+
+        lock.mutex.lock();
+
+        try
+        {
+            if(!lock.held || (cookie != NO_COOKIE && lock.cookie != cookie))
+            {
+                return false;
+            }
+
+            release(key, lock);
+
+            return true;
+        }
+        finally
+        {
+            lock.mutex.unlock();
+        }
+    }
+
+    // releases the given held lock, signalling a waiting client or removing its state; the mutex must be held
+    private void release(Object key, RecordLock lock)
+    {
+        lock.held = false;
+        lock.cookie = NO_COOKIE;
+
+        if(lock.waiters == 0)
+        {
+            lock.removed = true;
+            locks.remove(key, lock);
+        }
+        else
+        {
+            lock.released.signal();
+        }
+    }
+
+    // returns the state of the lock of the given record, which is added if there is none
+    private RecordLock getRecordLock(Integer key)
+    {
+        RecordLock lock = (RecordLock)locks.get(key);
+
+        if(lock == null)
+        {
+            RecordLock added = new RecordLock();
+
+            lock = (RecordLock)locks.putIfAbsent(key, added);
+
+            if(lock == null)
+            {
+                lock = added;
+            }
+        }
+
+        return lock;
+    }
+
+    // the state of the lock of a record, which is guarded by its mutex
+    private static class RecordLock
+    {
+        private ReentrantLock mutex;
+        private Condition released;
+        private boolean held;
+        private long cookie;
+        private long expires;
+        private int waiters;
+        private boolean removed;
+
+        private RecordLock()
+        {
+            this.mutex = new ReentrantLock();
+            this.released = mutex.newCondition();
+            this.cookie = NO_COOKIE;
+        }
+
+        // returns true if the lock is held with the given cookie and its lease has not passed at the given time
+        private boolean isHeld(long cookie, long now)
+        {
+            return held && this.cookie == cookie && expires > now;
+        }
+
+        // waits until the lock is released; the mutex must be held
+        private void await() throws IllegalStateException
+        {
+            awaitNanos(-1L);
+        }
+
+        // waits until the lock is released or the given time passes, or without a time limit if the time is negative, and returns
+        // the time that remains; the mutex must be held
+        private long awaitNanos(long nanos) throws IllegalStateException
+        {
+            waiters++;
+
+            try
+            {
+                if(nanos < 0L)
+                {
+                    released.await();
+
+                    return nanos;
+                }
+
+                return released.awaitNanos(nanos);
+            }
+            catch(InterruptedException ie)
+            {
+                // the release that this client may have been signalled by is passed to another waiting client
+                if(!held && waiters > 1)
+                {
+                    released.signal();
+                }
+
+                StringBuffer message = new StringBuffer();
+                message.append("Thread unexpectedly interrupted: ");
+                message.append(ie);
+
+                throw new IllegalStateException(message.toString());
+            }
+            finally
+            {
+                waiters--;
+            }
+        }
+    }
+
+    // reaps the locks of a manager periodically, and cancels itself once the manager is no longer used, so that the shared reaper
+    // thread does not keep a manager reachable
+    private static class Reaper implements Runnable
+    {
+        private WeakReference manager;
+        private volatile ScheduledFuture future;
+
+        private Reaper(ConcurrentRecordLockManagerImpl manager)
+        {
+            this.manager = new WeakReference(manager);
+        }
+
+        public void run()
+        {
+            ConcurrentRecordLockManagerImpl m = (ConcurrentRecordLockManagerImpl)manager.get();
+
+            if(m != null)
+            {
+                m.reap();
+            }
+            else if(future != null)
+            {
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package suncertify.db.server;
+
+/**
+ * Represents a server-side cursor over the records that match a search, so that a client may read a large result
+ * one page at a time. A cursor holds either the ascending numbers of the records that may match, as found by the
+ * field indexes, or, if it holds none, examines every record of the data file in turn. In either case, each record is
+ * matched again as it is read, so a page contains only records that match when the page is read.
+ * <br>
+ * A cursor holds a lease, which is renewed each time the cursor is used, and expires once the lease has passed.
+ * The position of a cursor is not <b>thread-safe</b>; a caller that reads a page must synchronize on the cursor.
+ *
+ * @see CursorManager
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class Cursor
+{
+    private String[] criteria;
+    private RecordMatcher matcher;
+    private int pageSize;
+    private int[] candidates;
+    private int position;
+    private long expires;
+
+    /**
+     * Constructs a <tt>Cursor</tt> at the first record that may match the given criteria.
+     *
+     * @param criteria The criteria that records are matched with.
+     * @param matcher The matcher of records with the criteria.
+     * @param pageSize The largest number of records that are read at once.
+     * @param candidates The ascending numbers of the records that may match, or <code>null</code> to examine every record.
+     */
+    public Cursor(String[] criteria, RecordMatcher matcher, int pageSize, int[] candidates)
+    {
+        this.criteria = criteria;
+        this.matcher = matcher;
+        this.pageSize = pageSize;
+        this.candidates = candidates;
+        this.position = 0;
+    }
+
+    /**
+     * Returns the criteria that records are matched with.
+     *
+     * @return The criteria that records are matched with.
+     */
+    public String[] getCriteria()
+    {
+        return criteria;
+    }
+
+    /**
+     * Returns the matcher of records with the criteria.
+     *
+     * @return The matcher of records with the criteria.
+     */
+    public RecordMatcher getMatcher()
+    {
+        return matcher;
+    }
+
+    /**
+     * Returns the largest number of records that are read at once.
+     *
+     * @return The largest number of records that are read at once.
+     */
+    public int getPageSize()
+    {
+        return pageSize;
+    }
+
+    /**
+     * Returns the ascending numbers of the records that may match, or <code>null</code> if every record is examined.
+     *
+     * @return The ascending numbers of the records that may match, or <code>null</code> if every record is examined.
+     */
+    public int[] getCandidates()
+    {
+        return candidates;
+    }
+
+    /**
+     * Discards the numbers of the records that may match, so that every record is examined instead.
+     * This may only be done before the cursor has moved from the first record.
+     */
+    public void discardCandidates()
+    {
+        if(position == 0)
+        {
+            candidates = null;
+        }
+    }
+
+    /**
+     * Returns the number of record numbers that are held by this cursor.
+     *
+     * @return The number of record numbers that are held by this cursor.
+     */
+    public int getHeldRecords()
+    {
+        return candidates == null ? 0 : candidates.length;
+    }
+
+    /**
+     * Returns the position of this cursor; either an index into the record numbers that may match,
+     * or the number of the next record to examine if every record is examined.
+     *
+     * @return The position of this cursor.
+     */
+    public int getPosition()
+    {
+        return position;
+    }
+
+    /**
+     * Sets the position of this cursor.
+     *
+     * @param position The new position of this cursor.
+     */
+    public void setPosition(int position)
+    {
+        this.position = position;
+    }
+
+    /**
+     * Renews the lease of this cursor, so that it expires after the given time.
+     *
+     * @param expires The time, in milliseconds, after which this cursor expires.
+     */
+    public void renew(long expires)
+    {
+        this.expires = expires;
+    }
+
+    /**
+     * Returns <code>true</code> if the lease of this cursor has passed at the given time, <code>false</code> otherwise.
+     *
+     * @param now The current time, in milliseconds.
+     * @return <code>true</code> if the lease of this cursor has passed at the given time, <code>false</code> otherwise.
+     */
+    public boolean isExpired(long now)
+    {
+        return now > expires;
+    }
+}
@@ -0,0 +1,28 @@
+package suncertify.db.server;
+
+/**
+ * Defines a set of constants for the default lease and memory limits of the cursors that are managed by a
+ * {@link CursorManagerImpl CursorManagerImpl}.
+ *
+ * @see CursorManagerImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface CursorConstants
+{
+    /**
+     * The default time, in milliseconds, after which a cursor that has not been used expires.
+     */
+    public final static long CURSOR_LEASE = 60000L;
+
+    /**
+     * The default largest number of cursors that may be open at once.
+     */
+    public final static int MAX_CURSORS = 256;
+
+    /**
+     * The default largest number of record numbers that may be held by every open cursor together.
+     * A cursor whose record numbers would exceed this limit scans the data file instead of holding them.
+     */
+    public final static int MAX_CURSOR_RECORDS = 1 << 20;
+}
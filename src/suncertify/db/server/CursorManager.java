@@ -0,0 +1,45 @@
+package suncertify.db.server;
+
+/**
+ * Provides an interface for managing the server-side cursors of clients.
+ * Each cursor is identified by a cursor id, and is discarded when it is closed or when its lease expires.
+ *
+ * @see CursorManagerImpl
+ * @see Cursor
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface CursorManager
+{
+    /**
+     * Opens the given cursor, and returns the id that identifies it.
+     *
+     * @param cursor The cursor to open.
+     * @return The id that identifies the opened cursor.
+     * @throws IllegalStateException If no more cursors may be opened.
+     */
+    public long open(Cursor cursor) throws IllegalStateException;
+
+    /**
+     * Returns the open cursor that is identified by the given id, and renews its lease.
+     *
+     * @param cursorId The id of the cursor.
+     * @return The open cursor that is identified by the given id.
+     * @throws IllegalArgumentException If there is no open cursor with the given id, because it has been closed or has expired.
+     */
+    public Cursor get(long cursorId) throws IllegalArgumentException;
+
+    /**
+     * Closes the cursor that is identified by the given id. A cursor that has already been closed, or that has expired, is ignored.
+     *
+     * @param cursorId The id of the cursor to close.
+     */
+    public void close(long cursorId);
+
+    /**
+     * Returns the number of open cursors.
+     *
+     * @return The number of open cursors.
+     */
+    public int size();
+}
@@ -0,0 +1,173 @@
+package suncertify.db.server;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * A manager of server-side cursors that limits both the number of open cursors and the number of record numbers that
+ * they hold together, so that broad searches by many clients cannot exhaust the memory of the server.
+ * A cursor that would exceed the limit of record numbers is opened to examine every record of the data file instead,
+ * which holds no record numbers. Expired cursors are discarded whenever a cursor is opened or used, so no thread is
+ * needed to discard them.
+ * <br>
+ * Cursor ids are chosen at random, so that a client cannot easily guess the id of the cursor of another client.
+ * This class is internally <b>thread-safe</b>.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class CursorManagerImpl implements CursorManager, CursorConstants
+{
+    private long lease;
+    private int maxCursors;
+    private int maxRecords;
+    private Map cursors;
+    private int heldRecords;
+    private Random random;
+
+    /**
+     * Constructs a <tt>CursorManagerImpl</tt> with the default lease, and the default limits of open cursors and of the
+     * record numbers that they hold.
+     *
+     * @see CursorConstants
+     */
+    public CursorManagerImpl()
+    {
+        this(CURSOR_LEASE, MAX_CURSORS, MAX_CURSOR_RECORDS);
+    }
+
+    /**
+     * Constructs a <tt>CursorManagerImpl</tt> with the given lease, and the given limits of open cursors and of the
+     * record numbers that they hold.
+     *
+     * @param lease The time, in milliseconds, after which a cursor that has not been used expires.
+     * @param maxCursors The largest number of cursors that may be open at once.
+     * @param maxRecords The largest number of record numbers that may be held by every open cursor together.
+     */
+    public CursorManagerImpl(long lease, int maxCursors, int maxRecords)
+    {
+        this.lease = lease;
+        this.maxCursors = maxCursors;
+        this.maxRecords = maxRecords;
+        this.cursors = new HashMap();
+        this.random = new Random();
+    }
+
+    /**
+     * Opens the given cursor, and returns the id that identifies it. If the record numbers of the cursor would exceed the limit,
+     * the cursor discards them and examines every record instead.
+     *
+     * @param cursor The cursor to open.
+     * @return The id that identifies the opened cursor.
+     * @throws IllegalStateException If the largest number of cursors are already open.
+     */
+    public synchronized long open(Cursor cursor) throws IllegalStateException
+    {
+        long now = System.currentTimeMillis();
+
+        expire(now);
+
+        if(cursors.size() >= maxCursors)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Too many open cursors: [");
+            message.append(cursors.size());
+            message.append("]");
+
+            throw new IllegalStateException(message.toString());
+        }
+
+        if(heldRecords + cursor.getHeldRecords() > maxRecords)
+        {
+            cursor.discardCandidates();
+        }
+
+        Long key;
+
+        do
+        {
+            key = new Long(random.nextLong());
+        }
+        while(cursors.containsKey(key));
+
+        cursor.renew(now + lease);
+        cursors.put(key, cursor);
+        heldRecords = heldRecords + cursor.getHeldRecords();
+
+        return key.longValue();
+    }
+
+    /**
+     * Returns the open cursor that is identified by the given id, and renews its lease.
+     *
+     * @param cursorId The id of the cursor.
+     * @return The open cursor that is identified by the given id.
+     * @throws IllegalArgumentException If there is no open cursor with the given id, because it has been closed or has expired.
+     */
+    public synchronized Cursor get(long cursorId) throws IllegalArgumentException
+    {
+        long now = System.currentTimeMillis();
+
+        expire(now);
+
+        Cursor cursor = (Cursor)cursors.get(new Long(cursorId));
+
+        if(cursor == null)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Cursor is closed or has expired: [");
+            message.append(cursorId);
+            message.append("]");
+
+            throw new IllegalArgumentException(message.toString());
+        }
+
+        cursor.renew(now + lease);
+
+        return cursor;
+    }
+
+    /**
+     * Closes the cursor that is identified by the given id, and releases the record numbers that it holds.
+     *
+     * @param cursorId The id of the cursor to close.
+     */
+    public synchronized void close(long cursorId)
+    {
+        Cursor cursor = (Cursor)cursors.remove(new Long(cursorId));
+
+        if(cursor != null)
+        {
+            heldRecords = heldRecords - cursor.getHeldRecords();
+        }
+    }
+
+    /**
+     * Returns the number of open cursors, including any that have expired but have not yet been discarded.
+     *
+     * @return The number of open cursors.
+     */
+    public synchronized int size()
+    {
+        return cursors.size();
+    }
+
+    // discards every cursor whose lease has passed at the given time
+    private void expire(long now)
+    {
+        Iterator it = cursors.values().iterator();
+
+        while(it.hasNext())
+        {
+            Cursor cursor = (Cursor)it.next();
+
+            if(cursor.isExpired(now))
+            {
+                heldRecords = heldRecords - cursor.getHeldRecords();
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package suncertify.db.server;
+
+/**
+ * Provides an interface for managing record locks that are held for a lease, so that the lock of a client that goes away without
+ * releasing it is not held forever. A client renews the lease of each lock it holds, and a lock whose lease has passed is released
+ * by the manager, at which point its cookie is no longer valid.
+ *
+ * @see ConcurrentRecordLockManagerImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface LeasedRecordLockManager extends TimedRecordLockManager
+{
+    /**
+     * Renews the lease of the lock for the given data record number, if it is still held with the given cookie.
+     *
+     * @param recordNumber The data record number to renew the lock for.
+     * @param cookie The cookie value that was returned when the lock was acquired.
+     * @return <code>true</code> if the lease was renewed, <code>false</code> if the lock is not held with the given cookie, because
+     * it was released or its lease passed.
+     */
+    public boolean renew(int recordNumber, long cookie);
+
+    /**
+     * Release the lock for the given data record number, if it is still held with the given cookie, so that a client whose lease has
+     * passed does not release a lock that has since been acquired by another client.
+     *
+     * @param recordNumber The data record number to release the lock for.
+     * @param cookie The cookie value that was returned when the lock was acquired.
+     * @return <code>true</code> if the lock was released, <code>false</code> if the lock is not held with the given cookie.
+     */
+    public boolean unlock(int recordNumber, long cookie);
+
+    /**
+     * Releases every lock whose lease has passed, and signals a client that waits for each of them.
+     *
+     * @return The number of locks that were released.
+     */
+    public int reap();
+}
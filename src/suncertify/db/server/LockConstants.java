@@ -0,0 +1,24 @@
+package suncertify.db.server;
+
+/**
+ * Defines a set of constants of the record locks that are managed by a {@link TimedRecordLockManager TimedRecordLockManager}.
+ *
+ * @see TimedRecordLockManager
+ * @see LeasedRecordLockManager
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface LockConstants
+{
+    /**
+     * The value that is returned in place of a cookie when a record lock is not acquired before a timeout passes.
+     * A cookie is never negative, so this value is never a cookie.
+     */
+    public final static long NO_COOKIE = -1L;
+
+    /**
+     * The default time, in milliseconds, that a record lock is held for before it expires, unless the client that holds it
+     * renews it.
+     */
+    public final static long LOCK_LEASE = 60000L;
+}
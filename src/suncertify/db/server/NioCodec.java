@@ -0,0 +1,367 @@
+package suncertify.db.server;
+
+import suncertify.db.RecordBatch;
+import suncertify.db.RecordBatchImpl;
+import suncertify.db.DataChange;
+import suncertify.db.DataChangeImpl;
+import suncertify.db.ChangeSet;
+import suncertify.db.ChangeSetImpl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads the arguments and results of the binary protocol that is served by {@link NioServer NioServer}.
+ * Strings are written in modified UTF-8 and every array is preceded by its length, or -1 (minus one) for a <code>null</code> array;
+ * record batches are written in the compact form of {@link RecordBatchImpl#writeTo(DataOutput) RecordBatchImpl}.
+ *
+ * @see NioConstants
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+final class NioCodec
+{
+    private NioCodec()
+    {
+
+    }
+
+    /**
+     * Writes the given string, which may be <code>null</code>.
+     *
+     * @param out The output to write to.
+     * @param s The string to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeString(DataOutput out, String s) throws IOException
+    {
+        out.writeBoolean(s != null);
+
+        if(s != null)
+        {
+            out.writeUTF(s);
+        }
+    }
+
+    /**
+     * Reads a string that was written by {@link #writeString(DataOutput, String) writeString}.
+     *
+     * @param in The input to read from.
+     * @return The string that was read, which may be <code>null</code>.
+     * @throws IOException If an I/O error occurs.
+     */
+    static String readString(DataInput in) throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Writes the given array of strings, which may be <code>null</code> or hold <code>null</code> elements.
+     *
+     * @param out The output to write to.
+     * @param a The array to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeStrings(DataOutput out, String[] a) throws IOException
+    {
+        if(a == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(a.length);
+
+        for(int i = 0; i < a.length; i++)
+        {
+            writeString(out, a[i]);
+        }
+    }
+
+    /**
+     * Reads an array of strings that was written by {@link #writeStrings(DataOutput, String[]) writeStrings}.
+     *
+     * @param in The input to read from.
+     * @return The array that was read, which may be <code>null</code>.
+     * @throws IOException If an I/O error occurs, or the length of the array is not valid.
+     */
+    static String[] readStrings(DataInput in) throws IOException
+    {
+        int length = readLength(in);
+
+        if(length < 0)
+        {
+            return null;
+        }
+
+        String[] retval = new String[length];
+
+        for(int i = 0; i < length; i++)
+        {
+            retval[i] = readString(in);
+        }
+
+        return retval;
+    }
+
+    /**
+     * Writes the given array of record numbers, which may be <code>null</code>.
+     *
+     * @param out The output to write to.
+     * @param a The array to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeInts(DataOutput out, int[] a) throws IOException
+    {
+        if(a == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(a.length);
+
+        for(int i = 0; i < a.length; i++)
+        {
+            out.writeInt(a[i]);
+        }
+    }
+
+    /**
+     * Reads an array of record numbers that was written by {@link #writeInts(DataOutput, int[]) writeInts}.
+     *
+     * @param in The input to read from.
+     * @return The array that was read, which may be <code>null</code>.
+     * @throws IOException If an I/O error occurs, or the length of the array is not valid.
+     */
+    static int[] readInts(DataInput in) throws IOException
+    {
+        int length = readLength(in);
+
+        if(length < 0)
+        {
+            return null;
+        }
+
+        int[] retval = new int[length];
+
+        for(int i = 0; i < length; i++)
+        {
+            retval[i] = in.readInt();
+        }
+
+        return retval;
+    }
+
+    /**
+     * Writes the given array of versions, which may be <code>null</code>.
+     *
+     * @param out The output to write to.
+     * @param a The array to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeLongs(DataOutput out, long[] a) throws IOException
+    {
+        if(a == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(a.length);
+
+        for(int i = 0; i < a.length; i++)
+        {
+            out.writeLong(a[i]);
+        }
+    }
+
+    /**
+     * Reads an array of versions that was written by {@link #writeLongs(DataOutput, long[]) writeLongs}.
+     *
+     * @param in The input to read from.
+     * @return The array that was read, which may be <code>null</code>.
+     * @throws IOException If an I/O error occurs, or the length of the array is not valid.
+     */
+    static long[] readLongs(DataInput in) throws IOException
+    {
+        int length = readLength(in);
+
+        if(length < 0)
+        {
+            return null;
+        }
+
+        long[] retval = new long[length];
+
+        for(int i = 0; i < length; i++)
+        {
+            retval[i] = in.readLong();
+        }
+
+        return retval;
+    }
+
+    /**
+     * Writes the given batch of records, which may be <code>null</code>.
+     *
+     * @param out The output to write to.
+     * @param batch The batch to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeBatch(DataOutput out, RecordBatch batch) throws IOException
+    {
+        out.writeBoolean(batch != null);
+
+        if(batch == null)
+        {
+            return;
+        }
+
+        RecordBatchImpl impl;
+
+        if(batch instanceof RecordBatchImpl)
+        {
+            impl = (RecordBatchImpl)batch;
+        }
+        else
+        {
+            String[][] records = new String[batch.size()][];
+
+            for(int i = 0; i < records.length; i++)
+            {
+                records[i] = batch.getRecord(i);
+            }
+
+            impl = new RecordBatchImpl(batch.getRecordNumbers(), records);
+        }
+
+        impl.writeTo(out);
+    }
+
+    /**
+     * Reads a batch of records that was written by {@link #writeBatch(DataOutput, RecordBatch) writeBatch}.
+     *
+     * @param in The input to read from.
+     * @return The batch that was read, which may be <code>null</code>.
+     * @throws IOException If an I/O error occurs, or the form of the batch is not known.
+     */
+    static RecordBatch readBatch(DataInput in) throws IOException
+    {
+        if(!in.readBoolean())
+        {
+            return null;
+        }
+
+        RecordBatchImpl retval = new RecordBatchImpl();
+        retval.readFrom(in);
+
+        return retval;
+    }
+
+    /**
+     * Writes the given array of changes, which may be <code>null</code>.
+     *
+     * @param out The output to write to.
+     * @param changes The array to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeChanges(DataOutput out, DataChange[] changes) throws IOException
+    {
+        if(changes == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(changes.length);
+
+        for(int i = 0; i < changes.length; i++)
+        {
+            out.writeByte(changes[i].getType());
+            out.writeInt(changes[i].getRecordNumber());
+            writeStrings(out, changes[i].getRecord());
+        }
+    }
+
+    /**
+     * Reads an array of changes that was written by {@link #writeChanges(DataOutput, DataChange[]) writeChanges}.
+     *
+     * @param in The input to read from.
+     * @return The array that was read, which may be <code>null</code>.
+     * @throws IOException If an I/O error occurs, or the length of the array or the type of a change is not valid.
+     */
+    static DataChange[] readChanges(DataInput in) throws IOException
+    {
+        int length = readLength(in);
+
+        if(length < 0)
+        {
+            return null;
+        }
+
+        DataChange[] retval = new DataChange[length];
+
+        for(int i = 0; i < length; i++)
+        {
+            int type = in.readByte();
+            int recNo = in.readInt();
+
+            try
+            {
+                retval[i] = new DataChangeImpl(type, recNo, readStrings(in));
+            }
+            catch(IllegalArgumentException iae)
+            {
+                throw new IOException(iae.getMessage());
+            }
+        }
+
+        return retval;
+    }
+
+    /**
+     * Writes the given change set.
+     *
+     * @param out The output to write to.
+     * @param changes The change set to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeChangeSet(DataOutput out, ChangeSet changes) throws IOException
+    {
+        out.writeLong(changes.getSequence());
+        out.writeBoolean(changes.isReset());
+        writeBatch(out, changes.getRecords());
+        writeInts(out, changes.getRemovedRecordNumbers());
+    }
+
+    /**
+     * Reads a change set that was written by {@link #writeChangeSet(DataOutput, ChangeSet) writeChangeSet}.
+     *
+     * @param in The input to read from.
+     * @return The change set that was read.
+     * @throws IOException If an I/O error occurs, or the form of the change set is not valid.
+     */
+    static ChangeSet readChangeSet(DataInput in) throws IOException
+    {
+        long sequence = in.readLong();
+        boolean reset = in.readBoolean();
+        RecordBatch records = readBatch(in);
+
+        return new ChangeSetImpl(sequence, reset, records, readInts(in));
+    }
+
+    // reads the length of an array, which is -1 for a null array, and rejects a length that cannot fit in a frame
+    private static int readLength(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+
+        if(length < -1 || length > NioConstants.MAX_FRAME_LENGTH)
+        {
+            throw new IOException("Invalid array length: " + length);
+        }
+
+        return length;
+    }
+}
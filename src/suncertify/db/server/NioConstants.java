@@ -0,0 +1,200 @@
+package suncertify.db.server;
+
+/**
+ * Defines a set of constants of the binary protocol that is served by {@link NioServer NioServer} and used by
+ * {@link NioRemoteDB NioRemoteDB}.
+ * <br>
+ * Every message is a frame: the number of bytes that follow, as an <code>int</code>, then the id of the request, as an <code>int</code>.
+ * A request frame then holds the operation code, as a <code>byte</code>, and the arguments of the operation. A response frame
+ * then holds the status, as a <code>byte</code>, and either the result of the operation or the message of the exception that it threw.
+ * Since each response carries the id of its request, a client may send many requests on one connection without waiting for
+ * their responses, and responses may be returned in a different order to their requests.
+ *
+ * @see NioServer
+ * @see NioRemoteDB
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface NioConstants
+{
+    /**
+     * The port that disables the binary protocol server, so that clients connect only using RMI.
+     */
+    public final static int NIO_DISABLED = 0;
+
+    /**
+     * The largest number of bytes of a frame, not including the length of the frame itself.
+     * A connection that sends a longer frame is closed.
+     */
+    public final static int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * The largest number of threads that perform requests that do not wait for another client on the server.
+     */
+    public final static int MAX_WORKER_THREADS = 64;
+
+    /**
+     * The largest number of threads that perform requests that may wait for another client on the server: the requests to
+     * {@link #OP_LOCK lock} a record and to {@link #OP_POLL_CHANGES poll} for changes. These requests do not wait in a queue,
+     * so a request that arrives when this many are waiting fails with the status {@link #STATUS_ERROR STATUS_ERROR}.
+     */
+    public final static int MAX_BLOCKING_THREADS = 256;
+
+    /**
+     * The largest number of requests that do not wait for another client that wait for a thread of the server. A request that arrives when this many are waiting
+     * fails with the status {@link #STATUS_ERROR STATUS_ERROR}.
+     */
+    public final static int MAX_QUEUED_REQUESTS = 1024;
+
+    /**
+     * The largest number of requests of a connection that the server performs at once, including those whose responses are not yet
+     * written. The server reads no more requests from a connection that has this many until some of their responses are written.
+     */
+    public final static int MAX_IN_FLIGHT = 32;
+
+    /**
+     * The operation code of {@link RemoteDB#read(int) read}.
+     */
+    public final static byte OP_READ = 1;
+
+    /**
+     * The operation code of {@link RemoteDB#readMany(int[]) readMany}.
+     */
+    public final static byte OP_READ_MANY = 2;
+
+    /**
+     * The operation code of {@link RemoteDB#update(int, String[], long) update}.
+     */
+    public final static byte OP_UPDATE = 3;
+
+    /**
+     * The operation code of {@link RemoteDB#delete(int, long) delete}.
+     */
+    public final static byte OP_DELETE = 4;
+
+    /**
+     * The operation code of {@link RemoteDB#find(String[], boolean) find}.
+     */
+    public final static byte OP_FIND = 5;
+
+    /**
+     * The operation code of {@link RemoteDB#findRecords(String[], boolean) findRecords}.
+     */
+    public final static byte OP_FIND_RECORDS = 6;
+
+    /**
+     * The operation code of {@link RemoteDB#openCursor(String[], boolean, int) openCursor}.
+     */
+    public final static byte OP_OPEN_CURSOR = 7;
+
+    /**
+     * The operation code of {@link RemoteDB#fetch(long) fetch}.
+     */
+    public final static byte OP_FETCH = 8;
+
+    /**
+     * The operation code of {@link RemoteDB#closeCursor(long) closeCursor}.
+     */
+    public final static byte OP_CLOSE_CURSOR = 9;
+
+    /**
+     * The operation code of {@link RemoteDB#create(String[]) create}.
+     */
+    public final static byte OP_CREATE = 10;
+
+    /**
+     * The operation code of {@link RemoteDB#lock(int) lock}.
+     */
+    public final static byte OP_LOCK = 11;
+
+    /**
+     * The operation code of {@link RemoteDB#unlock(int, long) unlock}.
+     */
+    public final static byte OP_UNLOCK = 12;
+
+    /**
+     * The operation code of {@link RemoteDB#subscribe() subscribe}.
+     */
+    public final static byte OP_SUBSCRIBE = 13;
+
+    /**
+     * The operation code of {@link RemoteDB#pollChanges(long, long) pollChanges}.
+     */
+    public final static byte OP_POLL_CHANGES = 14;
+
+    /**
+     * The operation code of {@link RemoteDB#unsubscribe(long) unsubscribe}.
+     */
+    public final static byte OP_UNSUBSCRIBE = 15;
+
+    /**
+     * The operation code of {@link RemoteDB#getChangeSequence() getChangeSequence}.
+     */
+    public final static byte OP_CHANGE_SEQUENCE = 16;
+
+    /**
+     * The operation code of {@link RemoteDB#changesSince(long, String[], boolean) changesSince}.
+     */
+    public final static byte OP_CHANGES_SINCE = 17;
+
+    /**
+     * The operation code of {@link RemoteDB#readIfModified(int[], long[]) readIfModified}.
+     */
+    public final static byte OP_READ_IF_MODIFIED = 18;
+
+    /**
+     * The operation code of {@link RemoteDB#tryLock(int) tryLock}.
+     */
+    public final static byte OP_TRY_LOCK = 19;
+
+    /**
+     * The operation code of {@link RemoteDB#lock(int, long) lock} with a timeout.
+     */
+    public final static byte OP_TIMED_LOCK = 20;
+
+    /**
+     * The operation code of {@link RemoteDB#renewLock(int, long) renewLock}.
+     */
+    public final static byte OP_RENEW_LOCK = 21;
+
+    /**
+     * The status of a response to a request that completed normally; the result of the operation follows.
+     */
+    public final static byte STATUS_OK = 0;
+
+    /**
+     * The status of a response to a request that threw a {@link suncertify.db.RecordNotFoundException RecordNotFoundException}.
+     */
+    public final static byte STATUS_RECORD_NOT_FOUND = 1;
+
+    /**
+     * The status of a response to a request that threw a {@link suncertify.db.DuplicateKeyException DuplicateKeyException}.
+     */
+    public final static byte STATUS_DUPLICATE_KEY = 2;
+
+    /**
+     * The status of a response to a request that threw a <code>java.lang.SecurityException</code>.
+     */
+    public final static byte STATUS_SECURITY = 3;
+
+    /**
+     * The status of a response to a request that threw a <code>java.lang.IllegalArgumentException</code>.
+     */
+    public final static byte STATUS_ILLEGAL_ARGUMENT = 4;
+
+    /**
+     * The status of a response to a request that threw a <code>java.lang.IllegalStateException</code>.
+     */
+    public final static byte STATUS_ILLEGAL_STATE = 5;
+
+    /**
+     * The status of a response to a request that threw a <code>java.lang.UnsupportedOperationException</code>,
+     * or that had an unknown operation code.
+     */
+    public final static byte STATUS_UNSUPPORTED = 6;
+
+    /**
+     * The status of a response to a request that failed for any other reason.
+     */
+    public final static byte STATUS_ERROR = 7;
+}
@@ -0,0 +1,942 @@
+package suncertify.db.server;
+
+import suncertify.db.RecordNotFoundException;
+import suncertify.db.DuplicateKeyException;
+import suncertify.db.RecordBatch;
+import suncertify.db.DataChange;
+import suncertify.db.ChangeSet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.rmi.ConnectException;
+import java.rmi.ServerException;
+import java.rmi.UnmarshalException;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * A client of a {@link NioServer NioServer} that provides the same API as {@link RemoteData RemoteData}, so that it may be used in place of
+ * a remote object that is looked up using RMI.
+ * <br>
+ * Every call is sent on a single connection, tagged with the id of its request, and waits for the response with that id; a single thread
+ * reads every response and hands it to the call that waits for it. Calls from many threads are therefore pipelined on the connection:
+ * each call is sent without waiting for the responses of earlier calls, and a call that waits for a lock does not delay the calls of
+ * other threads.
+ * <br>
+ * A failure of the connection is thrown as a <code>java.rmi.RemoteException</code>, and an exception that is thrown by the server is thrown
+ * again by the call, as it is by RMI.
+ *
+ * @see NioServer
+ * @see NioConstants
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class NioRemoteDB implements RemoteDB, NioConstants
+{
+    private Socket socket;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private Map requests;
+    private int nextRequestId;
+    private IOException failure;
+
+    /**
+     * Constructs a <tt>NioRemoteDB</tt> that is connected to the {@link NioServer NioServer} on the given host and port.
+     *
+     * @param host The host of the server, or <code>null</code> for the local host.
+     * @param port The port that the server accepts connections on.
+     * @throws RemoteException If the connection to the server cannot be made.
+     */
+    public NioRemoteDB(String host, int port) throws RemoteException
+    {
+        this.requests = new HashMap();
+
+        try
+        {
+            this.socket = new Socket(host, port);
+            this.socket.setTcpNoDelay(true);
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        }
+        catch(IOException ioe)
+        {
+            throw new ConnectException("Failed to connect to " + host + ":" + port, ioe);
+        }
+
+        Thread reader = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                receive();
+            }
+        }, "NioRemoteDB reader");
+
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Sends a read request to the server.
+     *
+     * @see RemoteData#read(int)
+     * @param recNo The record number to read.
+     * @return The record data that was read.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public String[] read(int recNo) throws RecordNotFoundException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_READ);
+            r.args.writeInt(recNo);
+
+            call(r);
+            r.throwRecordNotFound();
+
+            return NioCodec.readStrings(r.result());
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to read many records.
+     *
+     * @see RemoteData#readMany(int[])
+     * @param recNos The record numbers to read.
+     * @return The record numbers and data that were read, in the same order as the given record numbers.
+     * @throws RecordNotFoundException If any of the record numbers does not exist.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public RecordBatch readMany(int[] recNos) throws RecordNotFoundException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_READ_MANY);
+            NioCodec.writeInts(r.args, recNos);
+
+            call(r);
+            r.throwRecordNotFound();
+
+            return NioCodec.readBatch(r.result());
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends an update request to the server.
+     *
+     * @see RemoteData#update(int, String[], long)
+     * @param recNo The record number to update.
+     * @param data The data to update with.
+     * @param lockCookie The cookie value to use to prove that the caller owns the write lock for the record.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws SecurityException If the given cookie value does not validate.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public void update(int recNo, String[] data, long lockCookie) throws RecordNotFoundException, SecurityException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_UPDATE);
+            r.args.writeInt(recNo);
+            NioCodec.writeStrings(r.args, data);
+            r.args.writeLong(lockCookie);
+
+            call(r);
+            r.throwRecordNotFound();
+            r.result();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a delete request to the server.
+     *
+     * @see RemoteData#delete(int, long)
+     * @param recNo The record number to delete.
+     * @param lockCookie The cookie value to use to prove that the caller owns the write lock for the record.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws SecurityException If the given cookie value does not validate.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public void delete(int recNo, long lockCookie) throws RecordNotFoundException, SecurityException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_DELETE);
+            r.args.writeInt(recNo);
+            r.args.writeLong(lockCookie);
+
+            call(r);
+            r.throwRecordNotFound();
+            r.result();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a find request to the server.
+     *
+     * @see RemoteData#find(String[])
+     * @param criteria The criteria to search for.
+     * @return An array of indicies of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public int[] find(String[] criteria) throws RemoteException
+    {
+        return find(criteria, false);
+    }
+
+    /**
+     * Sends a find request to the server.
+     *
+     * @see RemoteData#find(String[], boolean)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return An array of indicies of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public int[] find(String[] criteria, boolean exact) throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_FIND);
+            NioCodec.writeStrings(r.args, criteria);
+            r.args.writeBoolean(exact);
+
+            call(r);
+
+            return NioCodec.readInts(r.result());
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to find and read the matching records.
+     *
+     * @see RemoteData#findRecords(String[])
+     * @param criteria The criteria to search for.
+     * @return The record numbers and data of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public RecordBatch findRecords(String[] criteria) throws RemoteException
+    {
+        return findRecords(criteria, false);
+    }
+
+    /**
+     * Sends a request to the server to find and read the matching records.
+     *
+     * @see RemoteData#findRecords(String[], boolean)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return The record numbers and data of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public RecordBatch findRecords(String[] criteria, boolean exact) throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_FIND_RECORDS);
+            NioCodec.writeStrings(r.args, criteria);
+            r.args.writeBoolean(exact);
+
+            call(r);
+
+            return NioCodec.readBatch(r.result());
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to open a cursor.
+     *
+     * @see RemoteData#openCursor(String[], int)
+     * @param criteria The criteria to search for.
+     * @param pageSize The largest number of records that are returned by each fetch.
+     * @return The id of the opened cursor.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public long openCursor(String[] criteria, int pageSize) throws RemoteException
+    {
+        return openCursor(criteria, false, pageSize);
+    }
+
+    /**
+     * Sends a request to the server to open a cursor.
+     *
+     * @see RemoteData#openCursor(String[], boolean, int)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @param pageSize The largest number of records that are returned by each fetch.
+     * @return The id of the opened cursor.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public long openCursor(String[] criteria, boolean exact, int pageSize) throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_OPEN_CURSOR);
+            NioCodec.writeStrings(r.args, criteria);
+            r.args.writeBoolean(exact);
+            r.args.writeInt(pageSize);
+
+            call(r);
+
+            return r.result().readLong();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to fetch the next page of a cursor.
+     *
+     * @see RemoteData#fetch(long)
+     * @param cursorId The id of the cursor.
+     * @return The next page of the data records of the given cursor.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public RecordBatch fetch(long cursorId) throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_FETCH);
+            r.args.writeLong(cursorId);
+
+            call(r);
+
+            return NioCodec.readBatch(r.result());
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to close a cursor.
+     *
+     * @see RemoteData#closeCursor(long)
+     * @param cursorId The id of the cursor to close.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public void closeCursor(long cursorId) throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_CLOSE_CURSOR);
+            r.args.writeLong(cursorId);
+
+            call(r);
+            r.result();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to subscribe to changes.
+     *
+     * @see RemoteData#subscribe()
+     * @return The id of the subscription.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public long subscribe() throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_SUBSCRIBE);
+
+            call(r);
+
+            return r.result().readLong();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to wait for changes. Other calls are not delayed while the server waits, since they are
+     * pipelined on the same connection.
+     *
+     * @see RemoteData#pollChanges(long, long)
+     * @param subscriptionId The id of the subscription.
+     * @param timeout The longest time, in milliseconds, to wait for a change.
+     * @return The changes that were made since the last poll, or <code>null</code> if changes were lost.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public DataChange[] pollChanges(long subscriptionId, long timeout) throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_POLL_CHANGES);
+            r.args.writeLong(subscriptionId);
+            r.args.writeLong(timeout);
+
+            call(r);
+
+            return NioCodec.readChanges(r.result());
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to discard a subscription.
+     *
+     * @see RemoteData#unsubscribe(long)
+     * @param subscriptionId The id of the subscription to discard.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public void unsubscribe(long subscriptionId) throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_UNSUBSCRIBE);
+            r.args.writeLong(subscriptionId);
+
+            call(r);
+            r.result();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server for its change sequence.
+     *
+     * @see RemoteData#getChangeSequence()
+     * @return The change sequence of the server.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public long getChangeSequence() throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_CHANGE_SEQUENCE);
+
+            call(r);
+
+            return r.result().readLong();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server for the records that changed after the given sequence.
+     *
+     * @see RemoteData#changesSince(long, String[])
+     * @param sequence The change sequence of a previous change set.
+     * @param criteria The criteria to search for.
+     * @return The records that changed after the given sequence.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public ChangeSet changesSince(long sequence, String[] criteria) throws RemoteException
+    {
+        return changesSince(sequence, criteria, false);
+    }
+
+    /**
+     * Sends a request to the server for the records that changed after the given sequence.
+     *
+     * @see RemoteData#changesSince(long, String[], boolean)
+     * @param sequence The change sequence of a previous change set.
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return The records that changed after the given sequence.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public ChangeSet changesSince(long sequence, String[] criteria, boolean exact) throws RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_CHANGES_SINCE);
+            r.args.writeLong(sequence);
+            NioCodec.writeStrings(r.args, criteria);
+            r.args.writeBoolean(exact);
+
+            call(r);
+
+            return NioCodec.readChangeSet(r.result());
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to read the records that have changed since the given versions.
+     *
+     * @see RemoteData#readIfModified(int[], long[])
+     * @param recNos The record numbers to read.
+     * @param versions The version of the copy of each record that the client holds.
+     * @return The records that have changed, and the numbers of the records that have been deleted.
+     * @throws RecordNotFoundException If any of the record numbers that has changed does not exist.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public ChangeSet readIfModified(int[] recNos, long[] versions) throws RecordNotFoundException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_READ_IF_MODIFIED);
+            NioCodec.writeInts(r.args, recNos);
+            NioCodec.writeLongs(r.args, versions);
+
+            call(r);
+            r.throwRecordNotFound();
+
+            return NioCodec.readChangeSet(r.result());
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a create request to the server.
+     *
+     * @see RemoteData#create(String[])
+     * @param data The data to create the new data record with.
+     * @return The index of the created record.
+     * @throws DuplicateKeyException If the new data in the record contains a "primary key" that already exists in the data file.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public int create(String[] data) throws DuplicateKeyException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_CREATE);
+            NioCodec.writeStrings(r.args, data);
+
+            call(r);
+            r.throwDuplicateKey();
+
+            return r.result().readInt();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a lock request to the server, and waits until the record is locked.
+     *
+     * @see RemoteData#lock(int)
+     * @param recNo The record number to lock.
+     * @return A cookie value to use to permit write access to the data record that was locked.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public long lock(int recNo) throws RecordNotFoundException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_LOCK);
+            r.args.writeInt(recNo);
+
+            call(r);
+            r.throwRecordNotFound();
+
+            return r.result().readLong();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to lock a record only if it is not in use.
+     *
+     * @see RemoteData#tryLock(int)
+     * @param recNo The record number to lock.
+     * @return A cookie value to use to permit write access to the data record that was locked, or
+     * {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock is in use.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public long tryLock(int recNo) throws RecordNotFoundException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_TRY_LOCK);
+            r.args.writeInt(recNo);
+
+            call(r);
+            r.throwRecordNotFound();
+
+            return r.result().readLong();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a lock request to the server, and waits until the record is locked or the given timeout passes on the server.
+     *
+     * @see RemoteData#lock(int, long)
+     * @param recNo The record number to lock.
+     * @param timeout The longest time, in milliseconds, to wait for the lock.
+     * @return A cookie value to use to permit write access to the data record that was locked, or
+     * {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock was not acquired before the timeout passed.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public long lock(int recNo, long timeout) throws RecordNotFoundException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_TIMED_LOCK);
+            r.args.writeInt(recNo);
+            r.args.writeLong(timeout);
+
+            call(r);
+            r.throwRecordNotFound();
+
+            return r.result().readLong();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends a request to the server to renew the lease of a lock.
+     *
+     * @see RemoteData#renewLock(int, long)
+     * @param recNo The record number to renew the lock for.
+     * @param cookie The cookie value to use to prove that the caller owns the write lock for the record.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws SecurityException If the given cookie value does not validate, because the lock was released or its lease has passed.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public void renewLock(int recNo, long cookie) throws RecordNotFoundException, SecurityException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_RENEW_LOCK);
+            r.args.writeInt(recNo);
+            r.args.writeLong(cookie);
+
+            call(r);
+            r.throwRecordNotFound();
+            r.result();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Sends an unlock request to the server.
+     *
+     * @see RemoteData#unlock(int, long)
+     * @param recNo The record number to unlock.
+     * @param cookie The cookie value to use to prove that the caller owns the write lock for the record.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws SecurityException If the given cookie value does not validate.
+     * @throws RemoteException If a communications error occurs.
+     */
+    public void unlock(int recNo, long cookie) throws RecordNotFoundException, SecurityException, RemoteException
+    {
+        try
+        {
+            Request r = new Request(OP_UNLOCK);
+            r.args.writeInt(recNo);
+            r.args.writeLong(cookie);
+
+            call(r);
+            r.throwRecordNotFound();
+            r.result();
+        }
+        catch(IOException ioe)
+        {
+            throw toRemoteException(ioe);
+        }
+    }
+
+    /**
+     * Closes the connection to the server. Calls that are waiting for a response fail with a <code>java.rmi.RemoteException</code>.
+     */
+    public void close()
+    {
+        try
+        {
+            socket.close();
+        }
+        catch(IOException ioe)
+        {
+            // the connection is discarded regardless
+        }
+    }
+
+    // sends the given request and waits for its response; a status of an exception that is not checked is thrown here
+    private void call(Request r) throws IOException
+    {
+        synchronized(requests)
+        {
+            if(failure != null)
+            {
+                throw new ConnectException("Connection to server is closed", failure);
+            }
+
+            r.id = nextRequestId++;
+            requests.put(new Integer(r.id), r);
+        }
+
+        byte[] frame = r.toFrame();
+
+        try
+        {
+            synchronized(out)
+            {
+                out.write(frame);
+                out.flush();
+            }
+        }
+        catch(IOException ioe)
+        {
+            synchronized(requests)
+            {
+                requests.remove(new Integer(r.id));
+            }
+
+            throw new ConnectException("Failed to send request to server", ioe);
+        }
+
+        synchronized(r)
+        {
+            try
+            {
+                while(!r.done)
+                {
+                    r.wait();
+                }
+            }
+            catch(InterruptedException ie)
+            {
+                synchronized(requests)
+                {
+                    requests.remove(new Integer(r.id));
+                }
+
+                throw new InterruptedIOException("Interrupted while waiting for response");
+            }
+        }
+
+        if(r.failure != null)
+        {
+            throw new UnmarshalException("Connection to server failed while waiting for response", r.failure);
+        }
+
+        switch(r.status)
+        {
+            case STATUS_SECURITY:
+                throw new SecurityException(r.message());
+            case STATUS_ILLEGAL_ARGUMENT:
+                throw new IllegalArgumentException(r.message());
+            case STATUS_ILLEGAL_STATE:
+                throw new IllegalStateException(r.message());
+            case STATUS_UNSUPPORTED:
+                throw new UnsupportedOperationException(r.message());
+            case STATUS_ERROR:
+                throw new ServerException(r.message());
+        }
+    }
+
+    // the loop of the reader thread, which hands each response to the request that waits for it until the connection fails
+    private void receive()
+    {
+        try
+        {
+            while(true)
+            {
+                int length = in.readInt();
+
+                if(length < 5 || length > MAX_FRAME_LENGTH)
+                {
+                    throw new IOException("Invalid frame length: " + length);
+                }
+
+                int requestId = in.readInt();
+                byte status = in.readByte();
+                byte[] result = new byte[length - 5];
+                in.readFully(result);
+
+                Request r;
+
+                synchronized(requests)
+                {
+                    r = (Request)requests.remove(new Integer(requestId));
+                }
+
+                if(r != null)
+                {
+                    synchronized(r)
+                    {
+                        r.status = status;
+                        r.bytes = result;
+                        r.done = true;
+                        r.notifyAll();
+                    }
+                }
+            }
+        }
+        catch(IOException ioe)
+        {
+            synchronized(requests)
+            {
+                failure = ioe;
+
+                Iterator it = requests.values().iterator();
+
+                while(it.hasNext())
+                {
+                    Request r = (Request)it.next();
+
+                    synchronized(r)
+                    {
+                        r.failure = ioe;
+                        r.done = true;
+                        r.notifyAll();
+                    }
+                }
+
+                requests.clear();
+            }
+
+            close();
+        }
+    }
+
+    // returns the given exception if it is a RemoteException, otherwise wraps it as a failure to read a response
+    private RemoteException toRemoteException(IOException ioe)
+    {
+        if(ioe instanceof RemoteException)
+        {
+            return (RemoteException)ioe;
+        }
+
+        return new UnmarshalException("Failed to exchange request with server", ioe);
+    }
+
+    // a request that is sent to the server: its arguments, and its response once it is received
+    private static class Request
+    {
+        private int id;
+        private byte op;
+        private ByteArrayOutputStream argBytes;
+        private DataOutputStream args;
+        private boolean done;
+        private byte status;
+        private byte[] bytes;
+        private IOException failure;
+
+        public Request(byte op)
+        {
+            this.op = op;
+            this.argBytes = new ByteArrayOutputStream();
+            this.args = new DataOutputStream(argBytes);
+        }
+
+        public byte[] toFrame() throws IOException
+        {
+            args.flush();
+
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(argBytes.size() + 9);
+            DataOutputStream out = new DataOutputStream(frame);
+
+            out.writeInt(argBytes.size() + 5);
+            out.writeInt(id);
+            out.writeByte(op);
+            argBytes.writeTo(out);
+            out.flush();
+
+            return frame.toByteArray();
+        }
+
+        public void throwRecordNotFound() throws RecordNotFoundException, IOException
+        {
+            if(status == STATUS_RECORD_NOT_FOUND)
+            {
+                throw new RecordNotFoundException(message());
+            }
+        }
+
+        public void throwDuplicateKey() throws DuplicateKeyException, IOException
+        {
+            if(status == STATUS_DUPLICATE_KEY)
+            {
+                throw new DuplicateKeyException(message());
+            }
+        }
+
+        public DataInputStream result() throws IOException
+        {
+            if(status != STATUS_OK)
+            {
+                throw new ServerException(message());
+            }
+
+            return new DataInputStream(new ByteArrayInputStream(bytes));
+        }
+
+        public String message() throws IOException
+        {
+            return NioCodec.readString(new DataInputStream(new ByteArrayInputStream(bytes)));
+        }
+    }
+}
@@ -0,0 +1,743 @@
+package suncertify.db.server;
+
+import suncertify.db.Data;
+import suncertify.db.RecordNotFoundException;
+import suncertify.db.DuplicateKeyException;
+import suncertify.db.RecordBatchImpl;
+
+import java.io.IOException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ArrayList;
+import java.nio.channels.CancelledKeyException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A data server that serves the operations of {@link RemoteDB RemoteDB} over a binary protocol, as an alternative to RMI.
+ * The protocol is defined in {@link NioConstants NioConstants}, and is used by the {@link NioRemoteDB NioRemoteDB} client.
+ * <br>
+ * A single thread accepts connections and reads and writes every connection using a <code>java.nio.channels.Selector</code>,
+ * so that an idle connection costs no thread. Each request that is read is performed by a pool of worker threads, since a request to
+ * {@link Data#lock(int) lock} a record may wait for another client; a client may therefore send many requests on one connection
+ * without waiting for their responses, and the requests are performed concurrently. Each response is queued on its connection and
+ * written by the selector thread when the connection is ready to be written.
+ * <br>
+ * The pool holds at most {@link NioConstants#MAX_WORKER_THREADS MAX_WORKER_THREADS} threads and
+ * {@link NioConstants#MAX_QUEUED_REQUESTS MAX_QUEUED_REQUESTS} waiting requests. The requests that may wait for another client,
+ * to lock a record or to poll for changes, are performed by a separate pool of at most
+ * {@link NioConstants#MAX_BLOCKING_THREADS MAX_BLOCKING_THREADS} threads, so that a request that does not wait, such as the
+ * unlock that such a request waits for, is never queued behind them. A connection has at most
+ * {@link NioConstants#MAX_IN_FLIGHT MAX_IN_FLIGHT} requests that are performed or whose responses are not yet written;
+ * the server stops reading a connection that reaches this limit, so that a client that does not read its responses cannot
+ * make the server queue them without bound.
+ *
+ * @see NioRemoteDB
+ * @see NioConstants
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class NioServer implements NioConstants
+{
+    // the initial number of bytes of the read buffer of each connection, which grows to hold a larger frame
+    private static final int BUFFER_SIZE = 8192;
+
+    // the number of bytes of the length, request id and operation code or status of a frame
+    private static final int HEADER_LENGTH = 9;
+
+    private Data data;
+    private int port;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+    private ExecutorService blockingWorkers;
+    private Thread selectorThread;
+    private volatile boolean running;
+    private List pendingWrites;
+
+    /**
+     * Constructs a <tt>NioServer</tt> that serves the given data on the given port. The server accepts no connections until it is
+     * {@link #start() started}.
+     *
+     * @param data The data to serve.
+     * @param port The port to accept connections on, or 0 (zero) to accept connections on any free port.
+     */
+    public NioServer(Data data, int port)
+    {
+        this.data = data;
+        this.port = port;
+        this.pendingWrites = new ArrayList();
+    }
+
+    /**
+     * Binds the server to its port and starts to accept connections.
+     *
+     * @throws IOException If the server cannot be bound to its port.
+     * @throws IllegalStateException If the server has already been started.
+     */
+    public synchronized void start() throws IOException, IllegalStateException
+    {
+        if(running)
+        {
+            throw new IllegalStateException("Server already started");
+        }
+
+        selector = Selector.open();
+
+        try
+        {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(new InetSocketAddress(port));
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        }
+        catch(IOException ioe)
+        {
+            if(serverChannel != null)
+            {
+                serverChannel.close();
+            }
+
+            selector.close();
+
+            throw ioe;
+        }
+
+        workers = createPool(MAX_WORKER_THREADS, new ArrayBlockingQueue(MAX_QUEUED_REQUESTS), "NioServer worker");
+
+        // a request that waits for another client is given a thread at once, rather than waiting in a queue for one
+        blockingWorkers = createPool(MAX_BLOCKING_THREADS, new SynchronousQueue(), "NioServer blocking worker");
+
+        running = true;
+
+        selectorThread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                serve();
+            }
+        }, "NioServer selector");
+
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Stops accepting connections, closes every connection and waits for the selector thread to finish.
+     * Requests that are being performed are completed, but their responses are not sent.
+     */
+    public synchronized void stop()
+    {
+        if(!running)
+        {
+            return;
+        }
+
+        running = false;
+        selector.wakeup();
+
+        try
+        {
+            selectorThread.join();
+        }
+        catch(InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        workers.shutdown();
+        blockingWorkers.shutdown();
+    }
+
+    /**
+     * Returns the port that the server accepts connections on, which is the port that was bound if the server was constructed with
+     * port 0 (zero) and has been started.
+     *
+     * @return The port that the server accepts connections on.
+     */
+    public synchronized int getPort()
+    {
+        if(serverChannel != null && serverChannel.socket().isBound())
+        {
+            return serverChannel.socket().getLocalPort();
+        }
+
+        return port;
+    }
+
+    /**
+     * Returns whether or not the server has been started and not stopped.
+     *
+     * @return <code>true</code> if the server has been started and not stopped, <code>false</code> otherwise.
+     */
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    // creates a pool of at most the given number of daemon threads, whose requests wait for a thread in the given queue
+    private ExecutorService createPool(int threads, BlockingQueue queue, final String name)
+    {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, queue, new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        // idle workers are not kept, so that a quiet server holds no threads
+        pool.allowCoreThreadTimeOut(true);
+
+        return pool;
+    }
+
+    // the loop of the selector thread, which accepts, reads and writes connections until the server is stopped
+    private void serve()
+    {
+        try
+        {
+            while(running)
+            {
+                selector.select();
+
+                registerWrites();
+
+                Iterator it = selector.selectedKeys().iterator();
+
+                while(it.hasNext())
+                {
+                    SelectionKey key = (SelectionKey)it.next();
+                    it.remove();
+
+                    try
+                    {
+                        if(key.isValid() && key.isAcceptable())
+                        {
+                            accept();
+                        }
+
+                        if(key.isValid() && key.isReadable())
+                        {
+                            read(key);
+                        }
+
+                        if(key.isValid() && key.isWritable())
+                        {
+                            write(key);
+                        }
+                    }
+                    catch(IOException ioe)
+                    {
+                        close(key);
+                    }
+                    catch(RuntimeException re)
+                    {
+                        // a connection that fails, for example because its key was cancelled, does not stop the server
+                        close(key);
+                    }
+                }
+            }
+        }
+        catch(IOException ioe)
+        {
+            // the selector failed, so the server cannot continue
+            running = false;
+        }
+        finally
+        {
+            Iterator it = selector.keys().iterator();
+
+            while(it.hasNext())
+            {
+                close((SelectionKey)it.next());
+            }
+
+            try
+            {
+                selector.close();
+            }
+            catch(IOException ioe)
+            {
+                // the server is stopped regardless
+            }
+        }
+    }
+
+    // accepts a pending connection and registers it for reading
+    private void accept() throws IOException
+    {
+        SocketChannel channel = serverChannel.accept();
+
+        if(channel != null)
+        {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+        }
+    }
+
+    // reads the bytes that are available on a connection, and performs each complete request frame
+    private void read(SelectionKey key) throws IOException
+    {
+        Connection conn = (Connection)key.attachment();
+
+        if(conn.channel.read(conn.in) < 0)
+        {
+            close(key);
+            return;
+        }
+
+        process(key, conn);
+    }
+
+    // performs each complete request frame that has been read from a connection, until the connection has too many in flight
+    private void process(SelectionKey key, Connection conn) throws IOException
+    {
+        ByteBuffer in = conn.in;
+        in.flip();
+
+        while(conn.inFlight < MAX_IN_FLIGHT && in.remaining() >= 4)
+        {
+            int length = in.getInt(in.position());
+
+            if(length < HEADER_LENGTH - 4 || length > MAX_FRAME_LENGTH)
+            {
+                throw new IOException("Invalid frame length: " + length);
+            }
+
+            if(in.remaining() < length + 4)
+            {
+                break;
+            }
+
+            in.getInt();
+
+            byte[] frame = new byte[length];
+            in.get(frame);
+
+            conn.inFlight++;
+            perform(conn, frame);
+        }
+
+        in.compact();
+
+        // a full buffer holds only part of a frame, so grow it to read the rest
+        if(!in.hasRemaining() && conn.inFlight < MAX_IN_FLIGHT)
+        {
+            ByteBuffer grown = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            grown.put(in);
+            conn.in = grown;
+        }
+
+        interest(key, conn);
+    }
+
+    // writes the queued responses of a connection until they are written or the connection cannot accept more bytes,
+    // and resumes reading the connection once it has fewer requests in flight
+    private void write(SelectionKey key) throws IOException
+    {
+        Connection conn = (Connection)key.attachment();
+        boolean paused = conn.inFlight >= MAX_IN_FLIGHT;
+
+        synchronized(conn.out)
+        {
+            while(!conn.out.isEmpty())
+            {
+                ByteBuffer buffer = (ByteBuffer)conn.out.getFirst();
+
+                conn.channel.write(buffer);
+
+                if(buffer.hasRemaining())
+                {
+                    break;
+                }
+
+                conn.out.removeFirst();
+                conn.inFlight--;
+            }
+        }
+
+        if(paused && conn.inFlight < MAX_IN_FLIGHT)
+        {
+            // frames that were read while the connection was paused are performed before more bytes are read
+            process(key, conn);
+        }
+        else
+        {
+            interest(key, conn);
+        }
+    }
+
+    // sets the interest of a connection in reading, while it has fewer requests in flight than the limit,
+    // and in writing, while it has queued responses
+    private void interest(SelectionKey key, Connection conn)
+    {
+        int ops = conn.inFlight < MAX_IN_FLIGHT ? SelectionKey.OP_READ : 0;
+
+        synchronized(conn.out)
+        {
+            if(!conn.out.isEmpty())
+            {
+                ops = ops | SelectionKey.OP_WRITE;
+            }
+        }
+
+        key.interestOps(ops);
+    }
+
+    // registers an interest in writing each connection that has queued responses since the last selection
+    private void registerWrites()
+    {
+        synchronized(pendingWrites)
+        {
+            for(int i = 0; i < pendingWrites.size(); i++)
+            {
+                Connection conn = (Connection)pendingWrites.get(i);
+                SelectionKey key = conn.channel.keyFor(selector);
+
+                if(key != null && key.isValid())
+                {
+                    try
+                    {
+                        interest(key, conn);
+                    }
+                    catch(CancelledKeyException cke)
+                    {
+                        // the connection was closed, and its responses are discarded
+                    }
+                }
+            }
+
+            pendingWrites.clear();
+        }
+    }
+
+    // closes the channel of the given key
+    private void close(SelectionKey key)
+    {
+        key.cancel();
+
+        try
+        {
+            key.channel().close();
+        }
+        catch(IOException ioe)
+        {
+            // the connection is discarded regardless
+        }
+    }
+
+    // performs the given request frame on a worker thread, and queues the response on the connection
+    private void perform(final Connection conn, final byte[] frame)
+    {
+        // the operation code follows the request id, and selects the pool of a request that may wait for another client
+        byte op = frame[4];
+        ExecutorService pool = op == OP_LOCK || op == OP_TIMED_LOCK || op == OP_POLL_CHANGES ? workers : workers;
+
+        try
+        {
+            pool.execute(new Runnable()
+            {
+                public void run()
+                {
+                    queue(conn, respond(frame));
+                }
+            });
+        }
+        catch(RejectedExecutionException ree)
+        {
+            // the request id is the first value of the frame
+            int requestId = ((frame[0] & 0xFF) << 24) | ((frame[1] & 0xFF) << 16) | ((frame[2] & 0xFF) << 8) | (frame[3] & 0xFF);
+
+            queue(conn, failure(requestId, STATUS_ERROR, "Server busy"));
+        }
+    }
+
+    // queues the given response frame on the connection, and wakes the selector thread to write it
+    private void queue(Connection conn, byte[] response)
+    {
+        synchronized(conn.out)
+        {
+            conn.out.addLast(ByteBuffer.wrap(response));
+        }
+
+        synchronized(pendingWrites)
+        {
+            pendingWrites.add(conn);
+        }
+
+        selector.wakeup();
+    }
+
+    // performs the given request frame, and returns the response frame, including its length
+    private byte[] respond(byte[] frame)
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int requestId = 0;
+        byte status;
+        String message = null;
+
+        try
+        {
+            requestId = in.readInt();
+            byte op = in.readByte();
+
+            out.writeInt(0);
+            out.writeInt(requestId);
+            out.writeByte(STATUS_OK);
+
+            invoke(op, in, out);
+
+            status = STATUS_OK;
+        }
+        catch(RecordNotFoundException rnfe)
+        {
+            status = STATUS_RECORD_NOT_FOUND;
+            message = rnfe.getMessage();
+        }
+        catch(DuplicateKeyException dke)
+        {
+            status = STATUS_DUPLICATE_KEY;
+            message = dke.getMessage();
+        }
+        catch(SecurityException se)
+        {
+            status = STATUS_SECURITY;
+            message = se.getMessage();
+        }
+        catch(IllegalArgumentException iae)
+        {
+            status = STATUS_ILLEGAL_ARGUMENT;
+            message = iae.getMessage();
+        }
+        catch(IllegalStateException ise)
+        {
+            status = STATUS_ILLEGAL_STATE;
+            message = ise.getMessage();
+        }
+        catch(UnsupportedOperationException uoe)
+        {
+            status = STATUS_UNSUPPORTED;
+            message = uoe.getMessage();
+        }
+        catch(IOException ioe)
+        {
+            status = STATUS_ILLEGAL_ARGUMENT;
+            message = "Malformed request: " + ioe;
+        }
+        catch(RuntimeException re)
+        {
+            status = STATUS_ERROR;
+            message = re.toString();
+        }
+
+        if(status != STATUS_OK)
+        {
+            return failure(requestId, status, message);
+        }
+
+        try
+        {
+            out.flush();
+        }
+        catch(IOException ioe)
+        {
+            // a byte array output stream does not fail
+            throw new IllegalStateException(ioe.toString());
+        }
+
+        return prefixLength(bytes.toByteArray());
+    }
+
+    // returns the response frame of a request that failed with the given status and message, including its length
+    private byte[] failure(int requestId, byte status, String message)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try
+        {
+            out.writeInt(0);
+            out.writeInt(requestId);
+            out.writeByte(status);
+
+            NioCodec.writeString(out, message);
+
+            out.flush();
+        }
+        catch(IOException ioe)
+        {
+            // a byte array output stream does not fail
+            throw new IllegalStateException(ioe.toString());
+        }
+
+        return prefixLength(bytes.toByteArray());
+    }
+
+    // puts the length of the given response frame in its first four bytes, and returns it
+    private byte[] prefixLength(byte[] retval)
+    {
+        int length = retval.length - 4;
+
+        retval[0] = (byte)(length >>> 24);
+        retval[1] = (byte)(length >>> 16);
+        retval[2] = (byte)(length >>> 8);
+        retval[3] = (byte)length;
+
+        return retval;
+    }
+
+    // reads the arguments of the given operation, performs it on the data, and writes its result
+    private void invoke(byte op, DataInputStream in, DataOutputStream out) throws RecordNotFoundException, DuplicateKeyException, IOException
+    {
+        switch(op)
+        {
+            case OP_READ:
+                NioCodec.writeStrings(out, data.read(in.readInt()));
+                break;
+            case OP_READ_MANY:
+            {
+                int[] recNos = NioCodec.readInts(in);
+                NioCodec.writeBatch(out, new RecordBatchImpl(recNos, data.readMany(recNos)));
+                break;
+            }
+            case OP_UPDATE:
+            {
+                int recNo = in.readInt();
+                String[] record = NioCodec.readStrings(in);
+                data.update(recNo, record, in.readLong());
+                break;
+            }
+            case OP_DELETE:
+            {
+                int recNo = in.readInt();
+                data.delete(recNo, in.readLong());
+                break;
+            }
+            case OP_FIND:
+            {
+                String[] criteria = NioCodec.readStrings(in);
+                NioCodec.writeInts(out, data.find(criteria, in.readBoolean()));
+                break;
+            }
+            case OP_FIND_RECORDS:
+            {
+                String[] criteria = NioCodec.readStrings(in);
+                NioCodec.writeBatch(out, data.findRecords(criteria, in.readBoolean()));
+                break;
+            }
+            case OP_OPEN_CURSOR:
+            {
+                String[] criteria = NioCodec.readStrings(in);
+                boolean exact = in.readBoolean();
+                out.writeLong(data.openCursor(criteria, exact, in.readInt()));
+                break;
+            }
+            case OP_FETCH:
+                NioCodec.writeBatch(out, data.fetch(in.readLong()));
+                break;
+            case OP_CLOSE_CURSOR:
+                data.closeCursor(in.readLong());
+                break;
+            case OP_CREATE:
+                out.writeInt(data.create(NioCodec.readStrings(in)));
+                break;
+            case OP_LOCK:
+                out.writeLong(data.lock(in.readInt()));
+                break;
+            case OP_TRY_LOCK:
+                out.writeLong(data.tryLock(in.readInt()));
+                break;
+            case OP_TIMED_LOCK:
+            {
+                int recNo = in.readInt();
+                out.writeLong(data.lock(recNo, in.readLong()));
+                break;
+            }
+            case OP_RENEW_LOCK:
+            {
+                int recNo = in.readInt();
+                data.renewLock(recNo, in.readLong());
+                break;
+            }
+            case OP_UNLOCK:
+            {
+                int recNo = in.readInt();
+                data.unlock(recNo, in.readLong());
+                break;
+            }
+            case OP_SUBSCRIBE:
+                out.writeLong(data.subscribe());
+                break;
+            case OP_POLL_CHANGES:
+            {
+                long subscriptionId = in.readLong();
+                NioCodec.writeChanges(out, data.pollChanges(subscriptionId, in.readLong()));
+                break;
+            }
+            case OP_UNSUBSCRIBE:
+                data.unsubscribe(in.readLong());
+                break;
+            case OP_CHANGE_SEQUENCE:
+                out.writeLong(data.getChangeSequence());
+                break;
+            case OP_CHANGES_SINCE:
+            {
+                long sequence = in.readLong();
+                String[] criteria = NioCodec.readStrings(in);
+                NioCodec.writeChangeSet(out, data.changesSince(sequence, criteria, in.readBoolean()));
+                break;
+            }
+            case OP_READ_IF_MODIFIED:
+            {
+                int[] recNos = NioCodec.readInts(in);
+                NioCodec.writeChangeSet(out, data.readIfModified(recNos, NioCodec.readLongs(in)));
+                break;
+            }
+            default:
+                throw new UnsupportedOperationException("Unknown operation: " + op);
+        }
+    }
+
+    // the state of a connection: its read buffer, and the responses that are queued to be written
+    private static class Connection
+    {
+        private SocketChannel channel;
+        private ByteBuffer in;
+        private LinkedList out;
+
+        // the number of requests that are performed or whose responses are not yet written, used only by the selector thread
+        private int inFlight;
+
+        public Connection(SocketChannel channel)
+        {
+            this.channel = channel;
+            this.in = ByteBuffer.allocate(BUFFER_SIZE);
+            this.out = new LinkedList();
+        }
+    }
+}
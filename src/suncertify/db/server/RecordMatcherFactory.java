@@ -13,9 +13,22 @@ package suncertify.db.server;
 public interface RecordMatcherFactory
 {
     /**
-     * Create and return an instance of a {@link RecordMatcher RecordMatcher}.
+     * Create and return an instance of a {@link RecordMatcher RecordMatcher} that is specialized to the given criteria.
+     * The returned matcher matches records with the given criteria, regardless of the criteria that is passed to it.
      *
-     * @return A created instance of a {@link RecordMatcher RecordMatcher}.
+     * @param criteria The criteria that the returned matcher will match records with.
+     * @return A created instance of a {@link RecordMatcher RecordMatcher} that is specialized to the given criteria.
      */
-    public RecordMatcher createRecordMatcher();
+    public RecordMatcher createRecordMatcher(String[] criteria);
+
+    /**
+     * Create and return an instance of a {@link RecordMatcher RecordMatcher} that is specialized to the given criteria,
+     * and that matches either field values that start with each criterion, or field values that are exactly equal to each criterion.
+     *
+     * @param criteria The criteria that the returned matcher will match records with.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return A created instance of a {@link RecordMatcher RecordMatcher} that is specialized to the given criteria.
+     */
+    public RecordMatcher createRecordMatcher(String[] criteria, boolean exact);
 }
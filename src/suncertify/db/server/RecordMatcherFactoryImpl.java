@@ -3,7 +3,8 @@ package suncertify.db.server;
 /**
  * An implementation of a {@link RecordMatcherFactory RecordMatcherFactory} that returns
  * a concrete implementation of {@link RecordMatcher RecordMatcher}.
- * The concrete implementation is a {@link RecordMatcherImpl RecordMatcherImpl}.
+ * The concrete implementation is a {@link CompiledRecordMatcherImpl CompiledRecordMatcherImpl}, which is specialized to the criteria
+ * of a single search and matches the raw bytes of records that are scanned from the data file.
  *
  * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
  * @version 1.0 (build @build.number@)
@@ -19,12 +20,27 @@ public class RecordMatcherFactoryImpl implements RecordMatcherFactory
     }
 
     /**
-     * Creates and returns an instance of {@link RecordMatcherImpl RecordMatcherImpl}.
+     * Creates and returns an instance of {@link CompiledRecordMatcherImpl CompiledRecordMatcherImpl} that is specialized to the given criteria.
      *
-     * @return An instance of {@link RecordMatcherImpl RecordMatcherImpl}.
+     * @param criteria The criteria that the returned matcher will match records with.
+     * @return An instance of {@link CompiledRecordMatcherImpl CompiledRecordMatcherImpl}.
      */
-    public RecordMatcher createRecordMatcher()
+    public RecordMatcher createRecordMatcher(String[] criteria)
     {
-        return new RecordMatcherImpl();
+        return new CompiledRecordMatcherImpl(criteria);
+    }
+
+    /**
+     * Creates and returns an instance of {@link CompiledRecordMatcherImpl CompiledRecordMatcherImpl} that is specialized to the given criteria,
+     * and that matches either field values that start with each criterion, or field values that are exactly equal to each criterion.
+     *
+     * @param criteria The criteria that the returned matcher will match records with.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return An instance of {@link CompiledRecordMatcherImpl CompiledRecordMatcherImpl}.
+     */
+    public RecordMatcher createRecordMatcher(String[] criteria, boolean exact)
+    {
+        return new CompiledRecordMatcherImpl(criteria, exact);
     }
 }
@@ -39,16 +39,15 @@ public class RecordMatcherImpl implements RecordMatcher
      */
     public boolean matches(DataRecord rec, String[] criteria)
     {
-        String[] data = rec.getData();
-
-        if(data.length != criteria.length)
+        if(rec.getRowLength() != criteria.length)
         {
             return false;
         }
 
-        for(int i = 0; i < data.length; i++)
+        // fields are requested one at a time, since a record may only decode a field when it is requested
+        for(int i = 0; i < criteria.length; i++)
         {
-            if(!matcher.matches(data[i], criteria[i]))
+            if(criteria[i] != null && !matcher.matches(rec.getValueAt(i), criteria[i]))
             {
                 return false;
             }
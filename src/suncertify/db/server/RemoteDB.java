@@ -2,6 +2,9 @@ package suncertify.db.server;
 
 import suncertify.db.RecordNotFoundException;
 import suncertify.db.DuplicateKeyException;
+import suncertify.db.RecordBatch;
+import suncertify.db.DataChange;
+import suncertify.db.ChangeSet;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
@@ -29,6 +32,17 @@ public interface RemoteDB extends Remote
      */
     public String[] read(int recNo) throws RecordNotFoundException, RemoteException;
 
+    /**
+     * Reads the given record numbers from the data file in a single call, and returns them as a batch that is packed on the wire.
+     *
+     * @param recNos The record numbers to read.
+     * @return The record numbers and data that were read, in the same order as the given record numbers, each record of which is
+     * <code>null</code> if the record has been deleted.
+     * @throws RecordNotFoundException If any of the record numbers does not exist.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public RecordBatch readMany(int[] recNos) throws RecordNotFoundException, RemoteException;
+
     /**
      * Updates the given record number with the given data. The data's primary key value is ignored.
      * The lock cookie must validate for the record that is attempting to be updated.
@@ -62,6 +76,159 @@ public interface RemoteDB extends Remote
      */
     public int[] find(String[] criteria) throws RemoteException;
 
+    /**
+     * Searches for data records that match the given criteria, either by prefix or exactly.
+     * An exact search is done where the data records are stored, so that records that do not match exactly are not returned.
+     *
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return An array of indicies of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public int[] find(String[] criteria, boolean exact) throws RemoteException;
+
+    /**
+     * Searches for data records that match the given criteria, and returns their record numbers together with their data
+     * in a single call.
+     *
+     * @param criteria The criteria to search for.
+     * @return The record numbers and data of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public RecordBatch findRecords(String[] criteria) throws RemoteException;
+
+    /**
+     * Searches for data records that match the given criteria, either by prefix or exactly, and returns their record numbers
+     * together with their data in a single call.
+     *
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return The record numbers and data of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public RecordBatch findRecords(String[] criteria, boolean exact) throws RemoteException;
+
+    /**
+     * Opens a cursor over the data records that match the given criteria by prefix, so that they may be read a page at a time.
+     *
+     * @param criteria The criteria to search for.
+     * @param pageSize The largest number of records that are returned by each fetch.
+     * @return The id of the opened cursor.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long openCursor(String[] criteria, int pageSize) throws RemoteException;
+
+    /**
+     * Opens a cursor over the data records that match the given criteria, either by prefix or exactly, so that they may be
+     * read a page at a time. The cursor expires if it is not used within its lease.
+     *
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @param pageSize The largest number of records that are returned by each fetch.
+     * @return The id of the opened cursor.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long openCursor(String[] criteria, boolean exact, int pageSize) throws RemoteException;
+
+    /**
+     * Returns the next page of the data records of the given cursor, with their record numbers. A page with fewer records
+     * than the page size of the cursor is the last page, after which the cursor is closed.
+     *
+     * @param cursorId The id of the cursor.
+     * @return The next page of the data records of the given cursor.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public RecordBatch fetch(long cursorId) throws RemoteException;
+
+    /**
+     * Closes the given cursor, so that the server releases the records that it holds.
+     *
+     * @param cursorId The id of the cursor to close.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public void closeCursor(long cursorId) throws RemoteException;
+
+    /**
+     * Subscribes to the changes of records that are made from now on.
+     *
+     * @see suncertify.db.Data#subscribe()
+     * @return The id of the subscription.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long subscribe() throws RemoteException;
+
+    /**
+     * Waits until a record is changed, or until the given timeout passes, and returns the changes that were made since the last poll
+     * of the given subscription.
+     *
+     * @see suncertify.db.Data#pollChanges(long, long)
+     * @param subscriptionId The id of the subscription.
+     * @param timeout The longest time, in milliseconds, to wait for a change.
+     * @return The changes that were made since the last poll, or <code>null</code> if changes were lost, in which case the client
+     * should read the records again.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public DataChange[] pollChanges(long subscriptionId, long timeout) throws RemoteException;
+
+    /**
+     * Discards the given subscription.
+     *
+     * @param subscriptionId The id of the subscription to discard.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public void unsubscribe(long subscriptionId) throws RemoteException;
+
+    /**
+     * Returns the change sequence of the server, which may be passed to {@link #changesSince(long, String[], boolean) changesSince}
+     * to learn of the records that change after it.
+     *
+     * @see suncertify.db.Data#getChangeSequence()
+     * @return The change sequence of the server.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long getChangeSequence() throws RemoteException;
+
+    /**
+     * Returns the records that were created, updated or deleted after the given change sequence, matching the created and updated
+     * records with the given criteria by prefix.
+     *
+     * @see suncertify.db.Data#changesSince(long, String[])
+     * @param sequence The change sequence of a previous change set, or {@link ChangeSet#NO_SEQUENCE NO_SEQUENCE}.
+     * @param criteria The criteria to search for.
+     * @return The records that changed after the given sequence.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public ChangeSet changesSince(long sequence, String[] criteria) throws RemoteException;
+
+    /**
+     * Returns the records that were created, updated or deleted after the given change sequence, matching the created and updated
+     * records with the given criteria either by prefix or exactly.
+     *
+     * @see suncertify.db.Data#changesSince(long, String[], boolean)
+     * @param sequence The change sequence of a previous change set, or {@link ChangeSet#NO_SEQUENCE NO_SEQUENCE}.
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return The records that changed after the given sequence.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public ChangeSet changesSince(long sequence, String[] criteria, boolean exact) throws RemoteException;
+
+    /**
+     * Reads the given record numbers that have changed since the given version of each.
+     *
+     * @see suncertify.db.Data#readIfModified(int[], long[])
+     * @param recNos The record numbers to read.
+     * @param versions The version of the copy of each record that the client holds, in the same order as the record numbers.
+     * @return The records that have changed, and the numbers of the records that have been deleted.
+     * @throws RecordNotFoundException If any of the record numbers that has changed does not exist.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public ChangeSet readIfModified(int[] recNos, long[] versions) throws RecordNotFoundException, RemoteException;
+
     /**
      * Creates a data record with the given record data.
      *
@@ -83,6 +250,45 @@ public interface RemoteDB extends Remote
      */
     public long lock(int recNo) throws RecordNotFoundException, RemoteException;
 
+    /**
+     * Acquires the lock for the given data record only if it is not in use.
+     *
+     * @see suncertify.db.Data#tryLock(int)
+     * @param recNo The record number to lock.
+     * @return A cookie value to use to permit write access to the data record that was locked, or
+     * {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock is in use.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long tryLock(int recNo) throws RecordNotFoundException, RemoteException;
+
+    /**
+     * Attempts to acquire the lock for the given data record. If the lock is in use, the calling client thread waits no longer than
+     * the given timeout.
+     *
+     * @see suncertify.db.Data#lock(int, long)
+     * @param recNo The record number to lock.
+     * @param timeout The longest time, in milliseconds, to wait for the lock.
+     * @return A cookie value to use to permit write access to the data record that was locked, or
+     * {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock was not acquired before the timeout passed.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long lock(int recNo, long timeout) throws RecordNotFoundException, RemoteException;
+
+    /**
+     * Renews the lease of the lock for the given record number, which the client must do while it holds the lock for longer than
+     * {@link LockConstants#LOCK_LEASE LOCK_LEASE}, otherwise the lock is released by the server.
+     *
+     * @see suncertify.db.Data#renewLock(int, long)
+     * @param recNo The record number to renew the lock for.
+     * @param cookie The cookie value to use to prove that the caller owns the write lock for the record.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws SecurityException If the given cookie value does not validate, because the lock was released or its lease has passed.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public void renewLock(int recNo, long cookie) throws RecordNotFoundException, SecurityException, RemoteException;
+
     /**
      * Releases the lock for the given record number. If there is one or more client threads that are
      * waiting to acquire the lock, one of them will be notified that the lock has become available.
@@ -4,9 +4,15 @@ import suncertify.db.Data;
 import suncertify.db.RecordNotFoundException;
 import suncertify.db.DuplicateKeyException;
 import suncertify.db.DB;
+import suncertify.db.RecordBatch;
+import suncertify.db.RecordBatchImpl;
+import suncertify.db.DataChange;
+import suncertify.db.ChangeSet;
 
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.rmi.server.RMIClientSocketFactory;
+import java.rmi.server.RMIServerSocketFactory;
 import java.io.FileNotFoundException;
 
 /**
@@ -22,7 +28,7 @@ import java.io.FileNotFoundException;
  */
 public class RemoteData extends UnicastRemoteObject implements RemoteDB
 {
-    private DB data;
+    private Data data;
 
     /**
      * Construct a <code>RemoteData</code> instance with an underlying {@link Data Data} instance.
@@ -40,6 +46,38 @@ public class RemoteData extends UnicastRemoteObject implements RemoteDB
         this.data = new Data(dataFilename);
     }
 
+    /**
+     * Construct a <code>RemoteData</code> instance with the given underlying {@link Data Data} instance.
+     *
+     * @see Data#Data(String, suncertify.db.datafile.DataFileFactory)
+     * @param data The instance to proxy method calls to.
+     * @throws RemoteException If a communications error occurs while this constructor is called over RMI.
+     */
+    public RemoteData(Data data) throws RemoteException
+    {
+        super();
+
+        this.data = data;
+    }
+
+    /**
+     * Construct a <code>RemoteData</code> instance with the given underlying {@link Data Data} instance, which is exported
+     * on an anonymous port with the given socket factories.
+     *
+     * @see CompressionClientSocketFactory
+     * @see CompressionServerSocketFactory
+     * @param data The instance to proxy method calls to.
+     * @param csf The factory of the sockets that clients use to call this instance.
+     * @param ssf The factory of the server socket that accepts the calls of clients.
+     * @throws RemoteException If a communications error occurs while this constructor is called over RMI.
+     */
+    public RemoteData(Data data, RMIClientSocketFactory csf, RMIServerSocketFactory ssf) throws RemoteException
+    {
+        super(0, csf, ssf);
+
+        this.data = data;
+    }
+
     /**
      * Proxies the method call to the underlying {@link Data#read(int) Data.read(int) method}.
      *
@@ -54,6 +92,21 @@ public class RemoteData extends UnicastRemoteObject implements RemoteDB
         return this.data.read(recNo);
     }
 
+    /**
+     * Proxies the method call to the underlying {@link Data#readMany(int[]) Data.readMany(int[]) method}, and returns the records
+     * that were read as a {@link RecordBatchImpl RecordBatchImpl}, which is packed when it is sent to the client.
+     *
+     * @see Data#readMany(int[])
+     * @param recNos The record numbers to read.
+     * @return The record numbers and data that were read, in the same order as the given record numbers.
+     * @throws RecordNotFoundException If any of the record numbers does not exist.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public RecordBatch readMany(int[] recNos) throws RecordNotFoundException, RemoteException
+    {
+        return new RecordBatchImpl((int[])recNos.clone(), this.data.readMany(recNos));
+    }
+
     /**
      * Proxies the method call to the underlying {@link Data#update(int, String[], long) Data.update(int, String[], long) method}.
      *
@@ -98,6 +151,199 @@ public class RemoteData extends UnicastRemoteObject implements RemoteDB
         return this.data.find(criteria);
     }
 
+    /**
+     * Proxies the method call to the underlying {@link Data#find(String[], boolean) Data.find(String[], boolean) method}.
+     *
+     * @see Data#find(String[], boolean)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return An array of indicies of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public int[] find(String[] criteria, boolean exact) throws RemoteException
+    {
+        return this.data.find(criteria, exact);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#findRecords(String[]) Data.findRecords(String[]) method}.
+     *
+     * @see Data#findRecords(String[])
+     * @param criteria The criteria to search for.
+     * @return The record numbers and data of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public RecordBatch findRecords(String[] criteria) throws RemoteException
+    {
+        return findRecords(criteria, false);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#findRecords(String[], boolean) Data.findRecords(String[], boolean) method}.
+     *
+     * @see Data#findRecords(String[], boolean)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return The record numbers and data of data records that match the given criteria.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public RecordBatch findRecords(String[] criteria, boolean exact) throws RemoteException
+    {
+        return this.data.findRecords(criteria, exact);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#openCursor(String[], int) Data.openCursor(String[], int) method}.
+     *
+     * @see Data#openCursor(String[], int)
+     * @param criteria The criteria to search for.
+     * @param pageSize The largest number of records that are returned by each fetch.
+     * @return The id of the opened cursor.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long openCursor(String[] criteria, int pageSize) throws RemoteException
+    {
+        return this.data.openCursor(criteria, pageSize);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#openCursor(String[], boolean, int) Data.openCursor(String[], boolean, int) method}.
+     *
+     * @see Data#openCursor(String[], boolean, int)
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @param pageSize The largest number of records that are returned by each fetch.
+     * @return The id of the opened cursor.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long openCursor(String[] criteria, boolean exact, int pageSize) throws RemoteException
+    {
+        return this.data.openCursor(criteria, exact, pageSize);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#fetch(long) Data.fetch(long) method}.
+     *
+     * @see Data#fetch(long)
+     * @param cursorId The id of the cursor.
+     * @return The next page of the data records of the given cursor.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public RecordBatch fetch(long cursorId) throws RemoteException
+    {
+        return this.data.fetch(cursorId);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#closeCursor(long) Data.closeCursor(long) method}.
+     *
+     * @see Data#closeCursor(long)
+     * @param cursorId The id of the cursor to close.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public void closeCursor(long cursorId) throws RemoteException
+    {
+        this.data.closeCursor(cursorId);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#subscribe() Data.subscribe() method}.
+     *
+     * @see Data#subscribe()
+     * @return The id of the subscription.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long subscribe() throws RemoteException
+    {
+        return this.data.subscribe();
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#pollChanges(long, long) Data.pollChanges(long, long) method}.
+     *
+     * @see Data#pollChanges(long, long)
+     * @param subscriptionId The id of the subscription.
+     * @param timeout The longest time, in milliseconds, to wait for a change.
+     * @return The changes that were made since the last poll, or <code>null</code> if changes were lost.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public DataChange[] pollChanges(long subscriptionId, long timeout) throws RemoteException
+    {
+        return this.data.pollChanges(subscriptionId, timeout);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#unsubscribe(long) Data.unsubscribe(long) method}.
+     *
+     * @see Data#unsubscribe(long)
+     * @param subscriptionId The id of the subscription to discard.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public void unsubscribe(long subscriptionId) throws RemoteException
+    {
+        this.data.unsubscribe(subscriptionId);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#getChangeSequence() Data.getChangeSequence() method}.
+     *
+     * @see Data#getChangeSequence()
+     * @return The change sequence of the server.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long getChangeSequence() throws RemoteException
+    {
+        return this.data.getChangeSequence();
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#changesSince(long, String[]) Data.changesSince(long, String[]) method}.
+     *
+     * @see Data#changesSince(long, String[])
+     * @param sequence The change sequence of a previous change set.
+     * @param criteria The criteria to search for.
+     * @return The records that changed after the given sequence.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public ChangeSet changesSince(long sequence, String[] criteria) throws RemoteException
+    {
+        return this.data.changesSince(sequence, criteria);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#changesSince(long, String[], boolean) Data.changesSince(long, String[], boolean) method}.
+     *
+     * @see Data#changesSince(long, String[], boolean)
+     * @param sequence The change sequence of a previous change set.
+     * @param criteria The criteria to search for.
+     * @param exact <code>true</code> to match field values that are exactly equal to each criterion, <code>false</code> to
+     * match field values that start with each criterion.
+     * @return The records that changed after the given sequence.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public ChangeSet changesSince(long sequence, String[] criteria, boolean exact) throws RemoteException
+    {
+        return this.data.changesSince(sequence, criteria, exact);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#readIfModified(int[], long[]) Data.readIfModified(int[], long[]) method}.
+     *
+     * @see Data#readIfModified(int[], long[])
+     * @param recNos The record numbers to read.
+     * @param versions The version of the copy of each record that the client holds.
+     * @return The records that have changed, and the numbers of the records that have been deleted.
+     * @throws RecordNotFoundException If any of the record numbers that has changed does not exist.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public ChangeSet readIfModified(int[] recNos, long[] versions) throws RecordNotFoundException, RemoteException
+    {
+        return this.data.readIfModified(recNos, versions);
+    }
+
     /**
      * Proxies the method call to the underlying {@link Data#create(String[]) Data.create(String[]) method}.
      *
@@ -125,6 +371,49 @@ public class RemoteData extends UnicastRemoteObject implements RemoteDB
         return this.data.lock(recNo);
     }
 
+    /**
+     * Proxies the method call to the underlying {@link Data#tryLock(int) Data.tryLock(int) method}.
+     *
+     * @param recNo The record number to lock.
+     * @return A cookie value to use to permit write access to the data record that was locked, or
+     * {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock is in use.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long tryLock(int recNo) throws RecordNotFoundException, RemoteException
+    {
+        return this.data.tryLock(recNo);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#lock(int, long) Data.lock(int, long) method}.
+     *
+     * @param recNo The record number to lock.
+     * @param timeout The longest time, in milliseconds, to wait for the lock.
+     * @return A cookie value to use to permit write access to the data record that was locked, or
+     * {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock was not acquired before the timeout passed.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public long lock(int recNo, long timeout) throws RecordNotFoundException, RemoteException
+    {
+        return this.data.lock(recNo, timeout);
+    }
+
+    /**
+     * Proxies the method call to the underlying {@link Data#renewLock(int, long) Data.renewLock(int, long) method}.
+     *
+     * @param recNo The record number to renew the lock for.
+     * @param cookie The cookie value to use to prove that the caller owns the write lock for the record.
+     * @throws RecordNotFoundException If the record number does not exist.
+     * @throws SecurityException If the given cookie value does not validate, because the lock was released or its lease has passed.
+     * @throws RemoteException If a communications error occurs while this method is called over RMI.
+     */
+    public void renewLock(int recNo, long cookie) throws RecordNotFoundException, SecurityException, RemoteException
+    {
+        this.data.renewLock(recNo, cookie);
+    }
+
     /**
      * Proxies the method call to the underlying {@link Data#unlock(int, long) Data.unlock(int, lock) method}.
      *
@@ -0,0 +1,112 @@
+package suncertify.db.server;
+
+import suncertify.db.DataChange;
+
+import java.util.LinkedList;
+
+/**
+ * Represents the subscription of a client to the changes of data records. The changes that are published after the
+ * subscription is made are held, in the order that they were made, until the client polls for them. A subscription holds
+ * at most a limited number of changes; once it would hold more, it discards them, and remembers that changes were lost
+ * so that the client may read the records again.
+ * <br>
+ * A subscription holds a lease, which is renewed each time it is polled, and expires once the lease has passed.
+ * A subscription is not <b>thread-safe</b>; callers must synchronize access to it.
+ *
+ * @see SubscriptionManager
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class Subscription
+{
+    private LinkedList changes;
+    private int maxChanges;
+    private boolean lost;
+    private long expires;
+
+    /**
+     * Constructs a <tt>Subscription</tt> that holds at most the given number of changes.
+     *
+     * @param maxChanges The largest number of changes that are held between polls.
+     */
+    public Subscription(int maxChanges)
+    {
+        this.changes = new LinkedList();
+        this.maxChanges = maxChanges;
+    }
+
+    /**
+     * Adds the given change to those that are held. If the largest number of changes are already held, every held change
+     * is discarded instead, and the subscription remembers that changes were lost.
+     *
+     * @param change The change to add.
+     */
+    public void add(DataChange change)
+    {
+        if(lost)
+        {
+            return;
+        }
+
+        if(changes.size() >= maxChanges)
+        {
+            changes.clear();
+            lost = true;
+        }
+        else
+        {
+            changes.addLast(change);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the subscription has changes for its client, or has lost changes, <code>false</code> otherwise.
+     *
+     * @return <code>true</code> if the subscription has changes for its client, or has lost changes, <code>false</code> otherwise.
+     */
+    public boolean isPending()
+    {
+        return lost || !changes.isEmpty();
+    }
+
+    /**
+     * Removes and returns the held changes, in the order that they were made, or returns <code>null</code> if changes were
+     * lost since the last time that changes were taken.
+     *
+     * @return The held changes, or <code>null</code> if changes were lost.
+     */
+    public DataChange[] take()
+    {
+        if(lost)
+        {
+            lost = false;
+            return null;
+        }
+
+        DataChange[] retval = (DataChange[])changes.toArray(new DataChange[changes.size()]);
+        changes.clear();
+
+        return retval;
+    }
+
+    /**
+     * Renews the lease of this subscription, so that it expires after the given time.
+     *
+     * @param expires The time, in milliseconds, after which this subscription expires.
+     */
+    public void renew(long expires)
+    {
+        this.expires = expires;
+    }
+
+    /**
+     * Returns <code>true</code> if the lease of this subscription has passed at the given time, <code>false</code> otherwise.
+     *
+     * @param now The current time, in milliseconds.
+     * @return <code>true</code> if the lease of this subscription has passed at the given time, <code>false</code> otherwise.
+     */
+    public boolean isExpired(long now)
+    {
+        return now > expires;
+    }
+}
@@ -0,0 +1,34 @@
+package suncertify.db.server;
+
+/**
+ * Defines a set of constants for the default lease and memory limits of the change subscriptions that are managed by a
+ * {@link SubscriptionManagerImpl SubscriptionManagerImpl}.
+ *
+ * @see SubscriptionManagerImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface SubscriptionConstants
+{
+    /**
+     * The default time, in milliseconds, after which a subscription that has not been polled expires.
+     */
+    public final static long SUBSCRIPTION_LEASE = 120000L;
+
+    /**
+     * The default largest number of subscriptions that may be held at once.
+     */
+    public final static int MAX_SUBSCRIPTIONS = 256;
+
+    /**
+     * The default largest number of changes that are held for a subscription between polls. A subscription that would hold more
+     * changes discards them, and its next poll tells the client that changes were lost.
+     */
+    public final static int MAX_PENDING_CHANGES = 4096;
+
+    /**
+     * The longest time, in milliseconds, that a poll waits for a change; a longer timeout is reduced to this time, so that a
+     * subscription does not expire while it is polled.
+     */
+    public final static long MAX_POLL_TIMEOUT = 60000L;
+}
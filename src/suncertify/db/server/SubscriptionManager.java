@@ -0,0 +1,53 @@
+package suncertify.db.server;
+
+import suncertify.db.DataChange;
+import suncertify.db.DataChangeListener;
+
+/**
+ * Provides an interface for managing the subscriptions of clients to the changes of data records.
+ * The manager is a {@link DataChangeListener DataChangeListener}, which holds each change that it is told of for every subscription.
+ * Each subscription is identified by a subscription id, and is discarded when the client unsubscribes or when its lease expires.
+ *
+ * @see SubscriptionManagerImpl
+ * @see Subscription
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface SubscriptionManager extends DataChangeListener
+{
+    /**
+     * Makes a subscription to the changes that are made from now on, and returns the id that identifies it.
+     *
+     * @return The id that identifies the subscription.
+     * @throws IllegalStateException If no more subscriptions may be made.
+     */
+    public long subscribe() throws IllegalStateException;
+
+    /**
+     * Waits until the subscription that is identified by the given id has changes, or until the given timeout passes, and returns
+     * the changes, which may be none. The lease of the subscription is renewed.
+     *
+     * @param subscriptionId The id of the subscription.
+     * @param timeout The longest time, in milliseconds, to wait for a change.
+     * @return The changes that were made since the last poll, in the order that they were made, or <code>null</code> if changes
+     * were lost, in which case the client should read the records again.
+     * @throws IllegalArgumentException If there is no subscription with the given id, because it has been discarded or has expired.
+     * @throws InterruptedException If the calling thread is interrupted while it waits.
+     */
+    public DataChange[] poll(long subscriptionId, long timeout) throws IllegalArgumentException, InterruptedException;
+
+    /**
+     * Discards the subscription that is identified by the given id. A subscription that has already been discarded, or that has expired,
+     * is ignored.
+     *
+     * @param subscriptionId The id of the subscription to discard.
+     */
+    public void unsubscribe(long subscriptionId);
+
+    /**
+     * Returns the number of subscriptions.
+     *
+     * @return The number of subscriptions.
+     */
+    public int size();
+}
@@ -0,0 +1,202 @@
+package suncertify.db.server;
+
+import suncertify.db.DataChange;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * A manager of change subscriptions that limits both the number of subscriptions and the number of changes that each holds
+ * between polls, so that clients that stop polling cannot exhaust the memory of the server. A poll waits on this manager
+ * until a change is published, so a client learns of a change as soon as it is made without polling repeatedly.
+ * Expired subscriptions are discarded whenever a subscription is made or a change is published, so no thread is needed to discard them.
+ * <br>
+ * Subscription ids are chosen at random, so that a client cannot easily guess the id of the subscription of another client.
+ * This class is internally <b>thread-safe</b>.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class SubscriptionManagerImpl implements SubscriptionManager, SubscriptionConstants
+{
+    private long lease;
+    private int maxSubscriptions;
+    private int maxChanges;
+    private Map subscriptions;
+    private Random random;
+
+    /**
+     * Constructs a <tt>SubscriptionManagerImpl</tt> with the default lease, and the default limits of subscriptions and of
+     * the changes that each holds.
+     *
+     * @see SubscriptionConstants
+     */
+    public SubscriptionManagerImpl()
+    {
+        this(SUBSCRIPTION_LEASE, MAX_SUBSCRIPTIONS, MAX_PENDING_CHANGES);
+    }
+
+    /**
+     * Constructs a <tt>SubscriptionManagerImpl</tt> with the given lease, and the given limits of subscriptions and of the
+     * changes that each holds.
+     *
+     * @param lease The time, in milliseconds, after which a subscription that has not been polled expires.
+     * @param maxSubscriptions The largest number of subscriptions that may be held at once.
+     * @param maxChanges The largest number of changes that each subscription holds between polls.
+     */
+    public SubscriptionManagerImpl(long lease, int maxSubscriptions, int maxChanges)
+    {
+        this.lease = lease;
+        this.maxSubscriptions = maxSubscriptions;
+        this.maxChanges = maxChanges;
+        this.subscriptions = new HashMap();
+        this.random = new Random();
+    }
+
+    /**
+     * Makes a subscription to the changes that are published from now on, and returns the id that identifies it.
+     *
+     * @return The id that identifies the subscription.
+     * @throws IllegalStateException If the largest number of subscriptions are already held.
+     */
+    public synchronized long subscribe() throws IllegalStateException
+    {
+        long now = System.currentTimeMillis();
+
+        expire(now);
+
+        if(subscriptions.size() >= maxSubscriptions)
+        {
+            StringBuffer message = new StringBuffer();
+            message.append("Too many subscriptions: [");
+            message.append(subscriptions.size());
+            message.append("]");
+
+            throw new IllegalStateException(message.toString());
+        }
+
+        Long key;
+
+        do
+        {
+            key = new Long(random.nextLong());
+        }
+        while(subscriptions.containsKey(key));
+
+        Subscription subscription = new Subscription(maxChanges);
+        subscription.renew(now + lease);
+        subscriptions.put(key, subscription);
+
+        return key.longValue();
+    }
+
+    /**
+     * Waits until the subscription that is identified by the given id has changes, or until the given timeout passes, and returns
+     * the changes, which may be none. A timeout that is longer than {@link SubscriptionConstants#MAX_POLL_TIMEOUT MAX_POLL_TIMEOUT},
+     * or than the lease, is reduced. The lease of the subscription is renewed both before and after the wait.
+     *
+     * @param subscriptionId The id of the subscription.
+     * @param timeout The longest time, in milliseconds, to wait for a change.
+     * @return The changes that were made since the last poll, in the order that they were made, or <code>null</code> if changes
+     * were lost, in which case the client should read the records again.
+     * @throws IllegalArgumentException If there is no subscription with the given id, because it has been discarded or has expired.
+     * @throws InterruptedException If the calling thread is interrupted while it waits.
+     */
+    public synchronized DataChange[] poll(long subscriptionId, long timeout) throws IllegalArgumentException, InterruptedException
+    {
+        long now = System.currentTimeMillis();
+        Long key = new Long(subscriptionId);
+
+        Subscription subscription = (Subscription)subscriptions.get(key);
+
+        if(subscription == null || subscription.isExpired(now))
+        {
+            subscriptions.remove(key);
+
+            StringBuffer message = new StringBuffer();
+            message.append("Subscription is discarded or has expired: [");
+            message.append(subscriptionId);
+            message.append("]");
+
+            throw new IllegalArgumentException(message.toString());
+        }
+
+        timeout = Math.min(timeout, Math.min(MAX_POLL_TIMEOUT, lease));
+
+        long end = now + timeout;
+
+        // the subscription must not expire while it waits
+        subscription.renew(end + lease);
+
+        // a poll of a subscription that is discarded while it waits returns at once
+        while(!subscription.isPending() && now < end && subscriptions.get(key) == subscription)
+        {
+            wait(end - now);
+
+            now = System.currentTimeMillis();
+        }
+
+        subscription.renew(now + lease);
+
+        return subscription.take();
+    }
+
+    /**
+     * Discards the subscription that is identified by the given id, and the changes that it holds. A poll of the subscription
+     * that is waiting returns at once.
+     *
+     * @param subscriptionId The id of the subscription to discard.
+     */
+    public synchronized void unsubscribe(long subscriptionId)
+    {
+        if(subscriptions.remove(new Long(subscriptionId)) != null)
+        {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of subscriptions, including any that have expired but have not yet been discarded.
+     *
+     * @return The number of subscriptions.
+     */
+    public synchronized int size()
+    {
+        return subscriptions.size();
+    }
+
+    /**
+     * Holds the given change for every subscription, and wakes every poll that is waiting.
+     *
+     * @param change The change of the data record.
+     */
+    public synchronized void dataChanged(DataChange change)
+    {
+        expire(System.currentTimeMillis());
+
+        Iterator it = subscriptions.values().iterator();
+
+        while(it.hasNext())
+        {
+            ((Subscription)it.next()).add(change);
+        }
+
+        notifyAll();
+    }
+
+    // discards every subscription whose lease has passed at the given time
+    private void expire(long now)
+    {
+        Iterator it = subscriptions.values().iterator();
+
+        while(it.hasNext())
+        {
+            if(((Subscription)it.next()).isExpired(now))
+            {
+                it.remove();
+            }
+        }
+    }
+}
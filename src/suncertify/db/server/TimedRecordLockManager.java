@@ -0,0 +1,32 @@
+package suncertify.db.server;
+
+/**
+ * Provides an interface for managing record locks that may be acquired without waiting, or with a limit on the time that a client waits.
+ * A client that does not acquire a lock in time is returned {@link LockConstants#NO_COOKIE NO_COOKIE} in place of a cookie.
+ *
+ * @see ConcurrentRecordLockManagerImpl
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public interface TimedRecordLockManager extends RecordLockManager, LockConstants
+{
+    /**
+     * Acquires the lock for the given data record number only if it is not in use.
+     *
+     * @param recordNumber The data record number to attempt to acquire the lock for.
+     * @return A cookie value to indicate ownership of the lock, or {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock is in use.
+     */
+    public long tryLock(int recordNumber);
+
+    /**
+     * Make an attempt to acquire the lock for the given data record number, waiting no longer than the given timeout
+     * if the lock is in use.
+     *
+     * @param recordNumber The data record number to attempt to acquire the lock for.
+     * @param timeout The longest time, in milliseconds, to wait for the lock.
+     * @return A cookie value to indicate ownership of the lock, or {@link LockConstants#NO_COOKIE NO_COOKIE} if the lock was not
+     * acquired before the timeout passed.
+     * @throws IllegalArgumentException If the timeout is negative.
+     */
+    public long lock(int recordNumber, long timeout) throws IllegalArgumentException;
+}
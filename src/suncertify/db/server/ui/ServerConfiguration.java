@@ -1,6 +1,7 @@
 package suncertify.db.server.ui;
 
 import java.util.Properties;
+import java.util.Map;
 
 /**
  * Provides an interface for manipulating configuration properties of the data server.
@@ -67,6 +68,76 @@ public interface ServerConfiguration
      */
     public void setConfirmServerStop(boolean confirmServerStop);
 
+    /**
+     * Returns the mappedDataFile configuration property.
+     *
+     * @return The mappedDataFile configuration property.
+     */
+    public boolean isMappedDataFile();
+
+    /**
+     * Sets the mappedDataFile configuration property.
+     *
+     * @param mappedDataFile The new value of the mappedDataFile configuration property.
+     */
+    public void setMappedDataFile(boolean mappedDataFile);
+
+    /**
+     * Returns the fieldIndexTypes configuration property, a map of <code>String</code> field names to <code>String</code> index types.
+     *
+     * @return The fieldIndexTypes configuration property.
+     */
+    public Map getFieldIndexTypes();
+
+    /**
+     * Sets the fieldIndexTypes configuration property, a map of <code>String</code> field names to <code>String</code> index types.
+     *
+     * @param fieldIndexTypes The new value of the fieldIndexTypes configuration property.
+     */
+    public void setFieldIndexTypes(Map fieldIndexTypes);
+
+    /**
+     * Returns the compressionLevel configuration property; 0 (zero) if connections are not compressed.
+     *
+     * @return The compressionLevel configuration property.
+     */
+    public int getCompressionLevel();
+
+    /**
+     * Sets the compressionLevel configuration property; 0 (zero) if connections are not compressed.
+     *
+     * @param compressionLevel The new value of the compressionLevel configuration property.
+     */
+    public void setCompressionLevel(int compressionLevel);
+
+    /**
+     * Returns the compressionThreshold configuration property.
+     *
+     * @return The compressionThreshold configuration property.
+     */
+    public int getCompressionThreshold();
+
+    /**
+     * Sets the compressionThreshold configuration property.
+     *
+     * @param compressionThreshold The new value of the compressionThreshold configuration property.
+     */
+    public void setCompressionThreshold(int compressionThreshold);
+
+    /**
+     * Returns the nioPort configuration property; 0 (zero) if the binary protocol is not served.
+     *
+     * @return The nioPort configuration property.
+     */
+    public int getNioPort();
+
+    /**
+     * Sets the nioPort configuration property; 0 (zero) if the binary protocol is not served.
+     *
+     * @param nioPort The new value of the nioPort configuration property.
+     */
+    public void setNioPort(int nioPort);
+
     /**
      * Converts this set of configuration properties into a <code>Properties</code> object
      * that is suitable for writing to file.
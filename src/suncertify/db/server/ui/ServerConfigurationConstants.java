@@ -31,4 +31,44 @@ public interface ServerConfigurationConstants
      * The configuration property that determines whether or not to confirm the stopping of the server.
      */
     public final static String PROP_SERVER_CONFIRM_SERVER_STOP = "server.confirm.stop";
+
+    /**
+     * The configuration property on the server that determines whether or not to map the data file into memory.
+     *
+     * @see suncertify.db.datafile.MappedDataFileFactoryImpl
+     */
+    public final static String PROP_SERVER_DATA_FILE_MAPPED = "server.data.file.mapped";
+
+    /**
+     * The prefix of the configuration properties on the server that represent the type of index of each field.
+     * The name of the field follows the prefix, and the value is an index type defined in
+     * {@link suncertify.db.index.FieldIndexConstants FieldIndexConstants}; for example, <code>server.index.field.location=sorted</code>.
+     *
+     * @see suncertify.db.index.FieldIndexFactoryImpl
+     */
+    public final static String PROP_SERVER_INDEX_FIELD_PREFIX = "server.index.field.";
+
+    /**
+     * The configuration property on the server that represents the compression level of the connections to clients,
+     * from 1 (one), for the fastest, to 9 (nine), for the smallest, or 0 (zero) to not compress connections.
+     *
+     * @see suncertify.db.server.CompressionServerSocketFactory
+     */
+    public final static String PROP_SERVER_COMPRESSION_LEVEL = "server.compression.level";
+
+    /**
+     * The configuration property on the server that represents the smallest number of bytes, sent at once to or from a client,
+     * that are compressed.
+     *
+     * @see suncertify.db.server.CompressionServerSocketFactory
+     */
+    public final static String PROP_SERVER_COMPRESSION_THRESHOLD = "server.compression.threshold";
+
+    /**
+     * The configuration property on the server that represents the port to serve the binary protocol on, beside the remote DB object,
+     * or 0 (zero) to serve only the remote DB object.
+     *
+     * @see suncertify.db.server.NioServer
+     */
+    public final static String PROP_SERVER_NIO_PORT = "server.nio.port";
 }
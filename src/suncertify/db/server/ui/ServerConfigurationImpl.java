@@ -1,8 +1,15 @@
 package suncertify.db.server.ui;
 
 import suncertify.db.ConfigurationException;
+import suncertify.db.index.FieldIndexFactoryImpl;
+import suncertify.db.server.CompressionConstants;
+import suncertify.db.server.NioConstants;
 
 import java.util.Properties;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Enumeration;
 import java.rmi.registry.Registry;
 
 /**
@@ -19,6 +26,11 @@ public class ServerConfigurationImpl implements ServerConfiguration, ServerConfi
     private String hostname = "localhost";
     private int port = Registry.REGISTRY_PORT;
     private boolean confirmServerStop = true;
+    private boolean mappedDataFile;
+    private Map fieldIndexTypes = new HashMap();
+    private int compressionLevel = CompressionConstants.COMPRESSION_NONE;
+    private int compressionThreshold = CompressionConstants.DEFAULT_COMPRESSION_THRESHOLD;
+    private int nioPort = NioConstants.NIO_DISABLED;
 
     /**
      * Construct a </code>ServerConfigurationImpl</code> with a default set of properties.
@@ -59,11 +71,80 @@ public class ServerConfigurationImpl implements ServerConfiguration, ServerConfi
             {
                 confirmServerStop = new Boolean(props.getProperty(PROP_SERVER_CONFIRM_SERVER_STOP)).booleanValue();
             }
+
+            if(props.getProperty(PROP_SERVER_DATA_FILE_MAPPED) != null)
+            {
+                mappedDataFile = new Boolean(props.getProperty(PROP_SERVER_DATA_FILE_MAPPED)).booleanValue();
+            }
+
+            if(props.getProperty(PROP_SERVER_COMPRESSION_LEVEL) != null)
+            {
+                compressionLevel = Integer.parseInt(props.getProperty(PROP_SERVER_COMPRESSION_LEVEL));
+
+                if(compressionLevel < 0 || compressionLevel > 9)
+                {
+                    StringBuffer message = new StringBuffer();
+                    message.append("Invalid compression level: [");
+                    message.append(compressionLevel);
+                    message.append("]");
+
+                    throw new ConfigurationException(message.toString());
+                }
+            }
+
+            if(props.getProperty(PROP_SERVER_COMPRESSION_THRESHOLD) != null)
+            {
+                compressionThreshold = Integer.parseInt(props.getProperty(PROP_SERVER_COMPRESSION_THRESHOLD));
+
+                if(compressionThreshold < 0)
+                {
+                    StringBuffer message = new StringBuffer();
+                    message.append("Invalid compression threshold: [");
+                    message.append(compressionThreshold);
+                    message.append("]");
+
+                    throw new ConfigurationException(message.toString());
+                }
+            }
+
+            if(props.getProperty(PROP_SERVER_NIO_PORT) != null)
+            {
+                nioPort = Integer.parseInt(props.getProperty(PROP_SERVER_NIO_PORT));
+
+                if(nioPort < 0 || nioPort > 65535)
+                {
+                    StringBuffer message = new StringBuffer();
+                    message.append("Invalid binary protocol port: [");
+                    message.append(nioPort);
+                    message.append("]");
+
+                    throw new ConfigurationException(message.toString());
+                }
+            }
+
+            Enumeration names = props.propertyNames();
+
+            while(names.hasMoreElements())
+            {
+                String name = (String)names.nextElement();
+
+                if(name.startsWith(PROP_SERVER_INDEX_FIELD_PREFIX))
+                {
+                    fieldIndexTypes.put(name.substring(PROP_SERVER_INDEX_FIELD_PREFIX.length()), props.getProperty(name).trim());
+                }
+            }
+
+            // verifies that each index type is known
+            new FieldIndexFactoryImpl(fieldIndexTypes);
         }
         catch(NumberFormatException nfe)
         {
             throw new ConfigurationException(nfe.toString());
         }
+        catch(IllegalArgumentException iae)
+        {
+            throw new ConfigurationException(iae.toString());
+        }
     }
 
     /**
@@ -166,6 +247,106 @@ public class ServerConfigurationImpl implements ServerConfiguration, ServerConfi
         this.confirmServerStop = confirmServerStop;
     }
 
+    /**
+     * Returns the mappedDataFile configuration property.
+     *
+     * @return The mappedDataFile configuration property.
+     */
+    public boolean isMappedDataFile()
+    {
+        return mappedDataFile;
+    }
+
+    /**
+     * Sets the mappedDataFile configuration property.
+     *
+     * @param mappedDataFile The new value of the mappedDataFile configuration property.
+     */
+    public void setMappedDataFile(boolean mappedDataFile)
+    {
+        this.mappedDataFile = mappedDataFile;
+    }
+
+    /**
+     * Returns the fieldIndexTypes configuration property, a map of <code>String</code> field names to <code>String</code> index types.
+     *
+     * @return The fieldIndexTypes configuration property.
+     */
+    public Map getFieldIndexTypes()
+    {
+        return fieldIndexTypes;
+    }
+
+    /**
+     * Sets the fieldIndexTypes configuration property, a map of <code>String</code> field names to <code>String</code> index types.
+     *
+     * @param fieldIndexTypes The new value of the fieldIndexTypes configuration property.
+     */
+    public void setFieldIndexTypes(Map fieldIndexTypes)
+    {
+        this.fieldIndexTypes = fieldIndexTypes;
+    }
+
+    /**
+     * Returns the compressionLevel configuration property; 0 (zero) if connections are not compressed.
+     *
+     * @return The compressionLevel configuration property.
+     */
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the compressionLevel configuration property; 0 (zero) if connections are not compressed.
+     *
+     * @param compressionLevel The new value of the compressionLevel configuration property.
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Returns the compressionThreshold configuration property.
+     *
+     * @return The compressionThreshold configuration property.
+     */
+    public int getCompressionThreshold()
+    {
+        return compressionThreshold;
+    }
+
+    /**
+     * Sets the compressionThreshold configuration property.
+     *
+     * @param compressionThreshold The new value of the compressionThreshold configuration property.
+     */
+    public void setCompressionThreshold(int compressionThreshold)
+    {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Returns the nioPort configuration property; 0 (zero) if the binary protocol is not served.
+     *
+     * @return The nioPort configuration property.
+     */
+    public int getNioPort()
+    {
+        return nioPort;
+    }
+
+    /**
+     * Sets the nioPort configuration property; 0 (zero) if the binary protocol is not served.
+     *
+     * @param nioPort The new value of the nioPort configuration property.
+     */
+    public void setNioPort(int nioPort)
+    {
+        this.nioPort = nioPort;
+    }
+
     /**
      * Converts this set of configuration properties into a <code>Properties</code> object
      * that is suitable for writing to file.
@@ -189,6 +370,19 @@ public class ServerConfigurationImpl implements ServerConfiguration, ServerConfi
 
         props.setProperty(PROP_SERVER_HOST_PORT, String.valueOf(port));
         props.setProperty(PROP_SERVER_CONFIRM_SERVER_STOP, String.valueOf(confirmServerStop));
+        props.setProperty(PROP_SERVER_DATA_FILE_MAPPED, String.valueOf(mappedDataFile));
+        props.setProperty(PROP_SERVER_COMPRESSION_LEVEL, String.valueOf(compressionLevel));
+        props.setProperty(PROP_SERVER_COMPRESSION_THRESHOLD, String.valueOf(compressionThreshold));
+        props.setProperty(PROP_SERVER_NIO_PORT, String.valueOf(nioPort));
+
+        Iterator it = fieldIndexTypes.entrySet().iterator();
+
+        while(it.hasNext())
+        {
+            Map.Entry e = (Map.Entry)it.next();
+
+            props.setProperty(PROP_SERVER_INDEX_FIELD_PREFIX + e.getKey(), (String)e.getValue());
+        }
 
         return props;
     }
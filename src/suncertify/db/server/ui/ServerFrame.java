@@ -6,8 +6,19 @@ import suncertify.db.utils.LongOperationDialog;
 import suncertify.db.utils.PassiveProperties;
 import suncertify.db.client.MiddleLocator;
 import suncertify.db.Constants;
+import suncertify.db.Data;
 import suncertify.db.server.RemoteData;
+import suncertify.db.server.CompressionConstants;
+import suncertify.db.server.CompressionClientSocketFactory;
+import suncertify.db.server.CompressionServerSocketFactory;
 import suncertify.db.server.RemoteDB;
+import suncertify.db.server.NioServer;
+import suncertify.db.server.NioConstants;
+import suncertify.db.datafile.DataFileFactory;
+import suncertify.db.datafile.ChannelDataFileFactoryImpl;
+import suncertify.db.datafile.MappedDataFileFactoryImpl;
+import suncertify.db.index.FieldIndexFactory;
+import suncertify.db.index.FieldIndexFactoryImpl;
 
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -66,6 +77,8 @@ public class ServerFrame extends JFrame implements Constants
     private Action exit;
 
     private boolean started;
+    private Data database;
+    private NioServer nioServer;
 
     private JToolBar toolbar;
     private JMenuBar mb;
@@ -526,6 +539,24 @@ public class ServerFrame extends JFrame implements Constants
                     JOptionPane.showMessageDialog(ServerFrame.this, ioe.getMessage(), ioe.getClass().getName(), JOptionPane.ERROR_MESSAGE);
                 }
 
+                if(nioServer != null)
+                {
+                    nioServer.stop();
+                }
+
+                // closes the data file and indexes so that the indexes that are stored on disk need not be rebuilt
+                if(database != null)
+                {
+                    try
+                    {
+                        database.close();
+                    }
+                    catch(IllegalStateException ise)
+                    {
+                        JOptionPane.showMessageDialog(ServerFrame.this, ise.getMessage(), ise.getClass().getName(), JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+
                 System.exit(0);
             }
         }
@@ -558,14 +589,42 @@ public class ServerFrame extends JFrame implements Constants
 
             try
             {
-                RemoteDB data = new RemoteData(txtDataFilename.getText());
+                String dataFilename = txtDataFilename.getText();
+
+                DataFileFactory factory = configuration.isMappedDataFile() ? new MappedDataFileFactoryImpl(dataFilename) : new ChannelDataFileFactoryImpl(dataFilename);
+
+                FieldIndexFactory fieldIndexFactory = new FieldIndexFactoryImpl(configuration.getFieldIndexTypes());
 
+                database = new Data(dataFilename, factory, fieldIndexFactory);
+
+                RemoteDB data;
+
+                if(configuration.getCompressionLevel() == CompressionConstants.COMPRESSION_NONE)
+                {
+                    data = new RemoteData(database);
+                }
+                else
+                {
+                    int level = configuration.getCompressionLevel();
+                    int threshold = configuration.getCompressionThreshold();
+
+                    data = new RemoteData(database, new CompressionClientSocketFactory(level, threshold), new CompressionServerSocketFactory(level, threshold));
+                }
+
+                // the registry is not compressed, so that any client can look up the data object, whose stub carries the compressing socket factory
                 Registry reg;
 
                 reg = LocateRegistry.createRegistry((int)txtPort.getValue());
 
                 reg.rebind(txtDbJndiName.getText(), data);
 
+                // the binary protocol is served beside the remote DB object, on its own port
+                if(configuration.getNioPort() != NioConstants.NIO_DISABLED)
+                {
+                    nioServer = new NioServer(database, configuration.getNioPort());
+                    nioServer.start();
+                }
+
                 updateConfigurationModel();
 
                 PassiveProperties props = new PassiveProperties(configuration.toProperties());
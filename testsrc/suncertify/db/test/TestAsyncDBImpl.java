@@ -0,0 +1,189 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import suncertify.db.Data;
+import suncertify.db.RecordNotFoundException;
+import suncertify.db.RecordBatch;
+import suncertify.db.ChangeSet;
+import suncertify.db.client.AsyncDB;
+import suncertify.db.client.AsyncDBImpl;
+import suncertify.db.datafile.FieldSchema;
+import suncertify.db.datafile.FieldSchemaImpl;
+import suncertify.db.datafile.DataFile;
+import suncertify.db.datafile.DataFileHeader;
+import suncertify.db.datafile.DataFileImpl;
+import suncertify.db.server.NioServer;
+import suncertify.db.server.NioRemoteDB;
+import suncertify.db.index.FieldIndexConstants;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link AsyncDBImpl AsyncDBImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestAsyncDBImpl extends TestCase
+{
+    private final static int MAGIC_NUMBER = 0x00002020;
+    private final static int DATA_OFFSET = 0x00000046;
+    private final static int TOTAL_RECORDS = 20;
+
+    private final static FieldSchema[] SCHEMA = new FieldSchema[]
+    {
+        new FieldSchemaImpl("name", (short)32),
+        new FieldSchemaImpl("location", (short)64),
+        new FieldSchemaImpl("specialties", (short)64),
+        new FieldSchemaImpl("size", (short)6),
+        new FieldSchemaImpl("rate", (short)8),
+        new FieldSchemaImpl("owner", (short)8)
+    };
+
+    /**
+     * Constructs a <tt>TestAsyncDBImpl</tt> with a null implementation.
+     */
+    public TestAsyncDBImpl()
+    {
+
+    }
+
+    /**
+     * Creates records, reads them in concurrent batches, finds them, updates and deletes them, and asserts the results of the futures,
+     * including a future that fails with the exception of the call.
+     */
+    public void testCalls()
+    {
+        File temp = null;
+        Data data = null;
+        NioServer server = null;
+        NioRemoteDB client = null;
+        AsyncDB async = null;
+
+        try
+        {
+            temp = File.createTempFile("TestAsyncDBImpl", "TestCase.db");
+
+            DataFile file = new DataFileImpl(temp.getAbsolutePath(), "rw");
+            file.writeHeader(new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA));
+            file.close();
+
+            data = new Data(temp.getAbsolutePath());
+            server = new NioServer(data, 0);
+            server.start();
+
+            client = new NioRemoteDB(null, server.getPort());
+            async = new AsyncDBImpl(client, 4);
+
+            for(int i = 0; i < TOTAL_RECORDS; i++)
+            {
+                String[] record = new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "$67" + i, null};
+
+                assertEquals("Record number", new Integer(i), async.create(record).get());
+            }
+
+            int[] recNos = new int[TOTAL_RECORDS];
+
+            for(int i = 0; i < recNos.length; i++)
+            {
+                recNos[i] = recNos.length - 1 - i;
+            }
+
+            String[][] records = (String[][])async.readAll(recNos, 3).get();
+
+            assertEquals("Number of records read", TOTAL_RECORDS, records.length);
+
+            for(int i = 0; i < records.length; i++)
+            {
+                assertEquals("Record name", "testName" + recNos[i], records[i][0].trim());
+            }
+
+            async.update(4, new String[]{"testName4", "testLocation4", "updated", "454", "$674", null}).get();
+
+            assertEquals("Updated record specialties", "updated", ((String[])async.read(4).get())[2].trim());
+
+            async.delete(6).get();
+
+            RecordBatch batch = (RecordBatch)async.findRecords(new String[]{"testName", null, null, null, null, null}, false, 3).get();
+
+            assertEquals("Number of records found", TOTAL_RECORDS - 1, batch.size());
+
+            for(int i = 0; i < batch.size(); i++)
+            {
+                assertTrue("Deleted record should not be found", batch.getRecordNumber(i) != 6);
+                assertEquals("Record name", "testName" + batch.getRecordNumber(i), batch.getRecord(i)[0].trim());
+            }
+
+            ChangeSet changes = (ChangeSet)async.changesSince(ChangeSet.NO_SEQUENCE, new String[]{"testName", null, null, null, null, null}, false).get();
+
+            assertTrue("Change set without a sequence should be reset", changes.isReset());
+            assertEquals("Number of records changed", TOTAL_RECORDS - 1, changes.getRecords().size());
+
+            async.delete(7).get();
+
+            changes = (ChangeSet)async.changesSince(changes.getSequence(), new String[]{"testName", null, null, null, null, null}, false).get();
+
+            assertFalse("Change set with a sequence should not be reset", changes.isReset());
+            assertEquals("Number of records removed", 1, changes.getRemovedRecordNumbers().length);
+            assertEquals("Removed record", 7, changes.getRemovedRecordNumbers()[0]);
+
+            try
+            {
+                async.read(TOTAL_RECORDS).get();
+                fail("Expected ExecutionException");
+            }
+            catch(ExecutionException ee)
+            {
+                assertTrue("Cause should be RecordNotFoundException", ee.getCause() instanceof RecordNotFoundException);
+            }
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+        catch(ExecutionException ee)
+        {
+            fail(ee.getCause().toString());
+        }
+        finally
+        {
+            if(async != null)
+            {
+                async.shutdown();
+            }
+
+            if(client != null)
+            {
+                client.close();
+            }
+
+            if(server != null)
+            {
+                server.stop();
+            }
+
+            if(data != null)
+            {
+                data.close();
+            }
+
+            if(temp != null && temp.exists())
+            {
+                temp.delete();
+            }
+
+            if(temp != null)
+            {
+                new File(temp.getAbsolutePath() + FieldIndexConstants.KEY_INDEX_FILE_SUFFIX).delete();
+            }
+        }
+    }
+}
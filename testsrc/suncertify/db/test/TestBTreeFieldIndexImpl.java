@@ -0,0 +1,241 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+import suncertify.db.index.FieldIndex;
+import suncertify.db.index.BTreeFieldIndexImpl;
+import suncertify.db.index.SortedFieldIndexImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link BTreeFieldIndexImpl BTreeFieldIndexImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestBTreeFieldIndexImpl extends TestCase
+{
+    private final static int FIELD_LENGTH = 32;
+    private final static int TOTAL_RECORDS = 3000;
+    private final static int CACHE_PAGES = 8;
+
+    /**
+     * Constructs a <tt>TestBTreeFieldIndexImpl</tt> with a null implementation.
+     */
+    public TestBTreeFieldIndexImpl()
+    {
+
+    }
+
+    /**
+     * Adds and removes enough sample field values to split many pages, with few pages held in memory, and asserts that
+     * prefix lookups return the same record numbers as a {@link SortedFieldIndexImpl SortedFieldIndexImpl}, and that
+     * the estimated number of records and the number of distinct values are exact.
+     */
+    public void testFind()
+    {
+        File dataFile = null;
+        File indexFile = null;
+        FieldIndex index = null;
+
+        try
+        {
+            dataFile = createDataFile();
+            indexFile = new File(dataFile.getAbsolutePath() + ".idx.name");
+
+            index = new BTreeFieldIndexImpl(indexFile, dataFile, FIELD_LENGTH, CACHE_PAGES);
+            FieldIndex expected = new SortedFieldIndexImpl(FIELD_LENGTH);
+
+            assertFalse("New index should not be current", index.isCurrent());
+
+            Random random = new Random(461);
+            String[] values = new String[TOTAL_RECORDS];
+
+            for(int i = 0; i < TOTAL_RECORDS; i++)
+            {
+                values[i] = createValue(random);
+
+                index.add(values[i], i);
+                expected.add(values[i], i);
+            }
+
+            for(int i = 0; i < TOTAL_RECORDS; i += 7)
+            {
+                assertTrue("Should remove value", index.remove(values[i], i));
+                assertFalse("Should not remove value twice", index.remove(values[i], i));
+                expected.remove(values[i], i);
+            }
+
+            assertEquals("Number of records", expected.size(), index.size());
+
+            assertFind(expected, index);
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            close(index);
+            delete(indexFile);
+            delete(dataFile);
+        }
+    }
+
+    /**
+     * Closes and reopens an index file, and asserts that it is current only if it was closed cleanly and the data file has not changed
+     * since it was closed.
+     */
+    public void testReopen()
+    {
+        File dataFile = null;
+        File indexFile = null;
+        FieldIndex index = null;
+        FieldIndex unclean = null;
+
+        try
+        {
+            dataFile = createDataFile();
+            indexFile = new File(dataFile.getAbsolutePath() + ".idx.name");
+
+            index = new BTreeFieldIndexImpl(indexFile, dataFile, FIELD_LENGTH, CACHE_PAGES);
+            FieldIndex expected = new SortedFieldIndexImpl(FIELD_LENGTH);
+
+            Random random = new Random(73);
+
+            for(int i = 0; i < TOTAL_RECORDS; i++)
+            {
+                String value = createValue(random);
+
+                index.add(value, i);
+                expected.add(value, i);
+            }
+
+            index.close();
+
+            index = new BTreeFieldIndexImpl(indexFile, dataFile, FIELD_LENGTH, CACHE_PAGES);
+
+            assertTrue("Index that was closed cleanly should be current", index.isCurrent());
+            assertEquals("Number of records", expected.size(), index.size());
+
+            assertFind(expected, index);
+
+            // an operation after close reopens the index file
+            index.close();
+            index.add("after close", TOTAL_RECORDS);
+            expected.add("after close", TOTAL_RECORDS);
+
+            assertFind(expected, index);
+
+            unclean = new BTreeFieldIndexImpl(indexFile, dataFile, FIELD_LENGTH, CACHE_PAGES);
+
+            assertFalse("Index that was not closed cleanly should not be current", unclean.isCurrent());
+            assertEquals("Number of records", 0, unclean.size());
+
+            unclean.close();
+            unclean = null;
+
+            index.close();
+            index = null;
+
+            FileOutputStream out = new FileOutputStream(dataFile.getAbsolutePath(), true);
+            out.write(0);
+            out.close();
+
+            index = new BTreeFieldIndexImpl(indexFile, dataFile, FIELD_LENGTH, CACHE_PAGES);
+
+            assertFalse("Index of a changed data file should not be current", index.isCurrent());
+            assertEquals("Number of records", 0, index.size());
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            close(unclean);
+            close(index);
+            delete(indexFile);
+            delete(dataFile);
+        }
+    }
+
+    // asserts that the given index returns the same record numbers as the expected index for several criteria
+    private void assertFind(FieldIndex expected, FieldIndex actual)
+    {
+        assertEquals("Number of distinct values", expected.getDistinctValues(), actual.getDistinctValues());
+
+        String[] criteria = new String[]{"", "a", "b", "ab", "abc", "ba ", "c", "cab", "abcabcab", "z", " ", "after close ", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"};
+
+        for(int i = 0; i < criteria.length; i++)
+        {
+            int[] e = expected.find(criteria[i]).toArray();
+            int[] a = actual.find(criteria[i]).toArray();
+
+            assertEquals("Number of records for criterion [" + criteria[i] + "]", e.length, a.length);
+            assertEquals("Estimated number of records for criterion [" + criteria[i] + "]", a.length, actual.estimate(criteria[i]));
+
+            for(int j = 0; j < e.length; j++)
+            {
+                assertEquals("Record number for criterion [" + criteria[i] + "]", e[j], a[j]);
+            }
+        }
+    }
+
+    // creates a sample field value of up to 8 characters from a small alphabet, so that values share prefixes
+    private String createValue(Random random)
+    {
+        StringBuffer sb = new StringBuffer();
+
+        int length = random.nextInt(9);
+
+        for(int i = 0; i < length; i++)
+        {
+            sb.append("abc ".charAt(random.nextInt(4)));
+        }
+
+        return sb.toString();
+    }
+
+    // creates a temporary file to stand for the data file of the index
+    private File createDataFile() throws IOException
+    {
+        File f = File.createTempFile("TestBTreeFieldIndexImpl", "TestCase.db");
+
+        FileOutputStream out = new FileOutputStream(f);
+        out.write(new byte[100]);
+        out.close();
+
+        return f;
+    }
+
+    // closes the given index, if there is one
+    private void close(FieldIndex index)
+    {
+        if(index != null)
+        {
+            try
+            {
+                index.close();
+            }
+            catch(IOException ioe)
+            {
+                fail(ioe.toString());
+            }
+        }
+    }
+
+    // deletes the given file, if there is one
+    private void delete(File f)
+    {
+        if(f != null && f.exists())
+        {
+            f.delete();
+        }
+    }
+}
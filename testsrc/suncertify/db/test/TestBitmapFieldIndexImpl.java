@@ -0,0 +1,71 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+import suncertify.db.index.FieldIndex;
+import suncertify.db.index.BitmapFieldIndexImpl;
+import suncertify.db.index.SortedFieldIndexImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link BitmapFieldIndexImpl BitmapFieldIndexImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestBitmapFieldIndexImpl extends TestCase
+{
+    private final static String[] LOCATIONS = new String[]{"Smallville", "Small Town", "Metropolis", "Lendmarch", "Hobbiton", "Bitsville", "Xanadu", "Digitopolis"};
+
+    /**
+     * Constructs a <tt>TestBitmapFieldIndexImpl</tt> with a null implementation.
+     */
+    public TestBitmapFieldIndexImpl()
+    {
+
+    }
+
+    /**
+     * Adds and removes sample field values with few distinct values, and asserts that prefix lookups return the same record numbers
+     * as a {@link SortedFieldIndexImpl SortedFieldIndexImpl}.
+     */
+    public void testFind()
+    {
+        FieldIndex index = new BitmapFieldIndexImpl(64);
+        FieldIndex expected = new SortedFieldIndexImpl(64);
+
+        Random random = new Random(461);
+        String[] values = new String[10000];
+
+        for(int i = 0; i < values.length; i++)
+        {
+            values[i] = LOCATIONS[random.nextInt(LOCATIONS.length)];
+
+            index.add(values[i], i);
+            expected.add(values[i], i);
+        }
+
+        for(int i = 0; i < values.length; i += 3)
+        {
+            assertTrue("Should remove value", index.remove(values[i], i));
+            expected.remove(values[i], i);
+        }
+
+        assertFalse("Should not remove value of another record", index.remove("Nowhere", 1));
+        assertEquals("Number of records", expected.size(), index.size());
+
+        String[] criteria = new String[]{"", "Small", "Small ", "Smallville", "Smallville ", "Metro", "X", "Z", "Digitopolis and more"};
+
+        for(int i = 0; i < criteria.length; i++)
+        {
+            assertEquals("Records for criterion [" + criteria[i] + "]", expected.find(criteria[i]), index.find(criteria[i]));
+        }
+
+        index.clear();
+
+        assertEquals("Number of records", 0, index.size());
+        assertTrue("Should find no records", index.find("").isEmpty());
+    }
+}
@@ -0,0 +1,229 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import suncertify.db.datafile.FieldSchema;
+import suncertify.db.datafile.FieldSchemaImpl;
+import suncertify.db.datafile.DataFile;
+import suncertify.db.datafile.DataFileFactory;
+import suncertify.db.datafile.DataFileHeader;
+import suncertify.db.datafile.DataFileImpl;
+import suncertify.db.datafile.BlockRecordIterator;
+import suncertify.db.datafile.ChannelDataFileFactoryImpl;
+import suncertify.db.datafile.RecordCodecImpl;
+import suncertify.db.datafile.RecordIterator;
+import suncertify.db.DataRecord;
+import suncertify.db.DataRecordImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link BlockRecordIterator BlockRecordIterator} and {@link suncertify.db.datafile.LazyDataRecordImpl LazyDataRecordImpl} classes.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestBlockRecordIterator extends TestCase
+{
+    private final static int MAGIC_NUMBER = 0x00002020;
+    private final static int DATA_OFFSET = 0x00000046;
+    private final static int TOTAL_RECORDS = 10;
+
+    private final static FieldSchema[] SCHEMA = new FieldSchema[]
+    {
+        new FieldSchemaImpl("name", (short)32),
+        new FieldSchemaImpl("location", (short)64),
+        new FieldSchemaImpl("specialties", (short)64),
+        new FieldSchemaImpl("size", (short)6),
+        new FieldSchemaImpl("rate", (short)8),
+        new FieldSchemaImpl("owner", (short)8)
+    };
+
+    private final static DataFileHeader HEADER = new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA);
+
+    /**
+     * Constructs a <tt>TestBlockRecordIterator</tt> with a null implementation.
+     */
+    public TestBlockRecordIterator()
+    {
+
+    }
+
+    /**
+     * Tests a {@link BlockRecordIterator BlockRecordIterator} with a block size that does not divide the number of records,
+     * and a block size that is smaller than one record. Asserts that every record is returned in order.
+     */
+    public void testBlockSize()
+    {
+        File f = null;
+        RandomAccessFile raf = null;
+
+        try
+        {
+            f = createDataFile();
+
+            raf = new RandomAccessFile(f, "r");
+
+            assertRecords(createIterator(raf, HEADER.recordLength() * 3));
+            assertRecords(createIterator(raf, 1));
+            assertRecords(createIterator(raf, HEADER.recordLength() * TOTAL_RECORDS * 2));
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            if(raf != null)
+            {
+                try
+                {
+                    raf.close();
+                }
+                catch(IOException ioe)
+                {
+                    fail(ioe.toString());
+                }
+            }
+
+            if(f != null && f.exists())
+            {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests the {@link DataFile#createRecordIterator() DataFile.createRecordIterator()} method
+     * of the {@link DataFileImpl DataFileImpl} and {@link suncertify.db.datafile.ChannelDataFileImpl ChannelDataFileImpl} classes.
+     * Asserts that every record is returned in order.
+     */
+    public void testCreateRecordIterator()
+    {
+        DataFileFactory factory = null;
+        DataFile file = null;
+        File f = null;
+
+        try
+        {
+            f = createDataFile();
+
+            file = new DataFileImpl(f, "r");
+
+            assertRecords(file.createRecordIterator());
+
+            factory = new ChannelDataFileFactoryImpl(f.getAbsolutePath());
+
+            assertRecords(factory.createDataFile("r").createRecordIterator());
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            try
+            {
+                if(file != null)
+                {
+                    file.close();
+                }
+
+                if(factory != null)
+                {
+                    factory.close();
+                }
+            }
+            catch(IOException ioe)
+            {
+                fail(ioe.toString());
+            }
+
+            if(f != null && f.exists())
+            {
+                f.delete();
+            }
+        }
+    }
+
+    // asserts that the given iterator returns every sample record in order
+    private void assertRecords(RecordIterator it) throws IOException
+    {
+        int counter = 0;
+
+        while(it.hasMoreRecords())
+        {
+            DataRecord rec = it.nextRecord();
+            DataRecord expected = createRecord(counter);
+
+            assertEquals("DataRecord index should be the index of the record in the data file", counter, rec.getIndex());
+            assertEquals("DataRecord deleted flag should be the same after going to file and read back again", expected.isDeleted(), rec.isDeleted());
+            assertEquals("DataRecord field should be decoded on demand (and fields are trimmed)", expected.getValueAt(1), rec.getValueAt(1).trim());
+
+            for(int i = 0; i < rec.getRowLength(); i++)
+            {
+                assertEquals("DataRecord data should be the same after going to file and read back again (and fields are trimmed)", expected.getData()[i], rec.getData()[i].trim());
+            }
+
+            counter++;
+        }
+
+        assertEquals("Number of records returned by the iterator", TOTAL_RECORDS, counter);
+        assertFalse("Iterator should have no more records", it.hasMoreRecords());
+    }
+
+    // creates an iterator over the given file with the given block size
+    private RecordIterator createIterator(final RandomAccessFile raf, int blockSize)
+    {
+        return new BlockRecordIterator(new RecordCodecImpl(HEADER), DATA_OFFSET, blockSize)
+        {
+            protected void read(byte[] data, int length, long position) throws IOException
+            {
+                raf.seek(position);
+                raf.readFully(data, 0, length);
+            }
+
+            protected long length() throws IOException
+            {
+                return raf.length();
+            }
+        };
+    }
+
+    // creates a sample record with the given suffix
+    private DataRecord createRecord(int i)
+    {
+        DataRecord rec = new DataRecordImpl(new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "67" + i, "testOwn" + i});
+
+        rec.setDeleted(i % 3 == 0);
+
+        return rec;
+    }
+
+    // creates a temporary data file that contains the header and sample records
+    private File createDataFile() throws IOException
+    {
+        File f = File.createTempFile("TestBlockRecordIterator", "TestCase.db");
+
+        DataFile file = new DataFileImpl(f, "rw");
+
+        try
+        {
+            file.writeHeader(HEADER);
+
+            for(int i = 0; i < TOTAL_RECORDS; i++)
+            {
+                file.writeRecord(createRecord(i));
+            }
+        }
+        finally
+        {
+            file.close();
+        }
+
+        return f;
+    }
+}
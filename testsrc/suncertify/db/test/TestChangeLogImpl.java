@@ -0,0 +1,73 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+import suncertify.db.DataChange;
+import suncertify.db.DataChangeImpl;
+import suncertify.db.server.ChangeLog;
+import suncertify.db.server.ChangeLogImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link ChangeLogImpl ChangeLogImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestChangeLogImpl extends TestCase
+{
+    private final static long FIRST = 1000L;
+
+    /**
+     * Constructs a <tt>TestChangeLogImpl</tt> with a null implementation.
+     */
+    public TestChangeLogImpl()
+    {
+
+    }
+
+    /**
+     * Logs changes of records, including a record beyond the initial capacity of the log, and asserts the sequence of each record
+     * and the records that changed after a sequence.
+     */
+    public void testChanges()
+    {
+        ChangeLog log = new ChangeLogImpl(FIRST);
+
+        assertEquals("Initial sequence", FIRST, log.getSequence());
+        assertEquals("Unchanged record sequence", FIRST, log.getRecordSequence(3));
+        assertEquals("Changed records", 0, log.changedSince(FIRST).length);
+
+        log.dataChanged(new DataChangeImpl(DataChange.CREATED, 3, new String[]{"a"}));
+        log.dataChanged(new DataChangeImpl(DataChange.UPDATED, 1000, new String[]{"b"}));
+        log.dataChanged(new DataChangeImpl(DataChange.DELETED, 1, null));
+
+        assertEquals("Sequence", FIRST + 3, log.getSequence());
+        assertEquals("Record sequence", FIRST + 1, log.getRecordSequence(3));
+        assertEquals("Record sequence", FIRST + 2, log.getRecordSequence(1000));
+        assertTrue("Changed records", Arrays.equals(new int[]{1, 3, 1000}, log.changedSince(FIRST)));
+        assertTrue("Changed records", Arrays.equals(new int[]{1, 1000}, log.changedSince(FIRST + 1)));
+
+        log.dataChanged(new DataChangeImpl(DataChange.UPDATED, 3, new String[]{"c"}));
+
+        assertTrue("Changed records", Arrays.equals(new int[]{3}, log.changedSince(FIRST + 3)));
+    }
+
+    /**
+     * Asserts that only the sequences that the log has given out are known.
+     */
+    public void testKnown()
+    {
+        ChangeLog log = new ChangeLogImpl(FIRST);
+
+        log.dataChanged(new DataChangeImpl(DataChange.CREATED, 0, new String[]{"a"}));
+
+        assertTrue("First sequence should be known", log.isKnown(FIRST));
+        assertTrue("Last sequence should be known", log.isKnown(FIRST + 1));
+        assertFalse("Earlier sequence should not be known", log.isKnown(FIRST - 1));
+        assertFalse("Later sequence should not be known", log.isKnown(FIRST + 2));
+        assertFalse("No sequence should not be known", log.isKnown(-1L));
+    }
+}
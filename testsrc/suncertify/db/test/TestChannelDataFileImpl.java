@@ -0,0 +1,296 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+
+import suncertify.db.datafile.FieldSchema;
+import suncertify.db.datafile.FieldSchemaImpl;
+import suncertify.db.datafile.DataFile;
+import suncertify.db.datafile.DataFileFactory;
+import suncertify.db.datafile.DataFileHeader;
+import suncertify.db.datafile.DataFileImpl;
+import suncertify.db.datafile.ChannelDataFileImpl;
+import suncertify.db.datafile.ChannelDataFileFactoryImpl;
+import suncertify.db.DataRecord;
+import suncertify.db.DataRecordImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link ChannelDataFileImpl ChannelDataFileImpl} and {@link ChannelDataFileFactoryImpl ChannelDataFileFactoryImpl} classes.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestChannelDataFileImpl extends TestCase
+{
+    private final static int MAGIC_NUMBER = 0x00002020;
+    private final static int DATA_OFFSET = 0x00000046;
+
+    private final static FieldSchema[] SCHEMA = new FieldSchema[]
+    {
+        new FieldSchemaImpl("name", (short)32),
+        new FieldSchemaImpl("location", (short)64),
+        new FieldSchemaImpl("specialties", (short)64),
+        new FieldSchemaImpl("size", (short)6),
+        new FieldSchemaImpl("rate", (short)8),
+        new FieldSchemaImpl("owner", (short)8)
+    };
+
+    /**
+     * Constructs a <tt>TestChannelDataFileImpl</tt> with a null implementation.
+     */
+    public TestChannelDataFileImpl()
+    {
+
+    }
+
+    /**
+     * Tests that the {@link ChannelDataFileFactoryImpl ChannelDataFileFactoryImpl} shares the header of the data file
+     * between each {@link DataFile DataFile} that it creates, and that the header is the same as that written by
+     * {@link DataFileImpl DataFileImpl}.
+     */
+    public void testSharedHeader()
+    {
+        DataFileFactory factory = null;
+        File f = null;
+
+        try
+        {
+            f = createDataFile();
+
+            DataFileHeader header = new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA);
+
+            factory = new ChannelDataFileFactoryImpl(f.getAbsolutePath());
+
+            DataFile file1 = factory.createDataFile("r");
+            DataFile file2 = factory.createDataFile("rw");
+
+            assertEquals("Header should be the same as the header written by DataFileImpl", header, file1.getHeader());
+            assertSame("Header should be shared between data files of the same factory", file1.getHeader(), file2.getHeader());
+            assertEquals("Header read from the channel should be the same as the shared header", header, file2.readHeader());
+            assertEquals("File pointer should be at the end of the header", DATA_OFFSET, file2.getFilePointer());
+
+            file1.close();
+            file2.close();
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            close(factory);
+
+            if(f != null && f.exists())
+            {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests the {@link ChannelDataFileImpl#writeRecord(DataRecord) ChannelDataFileImpl.writeRecord(DataRecord)} method and
+     * the {@link ChannelDataFileImpl#nextRecord() ChannelDataFileImpl.nextRecord()} method.
+     * Writes sample records through one data file and asserts that they are read back the same through another data file
+     * of the same factory, each with an independent file pointer.
+     */
+    public void testWriteRecord()
+    {
+        DataFileFactory factory = null;
+        File f = null;
+
+        try
+        {
+            f = createDataFile();
+
+            factory = new ChannelDataFileFactoryImpl(f.getAbsolutePath());
+
+            DataFile writer = factory.createDataFile("rw");
+
+            writer.seekRecord((int)writer.lengthInRecords());
+
+            DataRecord rec1 = new DataRecordImpl(new String[]{"testName0", "testLocation0", "testSpecialties0", "450", "670", "testOwn0"});
+            DataRecord rec2 = new DataRecordImpl(new String[]{"testName1", "testLocation1", "testSpecialties1", "451", "671", "testOwn1"});
+            DataRecord rec3 = new DataRecordImpl(new String[]{"testName2", "testLocation2", "testSpecialties2", "452", "672", "testOwn2"});
+
+            rec2.setDeleted(true);
+
+            writer.writeRecord(rec1);
+            writer.writeRecord(rec2);
+            writer.writeRecord(rec3);
+
+            DataFile reader = factory.createDataFile("r");
+
+            assertEquals("Should be 3 records in the file", 3, reader.lengthInRecords());
+
+            reader.seekRecord(1);
+
+            DataRecord rec = reader.nextRecord();
+
+            assertTrue("DataRecord should be deleted", rec.isDeleted());
+
+            rec = reader.nextRecord();
+            trim(rec);
+
+            assertEquals("DataRecord data should be the same after going to file and read back again (and fields are trimmed)", rec3, rec);
+            assertFalse("File should have no more records", reader.hasMoreRecords());
+            assertFalse("File should have no more data", reader.hasMoreData());
+
+            writer.seekRecord(0);
+            rec = writer.nextRecord();
+            trim(rec);
+
+            assertEquals("DataRecord data should be the same after going to file and read back again (and fields are trimmed)", rec1, rec);
+
+            DataFile file = new DataFileImpl(f, "r");
+
+            try
+            {
+                file.seekRecord(2);
+                rec = file.nextRecord();
+                trim(rec);
+
+                assertEquals("DataRecord data should be the same when read back by DataFileImpl", rec3, rec);
+            }
+            finally
+            {
+                file.close();
+            }
+
+            writer.setRecordLength(5);
+
+            assertEquals("Should be 5 records in the file", 5, reader.lengthInRecords());
+
+            writer.setRecordLength(1);
+
+            assertEquals("Should be 1 record in the file", 1, reader.lengthInRecords());
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            close(factory);
+
+            if(f != null && f.exists())
+            {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests that a {@link ChannelDataFileImpl ChannelDataFileImpl} opened for read cannot be written to,
+     * that an illegal mode is rejected, and that a closed data file cannot be used.
+     */
+    public void testMode()
+    {
+        DataFileFactory factory = null;
+        File f = null;
+
+        try
+        {
+            f = createDataFile();
+
+            factory = new ChannelDataFileFactoryImpl(f.getAbsolutePath());
+
+            DataFile file = factory.createDataFile("r");
+
+            try
+            {
+                file.writeRecord(new DataRecordImpl(new String[]{"testName0", "testLocation0", "testSpecialties0", "450", "670", "testOwn0"}));
+                fail("Writing to a data file opened for read should throw an IOException");
+            }
+            catch(IOException ioe)
+            {
+                // expected
+            }
+
+            try
+            {
+                factory.createDataFile("x");
+                fail("Creating a data file with an illegal mode should throw an IllegalArgumentException");
+            }
+            catch(IllegalArgumentException iae)
+            {
+                // expected
+            }
+
+            file.close();
+
+            try
+            {
+                file.length();
+                fail("Using a closed data file should throw an IOException");
+            }
+            catch(IOException ioe)
+            {
+                // expected
+            }
+
+            factory.close();
+
+            assertEquals("Factory should reopen the data file after being closed", 0, factory.createDataFile("r").lengthInRecords());
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            close(factory);
+
+            if(f != null && f.exists())
+            {
+                f.delete();
+            }
+        }
+    }
+
+    // creates a temporary data file that contains only the header
+    private File createDataFile() throws IOException
+    {
+        File f = File.createTempFile("TestChannelDataFileImpl", "TestCase.db");
+
+        DataFile file = new DataFileImpl(f, "rw");
+
+        try
+        {
+            file.writeHeader(new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA));
+        }
+        finally
+        {
+            file.close();
+        }
+
+        return f;
+    }
+
+    // trims each field of the given record
+    private void trim(DataRecord rec)
+    {
+        for(int i = 0; i < rec.getData().length; i++)
+        {
+            rec.getData()[i] = rec.getData()[i].trim();
+        }
+    }
+
+    // closes the given factory, failing the test if it cannot be closed
+    private void close(DataFileFactory factory)
+    {
+        if(factory != null)
+        {
+            try
+            {
+                factory.close();
+            }
+            catch(IOException ioe)
+            {
+                fail(ioe.toString());
+            }
+        }
+    }
+}
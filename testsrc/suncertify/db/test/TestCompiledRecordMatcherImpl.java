@@ -0,0 +1,131 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import suncertify.db.DataRecord;
+import suncertify.db.DataRecordImpl;
+import suncertify.db.datafile.DataFileHeader;
+import suncertify.db.datafile.FieldSchema;
+import suncertify.db.datafile.FieldSchemaImpl;
+import suncertify.db.datafile.LazyDataRecordImpl;
+import suncertify.db.datafile.RecordCodec;
+import suncertify.db.datafile.RecordCodecImpl;
+import suncertify.db.server.CompiledRecordMatcherImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link CompiledRecordMatcherImpl CompiledRecordMatcherImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestCompiledRecordMatcherImpl extends TestCase
+{
+    private final static FieldSchema[] SCHEMA = new FieldSchema[]
+    {
+        new FieldSchemaImpl("name", (short)8),
+        new FieldSchemaImpl("location", (short)8),
+        new FieldSchemaImpl("size", (short)4)
+    };
+
+    private final static RecordCodec CODEC = new RecordCodecImpl(new DataFileHeader(0, 0, (short)SCHEMA.length, SCHEMA));
+
+    /**
+     * Constructs a <tt>TestCompiledRecordMatcherImpl</tt> with a null implementation.
+     */
+    public TestCompiledRecordMatcherImpl()
+    {
+
+    }
+
+    /**
+     * Asserts that only constrained fields are examined, in order of descending criterion length.
+     */
+    public void testFieldOrder()
+    {
+        assertTrue("No fields should be examined", Arrays.equals(new int[0], new CompiledRecordMatcherImpl(new String[]{null, null, null}).getFields()));
+        assertTrue("Only the name should be examined", Arrays.equals(new int[]{0}, new CompiledRecordMatcherImpl(new String[]{"a", null, null}).getFields()));
+        assertTrue("Longest criterion first", Arrays.equals(new int[]{1, 0, 2}, new CompiledRecordMatcherImpl(new String[]{"ab", "abc", "a"}).getFields()));
+        assertTrue("Equal criteria in field order", Arrays.equals(new int[]{0, 2}, new CompiledRecordMatcherImpl(new String[]{"ab", null, "ab"}).getFields()));
+    }
+
+    /**
+     * Asserts that records that are views over raw bytes, and records that are not, match according to the
+     * specification of {@link suncertify.db.server.RecordMatcherImpl RecordMatcherImpl}.
+     */
+    public void testRecordMatcher()
+    {
+        try
+        {
+            assertMatches(true, new String[]{"blah", "blah", "1"}, new String[]{null, null, null});
+            assertMatches(true, new String[]{null, "blah", "1"}, new String[]{null, null, null});
+            assertMatches(true, new String[]{"blah", "blah", "1"}, new String[]{"bl", null, null});
+            assertMatches(true, new String[]{"blah", "blah", "1"}, new String[]{"blah", "b", "1"});
+            assertMatches(true, new String[]{"blah", "blah", "1"}, new String[]{"", null, ""});
+
+            assertMatches(false, new String[]{"bla", "blah", "1"}, new String[]{"blah", null, null});
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{"blah", "x", null});
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{"blah", "blah", "12345"});
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{"bl\u00e4", null, null});
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{null, null});
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{null, null, null, null});
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+    }
+
+    /**
+     * Asserts that records that are views over raw bytes, and records that are not, match exactly when their field values
+     * without trailing white space are equal to each non-empty criterion.
+     */
+    public void testExactMatcher()
+    {
+        try
+        {
+            assertTrue("Empty criteria should not be examined", Arrays.equals(new int[]{1}, new CompiledRecordMatcherImpl(new String[]{"", "a", null}, true).getFields()));
+
+            assertMatches(true, new String[]{"blah", "blah", "1"}, new String[]{null, null, null}, true);
+            assertMatches(true, new String[]{"blah", "blah", "1"}, new String[]{"blah", null, "1"}, true);
+            assertMatches(true, new String[]{"blah", "blah", "1"}, new String[]{"", "blah", ""}, true);
+            assertMatches(true, new String[]{"blah  ", "blah", "1"}, new String[]{"blah", null, null}, true);
+
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{"bl", null, null}, true);
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{"blah ", null, null}, true);
+            assertMatches(false, new String[]{" blah", "blah", "1"}, new String[]{"blah", null, null}, true);
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{"blahblahx", null, null}, true);
+            assertMatches(false, new String[]{"blah", "blah", "1"}, new String[]{"bl\u00e4h", null, null}, true);
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+    }
+
+    // asserts that the given fields match the given criteria by prefix, both as a view over raw bytes and as a decoded record
+    private void assertMatches(boolean expected, String[] fields, String[] criteria) throws IOException
+    {
+        assertMatches(expected, fields, criteria, false);
+    }
+
+    // asserts that the given fields match the given criteria, both as a view over raw bytes and as a decoded record
+    private void assertMatches(boolean expected, String[] fields, String[] criteria, boolean exact) throws IOException
+    {
+        CompiledRecordMatcherImpl matcher = new CompiledRecordMatcherImpl(criteria, exact);
+
+        DataRecord rec = new DataRecordImpl(fields);
+
+        byte[] buffer = new byte[CODEC.getRecordLength()];
+        CODEC.encode(rec, buffer, 0);
+
+        LazyDataRecordImpl view = new LazyDataRecordImpl(CODEC);
+        view.wrap(buffer, 0, 0);
+
+        assertEquals("Matching a view over raw bytes", expected, matcher.matches(view, null));
+        assertEquals("Matching a decoded record", expected, matcher.matches(rec, null));
+    }
+}
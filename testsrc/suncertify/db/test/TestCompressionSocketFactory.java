@@ -0,0 +1,197 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.DataInputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import suncertify.db.server.CompressionClientSocketFactory;
+import suncertify.db.server.CompressionServerSocketFactory;
+import suncertify.db.server.CompressionOutputStream;
+import suncertify.db.server.CompressionInputStream;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link CompressionClientSocketFactory CompressionClientSocketFactory} and
+ * {@link CompressionServerSocketFactory CompressionServerSocketFactory} classes, and the streams of their sockets.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestCompressionSocketFactory extends TestCase
+{
+    private final static int LEVEL = 1;
+    private final static int THRESHOLD = 512;
+
+    /**
+     * Constructs a <tt>TestCompressionSocketFactory</tt> with a null implementation.
+     */
+    public TestCompressionSocketFactory()
+    {
+
+    }
+
+    /**
+     * Writes sample padded records, which span several frames, and a message below the threshold, and asserts that they
+     * are read back unchanged, and that the padded records are compressed.
+     */
+    public void testStreams()
+    {
+        try
+        {
+            byte[] records = createRecords(200000);
+            byte[] small = "small message".getBytes("US-ASCII");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            OutputStream out = new CompressionOutputStream(bytes, LEVEL, THRESHOLD);
+
+            out.write(records);
+            out.flush();
+
+            int compressed = bytes.size();
+
+            out.write(small);
+            out.close();
+
+            assertTrue("Padded records [" + compressed + "] should be compressed to less than half", compressed < records.length / 2);
+            assertEquals("Small message should not be compressed", compressed + 1 + 4 + small.length, bytes.size());
+
+            DataInputStream in = new DataInputStream(new CompressionInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            byte[] readRecords = new byte[records.length];
+            in.readFully(readRecords);
+
+            byte[] readSmall = new byte[small.length];
+            in.readFully(readSmall);
+
+            assertTrue("Records should be read unchanged", Arrays.equals(records, readRecords));
+            assertTrue("Small message should be read unchanged", Arrays.equals(small, readSmall));
+            assertEquals("End of stream", -1, in.read());
+
+            in.close();
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+    }
+
+    /**
+     * Connects a socket of the client factory to a server socket of the server factory, and asserts that sample records
+     * are echoed back unchanged.
+     */
+    public void testSockets()
+    {
+        final byte[] records = createRecords(100000);
+        ServerSocket server = null;
+        Socket client = null;
+
+        try
+        {
+            server = new CompressionServerSocketFactory(LEVEL, THRESHOLD).createServerSocket(0);
+
+            final ServerSocket accepting = server;
+
+            Thread echo = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        Socket s = accepting.accept();
+
+                        byte[] b = new byte[records.length];
+                        new DataInputStream(s.getInputStream()).readFully(b);
+
+                        OutputStream out = s.getOutputStream();
+                        out.write(b);
+                        out.flush();
+                    }
+                    catch(IOException ioe)
+                    {
+                        // the client fails to read the echo
+                    }
+                }
+            };
+
+            echo.start();
+
+            client = new CompressionClientSocketFactory(LEVEL, THRESHOLD).createSocket("localhost", server.getLocalPort());
+
+            OutputStream out = client.getOutputStream();
+            out.write(records);
+            out.flush();
+
+            InputStream in = client.getInputStream();
+            byte[] echoed = new byte[records.length];
+            new DataInputStream(in).readFully(echoed);
+
+            assertTrue("Records should be echoed unchanged", Arrays.equals(records, echoed));
+
+            echo.join();
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+        finally
+        {
+            try
+            {
+                if(client != null)
+                {
+                    client.close();
+                }
+
+                if(server != null)
+                {
+                    server.close();
+                }
+            }
+            catch(IOException ioe)
+            {
+                fail(ioe.toString());
+            }
+        }
+    }
+
+    /**
+     * Asserts that factories with the same compression level and threshold are equal, so that connections may be shared.
+     */
+    public void testEquals()
+    {
+        assertEquals("Equal client factories", new CompressionClientSocketFactory(LEVEL, THRESHOLD), new CompressionClientSocketFactory(LEVEL, THRESHOLD));
+        assertEquals("Equal client factory hash codes", new CompressionClientSocketFactory(LEVEL, THRESHOLD).hashCode(), new CompressionClientSocketFactory(LEVEL, THRESHOLD).hashCode());
+        assertFalse("Different client factories", new CompressionClientSocketFactory(LEVEL, THRESHOLD).equals(new CompressionClientSocketFactory(9, THRESHOLD)));
+        assertEquals("Equal server factories", new CompressionServerSocketFactory(LEVEL, THRESHOLD), new CompressionServerSocketFactory(LEVEL, THRESHOLD));
+        assertFalse("Different server factories", new CompressionServerSocketFactory(LEVEL, THRESHOLD).equals(new CompressionServerSocketFactory(LEVEL, 0)));
+    }
+
+    // creates the bytes of sample records with fixed width fields that are padded with spaces
+    private byte[] createRecords(int length)
+    {
+        byte[] retval = new byte[length];
+
+        Arrays.fill(retval, (byte)' ');
+
+        for(int i = 0; i + 64 <= length; i += 64)
+        {
+            byte[] name = ("Name" + i).getBytes();
+
+            System.arraycopy(name, 0, retval, i, name.length);
+        }
+
+        return retval;
+    }
+}
@@ -0,0 +1,305 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import suncertify.db.server.RecordLockManager;
+import suncertify.db.server.ConcurrentRecordLockManagerImpl;
+import suncertify.db.server.TimedRecordLockManager;
+import suncertify.db.server.LeasedRecordLockManager;
+import suncertify.db.server.LockConstants;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link ConcurrentRecordLockManagerImpl ConcurrentRecordLockManagerImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestConcurrentRecordLockManagerImpl extends TestCase
+{
+    private final static int THREADS = 8;
+    private final static int LOCKS_PER_THREAD = 2000;
+    private final static int RECORDS = 4;
+
+    // the lease is long enough that the scheduling of a loaded machine does not pass it between the steps of a test
+    private final static long LEASE = 1000L;
+
+    /**
+     * Constructs a <tt>TestConcurrentRecordLockManagerImpl</tt> with a null implementation.
+     */
+    public TestConcurrentRecordLockManagerImpl()
+    {
+
+    }
+
+    /**
+     * Locks a record, and asserts that a client that locks the same record waits until it is unlocked, while a client that locks
+     * a different record does not wait.
+     */
+    public void testWait()
+    {
+        final RecordLockManager manager = new ConcurrentRecordLockManagerImpl();
+
+        long cookie = manager.lock(1);
+
+        assertTrue("Cookie should be valid", manager.isValidCookie(1, cookie));
+        assertFalse("Cookie should not be valid for another record", manager.isValidCookie(2, cookie));
+
+        manager.lock(2);
+        manager.unlock(2);
+
+        final boolean[] locked = new boolean[1];
+
+        Thread waiter = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                manager.lock(1);
+
+                synchronized(locked)
+                {
+                    locked[0] = true;
+                }
+
+                manager.unlock(1);
+            }
+        });
+
+        waiter.start();
+
+        try
+        {
+            Thread.sleep(200L);
+
+            synchronized(locked)
+            {
+                assertFalse("Should wait for the record lock", locked[0]);
+            }
+
+            manager.unlock(1);
+
+            waiter.join(5000L);
+
+            synchronized(locked)
+            {
+                assertTrue("Should acquire the released record lock", locked[0]);
+            }
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+
+        // the record may be locked again once every client has unlocked it
+        manager.lock(1);
+        manager.unlock(1);
+    }
+
+    /**
+     * Locks a record, and asserts that an attempt to lock it without waiting, or with a timeout, returns no cookie, while an attempt
+     * to lock it that waits longer than it is held acquires it.
+     */
+    public void testTryLockAndTimeout()
+    {
+        final TimedRecordLockManager manager = new ConcurrentRecordLockManagerImpl();
+
+        long cookie = manager.tryLock(1);
+
+        assertTrue("Unused lock should be acquired", manager.isValidCookie(1, cookie));
+        assertEquals("Used lock should not be acquired", LockConstants.NO_COOKIE, manager.tryLock(1));
+
+        long start = System.currentTimeMillis();
+
+        assertEquals("Used lock should not be acquired", LockConstants.NO_COOKIE, manager.lock(1, 100L));
+        assertTrue("Should wait for the timeout", System.currentTimeMillis() - start >= 90L);
+
+        try
+        {
+            manager.lock(1, -1L);
+            fail("Should not accept a negative timeout");
+        }
+        catch(IllegalArgumentException iae)
+        {
+            // expected
+        }
+
+        Thread releaser = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(100L);
+                }
+                catch(InterruptedException ie)
+                {
+                    // release at once
+                }
+
+                manager.unlock(1);
+            }
+        });
+
+        releaser.start();
+
+        assertTrue("Released lock should be acquired", manager.isValidCookie(1, manager.lock(1, 10000L)));
+
+        manager.unlock(1);
+
+        assertTrue("Unused lock should be acquired", manager.isValidCookie(1, manager.tryLock(1)));
+
+        manager.unlock(1);
+    }
+
+    /**
+     * Locks records with a short lease, and asserts that a renewed lock is kept, that a lock whose lease passes is released to a
+     * waiting client, and that the cookie of the client whose lease passed no longer validates.
+     */
+    public void testLease()
+    {
+        final LeasedRecordLockManager manager = new ConcurrentRecordLockManagerImpl(LEASE);
+
+        try
+        {
+            long kept = manager.lock(1);
+
+            // the lock is held for longer than its lease, and each renewal is made well before the lease passes
+            for(int i = 0; i < 6; i++)
+            {
+                Thread.sleep(LEASE / 4);
+
+                assertTrue("Held lock should be renewed", manager.renew(1, kept));
+            }
+
+            assertTrue("Renewed lock should be valid", manager.isValidCookie(1, kept));
+            assertTrue("Renewed lock should be released", manager.unlock(1, kept));
+            assertFalse("Released lock should not be renewed", manager.renew(1, kept));
+
+            long expired = manager.lock(2);
+            final long[] cookie = new long[]{LockConstants.NO_COOKIE};
+
+            Thread waiter = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    long c = manager.lock(2);
+
+                    synchronized(cookie)
+                    {
+                        cookie[0] = c;
+                    }
+                }
+            });
+
+            long start = System.currentTimeMillis();
+
+            waiter.start();
+            waiter.join(10000L);
+
+            assertFalse("Waiter should acquire the expired lock", waiter.isAlive());
+            assertTrue("Should wait for the lease to pass", System.currentTimeMillis() - start >= LEASE / 2);
+
+            synchronized(cookie)
+            {
+                assertTrue("Waiter cookie should be valid", manager.isValidCookie(2, cookie[0]));
+                assertTrue("Cookies should differ", cookie[0] != expired);
+            }
+
+            assertFalse("Expired cookie should not be valid", manager.isValidCookie(2, expired));
+            assertFalse("Expired lock should not be renewed", manager.renew(2, expired));
+            assertFalse("Expired cookie should not release the lock", manager.unlock(2, expired));
+
+            synchronized(cookie)
+            {
+                assertTrue("Waiter cookie should still be valid", manager.isValidCookie(2, cookie[0]));
+            }
+
+            manager.lock(3);
+
+            Thread.sleep(LEASE * 2);
+
+            assertEquals("Expired locks should be reaped in the background", 0, manager.reap());
+            assertTrue("Reaped lock should be acquired", manager.isValidCookie(3, manager.tryLock(3)));
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+
+        try
+        {
+            new ConcurrentRecordLockManagerImpl(0L);
+            fail("Should not accept a lease that is not positive");
+        }
+        catch(IllegalArgumentException iae)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Locks a few records repeatedly from many threads, and asserts that no two threads hold the lock of the same record at once.
+     */
+    public void testMutualExclusion()
+    {
+        final RecordLockManager manager = new ConcurrentRecordLockManagerImpl();
+        final int[] holders = new int[RECORDS];
+        final String[] failure = new String[1];
+
+        Thread[] threads = new Thread[THREADS];
+
+        for(int i = 0; i < threads.length; i++)
+        {
+            final int offset = i;
+
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    for(int j = 0; j < LOCKS_PER_THREAD; j++)
+                    {
+                        int recNo = (offset + j) % RECORDS;
+
+                        manager.lock(recNo);
+
+                        synchronized(holders)
+                        {
+                            if(++holders[recNo] != 1)
+                            {
+                                failure[0] = "Record " + recNo + " locked by " + holders[recNo] + " threads";
+                            }
+                        }
+
+                        synchronized(holders)
+                        {
+                            holders[recNo]--;
+                        }
+
+                        manager.unlock(recNo);
+                    }
+                }
+            });
+        }
+
+        for(int i = 0; i < threads.length; i++)
+        {
+            threads[i].start();
+        }
+
+        try
+        {
+            for(int i = 0; i < threads.length; i++)
+            {
+                threads[i].join(30000L);
+
+                assertFalse("Thread should finish", threads[i].isAlive());
+            }
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+
+        assertNull(failure[0], failure[0]);
+    }
+}
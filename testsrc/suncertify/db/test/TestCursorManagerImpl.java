@@ -0,0 +1,147 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import suncertify.db.server.Cursor;
+import suncertify.db.server.CursorManager;
+import suncertify.db.server.CursorManagerImpl;
+import suncertify.db.server.CompiledRecordMatcherImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link CursorManagerImpl CursorManagerImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestCursorManagerImpl extends TestCase
+{
+    // long enough that a slow test run does not pass the lease between two uses of a cursor
+    private final static long LEASE = 1000L;
+
+    /**
+     * Constructs a <tt>TestCursorManagerImpl</tt> with a null implementation.
+     */
+    public TestCursorManagerImpl()
+    {
+
+    }
+
+    /**
+     * Opens and closes cursors, and asserts that a closed cursor cannot be used, and that no more than the largest
+     * number of cursors may be open at once.
+     */
+    public void testOpenAndClose()
+    {
+        CursorManager manager = new CursorManagerImpl(LEASE, 2, 100);
+
+        long first = manager.open(createCursor(null));
+        long second = manager.open(createCursor(null));
+
+        assertTrue("Cursor ids should differ", first != second);
+        assertEquals("Open cursors", 2, manager.size());
+        assertNotNull("Open cursor", manager.get(first));
+
+        try
+        {
+            manager.open(createCursor(null));
+            fail("Should not open more than the largest number of cursors");
+        }
+        catch(IllegalStateException ise)
+        {
+            // expected
+        }
+
+        manager.close(first);
+        manager.close(first);
+
+        assertEquals("Open cursors", 1, manager.size());
+
+        try
+        {
+            manager.get(first);
+            fail("Should not get a closed cursor");
+        }
+        catch(IllegalArgumentException iae)
+        {
+            // expected
+        }
+
+        manager.open(createCursor(null));
+
+        assertEquals("Open cursors", 2, manager.size());
+    }
+
+    /**
+     * Opens cursors that hold record numbers, and asserts that a cursor that would exceed the largest number of held record numbers
+     * examines every record instead, until record numbers are released by closing a cursor.
+     */
+    public void testHeldRecords()
+    {
+        CursorManager manager = new CursorManagerImpl(LEASE, 10, 100);
+
+        Cursor first = createCursor(new int[60]);
+        Cursor second = createCursor(new int[60]);
+        Cursor third = createCursor(new int[40]);
+
+        long firstId = manager.open(first);
+        manager.open(second);
+        manager.open(third);
+
+        assertEquals("First cursor should hold its record numbers", 60, first.getHeldRecords());
+        assertNull("Second cursor should examine every record", second.getCandidates());
+        assertEquals("Third cursor should hold its record numbers", 40, third.getHeldRecords());
+
+        manager.close(firstId);
+
+        Cursor fourth = createCursor(new int[60]);
+        manager.open(fourth);
+
+        assertEquals("Fourth cursor should hold its record numbers", 60, fourth.getHeldRecords());
+    }
+
+    /**
+     * Asserts that a cursor expires once its lease has passed without it being used, and that using a cursor renews its lease.
+     */
+    public void testLease()
+    {
+        CursorManager manager = new CursorManagerImpl(LEASE, 10, 100);
+
+        long used = manager.open(createCursor(null));
+        long unused = manager.open(createCursor(null));
+
+        try
+        {
+            // the used cursor is kept for longer than its lease, and each use is made well before the lease passes
+            for(int i = 0; i < 6; i++)
+            {
+                Thread.sleep(LEASE / 4);
+                manager.get(used);
+            }
+
+            try
+            {
+                manager.get(unused);
+                fail("Should not get an expired cursor");
+            }
+            catch(IllegalArgumentException iae)
+            {
+                // expected
+            }
+
+            assertEquals("Open cursors", 1, manager.size());
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+    }
+
+    // creates a cursor over the given record numbers
+    private Cursor createCursor(int[] candidates)
+    {
+        String[] criteria = new String[]{"a", null};
+
+        return new Cursor(criteria, new CompiledRecordMatcherImpl(criteria), 10, candidates);
+    }
+}
@@ -10,11 +10,21 @@ import suncertify.db.Data;
 import suncertify.db.DuplicateKeyException;
 import suncertify.db.RecordNotFoundException;
 import suncertify.db.DB;
+import suncertify.db.DataRecordImpl;
+import suncertify.db.RecordBatch;
+import suncertify.db.ChangeSet;
 import suncertify.db.datafile.FieldSchema;
 import suncertify.db.datafile.FieldSchemaImpl;
 import suncertify.db.datafile.DataFile;
 import suncertify.db.datafile.DataFileHeader;
 import suncertify.db.datafile.DataFileImpl;
+import suncertify.db.datafile.ChannelDataFileFactoryImpl;
+import suncertify.db.index.FieldIndexConstants;
+import suncertify.db.index.FieldIndexFactoryImpl;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
@@ -350,7 +360,9 @@ public class TestData extends TestCase
     /**
      * Tests the {@link Data#find(String[]) Data.find(String[])} method.
      * Creates a new data file, adds several sample records and asserts that certain search criteria
-     * will return the correct number of records from the data file.
+     * will return the correct number of records from the data file, that {@link Data#findRecords(String[]) Data.findRecords(String[])}
+     * returns the same records with their data, that a cursor returns them a page at a time, and that the records are read with
+     * {@link Data#readMany(int[]) Data.readMany(int[])} in the requested order.
      */
     public void testFind()
     {
@@ -402,6 +414,16 @@ public class TestData extends TestCase
             indicies = data.find(new String[]{"test", null, null, "4", null, null});
             assertEquals("Should find 7 records", indicies.length, 7);
 
+            indicies = ((Data)data).find(new String[]{"testName", null, null, null, null, null}, true);
+            assertEquals("Should find 0 records", indicies.length, 0);
+
+            indicies = ((Data)data).find(new String[]{"testName1", "", null, null, null, null}, true);
+            assertEquals("Should find 1 record", indicies.length, 1);
+            assertEquals("Should find record 1", indicies[0], 1);
+
+            indicies = ((Data)data).find(new String[]{"testName1", "testLocation", null, null, null, null}, true);
+            assertEquals("Should find 0 records", indicies.length, 0);
+
             int recNo = 0;
             long lockCookie;
 
@@ -430,6 +452,51 @@ public class TestData extends TestCase
 
             indicies = data.find(new String[]{"test", null, null, "4", null, null});
             assertEquals("Should find 5 records", indicies.length, 5);
+
+            RecordBatch batch = ((Data)data).findRecords(new String[]{"test", null, null, "4", null, null});
+            assertEquals("Should find 5 records", batch.size(), 5);
+            assertTrue("Should find the same records", Arrays.equals(batch.getRecordNumbers(), indicies));
+            assertEquals("Should find record 1 first", batch.getRecord(0)[0].trim(), "testName1");
+
+            batch = ((Data)data).findRecords(new String[]{"testName", null, null, null, null, null}, true);
+            assertEquals("Should find 0 records", batch.size(), 0);
+
+            long cursorId = ((Data)data).openCursor(new String[]{"test", null, null, null, null, null}, 4);
+            batch = ((Data)data).fetch(cursorId);
+            assertEquals("Should fetch a full page", batch.size(), 4);
+            assertEquals("Should fetch record 1 first", batch.getRecordNumber(0), 1);
+            batch = ((Data)data).fetch(cursorId);
+            assertEquals("Should fetch the last page", batch.size(), 2);
+            assertEquals("Should fetch record 7 last", batch.getRecordNumber(1), 7);
+
+            try
+            {
+                ((Data)data).fetch(cursorId);
+                fail("Should not fetch from a cursor after its last page");
+            }
+            catch(IllegalArgumentException iae)
+            {
+                // expected
+            }
+
+            String[][] records = ((Data)data).readMany(new int[]{7, 0, 3, 1, 1, 5});
+            assertEquals("Should read 6 records", records.length, 6);
+            assertEquals("Should read record 7 first", records[0][0].trim(), "testName7");
+            assertNull("Deleted record should be null", records[1]);
+            assertNull("Deleted record should be null", records[2]);
+            assertEquals("Should read record 1", records[3][0].trim(), "testName1");
+            assertEquals("Should read record 1 twice", records[4][0].trim(), "testName1");
+            assertEquals("Should read record 5 last", records[5][0].trim(), "testName5");
+
+            try
+            {
+                ((Data)data).readMany(new int[]{1, 8});
+                fail("Should not read a record number that does not exist");
+            }
+            catch(RecordNotFoundException rnfe)
+            {
+                // expected
+            }
         }
         catch(Exception ioe)
         {
@@ -456,6 +523,401 @@ public class TestData extends TestCase
         }
     }
 
+    /**
+     * Tests the {@link Data#find(String[]) Data.find(String[])} method where some fields are indexed.
+     * Creates a new data file, adds several sample records and asserts that search criteria on both indexed and unindexed fields
+     * return the correct records, after records are updated and deleted.
+     */
+    public void testFindWithFieldIndexes()
+    {
+        DataFile file = null;
+        File temp2 = null;
+
+        try
+        {
+            temp2 = File.createTempFile("TestData.testFindWithFieldIndexes", "TestCase.db");
+
+            DataFileHeader header = new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA);
+
+            file = new DataFileImpl(temp2.getAbsolutePath(), "rw");
+
+            file.writeHeader(header);
+
+            file.writeRecord(new DataRecordImpl(new String[]{"testName0", "testLocation0", "testSpecialties0", "450", "670", "testOwn0"}));
+
+            Map types = new HashMap();
+            types.put("name", FieldIndexConstants.INDEX_TYPE_SORTED);
+            types.put("size", FieldIndexConstants.INDEX_TYPE_SORTED);
+            types.put("location", FieldIndexConstants.INDEX_TYPE_BITMAP);
+
+            DB data = new Data(temp2.getAbsolutePath(), new ChannelDataFileFactoryImpl(temp2.getAbsolutePath()), new FieldIndexFactoryImpl(types));
+
+            for(int i = 1; i < 8; i++)
+            {
+                data.create(new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "67" + i, "testOwn" + i});
+            }
+
+            int[] indicies;
+
+            indicies = data.find(new String[]{"test", null, null, null, null, null});
+            assertEquals("Should find 8 records", 8, indicies.length);
+
+            indicies = data.find(new String[]{"testName1", null, null, null, null, null});
+            assertEquals("Should find 1 record", 1, indicies.length);
+            assertEquals("Should find record", 1, indicies[0]);
+
+            indicies = data.find(new String[]{"testName1 ", null, null, null, null, null});
+            assertEquals("Should find 1 record (padded with white space)", 1, indicies.length);
+
+            indicies = data.find(new String[]{"test", "testLocation2", null, "45", null, null});
+            assertEquals("Should find 1 record", 1, indicies.length);
+            assertEquals("Should find record", 2, indicies[0]);
+
+            indicies = data.find(new String[]{"testName3", null, null, "452", null, null});
+            assertEquals("Should find 0 records", 0, indicies.length);
+
+            long lockCookie = data.lock(3);
+            data.update(3, new String[]{"testName3", "testLocation3", "testSpecialties3", "999", "673", "testOwn3"}, lockCookie);
+            data.unlock(3, lockCookie);
+
+            indicies = data.find(new String[]{null, null, null, "45", null, null});
+            assertEquals("Should find 7 records after update", 7, indicies.length);
+
+            indicies = data.find(new String[]{null, null, null, "99", null, null});
+            assertEquals("Should find updated record", 1, indicies.length);
+            assertEquals("Should find updated record", 3, indicies[0]);
+
+            lockCookie = data.lock(0);
+            data.delete(0, lockCookie);
+            data.unlock(0, lockCookie);
+
+            indicies = data.find(new String[]{"testName", null, null, null, null, null});
+            assertEquals("Should find 7 records after delete", 7, indicies.length);
+            assertEquals("Should not find deleted record", 1, indicies[0]);
+        }
+        catch(Exception ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            if(file != null)
+            {
+                try
+                {
+                    file.close();
+                }
+                catch(IOException ioe)
+                {
+                    fail(ioe.toString());
+                }
+            }
+
+            if(temp2 != null && temp2.exists())
+            {
+                temp2.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests the {@link Data#close() Data.close()} method where a field is indexed by an index that is stored on disk.
+     * Creates and deletes sample records, closes the data file and asserts that the index file, and the file of unique keys and tombstones,
+     * are reopened and used by a new <code>Data</code> object.
+     */
+    public void testCloseWithPersistentFieldIndex()
+    {
+        DataFile file = null;
+        File temp2 = null;
+        File index = null;
+        File keys = null;
+
+        try
+        {
+            temp2 = File.createTempFile("TestData.testCloseWithPersistentFieldIndex", "TestCase.db");
+            index = new File(temp2.getAbsolutePath() + FieldIndexConstants.INDEX_FILE_INFIX + "name");
+            keys = new File(temp2.getAbsolutePath() + FieldIndexConstants.KEY_INDEX_FILE_SUFFIX);
+
+            DataFileHeader header = new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA);
+
+            file = new DataFileImpl(temp2.getAbsolutePath(), "rw");
+
+            file.writeHeader(header);
+
+            Map types = new HashMap();
+            types.put("name", FieldIndexConstants.INDEX_TYPE_BTREE);
+
+            Data data = new Data(temp2.getAbsolutePath(), new ChannelDataFileFactoryImpl(temp2.getAbsolutePath()), new FieldIndexFactoryImpl(types));
+
+            for(int i = 0; i < 8; i++)
+            {
+                data.create(new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "67" + i, "testOwn" + i});
+            }
+
+            long cookie = data.lock(2);
+            data.delete(2, cookie);
+            data.unlock(2, cookie);
+
+            data.close();
+
+            assertTrue("Index file should exist", index.exists());
+            assertTrue("Key index file should exist", keys.exists());
+
+            data = new Data(temp2.getAbsolutePath(), new ChannelDataFileFactoryImpl(temp2.getAbsolutePath()), new FieldIndexFactoryImpl(types));
+
+            assertFalse("Key index file should be removed once it is read", keys.exists());
+
+            int[] indicies = data.find(new String[]{"testName5", null, null, null, null, null});
+            assertEquals("Should find 1 record", 1, indicies.length);
+            assertEquals("Should find record", 5, indicies[0]);
+
+            indicies = data.find(new String[]{"testName", null, null, null, null, null});
+            assertEquals("Should find 7 records", 7, indicies.length);
+            assertNull("Deleted record", data.read(2));
+
+            try
+            {
+                data.create(new String[]{"testName1", "testLocation1", "x", "1", "1", "x"});
+                fail("Expected DuplicateKeyException");
+            }
+            catch(DuplicateKeyException dke)
+            {
+                // expected
+            }
+
+            data.close();
+        }
+        catch(Exception ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            if(file != null)
+            {
+                try
+                {
+                    file.close();
+                }
+                catch(IOException ioe)
+                {
+                    fail(ioe.toString());
+                }
+            }
+
+            if(temp2 != null && temp2.exists())
+            {
+                temp2.delete();
+            }
+
+            if(index != null && index.exists())
+            {
+                index.delete();
+            }
+
+            if(keys != null && keys.exists())
+            {
+                keys.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests the {@link Data#changesSince(long, String[]) Data.changesSince(long, String[])} method.
+     * Creates a new data file, adds several sample records, and asserts that a change set after an unknown sequence holds every
+     * matching record, and that a change set after a known sequence holds only the records that changed, with records that were
+     * deleted or no longer match returned as removed.
+     */
+    public void testChangesSince()
+    {
+        DataFile file = null;
+        File temp2 = null;
+
+        try
+        {
+            temp2 = File.createTempFile("TestData.testChangesSince", "TestCase.db");
+
+            DataFileHeader header = new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA);
+
+            file = new DataFileImpl(temp2.getAbsolutePath(), "rw");
+
+            file.writeHeader(header);
+
+            Data data = new Data(temp2.getAbsolutePath());
+
+            for(int i = 0; i < 5; i++)
+            {
+                data.create(new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "67" + i, null});
+            }
+
+            String[] criteria = new String[]{"testName", null, "testSpecialties", null, null, null};
+
+            ChangeSet changes = data.changesSince(ChangeSet.NO_SEQUENCE, criteria);
+
+            assertTrue("Unknown sequence should reset", changes.isReset());
+            assertEquals("Should hold every matching record", 5, changes.getRecords().size());
+            assertEquals("Sequence of the change set", data.getChangeSequence(), changes.getSequence());
+
+            long sequence = changes.getSequence();
+
+            changes = data.changesSince(sequence, criteria);
+
+            assertFalse("Known sequence should not reset", changes.isReset());
+            assertEquals("Should hold no changes", 0, changes.getRecords().size());
+            assertEquals("Should remove no records", 0, changes.getRemovedRecordNumbers().length);
+
+            long lockCookie = data.lock(1);
+            data.update(1, new String[]{"testName1", "testLocation1", "changed", "451", "671", null}, lockCookie);
+            data.unlock(1, lockCookie);
+
+            lockCookie = data.lock(2);
+            data.update(2, new String[]{"testName2", "testLocation2", "testSpecialtiesUpdated", "452", "672", null}, lockCookie);
+            data.unlock(2, lockCookie);
+
+            lockCookie = data.lock(3);
+            data.delete(3, lockCookie);
+            data.unlock(3, lockCookie);
+
+            data.create(new String[]{"testName5", "testLocation5", "testSpecialties5", "455", "675", null});
+
+            changes = data.changesSince(sequence, criteria);
+
+            assertFalse("Known sequence should not reset", changes.isReset());
+            assertEquals("Should hold the updated and created records", 2, changes.getRecords().size());
+            assertEquals("Updated record", 2, changes.getRecords().getRecordNumber(0));
+            assertEquals("Updated record specialties", "testSpecialtiesUpdated", changes.getRecords().getRecord(0)[2].trim());
+            assertEquals("Created record", 5, changes.getRecords().getRecordNumber(1));
+            assertTrue("Should remove the unmatched and deleted records", Arrays.equals(new int[]{1, 3}, changes.getRemovedRecordNumbers()));
+
+            changes = data.changesSince(changes.getSequence(), criteria);
+
+            assertEquals("Should hold no changes", 0, changes.getRecords().size());
+        }
+        catch(Exception e)
+        {
+            fail(e.toString());
+        }
+        finally
+        {
+            if(file != null)
+            {
+                try
+                {
+                    file.close();
+                }
+                catch(IOException ioe)
+                {
+                    fail(ioe.toString());
+                }
+            }
+
+            if(temp2 != null && temp2.exists())
+            {
+                temp2.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests the {@link Data#readIfModified(int[], long[]) Data.readIfModified(int[], long[])} method.
+     * Creates a new data file, adds several sample records, and asserts that records with an unknown version are always read,
+     * and that records with a known version are read only if they have been updated or deleted since.
+     */
+    public void testReadIfModified()
+    {
+        DataFile file = null;
+        File temp2 = null;
+
+        try
+        {
+            temp2 = File.createTempFile("TestData.testReadIfModified", "TestCase.db");
+
+            DataFileHeader header = new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA);
+
+            file = new DataFileImpl(temp2.getAbsolutePath(), "rw");
+
+            file.writeHeader(header);
+
+            Data data = new Data(temp2.getAbsolutePath());
+
+            for(int i = 0; i < 4; i++)
+            {
+                data.create(new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "67" + i, null});
+            }
+
+            int[] recNos = new int[]{3, 0, 2, 1};
+            long[] versions = new long[]{ChangeSet.NO_SEQUENCE, ChangeSet.NO_SEQUENCE, ChangeSet.NO_SEQUENCE, ChangeSet.NO_SEQUENCE};
+
+            ChangeSet changes = data.readIfModified(recNos, versions);
+
+            assertEquals("Unknown versions should read every record", 4, changes.getRecords().size());
+            assertEquals("Records should be read in order", 3, changes.getRecords().getRecordNumber(0));
+
+            long version = changes.getSequence();
+            Arrays.fill(versions, version);
+
+            assertEquals("Unchanged records should not be read", 0, data.readIfModified(recNos, versions).getRecords().size());
+
+            long lockCookie = data.lock(2);
+            data.update(2, new String[]{"testName2", "testLocation2", "updated", "452", "672", null}, lockCookie);
+            data.unlock(2, lockCookie);
+
+            lockCookie = data.lock(0);
+            data.delete(0, lockCookie);
+            data.unlock(0, lockCookie);
+
+            changes = data.readIfModified(recNos, versions);
+
+            assertEquals("Only the updated record should be read", 1, changes.getRecords().size());
+            assertEquals("Updated record", 2, changes.getRecords().getRecordNumber(0));
+            assertEquals("Updated record specialties", "updated", changes.getRecords().getRecord(0)[2].trim());
+            assertTrue("Deleted record should be removed", Arrays.equals(new int[]{0}, changes.getRemovedRecordNumbers()));
+
+            try
+            {
+                data.readIfModified(new int[]{4}, new long[]{ChangeSet.NO_SEQUENCE});
+                fail("Should not read a record that does not exist");
+            }
+            catch(RecordNotFoundException rnfe)
+            {
+                // expected
+            }
+
+            try
+            {
+                data.readIfModified(recNos, new long[1]);
+                fail("Should not read with a different number of versions");
+            }
+            catch(IllegalArgumentException iae)
+            {
+                // expected
+            }
+        }
+        catch(Exception e)
+        {
+            fail(e.toString());
+        }
+        finally
+        {
+            if(file != null)
+            {
+                try
+                {
+                    file.close();
+                }
+                catch(IOException ioe)
+                {
+                    fail(ioe.toString());
+                }
+            }
+
+            if(temp2 != null && temp2.exists())
+            {
+                temp2.delete();
+            }
+        }
+    }
+
     private int createRecord(String[] record) throws DuplicateKeyException, FileNotFoundException
     {
         DB data = new Data(temp.getAbsolutePath());
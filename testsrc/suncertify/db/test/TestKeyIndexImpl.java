@@ -0,0 +1,50 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import suncertify.db.index.KeyIndex;
+import suncertify.db.index.KeyIndexImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link KeyIndexImpl KeyIndexImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestKeyIndexImpl extends TestCase
+{
+    /**
+     * Constructs a <tt>TestKeyIndexImpl</tt> with a null implementation.
+     */
+    public TestKeyIndexImpl()
+    {
+
+    }
+
+    /**
+     * Adds, looks up and removes sample unique keys, and asserts that keys are compared on the trimmed key fields only.
+     */
+    public void testKeyIndex()
+    {
+        KeyIndex index = new KeyIndexImpl(new int[]{0, 1});
+
+        assertTrue("Should add key", index.put(new String[]{"name", "location", "a"}, 0));
+        assertTrue("Should add key", index.put(new String[]{"name", "location2", "a"}, 1));
+        assertFalse("Should not add duplicate key", index.put(new String[]{"name  ", " location", "b"}, 2));
+
+        assertEquals("Should find record", 0, index.get(new String[]{"name", "location", "c"}));
+        assertEquals("Should find record with padded key", 1, index.get(new String[]{"name      ", "location2   ", null}));
+        assertTrue("Should not find record", index.get(new String[]{"name", "location3", "a"}) < 0);
+        assertEquals("Number of keys", 2, index.size());
+
+        assertFalse("Should not remove key of another record", index.remove(new String[]{"name", "location", "a"}, 1));
+        assertTrue("Should remove key", index.remove(new String[]{"name", "location", "a"}, 0));
+        assertTrue("Should not find removed record", index.get(new String[]{"name", "location", "a"}) < 0);
+        assertTrue("Should add key after removal", index.put(new String[]{"name", "location", "a"}, 2));
+
+        index.clear();
+
+        assertEquals("Number of keys", 0, index.size());
+    }
+}
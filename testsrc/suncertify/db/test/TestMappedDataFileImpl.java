@@ -0,0 +1,249 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+
+import suncertify.db.datafile.FieldSchema;
+import suncertify.db.datafile.FieldSchemaImpl;
+import suncertify.db.datafile.DataFile;
+import suncertify.db.datafile.DataFileFactory;
+import suncertify.db.datafile.DataFileHeader;
+import suncertify.db.datafile.DataFileImpl;
+import suncertify.db.datafile.MappedDataFileImpl;
+import suncertify.db.datafile.MappedDataFileFactoryImpl;
+import suncertify.db.Data;
+import suncertify.db.DataRecord;
+import suncertify.db.DataRecordImpl;
+import suncertify.db.DuplicateKeyException;
+import suncertify.db.RecordNotFoundException;
+import suncertify.db.index.FieldIndexConstants;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link MappedDataFileImpl MappedDataFileImpl} and {@link MappedDataFileFactoryImpl MappedDataFileFactoryImpl} classes.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestMappedDataFileImpl extends TestCase
+{
+    private final static int MAGIC_NUMBER = 0x00002020;
+    private final static int DATA_OFFSET = 0x00000046;
+
+    private final static DataRecord UPDATED = new DataRecordImpl(new String[]{"updated4", "testLocation4", "testSpecialties4", "454", "674", "testOwn4"});
+
+    // smaller than a record, so that records straddle chunks of the mapping
+    private final static int CHUNK_SIZE = 100;
+
+    private final static FieldSchema[] SCHEMA = new FieldSchema[]
+    {
+        new FieldSchemaImpl("name", (short)32),
+        new FieldSchemaImpl("location", (short)64),
+        new FieldSchemaImpl("specialties", (short)64),
+        new FieldSchemaImpl("size", (short)6),
+        new FieldSchemaImpl("rate", (short)8),
+        new FieldSchemaImpl("owner", (short)8)
+    };
+
+    /**
+     * Constructs a <tt>TestMappedDataFileImpl</tt> with a null implementation.
+     */
+    public TestMappedDataFileImpl()
+    {
+
+    }
+
+    /**
+     * Tests the {@link MappedDataFileImpl#nextRecord() MappedDataFileImpl.nextRecord()} method as the data file grows.
+     * Writes sample records, reads them back through the mapping, writes more records so that the mapping must be extended,
+     * and asserts that each record is read back the same.
+     */
+    public void testGrowth()
+    {
+        DataFileFactory factory = null;
+        File f = null;
+
+        try
+        {
+            f = createDataFile();
+
+            factory = new MappedDataFileFactoryImpl(f.getAbsolutePath(), CHUNK_SIZE);
+
+            DataFile writer = factory.createDataFile("rw");
+            DataFile reader = factory.createDataFile("r");
+
+            writer.seekRecord(0);
+
+            for(int i = 0; i < 3; i++)
+            {
+                writer.writeRecord(createRecord(i));
+            }
+
+            assertRecords(reader, 3);
+
+            for(int i = 3; i < 10; i++)
+            {
+                writer.writeRecord(createRecord(i));
+            }
+
+            assertRecords(reader, 10);
+
+            writer.seekRecord(4);
+            writer.writeRecord(UPDATED);
+
+            reader.seekRecord(4);
+            DataRecord rec = reader.nextRecord();
+            trim(rec);
+
+            assertEquals("Overwritten DataRecord should be visible through the mapping", UPDATED, rec);
+
+            writer.setRecordLength(2);
+
+            assertEquals("Should be 2 records in the file", 2, reader.lengthInRecords());
+            assertRecords(reader, 2);
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        finally
+        {
+            close(factory);
+
+            if(f != null && f.exists())
+            {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests a {@link Data Data} instance that is constructed with a {@link MappedDataFileFactoryImpl MappedDataFileFactoryImpl}.
+     * Creates and reads records, and asserts that records are found through the mapping.
+     */
+    public void testData()
+    {
+        Data data = null;
+        File f = null;
+
+        try
+        {
+            f = createDataFile();
+
+            data = new Data(f.getAbsolutePath(), new MappedDataFileFactoryImpl(f.getAbsolutePath(), CHUNK_SIZE));
+
+            for(int i = 0; i < 5; i++)
+            {
+                assertEquals("Record number of created record", i, data.create(createRecord(i).getData()));
+            }
+
+            assertEquals("Name of record 3", "testName3", data.read(3)[0].trim());
+            assertEquals("Should find 1 record", 1, data.find(new String[]{"testName2", null, null, null, null, null}).length);
+            assertEquals("Should find 5 records", 5, data.find(new String[]{"testName", null, null, null, null, null}).length);
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(DuplicateKeyException dke)
+        {
+            fail(dke.toString());
+        }
+        catch(RecordNotFoundException rnfe)
+        {
+            fail(rnfe.toString());
+        }
+        finally
+        {
+            if(data != null)
+            {
+                data.close();
+            }
+
+            if(f != null && f.exists())
+            {
+                f.delete();
+            }
+
+            if(f != null)
+            {
+                new File(f.getAbsolutePath() + FieldIndexConstants.KEY_INDEX_FILE_SUFFIX).delete();
+            }
+        }
+    }
+
+    // asserts that the given data file contains the given number of sample records, read sequentially from the first record
+    private void assertRecords(DataFile file, int total) throws IOException
+    {
+        file.seekRecord(0);
+
+        int counter = 0;
+
+        while(file.hasMoreRecords())
+        {
+            DataRecord rec = file.nextRecord();
+            trim(rec);
+
+            if(counter != 4 || !rec.equals(UPDATED))
+            {
+                assertEquals("DataRecord data should be the same after going to file and read back again (and fields are trimmed)", createRecord(counter), rec);
+            }
+
+            counter++;
+        }
+
+        assertEquals("Number of records read through the mapping", total, counter);
+    }
+
+    // creates a sample record with the given suffix
+    private DataRecord createRecord(int i)
+    {
+        return new DataRecordImpl(new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "67" + i, "testOwn" + i});
+    }
+
+    // creates a temporary data file that contains only the header
+    private File createDataFile() throws IOException
+    {
+        File f = File.createTempFile("TestMappedDataFileImpl", "TestCase.db");
+
+        DataFile file = new DataFileImpl(f, "rw");
+
+        try
+        {
+            file.writeHeader(new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA));
+        }
+        finally
+        {
+            file.close();
+        }
+
+        return f;
+    }
+
+    // trims each field of the given record
+    private void trim(DataRecord rec)
+    {
+        for(int i = 0; i < rec.getData().length; i++)
+        {
+            rec.getData()[i] = rec.getData()[i].trim();
+        }
+    }
+
+    // closes the given factory, failing the test if it cannot be closed
+    private void close(DataFileFactory factory)
+    {
+        if(factory != null)
+        {
+            try
+            {
+                factory.close();
+            }
+            catch(IOException ioe)
+            {
+                fail(ioe.toString());
+            }
+        }
+    }
+}
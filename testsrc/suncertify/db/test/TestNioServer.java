@@ -0,0 +1,584 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.net.Socket;
+import java.rmi.RemoteException;
+
+import suncertify.db.Data;
+import suncertify.db.DuplicateKeyException;
+import suncertify.db.RecordNotFoundException;
+import suncertify.db.RecordBatch;
+import suncertify.db.DataChange;
+import suncertify.db.ChangeSet;
+import suncertify.db.datafile.FieldSchema;
+import suncertify.db.datafile.FieldSchemaImpl;
+import suncertify.db.datafile.DataFile;
+import suncertify.db.datafile.DataFileHeader;
+import suncertify.db.datafile.DataFileImpl;
+import suncertify.db.server.NioServer;
+import suncertify.db.server.NioRemoteDB;
+import suncertify.db.server.LockConstants;
+import suncertify.db.server.NioConstants;
+import suncertify.db.index.FieldIndexConstants;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link NioServer NioServer} and {@link NioRemoteDB NioRemoteDB} classes.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestNioServer extends TestCase
+{
+    private final static int MAGIC_NUMBER = 0x00002020;
+    private final static int DATA_OFFSET = 0x00000046;
+    private final static int TOTAL_RECORDS = 20;
+    private final static int TOTAL_THREADS = 8;
+
+    private final static FieldSchema[] SCHEMA = new FieldSchema[]
+    {
+        new FieldSchemaImpl("name", (short)32),
+        new FieldSchemaImpl("location", (short)64),
+        new FieldSchemaImpl("specialties", (short)64),
+        new FieldSchemaImpl("size", (short)6),
+        new FieldSchemaImpl("rate", (short)8),
+        new FieldSchemaImpl("owner", (short)8)
+    };
+
+    /**
+     * Constructs a <tt>TestNioServer</tt> with a null implementation.
+     */
+    public TestNioServer()
+    {
+
+    }
+
+    /**
+     * Creates, reads, finds, updates and deletes records through the binary protocol, and asserts that the exceptions of the
+     * server are thrown again by the client.
+     */
+    public void testOperations()
+    {
+        File temp = null;
+        Data data = null;
+        NioServer server = null;
+        NioRemoteDB client = null;
+
+        try
+        {
+            temp = createDataFile();
+            data = new Data(temp.getAbsolutePath());
+            server = new NioServer(data, 0);
+            server.start();
+
+            client = new NioRemoteDB(null, server.getPort());
+
+            for(int i = 0; i < TOTAL_RECORDS; i++)
+            {
+                assertEquals("Record number", i, client.create(createRecord(i)));
+            }
+
+            assertEquals("Record name", "testName3", client.read(3)[0].trim());
+            assertEquals("Record name", "testName5", client.readMany(new int[]{5, 2}).getRecord(0)[0].trim());
+
+            assertEquals("Number of records found", TOTAL_RECORDS, client.find(new String[]{"testName", null, null, null, null, null}).length);
+            assertEquals("Number of records found", 11, client.find(new String[]{"testName1", null, null, null, null, null}).length);
+            assertEquals("Number of records found", 1, client.find(new String[]{"testName1", null, null, null, null, null}, true).length);
+
+            RecordBatch batch = client.findRecords(new String[]{"testName1", null, null, null, null, null}, true);
+
+            assertEquals("Number of records found", 1, batch.size());
+            assertEquals("Record number", 1, batch.getRecordNumber(0));
+            assertEquals("Record location", "testLocation1", batch.getRecord(0)[1].trim());
+
+            long cursorId = client.openCursor(new String[]{"testName", null, null, null, null, null}, 8);
+            int total = 0;
+
+            do
+            {
+                batch = client.fetch(cursorId);
+                total = total + batch.size();
+            }
+            while(batch.size() == 8);
+
+            client.closeCursor(cursorId);
+
+            assertEquals("Number of records fetched", TOTAL_RECORDS, total);
+
+            long subscriptionId = client.subscribe();
+
+            long cookie = client.lock(4);
+            long otherCookie = client.lock(5);
+
+            try
+            {
+                client.update(4, new String[]{"testName4", "testLocation4", "updated", "454", "$674", null}, otherCookie);
+                fail("Expected SecurityException");
+            }
+            catch(SecurityException se)
+            {
+                // expected
+            }
+
+            assertEquals("Locked record should not be locked", LockConstants.NO_COOKIE, client.tryLock(5));
+            assertEquals("Locked record should not be locked", LockConstants.NO_COOKIE, client.lock(5, 50L));
+
+            client.unlock(5, otherCookie);
+
+            otherCookie = client.lock(5, 1000L);
+            client.unlock(5, otherCookie);
+
+            client.renewLock(4, cookie);
+            client.update(4, new String[]{"testName4", "testLocation4", "updated", "454", "$674", null}, cookie);
+            client.unlock(4, cookie);
+
+            try
+            {
+                client.renewLock(4, cookie);
+                fail("Should not renew a released lock");
+            }
+            catch(SecurityException se)
+            {
+                // expected
+            }
+
+            assertEquals("Updated record specialties", "updated", client.read(4)[2].trim());
+
+            cookie = client.lock(6);
+            client.delete(6, cookie);
+
+            assertNull("Deleted record", client.read(6));
+
+            DataChange[] changes = client.pollChanges(subscriptionId, 1000L);
+
+            assertEquals("Number of changes", 2, changes.length);
+            assertEquals("Change type", DataChange.UPDATED, changes[0].getType());
+            assertEquals("Change record number", 4, changes[0].getRecordNumber());
+            assertEquals("Changed record specialties", "updated", changes[0].getRecord()[2]);
+            assertEquals("Change type", DataChange.DELETED, changes[1].getType());
+            assertEquals("Change record number", 6, changes[1].getRecordNumber());
+
+            client.unsubscribe(subscriptionId);
+
+            ChangeSet changeSet = client.changesSince(ChangeSet.NO_SEQUENCE, new String[]{"testName", null, null, null, null, null});
+
+            assertTrue("Unknown sequence should reset", changeSet.isReset());
+            assertEquals("Number of records in change set", TOTAL_RECORDS - 1, changeSet.getRecords().size());
+            assertEquals("Change sequence", client.getChangeSequence(), changeSet.getSequence());
+
+            cookie = client.lock(4);
+            client.update(4, new String[]{"testName4", "testLocation4", "changed", "454", "$674", null}, cookie);
+            client.unlock(4, cookie);
+
+            changeSet = client.changesSince(changeSet.getSequence(), new String[]{"testName", null, "updated", null, null, null}, true);
+
+            assertEquals("Number of records in change set", 0, changeSet.getRecords().size());
+            assertEquals("Removed record number", 4, changeSet.getRemovedRecordNumbers()[0]);
+
+            try
+            {
+                client.read(TOTAL_RECORDS);
+                fail("Expected RecordNotFoundException");
+            }
+            catch(RecordNotFoundException rnfe)
+            {
+                // expected
+            }
+
+            try
+            {
+                client.create(createRecord(7));
+                fail("Expected DuplicateKeyException");
+            }
+            catch(DuplicateKeyException dke)
+            {
+                // expected
+            }
+
+            client.close();
+
+            try
+            {
+                client.read(3);
+                fail("Expected RemoteException");
+            }
+            catch(RemoteException re)
+            {
+                // expected
+            }
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(RecordNotFoundException rnfe)
+        {
+            fail(rnfe.toString());
+        }
+        catch(DuplicateKeyException dke)
+        {
+            fail(dke.toString());
+        }
+        finally
+        {
+            shutdown(client, server, data, temp);
+        }
+    }
+
+    /**
+     * Calls the server from many threads on one connection, while one thread waits for a lock that is held, and asserts that
+     * every call completes with the correct result.
+     */
+    public void testPipelining()
+    {
+        File temp = null;
+        Data data = null;
+        NioServer server = null;
+        NioRemoteDB client = null;
+
+        try
+        {
+            temp = createDataFile();
+            data = new Data(temp.getAbsolutePath());
+            server = new NioServer(data, 0);
+            server.start();
+
+            final NioRemoteDB c = new NioRemoteDB(null, server.getPort());
+            client = c;
+
+            for(int i = 0; i < TOTAL_RECORDS; i++)
+            {
+                c.create(createRecord(i));
+            }
+
+            long cookie = c.lock(0);
+
+            final long[] waitingCookie = new long[]{-1L};
+
+            Thread waiting = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        waitingCookie[0] = c.lock(0);
+                    }
+                    catch(Exception e)
+                    {
+                        // the cookie is not set, which fails the test
+                    }
+                }
+            });
+
+            waiting.start();
+
+            final String[] failures = new String[TOTAL_THREADS];
+            Thread[] threads = new Thread[TOTAL_THREADS];
+
+            for(int i = 0; i < TOTAL_THREADS; i++)
+            {
+                final int thread = i;
+
+                threads[i] = new Thread(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            for(int j = 0; j < 50; j++)
+                            {
+                                int recNo = 1 + (thread + j) % (TOTAL_RECORDS - 1);
+                                String name = c.read(recNo)[0].trim();
+
+                                if(!name.equals("testName" + recNo))
+                                {
+                                    failures[thread] = "Record " + recNo + " has name " + name;
+                                    return;
+                                }
+                            }
+                        }
+                        catch(Exception e)
+                        {
+                            failures[thread] = e.toString();
+                        }
+                    }
+                });
+
+                threads[i].start();
+            }
+
+            for(int i = 0; i < TOTAL_THREADS; i++)
+            {
+                threads[i].join();
+                assertNull(failures[i], failures[i]);
+            }
+
+            assertTrue("Lock should still be waited for", waiting.isAlive());
+
+            c.unlock(0, cookie);
+            waiting.join(10000);
+
+            assertFalse("Lock should be granted", waiting.isAlive());
+            assertTrue("Lock cookie", waitingCookie[0] != -1L);
+
+            c.unlock(0, waitingCookie[0]);
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+        catch(RecordNotFoundException rnfe)
+        {
+            fail(rnfe.toString());
+        }
+        catch(DuplicateKeyException dke)
+        {
+            fail(dke.toString());
+        }
+        finally
+        {
+            shutdown(client, server, data, temp);
+        }
+    }
+
+    /**
+     * Blocks more connections in a lock of one record than the server has threads for requests that do not wait, and asserts that
+     * the client that holds the lock still reads and unlocks the record at once, and that every waiting connection then acquires it.
+     */
+    public void testBlockedLocks()
+    {
+        File temp = null;
+        Data data = null;
+        NioServer server = null;
+        NioRemoteDB client = null;
+        final NioRemoteDB[] waiters = new NioRemoteDB[NioConstants.MAX_WORKER_THREADS + 16];
+
+        try
+        {
+            temp = createDataFile();
+            data = new Data(temp.getAbsolutePath());
+            data.create(createRecord(0));
+            server = new NioServer(data, 0);
+            server.start();
+
+            client = new NioRemoteDB(null, server.getPort());
+
+            long cookie = client.lock(0);
+
+            final String[] failures = new String[waiters.length];
+            Thread[] threads = new Thread[waiters.length];
+
+            for(int i = 0; i < waiters.length; i++)
+            {
+                final int waiter = i;
+
+                waiters[i] = new NioRemoteDB(null, server.getPort());
+
+                threads[i] = new Thread(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            waiters[waiter].unlock(0, waiters[waiter].lock(0));
+                        }
+                        catch(Exception e)
+                        {
+                            failures[waiter] = e.toString();
+                        }
+                    }
+                });
+
+                threads[i].start();
+            }
+
+            // the waiting connections are given time to send their requests to lock
+            Thread.sleep(1000L);
+
+            long start = System.currentTimeMillis();
+
+            assertEquals("Record name", "testName0", client.read(0)[0].trim());
+
+            client.unlock(0, cookie);
+
+            assertTrue("Unlock should not wait for the blocked locks", System.currentTimeMillis() - start < 5000L);
+
+            for(int i = 0; i < threads.length; i++)
+            {
+                threads[i].join(30000L);
+
+                assertFalse("Waiter " + i + " should acquire the lock", threads[i].isAlive());
+                assertNull(failures[i], failures[i]);
+            }
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+        catch(RecordNotFoundException rnfe)
+        {
+            fail(rnfe.toString());
+        }
+        catch(DuplicateKeyException dke)
+        {
+            fail(dke.toString());
+        }
+        finally
+        {
+            for(int i = 0; i < waiters.length; i++)
+            {
+                if(waiters[i] != null)
+                {
+                    waiters[i].close();
+                }
+            }
+
+            shutdown(client, server, data, temp);
+        }
+    }
+
+    /**
+     * Sends many more requests on one connection than the server performs at once, without reading any response,
+     * and asserts that the server answers every request once the responses are read.
+     */
+    public void testInFlightLimit()
+    {
+        File temp = null;
+        Data data = null;
+        NioServer server = null;
+        Socket socket = null;
+
+        try
+        {
+            temp = createDataFile();
+            data = new Data(temp.getAbsolutePath());
+            data.create(createRecord(0));
+            server = new NioServer(data, 0);
+            server.start();
+
+            socket = new Socket("localhost", server.getPort());
+            socket.setSoTimeout(10000);
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            int requests = NioConstants.MAX_IN_FLIGHT * 8;
+
+            for(int i = 0; i < requests; i++)
+            {
+                out.writeInt(9);
+                out.writeInt(i);
+                out.writeByte(NioConstants.OP_READ);
+                out.writeInt(0);
+            }
+
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            boolean[] answered = new boolean[requests];
+
+            for(int i = 0; i < requests; i++)
+            {
+                byte[] frame = new byte[in.readInt()];
+                in.readFully(frame);
+
+                int requestId = ((frame[0] & 0xFF) << 24) | ((frame[1] & 0xFF) << 16) | ((frame[2] & 0xFF) << 8) | (frame[3] & 0xFF);
+
+                assertFalse("Request " + requestId + " answered twice", answered[requestId]);
+                assertEquals("Status of request " + requestId, NioConstants.STATUS_OK, frame[4]);
+
+                answered[requestId] = true;
+            }
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(DuplicateKeyException dke)
+        {
+            fail(dke.toString());
+        }
+        finally
+        {
+            if(socket != null)
+            {
+                try
+                {
+                    socket.close();
+                }
+                catch(IOException ioe)
+                {
+                    // the socket is discarded regardless
+                }
+            }
+
+            shutdown(null, server, data, temp);
+        }
+    }
+
+    // creates a sample record with a unique name and location
+    private String[] createRecord(int i)
+    {
+        return new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "$67" + i, null};
+    }
+
+    // creates an empty data file with the sample schema
+    private File createDataFile() throws IOException
+    {
+        File f = File.createTempFile("TestNioServer", "TestCase.db");
+
+        DataFile file = new DataFileImpl(f.getAbsolutePath(), "rw");
+
+        try
+        {
+            file.writeHeader(new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA));
+        }
+        finally
+        {
+            file.close();
+        }
+
+        return f;
+    }
+
+    // closes the client, stops the server, closes the data and deletes the data file, each if there is one
+    private void shutdown(NioRemoteDB client, NioServer server, Data data, File temp)
+    {
+        if(client != null)
+        {
+            client.close();
+        }
+
+        if(server != null)
+        {
+            server.stop();
+        }
+
+        if(data != null)
+        {
+            data.close();
+        }
+
+        if(temp != null && temp.exists())
+        {
+            temp.delete();
+        }
+
+        if(temp != null)
+        {
+            new File(temp.getAbsolutePath() + FieldIndexConstants.KEY_INDEX_FILE_SUFFIX).delete();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import suncertify.db.index.FieldIndex;
+import suncertify.db.index.SortedFieldIndexImpl;
+import suncertify.db.index.BitmapFieldIndexImpl;
+import suncertify.db.index.QueryPlan;
+import suncertify.db.index.QueryPlanner;
+import suncertify.db.index.QueryPlannerImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link QueryPlannerImpl QueryPlannerImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestQueryPlannerImpl extends TestCase
+{
+    private final static int TOTAL_RECORDS = 10000;
+
+    /**
+     * Constructs a <tt>TestQueryPlannerImpl</tt> with a null implementation.
+     */
+    public TestQueryPlannerImpl()
+    {
+
+    }
+
+    /**
+     * Plans sample criteria over a unique field with a sorted index, a field with 32 distinct values and a field with 4 distinct values,
+     * both with a bitmap index, and a field that is not indexed. Asserts that the plan with the lowest cost is chosen for each.
+     */
+    public void testPlan()
+    {
+        FieldIndex[] indexes = new FieldIndex[]
+        {
+            new SortedFieldIndexImpl(32),
+            new BitmapFieldIndexImpl(64),
+            new BitmapFieldIndexImpl(64),
+            null
+        };
+
+        for(int i = 0; i < TOTAL_RECORDS; i++)
+        {
+            indexes[0].add("name" + (100000 + i), i);
+            indexes[1].add("location" + (i % 32), i);
+            indexes[2].add("specialty" + (i % 4), i);
+        }
+
+        QueryPlanner planner = new QueryPlannerImpl();
+
+        QueryPlan plan = planner.plan(new String[]{null, null, null, "owner"}, indexes, TOTAL_RECORDS);
+        assertPlan(QueryPlan.FULL_SCAN, new int[0], plan);
+        assertEquals("Full scan reads every record", TOTAL_RECORDS, plan.getEstimatedRecords());
+
+        plan = planner.plan(new String[]{"name100042", null, null, null}, indexes, TOTAL_RECORDS);
+        assertPlan(QueryPlan.INDEX, new int[]{0}, plan);
+        assertEquals("Estimated records", 1, plan.getEstimatedRecords());
+
+        plan = planner.plan(new String[]{"name", "location7", null, null}, indexes, TOTAL_RECORDS);
+        assertPlan(QueryPlan.INDEX, new int[]{1}, plan);
+
+        plan = planner.plan(new String[]{null, "location7", "specialty3", "owner"}, indexes, TOTAL_RECORDS);
+        assertPlan(QueryPlan.INTERSECTION, new int[]{1, 2}, plan);
+
+        plan = planner.plan(new String[]{null, null, "specialty3", null}, indexes, TOTAL_RECORDS);
+        assertPlan(QueryPlan.FULL_SCAN, new int[0], plan);
+
+        plan = planner.plan(new String[]{null, "location", null, null}, indexes, TOTAL_RECORDS);
+        assertPlan(QueryPlan.FULL_SCAN, new int[0], plan);
+
+        plan = planner.plan(new String[]{"name100042", null}, indexes, TOTAL_RECORDS);
+        assertPlan(QueryPlan.FULL_SCAN, new int[0], plan);
+
+        assertTrue("Plan should be described", plan.toString().startsWith("FULL_SCAN"));
+    }
+
+    // asserts that the given plan has the given type and fields
+    private void assertPlan(int type, int[] fields, QueryPlan plan)
+    {
+        assertEquals("Plan type of " + plan, type, plan.getType());
+        assertEquals("Number of fields of " + plan, fields.length, plan.getFields().length);
+
+        for(int i = 0; i < fields.length; i++)
+        {
+            assertEquals("Field of " + plan, fields[i], plan.getFields()[i]);
+        }
+    }
+}
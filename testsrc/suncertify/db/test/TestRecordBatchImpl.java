@@ -0,0 +1,220 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import suncertify.db.RecordBatch;
+import suncertify.db.RecordBatchImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link RecordBatchImpl RecordBatchImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestRecordBatchImpl extends TestCase
+{
+    /**
+     * Constructs a <tt>TestRecordBatchImpl</tt> with a null implementation.
+     */
+    public TestRecordBatchImpl()
+    {
+
+    }
+
+    /**
+     * Writes a sample batch, which contains null records and null field values, to a stream and reads it back,
+     * and asserts that the record numbers and data are unchanged.
+     */
+    public void testExternalizable()
+    {
+        String[][] records = new String[][]
+        {
+            new String[]{"testName0", "testLocation0", "", "450"},
+            null,
+            new String[]{"testName\u00e4", null, "testSpecialties2", "452"},
+            new String[0]
+        };
+
+        assertRoundTrip(new RecordBatchImpl(new int[]{7, 0, 3, 1}, records));
+    }
+
+    /**
+     * Writes a sample batch of fixed width field values to a stream, and asserts that it reads back unchanged, that it writes
+     * again unchanged after it is read, and that it is smaller than the default serialized form of its arrays.
+     */
+    public void testPacked()
+    {
+        String[][] records = new String[200][];
+
+        for(int i = 0; i < records.length; i++)
+        {
+            records[i] = new String[]{pad("testName" + i, 32), pad("testLocation\u00e4" + i, 64), pad(String.valueOf(i), 6)};
+        }
+
+        int[] recNos = new int[records.length];
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            recNos[i] = i * 3;
+        }
+
+        RecordBatch expected = new RecordBatchImpl(recNos, records);
+
+        try
+        {
+            RecordBatch actual = assertRoundTrip(expected);
+            assertRoundTrip(actual);
+
+            byte[] packed = serialize(expected);
+            byte[] arrays = serialize(new Object[]{recNos, records});
+
+            assertTrue("Packed batch [" + packed.length + "] should be smaller than arrays [" + arrays.length + "]", packed.length < arrays.length);
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+    }
+
+    /**
+     * Writes a sample batch of fixed width field values, some of whose records are null (deleted), and asserts that it is written
+     * in the packed form, and reads back unchanged.
+     */
+    public void testPackedWithNullRecords()
+    {
+        String[][] records = new String[][]
+        {
+            null,
+            new String[]{pad("testName1", 32), pad("1", 6)},
+            null,
+            new String[]{pad("testName3", 32), pad("3", 6)}
+        };
+
+        RecordBatchImpl expected = new RecordBatchImpl(new int[]{4, 1, 5, 3}, records);
+
+        try
+        {
+            RecordBatch actual = assertRoundTrip(expected);
+            assertRoundTrip(actual);
+
+            // the first byte written is the form of the batch
+            byte[] withNulls = write(expected);
+            byte[] withoutNulls = write(new RecordBatchImpl(new int[]{1, 3}, new String[][]{records[1], records[3]}));
+
+            byte[] unpacked = write(new RecordBatchImpl(new int[]{1, 3}, new String[][]{records[1], new String[]{"testName3", "3"}}));
+
+            assertEquals("Should be written in the packed form", withoutNulls[0], withNulls[0]);
+            assertTrue("Should not be written in the form of values of different widths", unpacked[0] != withNulls[0]);
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+    }
+
+    /**
+     * Asserts that a batch cannot be constructed with a different number of record numbers and records.
+     */
+    public void testDifferentLengths()
+    {
+        try
+        {
+            new RecordBatchImpl(new int[]{0, 1}, new String[1][]);
+            fail("Should not construct a batch with different lengths");
+        }
+        catch(IllegalArgumentException iae)
+        {
+            // expected
+        }
+    }
+
+    // writes the given batch to a stream and reads it back, asserts that the record numbers and data are unchanged, and returns the batch that was read
+    private RecordBatch assertRoundTrip(RecordBatch expected)
+    {
+        RecordBatch actual = null;
+
+        try
+        {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialize(expected)));
+            actual = (RecordBatch)in.readObject();
+            in.close();
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(ClassNotFoundException cnfe)
+        {
+            fail(cnfe.toString());
+        }
+
+        assertEquals("Number of records", expected.size(), actual.size());
+
+        for(int i = 0; i < expected.size(); i++)
+        {
+            assertEquals("Record number", expected.getRecordNumber(i), actual.getRecordNumber(i));
+
+            String[] e = expected.getRecord(i);
+            String[] a = actual.getRecord(i);
+
+            if(e == null)
+            {
+                assertNull("Null record", a);
+            }
+            else
+            {
+                assertEquals("Number of fields", e.length, a.length);
+
+                for(int j = 0; j < e.length; j++)
+                {
+                    assertEquals("Field value", e[j], a[j]);
+                }
+            }
+        }
+
+        return actual;
+    }
+
+    // returns the serialized form of the given object
+    private byte[] serialize(Object o) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(o);
+        out.close();
+
+        return bytes.toByteArray();
+    }
+
+    // returns the form of the given batch that is written by writeTo
+    private byte[] write(RecordBatchImpl batch) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        batch.writeTo(out);
+        out.close();
+
+        return bytes.toByteArray();
+    }
+
+    // pads the given value with spaces to the given width, as a field value is stored in the data file
+    private String pad(String value, int width)
+    {
+        StringBuffer sb = new StringBuffer(value);
+
+        while(sb.length() < width)
+        {
+            sb.append(' ');
+        }
+
+        return sb.toString();
+    }
+}
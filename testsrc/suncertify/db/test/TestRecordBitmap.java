@@ -0,0 +1,138 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.Iterator;
+
+import suncertify.db.index.RecordBitmap;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link RecordBitmap RecordBitmap} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestRecordBitmap extends TestCase
+{
+    /**
+     * Constructs a <tt>TestRecordBitmap</tt> with a null implementation.
+     */
+    public TestRecordBitmap()
+    {
+
+    }
+
+    /**
+     * Adds and removes sample record numbers, both sparse and dense, and asserts that the bitmap contains the same
+     * record numbers as a <code>java.util.TreeSet</code>.
+     */
+    public void testAddRemove()
+    {
+        Random random = new Random(461);
+
+        RecordBitmap bitmap = new RecordBitmap();
+        SortedSet expected = new TreeSet();
+
+        for(int i = 0; i < 20000; i++)
+        {
+            // a dense range of record numbers, and sparse record numbers across several containers
+            int recNo = (i % 2 == 0) ? random.nextInt(10000) : random.nextInt(1000000);
+
+            assertEquals("Add should agree", expected.add(new Integer(recNo)), bitmap.add(recNo));
+        }
+
+        assertRecords(expected, bitmap);
+
+        for(int i = 0; i < 15000; i++)
+        {
+            int recNo = random.nextInt(10000);
+
+            assertEquals("Remove should agree", expected.remove(new Integer(recNo)), bitmap.remove(recNo));
+        }
+
+        assertRecords(expected, bitmap);
+        assertTrue("Should contain record", bitmap.contains(((Integer)expected.first()).intValue()));
+        assertFalse("Should not contain record", bitmap.contains(2000000));
+    }
+
+    /**
+     * Combines sample bitmaps, both sparse and dense, with each set operation and asserts that the results contain the same
+     * record numbers as the equivalent operations on a <code>java.util.TreeSet</code>.
+     */
+    public void testSetOperations()
+    {
+        Random random = new Random(73);
+
+        int[] bounds = new int[]{100, 70000, 300000};
+
+        for(int b = 0; b < bounds.length; b++)
+        {
+            RecordBitmap a = new RecordBitmap();
+            RecordBitmap c = new RecordBitmap();
+            SortedSet sa = new TreeSet();
+            SortedSet sc = new TreeSet();
+
+            for(int i = 0; i < 50000; i++)
+            {
+                int recNo = random.nextInt(bounds[b]);
+
+                a.add(recNo);
+                sa.add(new Integer(recNo));
+
+                // a sparse second operand, so that dense and sparse containers are combined
+                if(i % 5 == 0)
+                {
+                    recNo = random.nextInt(bounds[b]);
+
+                    c.add(recNo);
+                    sc.add(new Integer(recNo));
+                }
+            }
+
+            SortedSet and = new TreeSet(sa);
+            and.retainAll(sc);
+
+            SortedSet or = new TreeSet(sa);
+            or.addAll(sc);
+
+            SortedSet andNot = new TreeSet(sa);
+            andNot.removeAll(sc);
+
+            SortedSet notAnd = new TreeSet(sc);
+            notAnd.removeAll(sa);
+
+            assertRecords(and, a.and(c));
+            assertRecords(and, c.and(a));
+            assertRecords(or, a.or(c));
+            assertRecords(or, c.or(a));
+            assertRecords(andNot, a.andNot(c));
+            assertRecords(notAnd, c.andNot(a));
+            assertRecords(sa, a);
+            assertRecords(sc, c);
+
+            assertEquals("Equal bitmaps", a.and(c), c.and(a));
+            assertEquals("Equal hash codes", a.and(c).hashCode(), c.and(a).hashCode());
+            assertTrue("Empty bitmap", a.andNot(a).isEmpty());
+        }
+    }
+
+    // asserts that the given bitmap contains the given record numbers, in ascending order
+    private void assertRecords(SortedSet expected, RecordBitmap bitmap)
+    {
+        int[] recNos = bitmap.toArray();
+
+        assertEquals("Number of records", expected.size(), recNos.length);
+        assertEquals("Cardinality", expected.size(), bitmap.cardinality());
+
+        Iterator it = expected.iterator();
+
+        for(int i = 0; i < recNos.length; i++)
+        {
+            assertEquals("Record number", ((Integer)it.next()).intValue(), recNos[i]);
+        }
+    }
+}
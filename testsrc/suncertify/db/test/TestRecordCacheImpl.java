@@ -0,0 +1,165 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+
+import suncertify.db.Data;
+import suncertify.db.RecordNotFoundException;
+import suncertify.db.DuplicateKeyException;
+import suncertify.db.client.RecordCache;
+import suncertify.db.client.RecordCacheImpl;
+import suncertify.db.datafile.FieldSchema;
+import suncertify.db.datafile.FieldSchemaImpl;
+import suncertify.db.datafile.DataFile;
+import suncertify.db.datafile.DataFileHeader;
+import suncertify.db.datafile.DataFileImpl;
+import suncertify.db.server.NioServer;
+import suncertify.db.server.NioRemoteDB;
+import suncertify.db.index.FieldIndexConstants;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link RecordCacheImpl RecordCacheImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestRecordCacheImpl extends TestCase
+{
+    private final static int MAGIC_NUMBER = 0x00002020;
+    private final static int DATA_OFFSET = 0x00000046;
+    private final static int TOTAL_RECORDS = 10;
+
+    private final static FieldSchema[] SCHEMA = new FieldSchema[]
+    {
+        new FieldSchemaImpl("name", (short)32),
+        new FieldSchemaImpl("location", (short)64),
+        new FieldSchemaImpl("specialties", (short)64),
+        new FieldSchemaImpl("size", (short)6),
+        new FieldSchemaImpl("rate", (short)8),
+        new FieldSchemaImpl("owner", (short)8)
+    };
+
+    /**
+     * Constructs a <tt>TestRecordCacheImpl</tt> with a null implementation.
+     */
+    public TestRecordCacheImpl()
+    {
+
+    }
+
+    /**
+     * Reads records through the cache, changes some of them on the server, and asserts that the cache returns the changed records,
+     * that a deleted record is read as <code>null</code>, and that a cached copy cannot be changed by the caller.
+     */
+    public void testRead()
+    {
+        File temp = null;
+        Data data = null;
+        NioServer server = null;
+        NioRemoteDB client = null;
+
+        try
+        {
+            temp = File.createTempFile("TestRecordCacheImpl", "TestCase.db");
+
+            DataFile file = new DataFileImpl(temp.getAbsolutePath(), "rw");
+            file.writeHeader(new DataFileHeader(MAGIC_NUMBER, DATA_OFFSET, (short)SCHEMA.length, SCHEMA));
+            file.close();
+
+            data = new Data(temp.getAbsolutePath());
+
+            for(int i = 0; i < TOTAL_RECORDS; i++)
+            {
+                data.create(new String[]{"testName" + i, "testLocation" + i, "testSpecialties" + i, "45" + i, "$67" + i, null});
+            }
+
+            server = new NioServer(data, 0);
+            server.start();
+
+            client = new NioRemoteDB(null, server.getPort());
+
+            RecordCache cache = new RecordCacheImpl(client);
+
+            String[][] records = cache.read(new int[]{5, 1, 3});
+
+            assertEquals("Cached records", 3, cache.size());
+            assertEquals("Record name", "testName5", records[0][0].trim());
+            assertEquals("Record name", "testName1", records[1][0].trim());
+
+            records[0][0] = "changedByCaller";
+
+            long cookie = data.lock(1);
+            data.update(1, new String[]{"testName1", "testLocation1", "updated", "451", "$671", null}, cookie);
+            data.unlock(1, cookie);
+
+            cookie = data.lock(3);
+            data.delete(3, cookie);
+            data.unlock(3, cookie);
+
+            records = cache.read(new int[]{5, 1, 3, 7});
+
+            assertEquals("Cached records", 4, cache.size());
+            assertEquals("Unchanged record name", "testName5", records[0][0].trim());
+            assertEquals("Updated record specialties", "updated", records[1][2].trim());
+            assertNull("Deleted record", records[2]);
+            assertEquals("Record name", "testName7", records[3][0].trim());
+
+            cache.clear();
+
+            assertEquals("Cached records", 0, cache.size());
+            assertEquals("Record name", "testName7", cache.read(new int[]{7})[0][0].trim());
+
+            try
+            {
+                cache.read(new int[]{TOTAL_RECORDS});
+                fail("Expected RecordNotFoundException");
+            }
+            catch(RecordNotFoundException rnfe)
+            {
+                // expected
+            }
+        }
+        catch(IOException ioe)
+        {
+            fail(ioe.toString());
+        }
+        catch(RecordNotFoundException rnfe)
+        {
+            fail(rnfe.toString());
+        }
+        catch(DuplicateKeyException dke)
+        {
+            fail(dke.toString());
+        }
+        finally
+        {
+            if(client != null)
+            {
+                client.close();
+            }
+
+            if(server != null)
+            {
+                server.stop();
+            }
+
+            if(data != null)
+            {
+                data.close();
+            }
+
+            if(temp != null && temp.exists())
+            {
+                temp.delete();
+            }
+
+            if(temp != null)
+            {
+                new File(temp.getAbsolutePath() + FieldIndexConstants.KEY_INDEX_FILE_SUFFIX).delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import suncertify.db.index.FieldIndex;
+import suncertify.db.index.SortedFieldIndexImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link SortedFieldIndexImpl SortedFieldIndexImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestSortedFieldIndexImpl extends TestCase
+{
+    /**
+     * Constructs a <tt>TestSortedFieldIndexImpl</tt> with a null implementation.
+     */
+    public TestSortedFieldIndexImpl()
+    {
+
+    }
+
+    /**
+     * Adds and removes sample field values, and asserts that prefix lookups return the same record numbers,
+     * in ascending order, as a prefix match of each value padded to the length of the field.
+     */
+    public void testFind()
+    {
+        FieldIndex index = new SortedFieldIndexImpl(8);
+
+        index.add("Fred", 4);
+        index.add("Freddy  ", 1);
+        index.add("Frank", 2);
+        index.add("Fred", 0);
+        index.add(" Fred", 3);
+        index.add(null, 5);
+        index.add("Frederick", 6);
+
+        assertEquals("Number of records", 7, index.size());
+
+        assertRecords(new int[]{0, 1, 4, 6}, index.find("Fred").toArray());
+        assertRecords(new int[]{0, 1, 2, 4, 6}, index.find("Fr").toArray());
+        assertRecords(new int[]{0, 4}, index.find("Fred ").toArray());
+        assertRecords(new int[]{0, 4}, index.find("Fred    ").toArray());
+        assertRecords(new int[0], index.find("Fred     ").toArray());
+        assertRecords(new int[]{6}, index.find("Frederic").toArray());
+        assertRecords(new int[]{3, 5}, index.find(" ").toArray());
+        assertRecords(new int[]{0, 1, 2, 3, 4, 5, 6}, index.find("").toArray());
+        assertRecords(new int[0], index.find("Bob").toArray());
+
+        assertFalse("Should not remove value of another record", index.remove("Fred", 1));
+        assertTrue("Should remove value", index.remove("Fred    ", 4));
+        assertRecords(new int[]{0, 1, 6}, index.find("Fred").toArray());
+        assertEquals("Number of records", 6, index.size());
+
+        index.clear();
+
+        assertEquals("Number of records", 0, index.size());
+        assertRecords(new int[0], index.find("").toArray());
+    }
+
+    // asserts that the given record numbers are the expected record numbers
+    private void assertRecords(int[] expected, int[] actual)
+    {
+        assertEquals("Number of records", expected.length, actual.length);
+
+        for(int i = 0; i < expected.length; i++)
+        {
+            assertEquals("Record number", expected[i], actual[i]);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package suncertify.db.test;
+
+import junit.framework.TestCase;
+
+import suncertify.db.DataChange;
+import suncertify.db.DataChangeImpl;
+import suncertify.db.server.SubscriptionManager;
+import suncertify.db.server.SubscriptionManagerImpl;
+
+/**
+ * An automated test case using the <a href="http://www.junit.org/">JUnit</a> 3.8.1 testing framework.
+ * Tests the {@link SubscriptionManagerImpl SubscriptionManagerImpl} class.
+ *
+ * @author <a href="mailto:tonymorr@au1.ibm.com">Tony Morris</a>
+ * @version 1.0 (build @build.number@)
+ */
+public class TestSubscriptionManagerImpl extends TestCase
+{
+    // long enough that a slow test run does not pass the lease before a subscription is polled
+    private final static long LEASE = 1000L;
+
+    /**
+     * Constructs a <tt>TestSubscriptionManagerImpl</tt> with a null implementation.
+     */
+    public TestSubscriptionManagerImpl()
+    {
+
+    }
+
+    /**
+     * Publishes changes to two subscriptions, and asserts that each poll returns the changes that were made since the last poll,
+     * in order, and that a poll with no changes returns none once its timeout passes.
+     */
+    public void testPoll()
+    {
+        SubscriptionManager manager = new SubscriptionManagerImpl(LEASE, 2, 10);
+
+        try
+        {
+            long first = manager.subscribe();
+            long second = manager.subscribe();
+
+            assertTrue("Subscription ids should differ", first != second);
+
+            manager.dataChanged(new DataChangeImpl(DataChange.CREATED, 3, new String[]{"a", "b"}));
+            manager.dataChanged(new DataChangeImpl(DataChange.DELETED, 1, null));
+
+            DataChange[] changes = manager.poll(first, 0L);
+
+            assertEquals("Number of changes", 2, changes.length);
+            assertEquals("Change type", DataChange.CREATED, changes[0].getType());
+            assertEquals("Change record number", 3, changes[0].getRecordNumber());
+            assertEquals("Change record", "b", changes[0].getRecord()[1]);
+            assertEquals("Change type", DataChange.DELETED, changes[1].getType());
+            assertNull("Deleted record", changes[1].getRecord());
+
+            assertEquals("Number of changes after poll", 0, manager.poll(first, 10L).length);
+            assertEquals("Number of changes of other subscription", 2, manager.poll(second, 0L).length);
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+    }
+
+    /**
+     * Waits for a change on one thread while it is published on another, and asserts that the poll returns it before its timeout.
+     */
+    public void testWait()
+    {
+        final SubscriptionManager manager = new SubscriptionManagerImpl();
+
+        try
+        {
+            long id = manager.subscribe();
+
+            Thread publisher = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        Thread.sleep(100L);
+                    }
+                    catch(InterruptedException ie)
+                    {
+                        // publish at once
+                    }
+
+                    manager.dataChanged(new DataChangeImpl(DataChange.UPDATED, 7, new String[]{"a"}));
+                }
+            });
+
+            long start = System.currentTimeMillis();
+
+            publisher.start();
+
+            DataChange[] changes = manager.poll(id, 10000L);
+
+            assertTrue("Poll should return once a change is published", System.currentTimeMillis() - start < 5000L);
+            assertEquals("Number of changes", 1, changes.length);
+            assertEquals("Change record number", 7, changes[0].getRecordNumber());
+
+            publisher.join();
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+    }
+
+    /**
+     * Publishes more changes than a subscription holds, and asserts that the poll reports that changes were lost, and that the
+     * subscription holds later changes again.
+     */
+    public void testLostChanges()
+    {
+        SubscriptionManager manager = new SubscriptionManagerImpl(LEASE, 2, 2);
+
+        try
+        {
+            long id = manager.subscribe();
+
+            for(int i = 0; i < 3; i++)
+            {
+                manager.dataChanged(new DataChangeImpl(DataChange.DELETED, i, null));
+            }
+
+            assertNull("Changes should be lost", manager.poll(id, 0L));
+
+            manager.dataChanged(new DataChangeImpl(DataChange.DELETED, 4, null));
+
+            assertEquals("Number of changes", 1, manager.poll(id, 0L).length);
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+    }
+
+    /**
+     * Discards and expires subscriptions, and asserts that they cannot be polled, and that no more than the largest number of
+     * subscriptions may be held at once.
+     */
+    public void testUnsubscribeAndExpire()
+    {
+        SubscriptionManager manager = new SubscriptionManagerImpl(LEASE, 2, 10);
+
+        try
+        {
+            long first = manager.subscribe();
+            long second = manager.subscribe();
+
+            try
+            {
+                manager.subscribe();
+                fail("Should not hold more than the largest number of subscriptions");
+            }
+            catch(IllegalStateException ise)
+            {
+                // expected
+            }
+
+            manager.unsubscribe(first);
+            manager.unsubscribe(first);
+
+            assertEquals("Subscriptions", 1, manager.size());
+
+            try
+            {
+                manager.poll(first, 0L);
+                fail("Should not poll a discarded subscription");
+            }
+            catch(IllegalArgumentException iae)
+            {
+                // expected
+            }
+
+            Thread.sleep(LEASE * 2);
+
+            try
+            {
+                manager.poll(second, 0L);
+                fail("Should not poll an expired subscription");
+            }
+            catch(IllegalArgumentException iae)
+            {
+                // expected
+            }
+        }
+        catch(InterruptedException ie)
+        {
+            fail(ie.toString());
+        }
+    }
+}